@@ -0,0 +1,37 @@
+package benchmarks;
+
+import domain.user;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code userService.authenticate}: one user lookup plus password hashing.
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticateBenchmark {
+
+    /**
+     * @param library the seeded application
+     * @return the authenticated user
+     */
+    @Benchmark
+    public user authenticate(EmbeddedLibrary library) {
+        int student = ThreadLocalRandom.current().nextInt(EmbeddedLibrary.STUDENTS);
+        return library.userService.authenticate(EmbeddedLibrary.studentEmail(student), EmbeddedLibrary.PASSWORD);
+    }
+}
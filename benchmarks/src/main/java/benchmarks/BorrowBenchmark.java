@@ -0,0 +1,63 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code BorrowService.borrowItem} and {@code returnItem} end to end,
+ * including the pool and the database round trip.
+ * <p>
+ * Each invocation borrows a random item for a random student and returns it again,
+ * so stock and open loans stay constant however long the run is.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BorrowBenchmark {
+
+    /**
+     * One borrow plus one return, reported per operation.
+     *
+     * @param library the seeded application
+     * @return whether both calls succeeded
+     */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public boolean borrowThenReturn(EmbeddedLibrary library) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String email = EmbeddedLibrary.studentEmail(random.nextInt(EmbeddedLibrary.STUDENTS));
+        int isbn = 1 + random.nextInt(EmbeddedLibrary.ITEMS);
+
+        return library.borrowService.borrowItem(email, isbn)
+                && library.borrowService.returnItem(email, isbn);
+    }
+
+    /**
+     * The same round trip with eight callers competing for pooled connections.
+     *
+     * @param library the seeded application
+     * @return whether both calls succeeded
+     */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    @Threads(8)
+    public boolean borrowThenReturnContended(EmbeddedLibrary library) {
+        return borrowThenReturn(library);
+    }
+}
@@ -0,0 +1,153 @@
+package benchmarks;
+
+import config.DatabaseConfig;
+import infrastructure.ConnectionPool;
+import infrastructure.DatabaseConnection;
+import infrastructure.SchemaMigrator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import repository.BorrowRepository;
+import repository.CatalogIndex;
+import repository.ItemsRepository;
+import repository.userRepository;
+import service.BorrowService;
+import service.ItemsService;
+import service.userService;
+import util.PasswordHasher;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Properties;
+
+/**
+ * The application wired against an embedded PostgreSQL started inside the benchmark JVM.
+ * <p>
+ * The database is migrated with {@link SchemaMigrator} and seeded with {@link #ITEMS}
+ * items and {@link #STUDENTS} students once per trial, so every benchmark sees the
+ * same data and needs no external server.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class EmbeddedLibrary {
+
+    /** Number of seeded items; ISBNs run from 1 to this value. */
+    static final int ITEMS = 10_000;
+
+    /** Number of seeded students. */
+    static final int STUDENTS = 1_000;
+
+    /** Password of every seeded student. */
+    static final String PASSWORD = "benchmark-password";
+
+    /** Stock per item, high enough that borrowing never runs out during a run. */
+    private static final int STOCK = 1_000_000;
+
+    private static final String[] WORDS = {
+            "history", "modern", "java", "music", "garden", "ocean", "silent", "winter",
+            "science", "classic", "stories", "night", "river", "machine", "journey", "light"
+    };
+
+    private static final String[] AUTHORS = {
+            "Sara Ahmad", "Shatha Omar", "Lina Haddad", "Omar Khalil",
+            "Maya Nasser", "Yousef Saleh", "Rania Odeh", "Karim Aziz"
+    };
+
+    private EmbeddedPostgres postgres;
+    private ConnectionPool pool;
+
+    BorrowService borrowService;
+    ItemsService databaseSearch;
+    ItemsService indexedSearch;
+    userService userService;
+
+    /**
+     * Starts PostgreSQL, applies the migrations, seeds data and wires the services.
+     *
+     * @throws Exception if the database cannot be started or seeded
+     */
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        postgres = EmbeddedPostgres.start();
+
+        Properties props = new Properties();
+        props.setProperty("db.url", postgres.getJdbcUrl("postgres", "postgres"));
+        props.setProperty("db.username", "postgres");
+        props.setProperty("db.pool.maxSize", "16");
+        pool = DatabaseConnection.createPool(DatabaseConfig.fromProperties(props));
+
+        new SchemaMigrator(pool).migrate();
+        seed();
+
+        ItemsRepository itemsRepository = new ItemsRepository(pool);
+        borrowService = new BorrowService(new BorrowRepository(pool));
+        databaseSearch = new ItemsService(itemsRepository);
+        indexedSearch = new ItemsService(itemsRepository, CatalogIndex.build(itemsRepository));
+        userService = new userService(new userRepository(pool));
+    }
+
+    /**
+     * Closes the pool and stops PostgreSQL.
+     *
+     * @throws Exception if the database does not shut down cleanly
+     */
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        pool.close();
+        postgres.close();
+    }
+
+    /**
+     * @return the pooled data source of the embedded database
+     */
+    DataSource dataSource() {
+        return pool;
+    }
+
+    /**
+     * @param i a number in {@code [0, STUDENTS)}
+     * @return the email of the i-th seeded student
+     */
+    static String studentEmail(int i) {
+        return "student" + i + "@library.test";
+    }
+
+    private void seed() throws Exception {
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO items (author, name, type, quantity) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < ITEMS; i++) {
+                    stmt.setString(1, AUTHORS[i % AUTHORS.length]);
+                    stmt.setString(2, WORDS[i % WORDS.length] + " " + WORDS[(i * 7 + 3) % WORDS.length] + " " + i);
+                    stmt.setString(3, i % 4 == 0 ? "CD" : "Book");
+                    stmt.setInt(4, STOCK);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            String hash = PasswordHasher.hashPassword(PASSWORD);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO users (email, role, password_hash) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < STUDENTS; i++) {
+                    stmt.setString(1, studentEmail(i));
+                    stmt.setString(2, "1");
+                    stmt.setString(3, hash);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import domain.strategyPattern.FineStrategy;
+import domain.strategyPattern.FineStrategyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FineStrategyFactory#getStrategy(String)}.
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FineStrategyBenchmark {
+
+    /** Item type names as stored in the database. */
+    @Param({"Book", "CD"})
+    public String type;
+
+    /**
+     * @return the strategy for the type
+     */
+    @Benchmark
+    public FineStrategy getStrategy() {
+        return FineStrategyFactory.getStrategy(type);
+    }
+
+    /**
+     * @return the one-day fine for the type
+     */
+    @Benchmark
+    public int getStrategyAndCalculate() {
+        return FineStrategyFactory.getStrategy(type).calculateFine(1);
+    }
+}
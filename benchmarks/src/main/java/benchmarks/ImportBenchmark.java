@@ -0,0 +1,107 @@
+package benchmarks;
+
+import domain.libraryType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.ItemImportRepository;
+import repository.ItemsRepository;
+import service.ItemImporter;
+import service.ItemsService;
+import util.CsvReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading a catalogue feed one {@code ItemsService.addNewItem} call per row
+ * with the chunked {@code COPY} of {@link ItemImporter}.
+ * <p>
+ * Every invocation loads the same {@link #ROWS}-row CSV feed, held in memory so
+ * the file system is not measured. Results are reported per row.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ImportBenchmark {
+
+    /** Rows in the feed. */
+    static final int ROWS = 10_000;
+
+    private String feed;
+    private ItemImporter importer;
+    private ItemsService itemsService;
+    private long runs;
+
+    /**
+     * Builds the feed and wires the importer and the service.
+     *
+     * @param library the seeded application
+     */
+    @Setup(Level.Trial)
+    public void setUp(EmbeddedLibrary library) {
+        StringBuilder csv = new StringBuilder("name,author,quantity,type\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("\"Imported title ").append(i).append("\",Author ").append(i % 500)
+                    .append(',').append(1 + i % 5).append(',').append(i % 4 == 0 ? "CD" : "Book").append('\n');
+        }
+        feed = csv.toString();
+        importer = new ItemImporter(new ItemImportRepository(library.dataSource()));
+        itemsService = new ItemsService(new ItemsRepository(library.dataSource()));
+    }
+
+    /**
+     * The feed through {@link ItemImporter}, under a new import id each time so no
+     * row is skipped as already imported.
+     *
+     * @return the import's counts
+     * @throws IOException never; the feed is in memory
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ItemImporter.Result copyInChunks() throws IOException {
+        return importer.run("benchmark-" + runs++, new CsvReader(new StringReader(feed), ','),
+                new ItemImporter.Listener() {
+                });
+    }
+
+    /**
+     * The feed one {@code addNewItem} call, connection checkout and INSERT per row.
+     *
+     * @return the number of rows inserted
+     * @throws IOException never; the feed is in memory
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int addNewItemPerRow() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(feed), ',');
+        csv.next();
+        int added = 0;
+        List<String> row;
+        while ((row = csv.next()) != null) {
+            if (itemsService.addNewItem(row.get(0), row.get(1), Integer.parseInt(row.get(2)),
+                    libraryType.valueOf(row.get(3)))) {
+                added++;
+            }
+        }
+        return added;
+    }
+}
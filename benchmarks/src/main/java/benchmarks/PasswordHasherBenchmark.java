@@ -0,0 +1,111 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import util.PasswordHasher;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy {@link PasswordHasher#hashPassword(String)} with the implementation
+ * it replaced, which looked up a new {@link MessageDigest} and formatted every byte with
+ * {@code String.format}. Also measures one calibrated salted hash and a burst of them
+ * on the hashing pool, where the concurrency cap applies.
+ * <p>
+ * Run with {@code -prof gc} to compare the allocation rates as well.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    /** Hashes submitted at once by {@link #burstOnPool()}. */
+    private static final int BURST = 64;
+
+    /** A typical short password and a long passphrase. */
+    @Param({"benchmark-password", "correct horse battery staple and a much longer passphrase"})
+    public String password;
+
+    private PasswordHasher hasher;
+
+    @Setup(Level.Trial)
+    public void startPool() {
+        hasher = new PasswordHasher();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPool() {
+        hasher.close();
+    }
+
+    /**
+     * @return the hex digest
+     */
+    @Benchmark
+    public String hashPassword() {
+        return PasswordHasher.hashPassword(password);
+    }
+
+    /**
+     * @return a salted hash at the calibrated cost
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String saltedHash() {
+        return hasher.hash(password);
+    }
+
+    /**
+     * @return the hex digest, computed the way the previous implementation did
+     */
+    @Benchmark
+    public String previousHashPassword() {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(password.getBytes());
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error hashing password", e);
+        }
+    }
+
+    /**
+     * @return the digests of a burst of hashes submitted to the pool at once
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String[] burstOnPool() {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<String>[] futures = new CompletableFuture[BURST];
+        for (int i = 0; i < BURST; i++) futures[i] = hasher.hashAsync(password);
+
+        String[] hashes = new String[BURST];
+        for (int i = 0; i < BURST; i++) hashes[i] = futures[i].join();
+        return hashes;
+    }
+}
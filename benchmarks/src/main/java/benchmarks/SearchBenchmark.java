@@ -0,0 +1,50 @@
+package benchmarks;
+
+import domain.Items;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code ItemsService.searchByName} answered by the trigram-indexed
+ * database query and by the in-memory {@code CatalogIndex}.
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    /** Where the search is answered. */
+    @Param({"database", "index"})
+    public String source;
+
+    /** A whole word, text inside words, and a two-word query. */
+    @Param({"history", "ri", "modern java"})
+    public String query;
+
+    /**
+     * @param library the seeded application
+     * @return the first page of matches
+     */
+    @Benchmark
+    public List<Items> searchByName(EmbeddedLibrary library) {
+        return ("index".equals(source) ? library.indexedSearch : library.databaseSearch)
+                .searchByName(query, null);
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A data source that records the plan of every prepared statement the application runs.
+ * <p>
+ * Before a statement executes, the same SQL is run as {@code EXPLAIN (FORMAT JSON)} on
+ * the same connection with the same parameters, and the plan is kept. {@code EXPLAIN}
+ * without {@code ANALYZE} does not run the statement, so data-modifying statements are
+ * explained without side effects; the real statement then runs as usual.
+ * </p>
+ */
+final class ExplainingDataSource {
+
+    /** A statement and the plan PostgreSQL chose for it. */
+    record Plan(String sql, String json) {
+    }
+
+    private final DataSource target;
+    private final List<Plan> plans = new ArrayList<>();
+
+    ExplainingDataSource(DataSource target) {
+        this.target = target;
+    }
+
+    /**
+     * @return a data source that behaves like the target and records plans
+     */
+    DataSource dataSource() {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection conn ? connection(conn) : result;
+        });
+    }
+
+    /**
+     * Returns and forgets the plans recorded so far.
+     *
+     * @return the plans in execution order
+     */
+    synchronized List<Plan> takePlans() {
+        List<Plan> taken = List.copyOf(plans);
+        plans.clear();
+        return taken;
+    }
+
+    private Connection connection(Connection conn) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(conn, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement stmt) {
+                return statement(conn, stmt, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement statement(Connection conn, PreparedStatement stmt, String sql) {
+        List<Object[]> bindings = new ArrayList<>();
+        List<Method> setters = new ArrayList<>();
+
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                setters.add(method);
+                bindings.add(args);
+            } else if (name.equals("executeQuery") || name.equals("executeUpdate") || name.equals("execute")) {
+                explain(conn, sql, setters, bindings);
+            }
+            return invoke(stmt, method, args);
+        });
+    }
+
+    private void explain(Connection conn, String sql, List<Method> setters, List<Object[]> bindings)
+            throws Exception {
+        try (PreparedStatement explain = conn.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            for (int i = 0; i < setters.size(); i++) {
+                setters.get(i).invoke(explain, bindings.get(i));
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                StringBuilder json = new StringBuilder();
+                while (rs.next()) json.append(rs.getString(1));
+                synchronized (this) {
+                    plans.add(new Plan(sql, json.toString()));
+                }
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
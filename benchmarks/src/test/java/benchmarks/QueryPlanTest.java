@@ -0,0 +1,175 @@
+package benchmarks;
+
+import domain.Borrow;
+import domain.Role;
+import domain.libraryType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.BorrowRepository;
+import repository.ItemsRepository;
+import repository.userRepository;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fails if a hot repository query is planned as a sequential scan of a large table.
+ * <p>
+ * The embedded database is seeded with enough borrow history and users that a missing
+ * index makes PostgreSQL prefer a sequential scan. Every statement the repositories
+ * issue is explained with the parameters it actually runs with.
+ * </p>
+ * <p>
+ * Full-table reports ({@code forEachItem}, {@code getAllTotalFines}, the unpaged
+ * overdue and inactive-user lists) read most of a table by design and are not checked.
+ * </p>
+ */
+class QueryPlanTest {
+
+    /** Seeded borrow rows; one in 50 is still active and one in 97 carries a fine. */
+    private static final int BORROWS = 200_000;
+
+    /** Users added on top of the students seeded by {@link EmbeddedLibrary}. */
+    private static final int EXTRA_USERS = 50_000;
+
+    private static final List<String> LARGE_TABLES = List.of("student_borrow", "users", "items");
+
+    private static final Pattern SEQ_SCAN =
+            Pattern.compile("\"Node Type\": \"Seq Scan\",[^{}]*?\"Relation Name\": \"(\\w+)\"");
+
+    private static EmbeddedLibrary library;
+    private static ExplainingDataSource explaining;
+
+    private static BorrowRepository borrows;
+    private static userRepository users;
+    private static ItemsRepository items;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        library = new EmbeddedLibrary();
+        library.start();
+
+        try (Connection conn = library.dataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                INSERT INTO users (email, role, password_hash)
+                SELECT 'reader' || g || '@library.test', '1', 'x'
+                FROM generate_series(1, %d) g
+            """.formatted(EXTRA_USERS));
+            stmt.execute("""
+                INSERT INTO student_borrow (student_email, item_isbn, borrow_date, overdue_date, returned, fine)
+                SELECT 'student' || (g %% %d) || '@library.test',
+                       1 + g %% %d,
+                       CURRENT_DATE - (g %% 400),
+                       CURRENT_DATE - (g %% 400) + 14,
+                       g %% 50 <> 0,
+                       CASE WHEN g %% 97 = 0 THEN 5 ELSE 0 END
+                FROM generate_series(1, %d) g
+            """.formatted(EmbeddedLibrary.STUDENTS, EmbeddedLibrary.ITEMS, BORROWS));
+            stmt.execute("ANALYZE");
+        }
+
+        explaining = new ExplainingDataSource(library.dataSource());
+        borrows = new BorrowRepository(explaining.dataSource());
+        users = new userRepository(explaining.dataSource());
+        items = new ItemsRepository(explaining.dataSource());
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        library.stop();
+    }
+
+    @BeforeEach
+    void forgetPlans() {
+        explaining.takePlans();
+    }
+
+    @Test
+    void borrowAndReturnUseIndexes() {
+        String student = EmbeddedLibrary.studentEmail(7);
+        LocalDate today = LocalDate.now();
+
+        borrows.borrowItem(student, 42, today);
+        borrows.findActiveBorrow(student, 42);
+        borrows.returnItem(student, 42, today);
+        borrows.markReturnedByStudentAndIsbn(student, 43, 0);
+
+        assertNoSequentialScans(4);
+    }
+
+    @Test
+    void fineQueriesUseIndexes() {
+        String student = EmbeddedLibrary.studentEmail(97);
+
+        borrows.getTotalFine(student);
+        borrows.getTotalFines(List.of(EmbeddedLibrary.studentEmail(1), EmbeddedLibrary.studentEmail(2), student));
+        borrows.updateFineAfterPayment(student, 1);
+        borrows.getStudentsWithUnpaidFines("", 50);
+
+        assertNoSequentialScans(4);
+    }
+
+    @Test
+    void overduePagesUseIndexes() {
+        List<Borrow> page = borrows.getOverdueUsers(0, 50);
+        borrows.getOverdueUsers(page.isEmpty() ? 0 : page.getLast().getId(), 50);
+
+        assertNoSequentialScans(2);
+    }
+
+    @Test
+    void userLookupsUseIndexes() {
+        users.findByEmail(EmbeddedLibrary.studentEmail(3));
+        users.updateRole("reader5@library.test", Role.STUDENT);
+
+        assertNoSequentialScans(2);
+    }
+
+    @Test
+    void itemLookupsUseIndexes() {
+        items.findByISBN(123);
+        items.findQuantity(124);
+        items.increaseQuantity(125);
+        items.findByName("9999", libraryType.Book, 20, 0);
+
+        assertNoSequentialScans(4);
+    }
+
+    /**
+     * @param minimumPlans how many statements the test expects to have been explained,
+     *                     so a query that failed before running does not pass silently
+     */
+    private static void assertNoSequentialScans(int minimumPlans) {
+        List<ExplainingDataSource.Plan> plans = explaining.takePlans();
+        assertTrue(plans.size() >= minimumPlans, "Only " + plans.size() + " statements were explained");
+
+        List<String> failures = new ArrayList<>();
+        for (ExplainingDataSource.Plan plan : plans) {
+            Matcher m = SEQ_SCAN.matcher(plan.json());
+            while (m.find()) {
+                if (isLargeTable(m.group(1))) {
+                    failures.add("Seq Scan on " + m.group(1) + " in:\n" + plan.sql().strip() + "\n" + plan.json());
+                }
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    /** Matches the large tables and, for the partitioned student_borrow, each of its partitions. */
+    private static boolean isLargeTable(String relation) {
+        for (String table : LARGE_TABLES) {
+            if (relation.equals(table) || relation.startsWith(table + "_")) return true;
+        }
+        return false;
+    }
+}
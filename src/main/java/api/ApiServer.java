@@ -0,0 +1,490 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import domain.Items;
+import domain.OverdueBorrow;
+import domain.Role;
+import domain.libraryType;
+import domain.user;
+import service.BorrowService;
+import service.ItemsService;
+import service.SessionService;
+import service.userService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * HTTP/JSON front end to the library, as an alternative to the console menu.
+ * <p>
+ * Built on the JDK's {@link HttpServer}. Every request runs on its own virtual
+ * thread, so a request blocked on the database does not hold a platform thread, and
+ * the number of requests in flight is not capped by a pool. Passwords are hashed and
+ * checked on the bounded pool of the {@link util.PasswordHasher}, so a burst of logins
+ * queues there instead of taking every core.
+ * The routes call the same {@link userService}, {@link ItemsService} and
+ * {@link BorrowService} methods as the menu:
+ * </p>
+ * <ul>
+ *     <li>{@code POST /api/register}, {@code POST /api/login}, {@code POST /api/logout}</li>
+ *     <li>{@code GET /api/items?name=|author=|isbn=&type=&limit=&offset=}</li>
+ *     <li>{@code POST /api/borrow}, {@code POST /api/return}, {@code GET /api/fines},
+ *         {@code POST /api/fines/pay} (students)</li>
+ *     <li>{@code GET /api/overdue}, {@code GET /api/unpaid-fines} (librarians and admins)</li>
+ *     <li>{@code GET /api/admin/inactive-users}, {@code POST /api/admin/remove-user},
+ *         {@code POST /api/admin/role}, {@code POST /api/admin/items},
+ *         {@code POST /api/admin/items/restock} (admins)</li>
+ *     <li>{@code GET /metrics}: request latency histograms per route (librarians and admins)</li>
+ * </ul>
+ *
+ * <p>Logging in returns a bearer token to send as {@code Authorization: Bearer <token>}.
+ * Sessions are kept in the database by {@link SessionService}, so any instance behind
+ * a load balancer accepts a token issued by another. The caller's role is read with
+ * the session on every request, so a role change applies to the next request, and
+ * removing a user ends their sessions. Invalid input answers 400, a missing or
+ * expired session 401, a missing role 403, and a busy password hasher 503.</p>
+ *
+ * <p>{@link #close()} stops accepting connections and waits for the requests in
+ * flight to finish.</p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class ApiServer implements AutoCloseable {
+
+    /** Largest request body accepted. */
+    public static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private static final int DEFAULT_SHUTDOWN_SECONDS = 10;
+    private static final String UNMATCHED = "unmatched";
+
+    private static final Set<Role> STAFF = Set.of(Role.ADMIN, Role.LIBRARIAN);
+    private static final Set<Role> ADMIN = Set.of(Role.ADMIN);
+    private static final Set<Role> STUDENT = Set.of(Role.STUDENT);
+
+    private final userService userService;
+    private final ItemsService itemsService;
+    private final BorrowService borrowService;
+    private final SessionService sessions;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int shutdownSeconds;
+
+    private final Map<String, Route> routes = new HashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a server bound to a port on all interfaces. It does not accept
+     * requests until {@link #start()} is called.
+     *
+     * @param port          the port, or 0 for any free port
+     * @param userService   service for accounts and logins
+     * @param itemsService  service for the catalogue
+     * @param borrowService service for borrows and fines
+     * @param sessions      issues and checks login sessions
+     * @throws IOException if the port cannot be bound
+     */
+    public ApiServer(int port, userService userService, ItemsService itemsService, BorrowService borrowService,
+                     SessionService sessions) throws IOException {
+        this(new InetSocketAddress(port), userService, itemsService, borrowService, sessions,
+                DEFAULT_SHUTDOWN_SECONDS);
+    }
+
+    ApiServer(InetSocketAddress address, userService userService, ItemsService itemsService,
+              BorrowService borrowService, SessionService sessions, int shutdownSeconds) throws IOException {
+        this.userService = userService;
+        this.itemsService = itemsService;
+        this.borrowService = borrowService;
+        this.sessions = sessions;
+        this.shutdownSeconds = shutdownSeconds;
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::dispatch);
+
+        registerRoutes();
+    }
+
+    private void registerRoutes() {
+        route("POST", "/api/register", null, this::register);
+        route("POST", "/api/login", null, this::login);
+        route("POST", "/api/logout", Set.of(Role.values()), this::logout);
+        route("GET", "/api/items", null, this::searchItems);
+
+        route("POST", "/api/borrow", STUDENT, this::borrow);
+        route("POST", "/api/return", STUDENT, this::returnItem);
+        route("GET", "/api/fines", STUDENT, this::fines);
+        route("POST", "/api/fines/pay", STUDENT, this::payFine);
+
+        route("GET", "/api/overdue", STAFF, this::overdue);
+        route("GET", "/api/unpaid-fines", STAFF, r -> borrowService.getStudentsWithUnpaidFines());
+
+        route("GET", "/api/admin/inactive-users", ADMIN, this::inactiveUsers);
+        route("POST", "/api/admin/remove-user", ADMIN, this::removeUser);
+        route("POST", "/api/admin/role", ADMIN, this::changeRole);
+        route("POST", "/api/admin/items", ADMIN, this::addItem);
+        route("POST", "/api/admin/items/restock", ADMIN, this::restock);
+
+        route("GET", "/metrics", STAFF, r -> getLatencies());
+    }
+
+    private void route(String method, String path, Set<Role> roles, Handler handler) {
+        String key = method + " " + path;
+        routes.put(key, new Route(roles, handler));
+        latencies.put(key, new LatencyHistogram());
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return the port the server is bound to
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the latency statistics of every route that has served a request,
+     * keyed by {@code "METHOD /path"}. Requests that matched no route are counted
+     * under {@code "unmatched"}.
+     *
+     * @return the statistics, sorted by route
+     */
+    public Map<String, LatencyHistogram.Snapshot> getLatencies() {
+        Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        latencies.forEach((route, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.count() > 0) result.put(route, snapshot);
+        });
+        return result;
+    }
+
+    /**
+     * Stops accepting connections, gives the requests in flight up to the shutdown
+     * grace period to finish, and waits for their threads to end.
+     */
+    @Override
+    public void close() {
+        server.stop(shutdownSeconds);
+        executor.close();
+    }
+
+    // ---------------------------------------------------------------- dispatch
+
+    private void dispatch(HttpExchange exchange) {
+        long started = System.nanoTime();
+        String key = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath();
+        Route route = routes.get(key);
+        try {
+            if (route == null) {
+                boolean known = pathExists(exchange.getRequestURI().getPath());
+                key = UNMATCHED;
+                throw known ? new HttpError(405, "Method not allowed.") : new HttpError(404, "Not found.");
+            }
+            user caller = authorize(exchange, route.roles());
+            Request request = new Request(exchange, caller, query(exchange), body(exchange));
+            send(exchange, 200, route.handler().handle(request));
+        } catch (HttpError e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            sendError(exchange, 503, e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error writing HTTP response: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.out.println("Error handling " + key + ": " + e.getMessage());
+            sendError(exchange, 500, "Internal server error.");
+        } finally {
+            exchange.close();
+            latencies.computeIfAbsent(key, k -> new LatencyHistogram()).record(System.nanoTime() - started);
+        }
+    }
+
+    private boolean pathExists(String path) {
+        for (String key : routes.keySet()) {
+            if (key.substring(key.indexOf(' ') + 1).equals(path)) return true;
+        }
+        return false;
+    }
+
+    private user authorize(HttpExchange exchange, Set<Role> roles) {
+        if (roles == null) return null;
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) throw new HttpError(401, "Login required.");
+        String token = header.substring("Bearer ".length()).trim();
+        user caller = sessions.findUser(token).orElse(null);
+        if (caller == null) throw new HttpError(401, "Session expired. Please log in again.");
+        if (!roles.contains(caller.getRole())) throw new HttpError(403, "Not allowed for role " + caller.getRole() + ".");
+        return caller;
+    }
+
+    /**
+     * Waits for work on the password hashing pool and rethrows its failure, so a bad
+     * password answers 400 and a full queue 503 like the synchronous calls.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RejectedExecutionException) {
+                throw new IllegalStateException("Too many logins in progress. Please try again.");
+            }
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw e;
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) return Map.of();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) throw new HttpError(413, "Request body too large.");
+            if (bytes.length == 0) return Map.of();
+            return Json.readObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Object value) throws IOException {
+        byte[] bytes = Json.write(value).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            send(exchange, status, Map.of("error", message == null ? "Request failed." : message));
+        } catch (IOException e) {
+            System.out.println("Error writing HTTP response: " + e.getMessage());
+        }
+    }
+
+    // ---------------------------------------------------------------- handlers
+
+    private Object register(Request r) {
+        return Map.of("registered", await(
+                userService.registerUserAsync(r.string("email"), r.string("password"), r.string("confirmPassword"))));
+    }
+
+    private Object login(Request r) {
+        user user = await(userService.authenticateAsync(r.string("email"), r.string("password")));
+        String token = sessions.start(user.getEmail());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("token", token);
+        result.put("email", user.getEmail());
+        result.put("role", user.getRole());
+        result.put("expiresInSeconds", sessions.getTtlSeconds());
+        return result;
+    }
+
+    private Object logout(Request r) {
+        String header = r.exchange().getRequestHeaders().getFirst("Authorization");
+        sessions.end(header.substring("Bearer ".length()).trim());
+        return Map.of("loggedOut", true);
+    }
+
+    private Object searchItems(Request r) {
+        String isbn = r.query().get("isbn");
+        if (isbn != null) {
+            Items item = itemsService.searchByISBN(isbn);
+            return item == null ? List.of() : List.of(item(item));
+        }
+
+        libraryType type = r.type("type");
+        int limit = r.queryInt("limit", ItemsService.DEFAULT_SEARCH_LIMIT);
+        int offset = r.queryInt("offset", 0);
+        List<Items> items;
+        if (r.query().containsKey("name")) {
+            items = itemsService.searchByName(r.query().get("name"), type, limit, offset);
+        } else if (r.query().containsKey("author")) {
+            items = itemsService.searchByAuthor(r.query().get("author"), type, limit, offset);
+        } else {
+            throw new IllegalArgumentException("Search by name, author or isbn.");
+        }
+        return items.stream().map(ApiServer::item).toList();
+    }
+
+    private Object borrow(Request r) {
+        return Map.of("borrowed", borrowService.borrowItem(r.caller().getEmail(), r.integer("isbn")));
+    }
+
+    private Object returnItem(Request r) {
+        return Map.of("returned", borrowService.returnItem(r.caller().getEmail(), r.integer("isbn")));
+    }
+
+    private Object fines(Request r) {
+        return Map.of("email", r.caller().getEmail(), "totalFine", borrowService.getTotalFine(r.caller().getEmail()));
+    }
+
+    private Object payFine(Request r) {
+        String email = r.caller().getEmail();
+        borrowService.payFine(email, r.integer("amount"));
+        return Map.of("email", email, "totalFine", borrowService.getTotalFine(email));
+    }
+
+    private Object overdue(Request r) {
+        return borrowService.getOverdueBorrows().stream().map(ApiServer::overdueRow).toList();
+    }
+
+    private Object inactiveUsers(Request r) {
+        return userService.getInactiveUsers().stream()
+                .map(u -> Map.of("email", u.getEmail(), "role", u.getRole()))
+                .toList();
+    }
+
+    private Object removeUser(Request r) {
+        String email = r.string("email");
+        boolean removed = userService.removeInactiveUser(email);
+        if (removed) sessions.endAll(email);
+        return Map.of("removed", removed);
+    }
+
+    private Object changeRole(Request r) {
+        Role role;
+        try {
+            role = Role.fromString(r.string("role"));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown role: " + r.string("role"));
+        }
+        return Map.of("updated", userService.updateUserRole(r.string("email"), role));
+    }
+
+    private Object addItem(Request r) {
+        return Map.of("added", itemsService.addNewItem(r.string("name"), r.string("author"),
+                r.integer("quantity"), r.type("type")));
+    }
+
+    private Object restock(Request r) {
+        return Map.of("restocked", itemsService.increaseQuantityByISBN(String.valueOf(r.integer("isbn"))));
+    }
+
+    private static Map<String, Object> item(Items item) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("isbn", item.getISBN());
+        row.put("name", item.getName());
+        row.put("author", item.getAuthor());
+        row.put("type", item.getType());
+        row.put("quantity", item.getQuantity());
+        return row;
+    }
+
+    private static Map<String, Object> overdueRow(OverdueBorrow overdue) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("studentEmail", overdue.borrow().studentEmail());
+        row.put("isbn", overdue.borrow().isbn());
+        row.put("borrowDate", overdue.borrow().borrowDate().toString());
+        row.put("overdueDate", overdue.borrow().overdueDate().toString());
+        row.put("overdueDays", overdue.overdueDays());
+        row.put("projectedFine", overdue.projectedFine());
+        return row;
+    }
+
+    // ---------------------------------------------------------------- types
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Request request);
+    }
+
+    /**
+     * @param roles roles allowed to call the route, or null if no login is needed
+     */
+    private record Route(Set<Role> roles, Handler handler) {
+    }
+
+    private record Request(HttpExchange exchange, user caller, Map<String, String> query, Map<String, Object> body) {
+
+        String string(String name) {
+            Object value = body.get(name);
+            if (value == null) throw new IllegalArgumentException("Missing field: " + name);
+            return value.toString();
+        }
+
+        int integer(String name) {
+            Object value = body.get(name);
+            if (value instanceof Long l && l == l.intValue()) return l.intValue();
+            if (value instanceof String s) {
+                try {
+                    return Integer.parseInt(s.trim());
+                } catch (NumberFormatException e) {
+                    // reported below
+                }
+            }
+            throw new IllegalArgumentException(value == null ? "Missing field: " + name : name + " must be a whole number.");
+        }
+
+        int queryInt(String name, int defaultValue) {
+            String value = query.get(name);
+            if (value == null) return defaultValue;
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + " must be a whole number.");
+            }
+        }
+
+        libraryType type(String name) {
+            Object value = body.containsKey(name) ? body.get(name) : query.get(name);
+            if (value == null) return null;
+            for (libraryType type : libraryType.values()) {
+                if (type.name().equalsIgnoreCase(value.toString())) return type;
+            }
+            throw new IllegalArgumentException("Unknown type: " + value + " (BOOK / CD)");
+        }
+    }
+
+    private static final class HttpError extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
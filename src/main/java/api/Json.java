@@ -0,0 +1,235 @@
+package api;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the HTTP API.
+ * <p>
+ * Writes strings, numbers, booleans, null, enums, maps, collections and public
+ * records, and reads the flat objects the API accepts as request bodies: one
+ * object whose values are strings, numbers, booleans or null.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Writes a value as JSON.
+     *
+     * @param value a string, number, boolean, null, enum, map, collection or public record of these
+     * @return the JSON text
+     * @throws IllegalArgumentException if the value, or a value inside it, cannot be written
+     */
+    public static String write(Object value) {
+        StringBuilder out = new StringBuilder();
+        write(value, out);
+        return out.toString();
+    }
+
+    private static void write(Object value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof String s) {
+            writeString(s, out);
+        } else if (value instanceof Double d && (d.isNaN() || d.isInfinite())) {
+            out.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else if (value instanceof Enum<?> e) {
+            writeString(e.name(), out);
+        } else if (value instanceof Map<?, ?> map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) out.append(',');
+                first = false;
+                writeString(String.valueOf(entry.getKey()), out);
+                out.append(':');
+                write(entry.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof Collection<?> list) {
+            out.append('[');
+            boolean first = true;
+            for (Object element : list) {
+                if (!first) out.append(',');
+                first = false;
+                write(element, out);
+            }
+            out.append(']');
+        } else if (value instanceof Record record) {
+            out.append('{');
+            RecordComponent[] components = record.getClass().getRecordComponents();
+            for (int i = 0; i < components.length; i++) {
+                if (i > 0) out.append(',');
+                writeString(components[i].getName(), out);
+                out.append(':');
+                try {
+                    write(components[i].getAccessor().invoke(record), out);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalArgumentException("Cannot read " + components[i].getName() + " for JSON.", e);
+                }
+            }
+            out.append('}');
+        } else {
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getSimpleName() + " as JSON.");
+        }
+    }
+
+    private static void writeString(String s, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Reads a flat JSON object. Whole numbers are read as {@link Long}, other
+     * numbers as {@link Double}.
+     *
+     * @param text the JSON text
+     * @return the object's fields in document order
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    public static Map<String, Object> readObject(String text) {
+        return new Reader(text).object();
+    }
+
+    private static final class Reader {
+
+        private final String text;
+        private int pos;
+
+        Reader(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> object() {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            expect('{');
+            if (!peek('}')) {
+                do {
+                    String name = string();
+                    expect(':');
+                    fields.put(name, value());
+                } while (consume(','));
+            }
+            expect('}');
+            skipWhitespace();
+            if (pos != text.length()) throw error();
+            return fields;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (pos >= text.length()) throw error();
+            char c = text.charAt(pos);
+            if (c == '"') return string();
+            if (text.startsWith("true", pos)) { pos += 4; return true; }
+            if (text.startsWith("false", pos)) { pos += 5; return false; }
+            if (text.startsWith("null", pos)) { pos += 4; return null; }
+            if (c == '-' || (c >= '0' && c <= '9')) return number();
+            throw error();
+        }
+
+        private Object number() {
+            int start = pos;
+            if (text.charAt(pos) == '-') pos++;
+            boolean whole = true;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c >= '0' && c <= '9') {
+                    pos++;
+                } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                    whole = false;
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            String literal = text.substring(start, pos);
+            try {
+                return whole ? (Object) Long.parseLong(literal) : (Object) Double.parseDouble(literal);
+            } catch (NumberFormatException e) {
+                throw error();
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') return out.toString();
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) break;
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> out.append(escaped);
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) throw error();
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error();
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error();
+                }
+            }
+            throw error();
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) throw error();
+        }
+
+        private boolean consume(char c) {
+            if (!peek(c)) return false;
+            pos++;
+            return true;
+        }
+
+        private boolean peek(char c) {
+            skipWhitespace();
+            return pos < text.length() && text.charAt(pos) == c;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error() {
+            return new IllegalArgumentException("Malformed JSON at position " + pos + ".");
+        }
+    }
+}
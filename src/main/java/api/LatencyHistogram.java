@@ -0,0 +1,99 @@
+package api;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of request latencies.
+ * <p>
+ * Latencies are counted in power-of-two buckets of microseconds, so recording is a
+ * couple of counter increments and the memory used is fixed. Percentiles are read
+ * as the upper bound of the bucket they fall in, which is at most twice the true
+ * value, capped by the largest latency seen.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    /** Bucket {@code i} counts latencies below {@code 2^i} microseconds; the last bucket counts the rest. */
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[bucket(value / 1000)].increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    private static int bucket(long micros) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * Returns the count, mean, maximum and the 50th, 90th and 99th percentiles.
+     * Latencies recorded while the snapshot is taken may be partly included.
+     *
+     * @return the current statistics
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        long max = maxNanos.get();
+        double mean = total == 0 ? 0 : totalNanos.sum() / (double) total / 1_000_000;
+        return new Snapshot(total, mean,
+                percentile(counts, total, 0.50, max),
+                percentile(counts, total, 0.90, max),
+                percentile(counts, total, 0.99, max),
+                max / 1_000_000.0);
+    }
+
+    private static double percentile(long[] counts, long total, double p, long maxNanos) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long upperNanos = i == BUCKETS - 1 ? maxNanos : (1L << i) * 1000;
+                return Math.min(upperNanos, maxNanos) / 1_000_000.0;
+            }
+        }
+        return maxNanos / 1_000_000.0;
+    }
+
+    /**
+     * Latency statistics, in milliseconds.
+     *
+     * @param count      requests recorded
+     * @param meanMillis mean latency
+     * @param p50Millis  median latency
+     * @param p90Millis  90th percentile latency
+     * @param p99Millis  99th percentile latency
+     * @param maxMillis  largest latency
+     */
+    public record Snapshot(long count, double meanMillis, double p50Millis, double p90Millis,
+                           double p99Millis, double maxMillis) {
+    }
+}
@@ -1,14 +1,41 @@
 import repository.BorrowRepository;
 import repository.userRepository;
+import repository.CachingItemsRepository;
+import repository.CachingUserRepository;
+import repository.CatalogIndex;
+import repository.EmailOutboxRepository;
+import repository.ReminderCampaignRepository;
+import repository.SessionRepository;
+import repository.ItemImportRepository;
 import repository.ItemsRepository;
 import service.*;
+import api.ApiServer;
 import config.config;
+import infrastructure.DatabaseConnection;
+import infrastructure.SchemaMigrator;
+import util.PasswordHasher;
 
+import javax.sql.DataSource;
 import java.util.Scanner;
 
 public class app {
 
-    public static void main(String[] args) {
+    /** Number of ISBNs whose catalogue details are kept in memory. */
+    private static final int ITEM_CACHE_SIZE = 10_000;
+
+    /** Number of emails whose login details are kept in memory. */
+    private static final int USER_CACHE_SIZE = 10_000;
+
+    /** Port of the HTTP API when started with {@code --http} and no port. */
+    private static final int DEFAULT_HTTP_PORT = 8080;
+
+    /**
+     * Starts the library with the console menu, with {@code --http [port]} as an
+     * HTTP/JSON API that runs until the process is stopped, or with
+     * {@code --run <command>} or {@code --import <file>} to run one
+     * {@link BatchRunner} command and exit with its status.
+     */
+    public static void main(String[] args) throws Exception {
         System.out.println("===== Welcome to the Library System =====");
 
         Scanner scanner = new Scanner(System.in);
@@ -16,16 +43,63 @@ public class app {
         EmailService emailService = new EmailService(
                 config.EMAIL,
                 config.EMAIL_PASSWORD
-        );
-        userRepository userRepository = new userRepository();
-        userService userService = new userService(userRepository, emailService);
-        ItemsRepository itemsRepository = new ItemsRepository();
-        ItemsService itemsService = new ItemsService(itemsRepository);
-        BorrowRepository borrowRepository = new BorrowRepository();
-        BorrowService borrowService = new BorrowService(borrowRepository , itemsRepository);
-        menuService menuService = new menuService(scanner, userService, itemsService , borrowService , emailService);
+        ).start();
+        DataSource dataSource = DatabaseConnection.getDataSource();
+        new SchemaMigrator(dataSource).migrate();
+        EmailOutboxDispatcher outboxDispatcher =
+                new EmailOutboxDispatcher(new EmailOutboxRepository(dataSource), emailService);
+        outboxDispatcher.start();
+        userRepository userRepository = new CachingUserRepository(dataSource, USER_CACHE_SIZE);
+        PasswordHasher passwordHasher = new PasswordHasher();
+        userService userService = new userService(userRepository, passwordHasher);
+        BorrowRepository borrowRepository = new BorrowRepository(dataSource);
+        FineReminderCampaign reminderCampaign =
+                new FineReminderCampaign(borrowRepository, new ReminderCampaignRepository(dataSource), emailService);
+
+        if (BatchRunner.isBatchCommand(args)) {
+            int exitCode = new BatchRunner(userService,
+                    new ItemImporter(new ItemImportRepository(dataSource)), reminderCampaign).run(args);
+            outboxDispatcher.close();
+            emailService.close();
+            passwordHasher.close();
+            System.exit(exitCode);
+        }
+
+        ItemsRepository itemsRepository = new CachingItemsRepository(dataSource, ITEM_CACHE_SIZE);
+        ItemsService itemsService = new ItemsService(itemsRepository, CatalogIndex.build(itemsRepository));
+        BorrowArchiveJob archiveJob = new BorrowArchiveJob(borrowRepository);
+        FineAccrualJob accrualJob = new FineAccrualJob(borrowRepository);
+        BorrowService borrowService = new BorrowService(borrowRepository);
+
+        Runnable shutdown = () -> {
+            accrualJob.close();
+            archiveJob.close();
+            outboxDispatcher.close();
+            emailService.close();
+            passwordHasher.close();
+        };
+
+        archiveJob.start();
+        accrualJob.start();
+
+        if (args.length > 0 && args[0].equals("--http")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HTTP_PORT;
+            ApiServer apiServer = new ApiServer(port, userService, itemsService, borrowService,
+                    new SessionService(new SessionRepository(dataSource)));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                System.out.println("🛑 Stopping HTTP API...");
+                apiServer.close();
+                shutdown.run();
+            }));
+            apiServer.start();
+            System.out.println("🌐 HTTP API listening on port " + apiServer.getPort());
+            return;
+        }
+
+        menuService menuService = new menuService(scanner, userService, itemsService , borrowService , reminderCampaign);
         menuService.showMainMenu();
 
         scanner.close();
+        shutdown.run();
     }
 }
@@ -0,0 +1,138 @@
+package config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable database configuration, read once from {@code db.properties} at startup.
+ * <p>
+ * Besides the connection URL and credentials it carries the pool sizing and the
+ * JDBC driver settings that are applied to every pooled connection.
+ * </p>
+ *
+ * <p>Recognised keys:</p>
+ * <ul>
+ *     <li>{@code db.url}, {@code db.username}, {@code db.password}</li>
+ *     <li>{@code db.pool.minSize}, {@code db.pool.maxSize},
+ *         {@code db.pool.idleTimeoutMs}, {@code db.pool.acquireTimeoutMs}</li>
+ *     <li>{@code db.driver.*} &mdash; passed to the driver with the prefix removed,
+ *         e.g. {@code db.driver.prepareThreshold}, {@code db.driver.defaultRowFetchSize},
+ *         {@code db.driver.reWriteBatchedInserts}, {@code db.driver.socketTimeout}</li>
+ * </ul>
+ *
+ * @param url                  JDBC URL
+ * @param username             database user
+ * @param password             database password
+ * @param poolMinSize          connections kept open while idle
+ * @param poolMaxSize          maximum number of open connections
+ * @param idleTimeoutMillis    idle time after which a pooled connection is closed
+ * @param acquireTimeoutMillis how long a caller waits for a free connection
+ * @param driverProperties     driver settings applied to every connection
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public record DatabaseConfig(String url, String username, String password,
+                             int poolMinSize, int poolMaxSize,
+                             long idleTimeoutMillis, long acquireTimeoutMillis,
+                             Map<String, String> driverProperties) {
+
+    /** Prefix of keys that are forwarded to the JDBC driver. */
+    private static final String DRIVER_PREFIX = "db.driver.";
+
+    /**
+     * Driver settings used when {@code db.properties} does not override them.
+     * {@code socketTimeout} is off: it would abort any statement running longer than
+     * the timeout, including migrations, the nightly batches and bulk imports.
+     */
+    private static final Map<String, String> DRIVER_DEFAULTS = Map.of(
+            "prepareThreshold", "5",
+            "defaultRowFetchSize", "500",
+            "reWriteBatchedInserts", "true",
+            "connectTimeout", "10",
+            "socketTimeout", "0"
+    );
+
+    /**
+     * Defensive copy so the record stays immutable.
+     */
+    public DatabaseConfig {
+        if (url == null || url.isBlank())
+            throw new IllegalArgumentException("db.url is required.");
+        driverProperties = Collections.unmodifiableMap(new LinkedHashMap<>(driverProperties));
+    }
+
+    /**
+     * Loads the configuration from {@code db.properties} on the classpath.
+     *
+     * @return the parsed configuration
+     * @throws IOException if the file is missing or cannot be read
+     */
+    public static DatabaseConfig load() throws IOException {
+        Properties props = new Properties();
+        try (InputStream input = DatabaseConfig.class
+                .getClassLoader()
+                .getResourceAsStream("db.properties")) {
+            if (input == null) throw new IOException("db.properties not found on the classpath.");
+            props.load(input);
+        }
+        return fromProperties(props);
+    }
+
+    /**
+     * Builds a configuration from already loaded properties, filling in defaults.
+     *
+     * @param props the raw properties
+     * @return the parsed configuration
+     * @throws IllegalArgumentException if a numeric value is malformed or {@code db.url} is missing
+     */
+    public static DatabaseConfig fromProperties(Properties props) {
+        Map<String, String> driver = new LinkedHashMap<>(DRIVER_DEFAULTS);
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith(DRIVER_PREFIX)) {
+                driver.put(key.substring(DRIVER_PREFIX.length()), props.getProperty(key).trim());
+            }
+        }
+
+        return new DatabaseConfig(
+                props.getProperty("db.url"),
+                props.getProperty("db.username"),
+                props.getProperty("db.password"),
+                Integer.parseInt(props.getProperty("db.pool.minSize", "2").trim()),
+                Integer.parseInt(props.getProperty("db.pool.maxSize", "10").trim()),
+                Long.parseLong(props.getProperty("db.pool.idleTimeoutMs", "300000").trim()),
+                Long.parseLong(props.getProperty("db.pool.acquireTimeoutMs", "5000").trim()),
+                driver
+        );
+    }
+
+    /**
+     * Builds the {@link Properties} passed to {@code DriverManager.getConnection}:
+     * credentials plus every driver setting.
+     *
+     * @return a fresh properties object
+     */
+    public Properties toDriverProperties() {
+        Properties props = new Properties();
+        props.putAll(driverProperties);
+        if (username != null) props.setProperty("user", username);
+        if (password != null) props.setProperty("password", password);
+        return props;
+    }
+
+    /**
+     * Hides the password so the configuration can be logged safely.
+     *
+     * @return a textual summary of the configuration
+     */
+    @Override
+    public String toString() {
+        return "DatabaseConfig[url=" + url + ", username=" + username
+                + ", pool=" + poolMinSize + ".." + poolMaxSize
+                + ", driver=" + driverProperties + "]";
+    }
+}
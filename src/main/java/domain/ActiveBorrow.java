@@ -0,0 +1,20 @@
+package domain;
+
+import java.time.LocalDate;
+
+/**
+ * A borrow that has not been returned yet, with the type of the borrowed item.
+ *
+ * @param id           the borrow record ID
+ * @param studentEmail the email of the student who borrowed the item
+ * @param isbn         the ISBN of the borrowed item
+ * @param borrowDate   the date the item was borrowed
+ * @param overdueDate  the date the item becomes overdue
+ * @param type         the type of the borrowed item, which sets the fine rate
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public record ActiveBorrow(int id, String studentEmail, int isbn, LocalDate borrowDate,
+                           LocalDate overdueDate, libraryType type) {
+}
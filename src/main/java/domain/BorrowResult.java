@@ -0,0 +1,25 @@
+package domain;
+
+/**
+ * Outcome of a borrow attempt performed in a single database round trip.
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public enum BorrowResult {
+
+    /** The borrow was recorded and the stock decreased. */
+    OK,
+
+    /** The item exists but no copies are left. */
+    OUT_OF_STOCK,
+
+    /** The student has unpaid fines and may not borrow. */
+    HAS_FINE,
+
+    /** No item exists with the requested ISBN. */
+    NO_ITEM,
+
+    /** The database operation failed; nothing was changed. */
+    ERROR
+}
@@ -0,0 +1,15 @@
+package domain;
+
+/**
+ * Saved progress of a fine reminder campaign.
+ *
+ * @param campaignId the campaign's id
+ * @param lastEmail  the last recipient handled; every recipient sorting before it was handled too
+ * @param sent       reminders sent so far
+ * @param failed     reminders that could not be sent so far
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public record CampaignCheckpoint(String campaignId, String lastEmail, int sent, int failed) {
+}
@@ -0,0 +1,13 @@
+package domain;
+
+/**
+ * The total unpaid fine of one student.
+ *
+ * @param email the student's email
+ * @param total the sum of the student's unpaid fines
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public record FineTotal(String email, int total) {
+}
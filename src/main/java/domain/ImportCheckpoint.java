@@ -0,0 +1,15 @@
+package domain;
+
+/**
+ * Saved progress of a bulk catalogue import.
+ *
+ * @param importId    the import's id
+ * @param recordsDone source records consumed so far, including the header and rejected rows
+ * @param imported    items inserted so far
+ * @param rejected    rows rejected so far
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public record ImportCheckpoint(String importId, long recordsDone, long imported, long rejected) {
+}
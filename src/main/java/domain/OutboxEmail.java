@@ -0,0 +1,28 @@
+package domain;
+
+/**
+ * An email stored in the {@code email_outbox} table.
+ *
+ * @param id        the outbox row id, or 0 for an email not yet stored
+ * @param recipient the recipient's email address
+ * @param subject   the subject line
+ * @param body      the plain text body
+ * @param attempts  how many times sending has been attempted, including the current one
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public record OutboxEmail(long id, String recipient, String subject, String body, int attempts) {
+
+    /**
+     * Creates an email to be written to the outbox.
+     *
+     * @param recipient the recipient's email address
+     * @param subject   the subject line
+     * @param body      the plain text body
+     * @return an unsaved outbox email
+     */
+    public static OutboxEmail of(String recipient, String subject, String body) {
+        return new OutboxEmail(0, recipient, subject, body, 0);
+    }
+}
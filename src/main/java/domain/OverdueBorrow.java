@@ -0,0 +1,30 @@
+package domain;
+
+/**
+ * An overdue borrow together with how late it is and the fine it would carry if it
+ * were returned today.
+ *
+ * @param borrow        the overdue borrow
+ * @param overdueDays   days past the overdue date
+ * @param projectedFine the fine for all those days at the rate of the item's type, which is what the
+ *                      borrow will have been charged in total if it is returned today. It is a
+ *                      projection, not the stored {@code student_borrow.fine}: that is charged a day
+ *                      at a time by the accrual job and reduced by payments, so the amount still owed
+ *                      is read from the database, see {@code BorrowService.getTotalFine}.
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public record OverdueBorrow(ActiveBorrow borrow, int overdueDays, int projectedFine) {
+
+    /**
+     * Returns a formatted row for the overdue report.
+     *
+     * @return a textual summary of the overdue borrow
+     */
+    @Override
+    public String toString() {
+        return borrow.studentEmail() + " " + borrow.isbn() + "   " + borrow.borrowDate() + "   "
+                + borrow.overdueDate() + "    " + overdueDays + "    " + projectedFine;
+    }
+}
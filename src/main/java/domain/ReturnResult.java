@@ -0,0 +1,45 @@
+package domain;
+
+/**
+ * Outcome of a return performed in a single database round trip,
+ * together with the fine that was assigned to the borrow record.
+ *
+ * @param status the outcome of the return
+ * @param fine   the fine charged for this return (0 unless {@code status} is {@link Status#OK})
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public record ReturnResult(Status status, int fine) {
+
+    /**
+     * Possible outcomes of a return attempt.
+     */
+    public enum Status {
+
+        /** The borrow was marked returned, the fine stored and the item restocked. */
+        OK,
+
+        /** The student has unpaid fines and must pay before returning. */
+        HAS_FINE,
+
+        /** The student has no active borrow for this ISBN. */
+        NO_ACTIVE_BORROW,
+
+        /** The borrowed item no longer exists in the catalogue. */
+        NO_ITEM,
+
+        /** The database operation failed; nothing was changed. */
+        ERROR
+    }
+
+    /**
+     * Creates a result with no fine.
+     *
+     * @param status the outcome of the return
+     * @return the result
+     */
+    public static ReturnResult of(Status status) {
+        return new ReturnResult(status, 0);
+    }
+}
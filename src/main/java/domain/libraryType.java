@@ -51,6 +51,14 @@ public enum libraryType {
         return id;
     }
 
+    /**
+     * return the number of days the item may be kept before it becomes overdue
+     * @return the loan period in days
+     */
+    public int getOverdue() {
+        return overdue;
+    }
+
     /**
      * Converts a numeric type ID into a {@link libraryType} value.
      *
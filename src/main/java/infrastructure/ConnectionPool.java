@@ -0,0 +1,452 @@
+package infrastructure;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A small bounded JDBC connection pool exposed as a {@link DataSource}.
+ * <p>
+ * Physical connections are opened through a {@link ConnectionFactory} and handed
+ * out wrapped in a proxy whose {@code close()} returns the connection to the pool
+ * instead of closing the socket. This keeps the existing try-with-resources style
+ * in the repositories while avoiding a new TCP and authentication handshake per call.
+ * </p>
+ *
+ * <ul>
+ *     <li>At most {@code maxSize} connections exist at the same time.</li>
+ *     <li>At least {@code minSize} connections are kept open while idle.</li>
+ *     <li>Connections idle for longer than {@code idleTimeoutMillis} are evicted.</li>
+ *     <li>Each borrowed connection is validated with {@link Connection#isValid(int)}.</li>
+ *     <li>Callers wait at most {@code acquireTimeoutMillis} for a free connection.</li>
+ * </ul>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    /**
+     * Opens a new physical database connection.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        /**
+         * @return a new open connection
+         * @throws SQLException if the connection could not be opened
+         */
+        Connection create() throws SQLException;
+    }
+
+    /** Seconds given to {@link Connection#isValid(int)} when validating on borrow. */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+
+    /** Permits for connections that may still be handed out. */
+    private final Semaphore permits;
+
+    /** Idle physical connections, most recently returned first. */
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+
+    private final ScheduledExecutorService evictor;
+
+    private int openCount;
+    private volatile boolean closed;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong acquireTimeouts = new AtomicLong();
+    private final AtomicLong totalAcquireNanos = new AtomicLong();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+    /**
+     * Creates a pool. Its idle-eviction task runs once {@link #start()} is called.
+     *
+     * @param factory              opens physical connections
+     * @param minSize              connections kept open while idle
+     * @param maxSize              maximum number of open connections
+     * @param idleTimeoutMillis    how long a connection may sit idle before being closed
+     * @param acquireTimeoutMillis how long {@link #getConnection()} waits for a free connection
+     * @throws IllegalArgumentException if the sizes or timeouts are invalid
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long idleTimeoutMillis, long acquireTimeoutMillis) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize)
+            throw new IllegalArgumentException("Pool size must satisfy 0 <= min <= max and max > 0.");
+        if (idleTimeoutMillis <= 0 || acquireTimeoutMillis <= 0)
+            throw new IllegalArgumentException("Pool timeouts must be positive.");
+
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts the idle-eviction task, which also opens the first {@code minSize}
+     * connections in the background.
+     *
+     * @return this pool
+     */
+    public ConnectionPool start() {
+        long period = Math.max(1, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::maintain, 0, period, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle.
+     * <p>
+     * The returned connection must be closed by the caller; closing it gives it
+     * back to the pool.
+     * </p>
+     *
+     * @return a validated pooled connection
+     * @throws SQLTimeoutException if no connection became free within the acquire timeout
+     * @throws SQLException        if the pool is closed or a connection could not be opened
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed.");
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a database connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = open();
+            }
+            recordAcquire(System.nanoTime() - start);
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Not supported: all connections share the credentials given to the factory.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Per-call credentials are not supported by the pool.");
+    }
+
+    /**
+     * Closes every idle connection and rejects further borrows.
+     * Connections currently in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        synchronized (this) {
+            while (!idle.isEmpty()) {
+                closeQuietly(idle.pollFirst().connection);
+                openCount--;
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool counters.
+     *
+     * @return the current pool statistics
+     */
+    public synchronized Stats getStats() {
+        long count = acquired.get();
+        return new Stats(
+                openCount,
+                idle.size(),
+                maxSize - permits.availablePermits(),
+                count,
+                created.get(),
+                evicted.get(),
+                validationFailures.get(),
+                acquireTimeouts.get(),
+                count == 0 ? 0 : totalAcquireNanos.get() / count / 1_000,
+                maxAcquireNanos.get() / 1_000
+        );
+    }
+
+    /**
+     * Point-in-time view of the pool's size and acquire metrics.
+     *
+     * @param open               physical connections currently open
+     * @param idle               open connections not borrowed by anyone
+     * @param active             connections currently borrowed
+     * @param acquired           successful borrows since start
+     * @param created            physical connections opened since start
+     * @param evicted            connections closed by idle eviction or failed validation
+     * @param validationFailures borrows that found a broken idle connection
+     * @param acquireTimeouts    borrows that gave up after the acquire timeout
+     * @param avgAcquireMicros   mean time spent in {@link #getConnection()}
+     * @param maxAcquireMicros   longest time spent in {@link #getConnection()}
+     */
+    public record Stats(int open, int idle, int active, long acquired, long created, long evicted,
+                        long validationFailures, long acquireTimeouts,
+                        long avgAcquireMicros, long maxAcquireMicros) {
+    }
+
+    /**
+     * Pops idle connections until one passes validation.
+     *
+     * @return a valid idle connection, or null if none is available
+     */
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (this) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) return null;
+
+            if (isUsable(candidate.connection)) {
+                return candidate.connection;
+            }
+
+            validationFailures.incrementAndGet();
+            evicted.incrementAndGet();
+            discard(candidate.connection);
+        }
+    }
+
+    /**
+     * Opens a new physical connection and counts it against the pool size.
+     */
+    private Connection open() throws SQLException {
+        Connection physical = factory.create();
+        synchronized (this) {
+            openCount++;
+        }
+        created.incrementAndGet();
+        return physical;
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool, or closes it if it is broken
+     * or the pool has been shut down.
+     */
+    private void release(Connection physical) {
+        try {
+            boolean reusable = !closed && !physical.isClosed();
+            if (reusable && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                synchronized (this) {
+                    idle.offerFirst(new IdleConnection(physical, System.currentTimeMillis()));
+                }
+            } else {
+                discard(physical);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Periodic housekeeping: evicts stale idle connections, then tops the pool
+     * back up to {@code minSize}.
+     */
+    private void maintain() {
+        evictIdle();
+        fillToMinimum();
+    }
+
+    /**
+     * Opens idle connections until at least {@code minSize} are open.
+     * Failures are ignored; the next run or the next borrow will try again.
+     */
+    void fillToMinimum() {
+        while (!closed) {
+            synchronized (this) {
+                if (openCount >= minSize) return;
+                openCount++;
+            }
+            try {
+                Connection physical = factory.create();
+                created.incrementAndGet();
+                synchronized (this) {
+                    idle.offerLast(new IdleConnection(physical, System.currentTimeMillis()));
+                }
+            } catch (SQLException | RuntimeException e) {
+                synchronized (this) {
+                    openCount--;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes idle connections that exceeded the idle timeout while keeping
+     * at least {@code minSize} connections open.
+     */
+    void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        synchronized (this) {
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext() && openCount > minSize) {
+                IdleConnection candidate = it.next();
+                if (candidate.lastUsed < cutoff) {
+                    it.remove();
+                    openCount--;
+                    evicted.incrementAndGet();
+                    closeQuietly(candidate.connection);
+                }
+            }
+        }
+    }
+
+    private void discard(Connection physical) {
+        synchronized (this) {
+            openCount--;
+        }
+        closeQuietly(physical);
+    }
+
+    private void recordAcquire(long nanos) {
+        acquired.incrementAndGet();
+        totalAcquireNanos.addAndGet(nanos);
+        maxAcquireNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static boolean isUsable(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // the connection is being thrown away anyway
+        }
+    }
+
+    /**
+     * Wraps a physical connection so that {@code close()} returns it to the pool.
+     */
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!returned) {
+                            returned = true;
+                            release(physical);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return returned || physical.isClosed();
+                    }
+                    case "unwrap" -> {
+                        if (((Class<?>) args[0]).isInstance(physical)) return physical;
+                    }
+                    default -> {
+                        if (returned) throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    /** An idle physical connection together with the time it was returned. */
+    private record IdleConnection(Connection connection, long lastUsed) {
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // logging is not supported by the pool
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        // the acquire timeout is fixed at construction time
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return (int) TimeUnit.MILLISECONDS.toSeconds(acquireTimeoutMillis);
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -1,27 +1,63 @@
 package infrastructure;
 
-import java.io.InputStream;
+import config.DatabaseConfig;
+
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.util.Properties;
 
+/**
+ * Builds the application's shared {@link ConnectionPool} from a {@link DatabaseConfig}.
+ * <p>
+ * The configuration is read once; every physical connection the pool opens
+ * receives the same credentials and driver settings.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
 public class DatabaseConnection {
-    private static Connection connection;
 
-    public static Connection getConnection() throws Exception {
-        if (connection == null || connection.isClosed()) {
-            Properties props = new Properties();
-            try (InputStream input = DatabaseConnection.class
-                    .getClassLoader()
-                    .getResourceAsStream("db.properties")) {
-                props.load(input);
-            }
+    private static ConnectionPool dataSource;
 
-            String url = props.getProperty("db.url");
-            String user = props.getProperty("db.username");
-            String pass = props.getProperty("db.password");
-            connection = DriverManager.getConnection(url, user, pass);
+    /**
+     * Returns the shared pooled data source, creating it from {@code db.properties} on first use.
+     *
+     * @return the application-wide {@link DataSource}
+     * @throws Exception if {@code db.properties} cannot be read
+     */
+    public static synchronized DataSource getDataSource() throws Exception {
+        if (dataSource == null) {
+            dataSource = createPool(DatabaseConfig.load());
         }
-        return connection;
+        return dataSource;
+    }
+
+    /**
+     * Creates a pool whose connections all use the given configuration.
+     *
+     * @param config the database configuration
+     * @return a new, started connection pool
+     */
+    public static ConnectionPool createPool(DatabaseConfig config) {
+        Properties driverProps = config.toDriverProperties();
+        return new ConnectionPool(
+                () -> DriverManager.getConnection(config.url(), driverProps),
+                config.poolMinSize(),
+                config.poolMaxSize(),
+                config.idleTimeoutMillis(),
+                config.acquireTimeoutMillis()
+        ).start();
+    }
+
+    /**
+     * Borrows a connection from the shared pool. Closing it returns it to the pool.
+     *
+     * @return a pooled connection
+     * @throws Exception if the pool cannot be created or no connection is available
+     */
+    public static Connection getConnection() throws Exception {
+        return getDataSource().getConnection();
     }
 }
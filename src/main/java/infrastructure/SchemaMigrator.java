@@ -0,0 +1,236 @@
+package infrastructure;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Applies the versioned SQL scripts under {@code db/migration} on the classpath.
+ * <p>
+ * Script names follow {@code V<version>__<description>.sql}. Applied versions are
+ * recorded in the {@code schema_version} table, and each pending script runs in its
+ * own transaction together with its bookkeeping row. A transaction-scoped advisory
+ * lock makes concurrent application instances apply each script only once.
+ * </p>
+ * <p>
+ * The SHA-256 checksum of every applied script is stored with its version. On later
+ * runs the checksums of applied scripts are compared with the scripts on the
+ * classpath, and migration stops if one was edited after it was applied: a schema
+ * change must go into a new script. Versions recorded before checksums existed get
+ * their checksum filled in on the first run.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class SchemaMigrator {
+
+    /** Migration scripts in the order they must be applied. */
+    static final List<String> MIGRATIONS = List.of(
+            "V1__baseline_schema.sql",
+            "V2__items_trigram_search.sql",
+            "V3__email_outbox.sql",
+            "V4__reminder_campaigns.sql",
+            "V5__users_outstanding_fine.sql",
+            "V6__hot_query_indexes.sql",
+            "V7__partition_student_borrow.sql",
+            "V8__fine_accrual.sql",
+            "V9__item_import.sql",
+            "V10__api_sessions.sql"
+    );
+
+    private static final String LOCATION = "db/migration/";
+
+    /** Arbitrary key for {@code pg_advisory_xact_lock}, shared by all instances. */
+    private static final long LOCK_KEY = 0x4C49425241525931L;
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructs a migrator for the given database.
+     *
+     * @param dataSource the data source to migrate
+     */
+    public SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Applies every script whose version is newer than the database's current version.
+     *
+     * @return the number of scripts applied
+     * @throws SQLException          if a script fails; that script's changes are rolled back
+     * @throws IOException           if a script cannot be read from the classpath
+     * @throws IllegalStateException if an applied script no longer matches its recorded checksum
+     */
+    public int migrate() throws SQLException, IOException {
+        int applied = 0;
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version     INTEGER      PRIMARY KEY,
+                        description VARCHAR(255) NOT NULL,
+                        applied_on  TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+                    )
+                """);
+                stmt.execute("ALTER TABLE schema_version ADD COLUMN IF NOT EXISTS checksum VARCHAR(64)");
+            }
+
+            for (String script : MIGRATIONS) {
+                int version = versionOf(script);
+                String sql = readScript(script);
+                String checksum = checksumOf(sql);
+                conn.setAutoCommit(false);
+                try {
+                    lock(conn);
+                    if (currentVersion(conn) >= version) {
+                        verifyChecksum(conn, script, version, checksum);
+                        conn.commit();
+                        continue;
+                    }
+
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(sql);
+                    }
+                    record(conn, version, descriptionOf(script), checksum);
+                    conn.commit();
+                    applied++;
+                    System.out.println("Applied migration " + script);
+
+                } catch (SQLException | IllegalStateException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Parses the version number from a script name such as {@code V2__items.sql}.
+     *
+     * @param script the script file name
+     * @return the version number
+     * @throws IllegalArgumentException if the name does not follow the convention
+     */
+    static int versionOf(String script) {
+        int sep = script.indexOf("__");
+        if (!script.startsWith("V") || sep < 2)
+            throw new IllegalArgumentException("Invalid migration name: " + script);
+        return Integer.parseInt(script.substring(1, sep));
+    }
+
+    /**
+     * Turns {@code V2__items_trigram_search.sql} into {@code items trigram search}.
+     *
+     * @param script the script file name
+     * @return a readable description
+     */
+    static String descriptionOf(String script) {
+        String name = script.substring(script.indexOf("__") + 2);
+        if (name.endsWith(".sql")) name = name.substring(0, name.length() - 4);
+        return name.replace('_', ' ');
+    }
+
+    /**
+     * Computes the checksum recorded for a script. Line endings are normalised first,
+     * so a checkout with CRLF line endings does not count as a change.
+     *
+     * @param sql the script contents
+     * @return the SHA-256 digest as 64 lowercase hex characters
+     */
+    static String checksumOf(String sql) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Loads a script from the classpath.
+     *
+     * @param script the script file name
+     * @return the script contents
+     * @throws IOException if the script is missing
+     */
+    static String readScript(String script) throws IOException {
+        try (InputStream input = SchemaMigrator.class
+                .getClassLoader()
+                .getResourceAsStream(LOCATION + script)) {
+            if (input == null) throw new IOException("Migration not found: " + LOCATION + script);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT pg_advisory_xact_lock(?)")) {
+            stmt.setLong(1, LOCK_KEY);
+            stmt.execute();
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COALESCE(MAX(version), 0) AS version FROM schema_version")) {
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt("version") : 0;
+        }
+    }
+
+    /**
+     * Compares an applied script with the checksum recorded for it, filling the
+     * checksum in if the version was recorded without one.
+     */
+    private static void verifyChecksum(Connection conn, String script, int version, String checksum)
+            throws SQLException {
+        String recorded;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT checksum FROM schema_version WHERE version = ?")) {
+            stmt.setInt(1, version);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) return;
+            recorded = rs.getString("checksum");
+        }
+
+        if (recorded == null) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE schema_version SET checksum = ? WHERE version = ?")) {
+                stmt.setString(1, checksum);
+                stmt.setInt(2, version);
+                stmt.executeUpdate();
+            }
+        } else if (!recorded.equals(checksum)) {
+            throw new IllegalStateException("Migration " + script + " was changed after it was applied "
+                    + "(recorded checksum " + recorded + ", now " + checksum + "). "
+                    + "Put schema changes in a new migration instead.");
+        }
+    }
+
+    private static void record(Connection conn, int version, String description, String checksum)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)")) {
+            stmt.setInt(1, version);
+            stmt.setString(2, description);
+            stmt.setString(3, checksum);
+            stmt.executeUpdate();
+        }
+    }
+}
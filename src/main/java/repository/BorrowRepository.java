@@ -1,12 +1,24 @@
 package repository;
 
+import domain.ActiveBorrow;
 import domain.Borrow;
-import infrastructure.DatabaseConnection;
+import domain.BorrowResult;
+import domain.FineTotal;
+import domain.ReturnResult;
+import domain.libraryType;
+import domain.strategyPattern.FineStrategyFactory;
+import util.StringIntMap;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
 
 /**
  * Repository responsible for handling all database operations related to borrowing items.
@@ -21,13 +33,48 @@ import java.util.List;
  *     <li>Listing users with unpaid fines</li>
  * </ul>
  *
- * All database operations are executed using JDBC via {@link DatabaseConnection}.
+ * All database operations are executed using JDBC via a pooled {@link DataSource}.
+ * Listeners registered with {@link #onBorrowed(Consumer)} and {@link #onReturned(IntConsumer)}
+ * are told about every borrow and return made through this repository.
  *
  * @author Shatha , Sara
  * @version 1.0
  */
 public class BorrowRepository {
 
+    private final DataSource dataSource;
+    private final List<Consumer<ActiveBorrow>> borrowListeners = new CopyOnWriteArrayList<>();
+    private final List<IntConsumer> returnListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs a {@link BorrowRepository} that borrows connections from the given data source.
+     *
+     * @param dataSource the pooled data source used for all queries
+     */
+    public BorrowRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Registers a listener that is called after each successful
+     * {@link #borrowItem(String, int, LocalDate)}.
+     *
+     * @param listener receives the new borrow
+     */
+    public void onBorrowed(Consumer<ActiveBorrow> listener) {
+        borrowListeners.add(listener);
+    }
+
+    /**
+     * Registers a listener that is called with the borrow record ID after each successful
+     * {@link #returnItem(String, int, LocalDate)} or {@link #markReturnedByStudentAndIsbn}.
+     *
+     * @param listener receives the ID of the returned borrow
+     */
+    public void onReturned(IntConsumer listener) {
+        returnListeners.add(listener);
+    }
+
     /**
      * Saves a new borrow record and decreases item quantity.
      * <p>
@@ -61,7 +108,7 @@ public class BorrowRepository {
             WHERE email = ?
         """;
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = dataSource.getConnection()) {
 
             conn.setAutoCommit(false);
 
@@ -101,6 +148,217 @@ public class BorrowRepository {
         }
     }
 
+    /**
+     * Checks fines, decreases stock, records the borrow and updates the user's
+     * last borrow date in one statement and one round trip.
+     * <p>
+     * The statement is a data-modifying CTE: the stock is only decreased if the
+     * student has no unpaid fine and a copy is available, and the borrow row and
+     * last-borrow date are only written if the stock update succeeded. The overdue
+     * date is the borrow date plus the loan period of the item's {@link libraryType}.
+     * </p>
+     *
+     * @param studentEmail the student's email
+     * @param isbn         the ISBN of the item to borrow
+     * @param borrowDate   the date of the borrow
+     * @return the outcome of the attempt; {@link BorrowResult#ERROR} if the database call failed
+     */
+    public BorrowResult borrowItem(String studentEmail, int isbn, LocalDate borrowDate) {
+        String sql = """
+            WITH fine AS (
+                SELECT COALESCE((SELECT outstanding_fine FROM users WHERE email = ?), 0) AS total
+            ), item AS (
+                SELECT isbn FROM items WHERE isbn = ?
+            ), taken AS (
+                UPDATE items
+                SET quantity = quantity - 1
+                WHERE isbn = ? AND quantity > 0 AND (SELECT total FROM fine) = 0
+                RETURNING isbn, type
+            ), inserted AS (
+                INSERT INTO student_borrow (student_email, item_isbn, borrow_date, overdue_date, returned)
+                SELECT ?, taken.isbn, ?::date, ?::date + %s, false
+                FROM taken
+                RETURNING id, overdue_date
+            ), touched AS (
+                UPDATE users
+                SET lastdateborrowed = ?
+                WHERE email = ? AND EXISTS (SELECT 1 FROM inserted)
+                RETURNING email
+            )
+            SELECT CASE
+                WHEN (SELECT total FROM fine) > 0 THEN 'HAS_FINE'
+                WHEN NOT EXISTS (SELECT 1 FROM item) THEN 'NO_ITEM'
+                WHEN NOT EXISTS (SELECT 1 FROM inserted) THEN 'OUT_OF_STOCK'
+                ELSE 'OK'
+            END AS status,
+            (SELECT id FROM inserted) AS id,
+            (SELECT overdue_date FROM inserted) AS overdue_date,
+            (SELECT type FROM taken) AS type
+        """.formatted(loanDaysCase("taken.type"));
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            Date date = Date.valueOf(borrowDate);
+            stmt.setString(1, studentEmail);
+            stmt.setInt(2, isbn);
+            stmt.setInt(3, isbn);
+            stmt.setString(4, studentEmail);
+            stmt.setDate(5, date);
+            stmt.setDate(6, date);
+            stmt.setDate(7, date);
+            stmt.setString(8, studentEmail);
+
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                BorrowResult result = BorrowResult.valueOf(rs.getString("status"));
+                if (result == BorrowResult.OK && !borrowListeners.isEmpty()) {
+                    ActiveBorrow borrow = new ActiveBorrow(rs.getInt("id"), studentEmail, isbn, borrowDate,
+                            rs.getDate("overdue_date").toLocalDate(), libraryType.valueOf(rs.getString("type")));
+                    for (Consumer<ActiveBorrow> listener : borrowListeners) {
+                        listener.accept(borrow);
+                    }
+                }
+                return result;
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error borrowing item: " + e.getMessage());
+        }
+        return BorrowResult.ERROR;
+    }
+
+    /**
+     * Returns an item in one atomic statement and one round trip.
+     * <p>
+     * The statement checks the student's unpaid fines, locks the newest active
+     * borrow for the student and ISBN, stores the fine for the days past the
+     * overdue date, marks the row returned and increases the item's quantity.
+     * The fine already accrued on the borrow being returned is left out of the
+     * unpaid fines check, so an overdue item can always be handed back.
+     * The per-day rate comes from {@link FineStrategyFactory}, so the stored
+     * fine matches what the strategy would compute in Java. Days already charged
+     * by {@link #accrueOverdueFines(LocalDate, int)} are not charged again.
+     * </p>
+     *
+     * @param studentEmail the student's email
+     * @param isbn         the ISBN of the item being returned
+     * @param returnDate   the date of the return
+     * @return the outcome and the assigned fine; status {@link ReturnResult.Status#ERROR} if the database call failed
+     */
+    public ReturnResult returnItem(String studentEmail, int isbn, LocalDate returnDate) {
+        String sql = """
+            WITH fine AS (
+                SELECT COALESCE((SELECT outstanding_fine FROM users WHERE email = ?), 0) AS total
+            ), open_borrow AS (
+                SELECT newest.id IS NOT NULL AS found, newest.isbn IS NOT NULL AS item_found,
+                       COALESCE(GREATEST(newest.fine, 0), 0) AS own_fine
+                FROM (SELECT 1) AS one
+                LEFT JOIN LATERAL (
+                    SELECT sb.id, sb.fine, i.isbn
+                    FROM student_borrow sb
+                    LEFT JOIN items i ON i.isbn = sb.item_isbn
+                    WHERE sb.student_email = ? AND sb.item_isbn = ? AND sb.returned = false
+                    ORDER BY sb.borrow_date DESC
+                    LIMIT 1
+                ) AS newest ON true
+            ), other_fines AS (
+                -- The fine accrued so far by the borrow being returned does not block its return.
+                SELECT fine.total - open_borrow.own_fine AS total FROM fine, open_borrow
+            ), active AS (
+                SELECT sb.id, sb.borrow_date, sb.overdue_date, sb.accrued_through, i.type
+                FROM student_borrow sb
+                JOIN items i ON i.isbn = sb.item_isbn
+                WHERE sb.student_email = ? AND sb.item_isbn = ? AND sb.returned = false
+                  AND (SELECT total FROM other_fines) <= 0
+                ORDER BY sb.borrow_date DESC
+                LIMIT 1
+                FOR UPDATE OF sb
+            ), marked AS (
+                UPDATE student_borrow sb
+                SET returned = true,
+                    fine = sb.fine + GREATEST(?::date - GREATEST(active.overdue_date, active.accrued_through), 0) * %s
+                FROM active
+                WHERE sb.id = active.id AND sb.borrow_date = active.borrow_date
+                RETURNING sb.id, sb.item_isbn, sb.fine
+            ), restocked AS (
+                UPDATE items
+                SET quantity = quantity + 1
+                WHERE isbn IN (SELECT item_isbn FROM marked)
+                RETURNING isbn
+            )
+            SELECT CASE
+                       WHEN other_fines.total > 0 THEN 'HAS_FINE'
+                       WHEN NOT open_borrow.found THEN 'NO_ACTIVE_BORROW'
+                       WHEN NOT open_borrow.item_found THEN 'NO_ITEM'
+                       -- A concurrent return marked the borrow after it was read above.
+                       WHEN NOT EXISTS (SELECT 1 FROM marked) THEN 'NO_ACTIVE_BORROW'
+                       ELSE 'OK'
+                   END AS status,
+                   COALESCE((SELECT marked.fine FROM marked), 0) AS fine,
+                   (SELECT marked.id FROM marked) AS id
+            FROM other_fines, open_borrow
+        """.formatted(dailyFineCase("active.type"));
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, studentEmail);
+            stmt.setString(2, studentEmail);
+            stmt.setInt(3, isbn);
+            stmt.setString(4, studentEmail);
+            stmt.setInt(5, isbn);
+            stmt.setDate(6, Date.valueOf(returnDate));
+
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                ReturnResult result = new ReturnResult(
+                        ReturnResult.Status.valueOf(rs.getString("status")),
+                        rs.getInt("fine")
+                );
+                if (result.status() == ReturnResult.Status.OK) notifyReturned(rs.getInt("id"));
+                return result;
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error returning item: " + e.getMessage());
+        }
+        return ReturnResult.of(ReturnResult.Status.ERROR);
+    }
+
+    /**
+     * Builds a SQL {@code CASE} expression that maps an item type column to its
+     * per-day fine, taken from the {@link FineStrategyFactory} strategy for each
+     * {@link libraryType}. The strategies charge a fixed amount per overdue day,
+     * so the rate for one day multiplied by the overdue days gives the same fine.
+     *
+     * @param typeColumn the column holding the {@link libraryType} name
+     * @return the SQL expression
+     */
+    static String dailyFineCase(String typeColumn) {
+        StringBuilder sb = new StringBuilder("CASE ").append(typeColumn);
+        for (libraryType type : libraryType.values()) {
+            int rate = FineStrategyFactory.getStrategy(type.name()).calculateFine(1);
+            sb.append(" WHEN '").append(type.name()).append("' THEN ").append(rate);
+        }
+        return sb.append(" END").toString();
+    }
+
+    /**
+     * Builds a SQL {@code CASE} expression that maps an item type column to its
+     * loan period, using the values defined in {@link libraryType}.
+     *
+     * @param typeColumn the column holding the {@link libraryType} name
+     * @return the SQL expression
+     */
+    static String loanDaysCase(String typeColumn) {
+        StringBuilder sb = new StringBuilder("CASE ").append(typeColumn);
+        for (libraryType type : libraryType.values()) {
+            sb.append(" WHEN '").append(type.name()).append("' THEN ").append(type.getOverdue());
+        }
+        return sb.append(" END").toString();
+    }
+
     /**
      * Retrieves a list of all users who have overdue and unreturned items.
      *
@@ -110,21 +368,13 @@ public class BorrowRepository {
         String sql = "SELECT * FROM student_borrow WHERE overdue_date < CURRENT_DATE AND returned = false";
         List<Borrow> list = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                list.add(new Borrow(
-                        rs.getInt("id"),
-                        rs.getString("student_email"),
-                        rs.getInt("item_isbn"),
-                        rs.getDate("borrow_date").toLocalDate(),
-                        rs.getDate("overdue_date").toLocalDate(),
-                        rs.getBoolean("returned"),
-                        rs.getInt("fine")
-                ));
+                list.add(mapBorrow(rs));
             }
 
         } catch (Exception e) {
@@ -133,6 +383,54 @@ public class BorrowRepository {
         return list;
     }
 
+    /**
+     * Retrieves one page of overdue, unreturned borrow records using keyset pagination.
+     * <p>
+     * Pass the id of the last record of the previous page as {@code afterId} (0 for the
+     * first page). Unlike an offset, the cost of a page does not grow with its position.
+     * </p>
+     *
+     * @param afterId return only records with a larger id
+     * @param limit   maximum number of records to return
+     * @return the records ordered by id
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public List<Borrow> getOverdueUsers(int afterId, int limit) {
+        checkLimit(limit);
+        String sql = "SELECT * FROM student_borrow WHERE overdue_date < CURRENT_DATE AND returned = false "
+                + "AND id > ? ORDER BY id LIMIT ?";
+        List<Borrow> list = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                list.add(mapBorrow(rs));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error fetching overdue users: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /**
+     * Streams all overdue, unreturned borrow records ordered by id through a database cursor.
+     * The stream holds a connection until closed and should be used with try-with-resources.
+     *
+     * @return a lazily fetched stream of overdue borrow records
+     */
+    public Stream<Borrow> streamOverdueUsers() {
+        String sql = "SELECT * FROM student_borrow WHERE overdue_date < CURRENT_DATE AND returned = false "
+                + "ORDER BY id";
+        return JdbcCursor.stream(dataSource, sql, stmt -> { }, BorrowRepository::mapBorrow,
+                JdbcCursor.DEFAULT_FETCH_SIZE, "overdue users");
+    }
+
     /**
      * Marks an item as returned and increases its quantity.
      * <p>
@@ -159,7 +457,7 @@ public class BorrowRepository {
             WHERE isbn = ? AND quantity > 0
         """;
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = dataSource.getConnection()) {
 
             conn.setAutoCommit(false);
 
@@ -188,58 +486,64 @@ public class BorrowRepository {
      * <p>
      * The payment is applied in order of the oldest fine first (ascending by record ID).
      * Partial payments are supported.
+     * </p>
+     * <p>
+     * The allocation is done by one statement: the student's fined rows are locked,
+     * a running sum in ID order gives the fines owed up to and including each row, and
+     * every row whose earlier fines are smaller than the payment is reduced to
+     * {@code max(runningSum - paidAmount, 0)}. Because the rows are locked before the
+     * running sum is taken, a concurrent payment for the same student waits and then
+     * allocates against the already reduced fines.
+     * </p>
      *
      * @param email       the student's email
      * @param paidAmount  the amount the student paid
      */
     public void updateFineAfterPayment(String email, int paidAmount) {
-        String selectSql = "SELECT id, fine FROM student_borrow WHERE student_email = ? AND fine > 0 ORDER BY id ASC";
-        String updateSql = "UPDATE student_borrow SET fine = ? WHERE id = ?";
+        String sql = """
+            WITH locked AS (
+                SELECT id, borrow_date, fine
+                FROM student_borrow
+                WHERE student_email = ? AND fine > 0
+                ORDER BY id
+                FOR UPDATE
+            ), allocation AS (
+                SELECT id, borrow_date, fine, SUM(fine) OVER (ORDER BY id) AS running
+                FROM locked
+            )
+            UPDATE student_borrow sb
+            SET fine = GREATEST(a.running - ?, 0)
+            FROM allocation a
+            WHERE sb.id = a.id AND sb.borrow_date = a.borrow_date AND a.running - a.fine < ?
+        """;
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            conn.setAutoCommit(false);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            try (PreparedStatement select = conn.prepareStatement(selectSql)) {
-                select.setString(1, email);
-                ResultSet rs = select.executeQuery();
-
-                try (PreparedStatement update = conn.prepareStatement(updateSql)) {
-                    int remaining = paidAmount;
-
-                    while (rs.next() && remaining > 0) {
-                        int id = rs.getInt("id");
-                        int rowFine = rs.getInt("fine");
-
-                        if (remaining >= rowFine) {
-                            update.setInt(1, 0);
-                            update.setInt(2, id);
-                            update.executeUpdate();
-                            remaining -= rowFine;
-                        } else {
-                            update.setInt(1, rowFine - remaining);
-                            update.setInt(2, id);
-                            update.executeUpdate();
-                            remaining = 0;
-                        }
-                    }
-                }
-            }
+            stmt.setString(1, email);
+            stmt.setInt(2, paidAmount);
+            stmt.setInt(3, paidAmount);
+            stmt.executeUpdate();
 
-            conn.commit();
         } catch (Exception e) {
             System.out.println("Error paying fine: " + e.getMessage());
         }
     }
 
     /**
-     * Calculates the total unpaid fines for a user.
+     * Returns the total unpaid fines for a user.
+     * <p>
+     * Reads the {@code users.outstanding_fine} balance, which a trigger on
+     * {@code student_borrow} keeps equal to the sum of the user's fines, so this is
+     * a primary-key lookup rather than an aggregate over the borrow history.
+     * </p>
      *
      * @param email student's email
      * @return total fine amount, or 0 if none or an error occurred
      */
     public int getTotalFine(String email) {
-        String sql = "SELECT SUM(fine) AS total FROM student_borrow WHERE student_email = ? AND fine > 0";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "SELECT outstanding_fine AS total FROM users WHERE email = ?";
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, email);
@@ -253,6 +557,61 @@ public class BorrowRepository {
         return 0;
     }
 
+    /**
+     * Calculates the total unpaid fines of several students in one {@code GROUP BY} query.
+     *
+     * @param emails the students' emails
+     * @return each student's total; students without unpaid fines are absent and read as 0.
+     *         Empty if an error occurred
+     */
+    public StringIntMap getTotalFines(Collection<String> emails) {
+        if (emails.isEmpty()) return new StringIntMap(0);
+        String sql = "SELECT student_email, SUM(fine) AS total FROM student_borrow "
+                + "WHERE student_email = ANY(?) AND fine > 0 GROUP BY student_email";
+        StringIntMap totals = new StringIntMap(emails.size());
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("varchar", emails.toArray()));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                totals.put(rs.getString("student_email"), rs.getInt("total"));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error calculating fines: " + e.getMessage());
+            return new StringIntMap(0);
+        }
+        return totals;
+    }
+
+    /**
+     * Calculates the total unpaid fines of every student in one {@code GROUP BY} query.
+     *
+     * @return each student's total; students without unpaid fines are absent.
+     *         Empty if an error occurred
+     */
+    public StringIntMap getAllTotalFines() {
+        String sql = "SELECT student_email, SUM(fine) AS total FROM student_borrow "
+                + "WHERE fine > 0 GROUP BY student_email";
+        StringIntMap totals = new StringIntMap(16);
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                totals.put(rs.getString("student_email"), rs.getInt("total"));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error calculating fines: " + e.getMessage());
+            return new StringIntMap(0);
+        }
+        return totals;
+    }
+
     /**
      * Marks a specific borrow record (based on student and ISBN) as returned
      * and sets a final fine amount.
@@ -266,7 +625,7 @@ public class BorrowRepository {
         String findSql = "SELECT id FROM student_borrow WHERE student_email = ? AND item_isbn = ? AND returned = false ORDER BY borrow_date DESC LIMIT 1";
         String updateSql = "UPDATE student_borrow SET returned = true, fine = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement find = conn.prepareStatement(findSql)) {
 
             find.setString(1, email);
@@ -283,6 +642,7 @@ public class BorrowRepository {
                 update.setInt(1, fineToSet);
                 update.setInt(2, id);
                 update.executeUpdate();
+                notifyReturned(id);
                 return true;
             }
 
@@ -304,7 +664,7 @@ public class BorrowRepository {
                 + "FROM student_borrow WHERE student_email = ? AND item_isbn = ? AND returned = false "
                 + "ORDER BY borrow_date DESC LIMIT 1";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, email);
@@ -313,15 +673,7 @@ public class BorrowRepository {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return new Borrow(
-                        rs.getInt("id"),
-                        rs.getString("student_email"),
-                        rs.getInt("item_isbn"),
-                        rs.getDate("borrow_date").toLocalDate(),
-                        rs.getDate("overdue_date").toLocalDate(),
-                        rs.getBoolean("returned"),
-                        rs.getInt("fine")
-                );
+                return mapBorrow(rs);
             }
 
         } catch (Exception e) {
@@ -339,7 +691,7 @@ public class BorrowRepository {
         String sql = "SELECT DISTINCT student_email FROM student_borrow WHERE fine > 0";
         List<String> emails = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             ResultSet rs = stmt.executeQuery();
@@ -353,4 +705,326 @@ public class BorrowRepository {
 
         return emails;
     }
+
+    /**
+     * Retrieves one page of students with unpaid fines using keyset pagination.
+     *
+     * @param afterEmail return only emails sorting after this one; empty string for the first page
+     * @param limit      maximum number of emails to return
+     * @return the emails in ascending order
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public List<String> getStudentsWithUnpaidFines(String afterEmail, int limit) {
+        checkLimit(limit);
+        String sql = "SELECT DISTINCT student_email FROM student_borrow WHERE fine > 0 AND student_email > ? "
+                + "ORDER BY student_email LIMIT ?";
+        List<String> emails = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, afterEmail == null ? "" : afterEmail);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                emails.add(rs.getString("student_email"));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error fetching students with unpaid fines: " + e.getMessage());
+        }
+
+        return emails;
+    }
+
+    /**
+     * Streams the emails of all students with unpaid fines, in ascending order, through
+     * a database cursor. The stream holds a connection until closed.
+     *
+     * @return a lazily fetched stream of email addresses
+     */
+    public Stream<String> streamStudentsWithUnpaidFines() {
+        String sql = "SELECT DISTINCT student_email FROM student_borrow WHERE fine > 0 ORDER BY student_email";
+        return JdbcCursor.stream(dataSource, sql, stmt -> { }, rs -> rs.getString("student_email"),
+                JdbcCursor.DEFAULT_FETCH_SIZE, "students with unpaid fines");
+    }
+
+    /**
+     * Streams every student's total unpaid fine, computed in one aggregate query and
+     * ordered by email, through a database cursor. The stream holds a connection until closed.
+     *
+     * @param afterEmail return only students whose email sorts after this one; empty string for all
+     * @return a lazily fetched stream of fine totals
+     */
+    public Stream<FineTotal> streamUnpaidFineTotals(String afterEmail) {
+        String sql = "SELECT student_email, SUM(fine) AS total FROM student_borrow "
+                + "WHERE fine > 0 AND student_email > ? GROUP BY student_email ORDER BY student_email";
+        return JdbcCursor.stream(dataSource, sql,
+                stmt -> stmt.setString(1, afterEmail == null ? "" : afterEmail),
+                rs -> new FineTotal(rs.getString("student_email"), rs.getInt("total")),
+                JdbcCursor.DEFAULT_FETCH_SIZE, "unpaid fine totals");
+    }
+
+    /**
+     * Adds the fine for the days since the last accrual to one batch of overdue,
+     * unreturned borrows.
+     * <p>
+     * Each row is charged for the days after its overdue date, or after the last day
+     * already accrued, up to {@code today}, at the per-day rate of its item type, and
+     * is marked as accrued through {@code today}. Rows accrued through {@code today}
+     * are not picked again, so repeated calls on the same day return 0 once every
+     * row is done. Rows locked by a running return or payment are skipped and caught
+     * up on the next run. The fine trigger keeps {@code users.outstanding_fine} in step.
+     * </p>
+     *
+     * @param today     the day to accrue fines through
+     * @param batchSize maximum number of rows to update
+     * @return the number of rows updated, or -1 on error
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public int accrueOverdueFines(LocalDate today, int batchSize) {
+        checkLimit(batchSize);
+        String sql = """
+            WITH batch AS (
+                SELECT id, borrow_date
+                FROM student_borrow
+                WHERE returned = false AND overdue_date < ?
+                  AND (accrued_through IS NULL OR accrued_through < ?)
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE student_borrow sb
+            SET fine = sb.fine + (?::date - GREATEST(sb.overdue_date, sb.accrued_through)) * %s,
+                accrued_through = ?
+            FROM batch, items i
+            WHERE sb.id = batch.id AND sb.borrow_date = batch.borrow_date AND i.isbn = sb.item_isbn
+        """.formatted(dailyFineCase("i.type"));
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            Date date = Date.valueOf(today);
+            stmt.setDate(1, date);
+            stmt.setDate(2, date);
+            stmt.setInt(3, batchSize);
+            stmt.setDate(4, date);
+            stmt.setDate(5, date);
+            return stmt.executeUpdate();
+
+        } catch (Exception e) {
+            System.out.println("Error accruing fines: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Reads every borrow that has not been returned, with the type of the borrowed
+     * item, through a server-side cursor a batch at a time, and passes each to the
+     * given consumer.
+     *
+     * @param consumer receives each active borrow
+     * @return the number of borrows read, or -1 if the scan failed part way or did not start
+     */
+    public int forEachActiveBorrow(Consumer<ActiveBorrow> consumer) {
+        String sql = "SELECT sb.id, sb.student_email, sb.item_isbn, sb.borrow_date, sb.overdue_date, i.type "
+                + "FROM student_borrow sb JOIN items i ON i.isbn = sb.item_isbn WHERE sb.returned = false";
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(JdbcCursor.DEFAULT_FETCH_SIZE);
+                ResultSet rs = stmt.executeQuery();
+
+                int count = 0;
+                while (rs.next()) {
+                    consumer.accept(new ActiveBorrow(
+                            rs.getInt("id"),
+                            rs.getString("student_email"),
+                            rs.getInt("item_isbn"),
+                            rs.getDate("borrow_date").toLocalDate(),
+                            rs.getDate("overdue_date").toLocalDate(),
+                            libraryType.valueOf(rs.getString("type"))));
+                    count++;
+                }
+                conn.commit();
+                return count;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error fetching active borrows: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Moves one batch of settled borrows into {@code student_borrow_history}.
+     * <p>
+     * A borrow is settled when it was returned and carries no fine. Only borrows made
+     * before {@code borrowedBefore} are moved, so the old partitions are the ones
+     * emptied. Rows are deleted and inserted in one statement; rows locked by a running
+     * borrow, return or payment are skipped and picked up by a later batch.
+     * </p>
+     *
+     * @param borrowedBefore move only borrows made before this date
+     * @param batchSize      maximum number of rows to move
+     * @return the number of rows moved, or -1 on error
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public int archiveSettledBorrows(LocalDate borrowedBefore, int batchSize) {
+        checkLimit(batchSize);
+        String sql = """
+            WITH batch AS (
+                SELECT id, borrow_date
+                FROM student_borrow
+                WHERE returned = true AND fine = 0 AND borrow_date < ?
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ), moved AS (
+                DELETE FROM student_borrow sb
+                USING batch
+                WHERE sb.id = batch.id AND sb.borrow_date = batch.borrow_date
+                RETURNING sb.id, sb.student_email, sb.item_isbn, sb.borrow_date, sb.overdue_date
+            )
+            INSERT INTO student_borrow_history (id, student_email, item_isbn, borrow_date, overdue_date)
+            SELECT id, student_email, item_isbn, borrow_date, overdue_date FROM moved
+        """;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(borrowedBefore));
+            stmt.setInt(2, batchSize);
+            return stmt.executeUpdate();
+
+        } catch (Exception e) {
+            System.out.println("Error archiving borrows: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Lists the years that have borrows in {@code student_borrow_default}, i.e. years
+     * whose partition was not created in time.
+     *
+     * @return the years, in ascending order; empty if none or if the query failed
+     */
+    public List<Integer> findDefaultPartitionYears() {
+        String sql = "SELECT DISTINCT EXTRACT(YEAR FROM borrow_date)::INTEGER AS year "
+                + "FROM student_borrow_default ORDER BY year";
+        List<Integer> years = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                years.add(rs.getInt("year"));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error reading the default borrow partition: " + e.getMessage());
+        }
+        return years;
+    }
+
+    /**
+     * Creates the {@code student_borrow} partition for a calendar year if it does not exist.
+     * <p>
+     * PostgreSQL refuses to create a partition while the default partition holds rows
+     * in its range, which happens when the year began before its partition was
+     * created. In that case the default partition is detached, the new partition is
+     * created, the year's rows are moved into it and the default partition is attached
+     * again, all in one transaction. Borrows and returns wait for that transaction.
+     * Fine triggers are disabled during the move, so the balances in
+     * {@code users.outstanding_fine} do not change.
+     * </p>
+     *
+     * @param year the year whose borrows the partition holds
+     * @return true if the partition exists afterwards
+     */
+    public boolean createYearPartition(int year) {
+        LocalDate from = LocalDate.of(year, 1, 1);
+        LocalDate to = from.plusYears(1);
+        String partition = "student_borrow_y" + year;
+        String range = "FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+        String inRange = "borrow_date >= '" + from + "' AND borrow_date < '" + to + "'";
+        String columns = "id, student_email, item_isbn, borrow_date, overdue_date, returned, fine, accrued_through";
+
+        try (Connection conn = dataSource.getConnection()) {
+            if (!defaultPartitionHolds(conn, from, to)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF student_borrow " + range);
+                }
+                return true;
+            }
+
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE student_borrow DETACH PARTITION student_borrow_default");
+                stmt.execute("CREATE TABLE " + partition + " PARTITION OF student_borrow " + range);
+                stmt.execute("ALTER TABLE student_borrow_default DISABLE TRIGGER USER");
+                stmt.execute("ALTER TABLE " + partition + " DISABLE TRIGGER USER");
+                int moved = stmt.executeUpdate("WITH moved AS (DELETE FROM student_borrow_default WHERE " + inRange
+                        + " RETURNING " + columns + ") INSERT INTO " + partition + " (" + columns + ") SELECT "
+                        + columns + " FROM moved");
+                stmt.execute("ALTER TABLE " + partition + " ENABLE TRIGGER USER");
+                stmt.execute("ALTER TABLE student_borrow_default ENABLE TRIGGER USER");
+                stmt.execute("ALTER TABLE student_borrow ATTACH PARTITION student_borrow_default DEFAULT");
+                conn.commit();
+                System.out.println("Moved " + moved + " borrows of " + year + " out of the default partition.");
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error creating borrow partition for " + year + ": " + e.getMessage()
+                    + ". Its borrows stay in student_borrow_default until the partition can be created.");
+            return false;
+        }
+    }
+
+    private static boolean defaultPartitionHolds(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        String sql = "SELECT EXISTS (SELECT 1 FROM student_borrow_default WHERE borrow_date >= ? AND borrow_date < ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private void notifyReturned(int id) {
+        for (IntConsumer listener : returnListeners) {
+            listener.accept(id);
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be greater than 0.");
+    }
+
+    /**
+     * Maps a single {@code student_borrow} row into a {@link Borrow}.
+     *
+     * @param rs the result set positioned at a row
+     * @return the mapped {@link Borrow}
+     * @throws SQLException if reading the columns fails
+     */
+    private static Borrow mapBorrow(ResultSet rs) throws SQLException {
+        return new Borrow(
+                rs.getInt("id"),
+                rs.getString("student_email"),
+                rs.getInt("item_isbn"),
+                rs.getDate("borrow_date").toLocalDate(),
+                rs.getDate("overdue_date").toLocalDate(),
+                rs.getBoolean("returned"),
+                rs.getInt("fine")
+        );
+    }
 }
@@ -0,0 +1,145 @@
+package repository;
+
+import domain.Items;
+import domain.libraryType;
+import util.IntLruCache;
+
+import javax.sql.DataSource;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * {@link ItemsRepository} with a read-through, size-bounded cache for ISBN lookups.
+ * <p>
+ * Only the catalogue fields that practically never change (author, name and type)
+ * are cached, keyed by the primitive ISBN. Stock is always read from the database
+ * with a single-column lookup, so the cache can never serve a stale quantity even
+ * when borrows and returns change it elsewhere.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class CachingItemsRepository extends ItemsRepository {
+
+    /** The cached, stock-independent part of an item. */
+    private record CatalogEntry(String author, String name, libraryType type) {
+    }
+
+    private final IntLruCache<CatalogEntry> cache;
+
+    /**
+     * Constructs a caching repository.
+     *
+     * @param dataSource the pooled data source used for all queries
+     * @param capacity   maximum number of ISBNs kept in the cache
+     */
+    public CachingItemsRepository(DataSource dataSource, int capacity) {
+        super(dataSource);
+        this.cache = new IntLruCache<>(capacity);
+    }
+
+    /**
+     * Finds an item by ISBN, serving author, name and type from the cache when possible.
+     * The quantity is always read from the database.
+     *
+     * @param isbn the unique ISBN of the item
+     * @return an {@link Optional} containing the found item, or empty if none found
+     */
+    @Override
+    public Optional<Items> findByISBN(int isbn) {
+        CatalogEntry entry = cache.get(isbn);
+        if (entry == null) {
+            Optional<Items> loaded = super.findByISBN(isbn);
+            loaded.ifPresent(item -> cache.put(isbn, toEntry(item)));
+            return loaded;
+        }
+
+        OptionalInt quantity = findQuantity(isbn);
+        if (quantity.isEmpty()) {
+            cache.invalidate(isbn);
+            return Optional.empty();
+        }
+        return Optional.of(new Items(entry.author(), entry.name(), entry.type(),
+                quantity.getAsInt(), String.valueOf(isbn)));
+    }
+
+    /**
+     * Answers from the cache when the ISBN is known, otherwise loads and caches the item.
+     *
+     * @param isbn the ISBN of the item
+     * @return true if the item exists
+     */
+    @Override
+    public boolean existsByISBN(int isbn) {
+        if (cache.get(isbn) != null) return true;
+        Optional<Items> loaded = super.findByISBN(isbn);
+        loaded.ifPresent(item -> cache.put(isbn, toEntry(item)));
+        return loaded.isPresent();
+    }
+
+    /**
+     * Inserts a new item and drops any cached entry for its generated ISBN.
+     *
+     * @param item the {@link Items} object to save
+     * @return true if the insert succeeded, false otherwise
+     */
+    @Override
+    public boolean addItem(Items item) {
+        boolean saved = super.addItem(item);
+        parseIsbn(item.getISBN()).ifPresent(this::invalidate);
+        return saved;
+    }
+
+    /**
+     * Increases the stock of an item. Stock is not cached, so the entry is only
+     * dropped when the update finds no row, i.e. the item has disappeared.
+     *
+     * @param isbn the ISBN of the item whose quantity should increase
+     * @return true if successfully updated, false if the item does not exist or error occurs
+     */
+    @Override
+    public boolean increaseQuantity(int isbn) {
+        boolean updated = super.increaseQuantity(isbn);
+        if (!updated) invalidate(isbn);
+        return updated;
+    }
+
+    /**
+     * Removes a single ISBN from the cache.
+     *
+     * @param isbn the ISBN to forget
+     */
+    public void invalidate(int isbn) {
+        cache.invalidate(isbn);
+    }
+
+    /**
+     * Removes every cached entry.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Returns the cache hit, miss and eviction counters.
+     *
+     * @return the current cache statistics
+     */
+    public IntLruCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    private static CatalogEntry toEntry(Items item) {
+        return new CatalogEntry(item.getAuthor(), item.getName(), item.getType());
+    }
+
+    private static OptionalInt parseIsbn(String isbn) {
+        if (isbn == null || isbn.isBlank()) return OptionalInt.empty();
+        try {
+            return OptionalInt.of(Integer.parseInt(isbn.trim()));
+        } catch (NumberFormatException e) {
+            return OptionalInt.empty();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package repository;
+
+import domain.OutboxEmail;
+import domain.Role;
+import domain.user;
+import util.ExpiringLruCache;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link userRepository} with a read-through, size-bounded, expiring cache for
+ * lookups by email, which every login and registration makes.
+ * <p>
+ * Known emails map to the user's role and password hash. Unknown emails are cached
+ * too, in a separate and shorter-lived cache, so repeated attempts with emails that
+ * do not exist are answered without a query and cannot push real accounts out of
+ * the positive cache. Saving a user, changing a role or password hash and soft
+ * deleting a user drop the affected email from both caches.
+ * </p>
+ *
+ * @author Sara
+ * @version 1.0
+ */
+public class CachingUserRepository extends userRepository {
+
+    /** How long a found user stays cached by default, in milliseconds. */
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60_000;
+
+    /** How long an unknown email stays cached by default, in milliseconds. */
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 30_000;
+
+    /** The cached part of a user. */
+    private record Credentials(Role role, String passwordHash) {
+    }
+
+    private final ExpiringLruCache<String, Credentials> found;
+    private final ExpiringLruCache<String, Boolean> missing;
+
+    /** Bumped on every invalidation, so a lookup that raced with a write does not cache stale data. */
+    private long invalidations;
+
+    /**
+     * Constructs a caching repository with the default expiry times.
+     *
+     * @param dataSource the pooled data source used for all queries
+     * @param capacity   maximum number of emails kept in each cache
+     */
+    public CachingUserRepository(DataSource dataSource, int capacity) {
+        this(dataSource, capacity, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS, System::nanoTime);
+    }
+
+    /**
+     * Constructs a caching repository.
+     *
+     * @param dataSource        the pooled data source used for all queries
+     * @param capacity          maximum number of emails kept in each cache
+     * @param ttlMillis         how long a found user stays cached
+     * @param negativeTtlMillis how long an unknown email stays cached
+     * @param nanoTime          clock used for expiry
+     */
+    CachingUserRepository(DataSource dataSource, int capacity, long ttlMillis, long negativeTtlMillis,
+                          LongSupplier nanoTime) {
+        super(dataSource);
+        this.found = new ExpiringLruCache<>(capacity, ttlMillis, nanoTime);
+        this.missing = new ExpiringLruCache<>(capacity, negativeTtlMillis, nanoTime);
+    }
+
+    /**
+     * Finds a user by email, answering from the cache when possible.
+     *
+     * @param email the email of the user to retrieve
+     * @return an {@link Optional} containing the {@link user} if found, or empty if no user exists with the given email
+     */
+    @Override
+    public Optional<user> findByEmail(String email) {
+        Credentials cached = found.get(email);
+        if (cached != null) return Optional.of(new user(email, cached.role(), cached.passwordHash()));
+        if (missing.get(email) != null) return Optional.empty();
+
+        long generation;
+        synchronized (this) {
+            generation = invalidations;
+        }
+        Optional<user> loaded;
+        try {
+            loaded = loadByEmail(email);
+        } catch (Exception e) {
+            // A failed lookup is not an unknown email, so nothing is cached.
+            System.out.println("Error finding user: " + e.getMessage());
+            return Optional.empty();
+        }
+        synchronized (this) {
+            if (invalidations == generation) {
+                if (loaded.isPresent()) {
+                    found.put(email, new Credentials(loaded.get().getRole(), loaded.get().getPasswordHash()));
+                } else {
+                    missing.put(email, Boolean.TRUE);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Persists a new user and drops any cached entry for the email.
+     *
+     * @param user the {@link user} object to save
+     * @return {@code true} if the user was successfully inserted; {@code false} otherwise
+     */
+    @Override
+    public boolean save(user user) {
+        try {
+            return super.save(user);
+        } finally {
+            invalidate(user.getEmail());
+        }
+    }
+
+    /**
+     * Persists a new user with its welcome email and drops any cached entry for the email.
+     *
+     * @param user  the {@link user} object to save
+     * @param email the email to place in {@code email_outbox}
+     * @return {@code true} if the user and the email were stored; {@code false} otherwise
+     */
+    @Override
+    public boolean save(user user, OutboxEmail email) {
+        try {
+            return super.save(user, email);
+        } finally {
+            invalidate(user.getEmail());
+        }
+    }
+
+    /**
+     * Soft deletes an inactive user and drops the cached entry for the email.
+     *
+     * @param email      the email of the user to soft delete
+     * @param oneYearAgo the date threshold for inactivity
+     * @return {@code true} if a user was successfully marked as deleted; {@code false} otherwise
+     */
+    @Override
+    public boolean softDeleteInactiveUser(String email, LocalDate oneYearAgo) {
+        try {
+            return super.softDeleteInactiveUser(email, oneYearAgo);
+        } finally {
+            invalidate(email);
+        }
+    }
+
+    /**
+     * Updates the role of a user and drops the cached entry for the email.
+     *
+     * @param email   the email of the user whose role is to be updated
+     * @param newRole the new {@link Role} to assign to the user
+     * @return {@code true} if the role was successfully updated; {@code false} otherwise
+     */
+    @Override
+    public boolean updateRole(String email, Role newRole) {
+        try {
+            return super.updateRole(email, newRole);
+        } finally {
+            invalidate(email);
+        }
+    }
+
+    /**
+     * Replaces a user's password hash and drops the cached entry for the email.
+     *
+     * @param email        the email of the user
+     * @param expectedHash the hash the caller verified the password against
+     * @param newHash      the hash to store
+     * @return {@code true} if the hash was replaced; {@code false} otherwise
+     */
+    @Override
+    public boolean updatePasswordHash(String email, String expectedHash, String newHash) {
+        try {
+            return super.updatePasswordHash(email, expectedHash, newHash);
+        } finally {
+            invalidate(email);
+        }
+    }
+
+    /**
+     * Removes a single email from both caches.
+     *
+     * @param email the email to forget
+     */
+    public synchronized void invalidate(String email) {
+        invalidations++;
+        found.invalidate(email);
+        missing.invalidate(email);
+    }
+
+    /**
+     * Removes every cached entry.
+     */
+    public synchronized void invalidateAll() {
+        invalidations++;
+        found.clear();
+        missing.clear();
+    }
+
+    /**
+     * @return statistics of the cache of found users
+     */
+    public ExpiringLruCache.Stats getCacheStats() {
+        return found.getStats();
+    }
+
+    /**
+     * @return statistics of the cache of unknown emails
+     */
+    public ExpiringLruCache.Stats getNegativeCacheStats() {
+        return missing.getStats();
+    }
+}
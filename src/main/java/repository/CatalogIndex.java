@@ -0,0 +1,523 @@
+package repository;
+
+import domain.Items;
+import domain.libraryType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory inverted index over item names and authors.
+ * <p>
+ * Names and authors are split into lower-case tokens. Each token maps to a sorted
+ * posting list of primitive {@code int} ISBNs. A query term matches every token
+ * that contains it, so text in the middle of a word is found as well, and a
+ * multi-term query returns only items that match every term (AND). Author, name
+ * and type of each item are kept alongside, so the matching is done without
+ * touching the database.
+ * </p>
+ *
+ * <p>To find the tokens containing a term without scanning the whole vocabulary,
+ * every substring of up to {@value #GRAM_LENGTH} characters of a token is mapped to
+ * the tokens it occurs in. A term that short is looked up directly; a longer term
+ * is checked only against the tokens of its rarest {@value #GRAM_LENGTH}-character
+ * substring.</p>
+ *
+ * <p>The index is filled once from a streaming scan of {@code items}, see
+ * {@link #build(ItemsRepository)}, and then kept current through
+ * {@link ItemsRepository#onItemAdded}. Items inserted without that listener, by a
+ * bulk import or by another application instance, are read by a refresh: at most
+ * once per refresh interval, a search first scans the items from just below the
+ * highest indexed ISBN, see {@link #refresh()}. Stock changes with every borrow and return,
+ * so it is not indexed: results carry a quantity of 0, and callers read the live
+ * stock of a result page with {@link ItemsRepository#findQuantities(int[])}.</p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class CatalogIndex {
+
+    /** Which text field a query runs against. */
+    public enum Field { NAME, AUTHOR }
+
+    /** Stored catalogue fields for one ISBN. */
+    private record Document(String author, String name, libraryType type) {
+    }
+
+    /** How often, by default, a search first reads the items added since the last refresh. */
+    public static final long DEFAULT_REFRESH_MILLIS = 10_000;
+
+    /**
+     * How far below the highest indexed ISBN a refresh starts. A transaction that
+     * took its ISBNs earlier, such as an import chunk, may commit after a higher
+     * ISBN is already indexed; its rows still fall inside this window.
+     */
+    static final int REFRESH_OVERLAP = 10_000;
+
+    /** Longest substring of a token kept in the n-gram maps. */
+    static final int GRAM_LENGTH = 3;
+
+    private final NavigableMap<String, IntPostingList> nameTokens = new TreeMap<>();
+    private final NavigableMap<String, IntPostingList> authorTokens = new TreeMap<>();
+
+    /** Substrings of up to {@link #GRAM_LENGTH} characters, each with the tokens containing it. */
+    private final Map<String, Set<String>> nameGrams = new HashMap<>();
+    private final Map<String, Set<String>> authorGrams = new HashMap<>();
+
+    /** Sorted ISBNs with their documents in the parallel array. */
+    private int[] isbns = new int[1024];
+    private Document[] documents = new Document[1024];
+    private int documentCount;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Source of refreshes, or null for an index that is only filled through {@link #add(Items)}. */
+    private final ItemsRepository repository;
+    private final long refreshNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicLong nextRefresh;
+
+    /**
+     * Constructs an empty index that is filled only through {@link #add(Items)}.
+     */
+    public CatalogIndex() {
+        this(null, 0, System::nanoTime);
+    }
+
+    private CatalogIndex(ItemsRepository repository, long refreshMillis, LongSupplier nanoTime) {
+        this.repository = repository;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+        this.nanoTime = nanoTime;
+        this.nextRefresh = new AtomicLong(nanoTime.getAsLong() + refreshNanos);
+    }
+
+    /**
+     * Builds an index from one streaming scan of the items table and subscribes it
+     * to items added afterwards.
+     *
+     * @param repository the repository to scan and listen to
+     * @return the populated index
+     */
+    public static CatalogIndex build(ItemsRepository repository) {
+        return build(repository, DEFAULT_REFRESH_MILLIS, System::nanoTime);
+    }
+
+    /**
+     * Builds an index that refreshes from the repository at the given interval.
+     *
+     * @param repository    the repository to scan and listen to
+     * @param refreshMillis minimum time between two refreshes
+     * @param nanoTime      clock used to time refreshes
+     * @return the populated index
+     */
+    static CatalogIndex build(ItemsRepository repository, long refreshMillis, LongSupplier nanoTime) {
+        CatalogIndex index = new CatalogIndex(repository, refreshMillis, nanoTime);
+        repository.onItemAdded(index::add);
+        repository.forEachItem(index::add);
+        return index;
+    }
+
+    /**
+     * Reads the items from {@link #REFRESH_OVERLAP} below the highest indexed ISBN
+     * upwards and indexes those that are missing. Does nothing for an index that
+     * was not built from a repository.
+     *
+     * @return the number of items added to the index
+     */
+    public int refresh() {
+        if (repository == null) return 0;
+
+        int from;
+        lock.readLock().lock();
+        try {
+            from = documentCount == 0 ? 0 : Math.max(0, isbns[documentCount - 1] - REFRESH_OVERLAP);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Items> scanned = new ArrayList<>();
+        repository.forEachItemFrom(from, scanned::add);
+
+        int added = 0;
+        lock.writeLock().lock();
+        try {
+            for (Items item : scanned) {
+                int isbn = Integer.parseInt(item.getISBN().trim());
+                if (findDocument(isbn) != null) continue;
+                index(isbn, new Document(item.getAuthor(), item.getName(), item.getType()));
+                added++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return added;
+    }
+
+    private void refreshIfDue() {
+        if (repository == null) return;
+        long now = nanoTime.getAsLong();
+        long due = nextRefresh.get();
+        if (now - due < 0 || !nextRefresh.compareAndSet(due, now + refreshNanos)) return;
+        refresh();
+    }
+
+    /**
+     * Adds or replaces an item in the index.
+     *
+     * @param item the item; its ISBN must be numeric
+     * @throws IllegalArgumentException if the ISBN is not a number
+     */
+    public void add(Items item) {
+        int isbn;
+        try {
+            isbn = Integer.parseInt(item.getISBN().trim());
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException("Cannot index an item without a numeric ISBN.");
+        }
+
+        Document doc = new Document(item.getAuthor(), item.getName(), item.getType());
+
+        lock.writeLock().lock();
+        try {
+            index(isbn, doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds or replaces a document; the caller holds the write lock. */
+    private void index(int isbn, Document doc) {
+        Document previous = findDocument(isbn);
+        if (previous != null) {
+            removePostings(nameTokens, nameGrams, previous.name(), isbn);
+            removePostings(authorTokens, authorGrams, previous.author(), isbn);
+        }
+        putDocument(isbn, doc);
+        addPostings(nameTokens, nameGrams, doc.name(), isbn);
+        addPostings(authorTokens, authorGrams, doc.author(), isbn);
+    }
+
+    /**
+     * Searches one field. Every query term must be contained in some token of the
+     * field; results are ordered by ISBN and carry a quantity of 0. If the refresh
+     * interval has passed, the index is refreshed first.
+     *
+     * @param field  the field to search
+     * @param query  one or more terms
+     * @param type   only return items of this type, or null for all types
+     * @param limit  maximum number of results
+     * @param offset number of matches to skip
+     * @return the matching items
+     * @throws IllegalArgumentException if limit is not positive or offset is negative
+     */
+    public List<Items> search(Field field, String query, libraryType type, int limit, int offset) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be greater than 0.");
+        if (offset < 0) throw new IllegalArgumentException("Offset cannot be negative.");
+
+        List<String> terms = tokenize(query);
+        List<Items> result = new ArrayList<>();
+        if (terms.isEmpty()) return result;
+        refreshIfDue();
+
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, IntPostingList> tokens = field == Field.NAME ? nameTokens : authorTokens;
+            Map<String, Set<String>> grams = field == Field.NAME ? nameGrams : authorGrams;
+
+            int[] matches = null;
+            for (String term : terms) {
+                int[] termMatches = containingUnion(tokens, grams, term);
+                matches = matches == null ? termMatches : intersect(matches, termMatches);
+                if (matches.length == 0) return result;
+            }
+
+            int skipped = 0;
+            for (int isbn : matches) {
+                Document doc = findDocument(isbn);
+                if (type != null && doc.type() != type) continue;
+                if (skipped++ < offset) continue;
+                result.add(new Items(doc.author(), doc.name(), doc.type(), 0, String.valueOf(isbn)));
+                if (result.size() == limit) break;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed items
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap used by the index: token strings, posting arrays, n-gram
+     * sets, map entries and stored documents. The figure assumes a 64-bit JVM with
+     * compressed references and is meant for capacity planning, not accounting.
+     *
+     * @return the current footprint
+     */
+    public MemoryStats getMemoryStats() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            long postings = 0;
+            for (NavigableMap<String, IntPostingList> tokens : List.of(nameTokens, authorTokens)) {
+                for (Map.Entry<String, IntPostingList> e : tokens.entrySet()) {
+                    bytes += TREE_ENTRY_BYTES + stringBytes(e.getKey());
+                    bytes += ARRAY_HEADER_BYTES + 4L * e.getValue().data.length + OBJECT_HEADER_BYTES;
+                    postings += e.getValue().size;
+                }
+            }
+            for (Map<String, Set<String>> grams : List.of(nameGrams, authorGrams)) {
+                for (Map.Entry<String, Set<String>> e : grams.entrySet()) {
+                    bytes += HASH_ENTRY_BYTES + stringBytes(e.getKey()) + HASH_SET_BYTES;
+                    bytes += (long) HASH_ENTRY_BYTES * e.getValue().size();
+                }
+            }
+            bytes += ARRAY_HEADER_BYTES + 4L * isbns.length;
+            bytes += ARRAY_HEADER_BYTES + 4L * documents.length;
+            for (int i = 0; i < documentCount; i++) {
+                Document doc = documents[i];
+                bytes += OBJECT_HEADER_BYTES + 16 + stringBytes(doc.author()) + stringBytes(doc.name());
+            }
+            return new MemoryStats(nameTokens.size() + authorTokens.size(), postings, documentCount, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Size of the index.
+     *
+     * @param tokens         distinct tokens across both fields
+     * @param postings       ISBN entries across all posting lists
+     * @param documents      indexed items
+     * @param estimatedBytes approximate heap footprint
+     */
+    public record MemoryStats(int tokens, long postings, int documents, long estimatedBytes) {
+    }
+
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int TREE_ENTRY_BYTES = 40;
+    private static final int HASH_ENTRY_BYTES = 36;
+    private static final int HASH_SET_BYTES = 64;
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 24 + ARRAY_HEADER_BYTES + s.length();
+    }
+
+    /**
+     * Splits text into lower-case tokens of letters and digits.
+     *
+     * @param text the text to split
+     * @return the tokens, possibly empty
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addPostings(NavigableMap<String, IntPostingList> tokens, Map<String, Set<String>> grams,
+                                    String text, int isbn) {
+        for (String token : tokenize(text)) {
+            IntPostingList list = tokens.get(token);
+            if (list == null) {
+                list = new IntPostingList();
+                tokens.put(token, list);
+                for (String gram : gramsOf(token)) {
+                    grams.computeIfAbsent(gram, g -> new HashSet<>()).add(token);
+                }
+            }
+            list.add(isbn);
+        }
+    }
+
+    private static void removePostings(NavigableMap<String, IntPostingList> tokens, Map<String, Set<String>> grams,
+                                       String text, int isbn) {
+        for (String token : tokenize(text)) {
+            IntPostingList list = tokens.get(token);
+            if (list != null && list.remove(isbn) && list.size == 0) {
+                tokens.remove(token);
+                for (String gram : gramsOf(token)) {
+                    Set<String> containing = grams.get(gram);
+                    if (containing != null && containing.remove(token) && containing.isEmpty()) {
+                        grams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the distinct substrings of the token that are at most {@link #GRAM_LENGTH} characters long
+     */
+    static Set<String> gramsOf(String token) {
+        Set<String> grams = new HashSet<>();
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= token.length(); i++) {
+                grams.add(token.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Finds the tokens containing a term through the n-gram map: a short term is
+     * an n-gram itself, a longer one is checked against the tokens of its rarest
+     * {@link #GRAM_LENGTH}-character substring.
+     */
+    private static Set<String> tokensContaining(Map<String, Set<String>> grams, String term) {
+        if (term.length() <= GRAM_LENGTH) return grams.getOrDefault(term, Set.of());
+
+        Set<String> candidates = null;
+        for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+            Set<String> containing = grams.get(term.substring(i, i + GRAM_LENGTH));
+            if (containing == null) return Set.of();
+            if (candidates == null || containing.size() < candidates.size()) candidates = containing;
+        }
+        Set<String> matches = new HashSet<>();
+        for (String token : candidates) {
+            if (token.contains(term)) matches.add(token);
+        }
+        return matches;
+    }
+
+    /**
+     * Collects the ISBNs of every token containing the given term, sorted and without duplicates.
+     */
+    private static int[] containingUnion(NavigableMap<String, IntPostingList> tokens,
+                                         Map<String, Set<String>> grams, String term) {
+        List<IntPostingList> lists = new ArrayList<>();
+        for (String token : tokensContaining(grams, term)) {
+            lists.add(tokens.get(token));
+        }
+        if (lists.isEmpty()) return new int[0];
+        if (lists.size() == 1) return lists.get(0).toArray();
+
+        int total = 0;
+        for (IntPostingList list : lists) total += list.size;
+        int[] merged = new int[total];
+        int pos = 0;
+        for (IntPostingList list : lists) {
+            System.arraycopy(list.data, 0, merged, pos, list.size);
+            pos += list.size;
+        }
+        Arrays.sort(merged);
+
+        int unique = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) merged[unique++] = merged[i];
+        }
+        return Arrays.copyOf(merged, unique);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private Document findDocument(int isbn) {
+        int pos = Arrays.binarySearch(isbns, 0, documentCount, isbn);
+        return pos >= 0 ? documents[pos] : null;
+    }
+
+    private void putDocument(int isbn, Document doc) {
+        int pos = Arrays.binarySearch(isbns, 0, documentCount, isbn);
+        if (pos >= 0) {
+            documents[pos] = doc;
+            return;
+        }
+        pos = -pos - 1;
+        if (documentCount == isbns.length) {
+            isbns = Arrays.copyOf(isbns, documentCount * 2);
+            documents = Arrays.copyOf(documents, documentCount * 2);
+        }
+        System.arraycopy(isbns, pos, isbns, pos + 1, documentCount - pos);
+        System.arraycopy(documents, pos, documents, pos + 1, documentCount - pos);
+        isbns[pos] = isbn;
+        documents[pos] = doc;
+        documentCount++;
+    }
+
+    /**
+     * Growable sorted array of ISBNs. Appending in ascending order, which is how
+     * a scan ordered by ISBN and newly added items arrive, costs amortised O(1).
+     */
+    private static final class IntPostingList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int isbn) {
+            if (size > 0 && data[size - 1] == isbn) return;
+            if (size == data.length) data = Arrays.copyOf(data, size + (size >> 1) + 1);
+
+            if (size == 0 || data[size - 1] < isbn) {
+                data[size++] = isbn;
+                return;
+            }
+            int pos = Arrays.binarySearch(data, 0, size, isbn);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            System.arraycopy(data, pos, data, pos + 1, size - pos);
+            data[pos] = isbn;
+            size++;
+        }
+
+        boolean remove(int isbn) {
+            int pos = Arrays.binarySearch(data, 0, size, isbn);
+            if (pos < 0) return false;
+            System.arraycopy(data, pos + 1, data, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
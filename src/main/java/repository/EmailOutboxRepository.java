@@ -0,0 +1,207 @@
+package repository;
+
+import domain.OutboxEmail;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repository for the {@code email_outbox} table.
+ * <p>
+ * Other repositories write outbox rows in the same statement as the change that
+ * triggers the email. This class lets the dispatcher claim due rows, and record
+ * whether they were sent, should be retried later, or have given up.
+ * </p>
+ * <p>
+ * Claiming uses {@code FOR UPDATE SKIP LOCKED} and moves the claimed rows'
+ * {@code next_attempt_at} forward by a lease, so several application instances can
+ * drain the outbox together without sending a row twice. If an instance dies
+ * mid-send, its rows become due again once the lease expires.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class EmailOutboxRepository {
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructs a {@link EmailOutboxRepository} that borrows connections from the given data source.
+     *
+     * @param dataSource the pooled data source used for all queries
+     */
+    public EmailOutboxRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Adds a single email to the outbox, due immediately.
+     *
+     * @param email the email to store
+     * @return true if the row was written
+     */
+    public boolean enqueue(OutboxEmail email) {
+        String sql = "INSERT INTO email_outbox (recipient, subject, body) VALUES (?, ?, ?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, email.recipient());
+            stmt.setString(2, email.subject());
+            stmt.setString(3, email.body());
+            return stmt.executeUpdate() > 0;
+
+        } catch (Exception e) {
+            System.out.println("Error queueing email: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Claims up to {@code batchSize} due emails for sending.
+     * <p>
+     * Each claimed row has its attempt count increased and is hidden from other
+     * dispatchers for {@code leaseMillis}. Rows locked by another dispatcher are skipped.
+     * </p>
+     *
+     * @param batchSize   maximum number of emails to claim
+     * @param leaseMillis how long the claim lasts before the rows become due again
+     * @return the claimed emails, oldest due first; empty on error
+     */
+    public List<OutboxEmail> claimDue(int batchSize, long leaseMillis) {
+        String sql = """
+            UPDATE email_outbox o
+            SET attempts = o.attempts + 1,
+                next_attempt_at = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond'
+            FROM (
+                SELECT id FROM email_outbox
+                WHERE status = 'PENDING' AND next_attempt_at <= CURRENT_TIMESTAMP
+                ORDER BY next_attempt_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ) due
+            WHERE o.id = due.id
+            RETURNING o.id, o.recipient, o.subject, o.body, o.attempts
+        """;
+        List<OutboxEmail> claimed = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, leaseMillis);
+            stmt.setInt(2, batchSize);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                claimed.add(new OutboxEmail(
+                        rs.getLong("id"),
+                        rs.getString("recipient"),
+                        rs.getString("subject"),
+                        rs.getString("body"),
+                        rs.getInt("attempts")
+                ));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error claiming outbox emails: " + e.getMessage());
+        }
+        return claimed;
+    }
+
+    /**
+     * Marks emails as sent.
+     *
+     * @param ids the outbox ids that were delivered
+     * @return the number of rows updated, or -1 on error
+     */
+    public int markSent(List<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        String sql = "UPDATE email_outbox SET status = 'SENT', sent_on = CURRENT_TIMESTAMP, last_error = NULL "
+                + "WHERE id = ANY(?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+            return stmt.executeUpdate();
+
+        } catch (Exception e) {
+            System.out.println("Error marking emails as sent: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Schedules another attempt for an email that failed.
+     *
+     * @param id          the outbox id
+     * @param delayMillis how long to wait before the next attempt
+     * @param error       why the attempt failed
+     * @return true if the row was updated
+     */
+    public boolean reschedule(long id, long delayMillis, String error) {
+        String sql = "UPDATE email_outbox SET next_attempt_at = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond', "
+                + "last_error = ? WHERE id = ? AND status = 'PENDING'";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, delayMillis);
+            stmt.setString(2, error);
+            stmt.setLong(3, id);
+            return stmt.executeUpdate() > 0;
+
+        } catch (Exception e) {
+            System.out.println("Error rescheduling email: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Moves an email to the dead-letter state; it will not be retried.
+     *
+     * @param id    the outbox id
+     * @param error why the last attempt failed
+     * @return true if the row was updated
+     */
+    public boolean markDead(long id, String error) {
+        String sql = "UPDATE email_outbox SET status = 'DEAD', last_error = ? WHERE id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, error);
+            stmt.setLong(2, id);
+            return stmt.executeUpdate() > 0;
+
+        } catch (Exception e) {
+            System.out.println("Error moving email to dead letters: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Counts outbox rows in a given state, e.g. to alert on dead letters.
+     *
+     * @param status {@code PENDING}, {@code SENT} or {@code DEAD}
+     * @return the number of rows, or -1 on error
+     */
+    public long countByStatus(String status) {
+        String sql = "SELECT COUNT(*) AS total FROM email_outbox WHERE status = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, status);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong("total") : 0;
+
+        } catch (Exception e) {
+            System.out.println("Error counting outbox emails: " + e.getMessage());
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package repository;
+
+import domain.ImportCheckpoint;
+import domain.Items;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for bulk catalogue imports: loads items a chunk at a time and keeps
+ * each import's checkpoint in {@code item_import}.
+ * <p>
+ * A chunk is written with PostgreSQL {@code COPY FROM STDIN}, which streams all its
+ * rows in one round trip without parsing an INSERT per row. On a connection that
+ * is not PostgreSQL's, the chunk falls back to one batched INSERT. The rows and the
+ * new checkpoint are committed together, so a chunk is either fully imported and
+ * recorded or not at all.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class ItemImportRepository {
+
+    static final String COPY_SQL = "COPY items (author, name, type, quantity) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_SQL = "INSERT INTO items (author, name, type, quantity) VALUES (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructs a {@link ItemImportRepository} that borrows connections from the given data source.
+     *
+     * @param dataSource the pooled data source used for all queries
+     */
+    public ItemImportRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Loads the checkpoint of an import.
+     *
+     * @param importId the import's id
+     * @return the checkpoint, or empty if the import has not committed a chunk yet or the query failed
+     */
+    public Optional<ImportCheckpoint> find(String importId) {
+        String sql = "SELECT id, records_done, imported, rejected FROM item_import WHERE id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, importId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(new ImportCheckpoint(
+                        rs.getString("id"),
+                        rs.getLong("records_done"),
+                        rs.getLong("imported"),
+                        rs.getLong("rejected")
+                ));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error loading item import: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Inserts a chunk of items and moves the import's checkpoint forward, in one transaction.
+     * <p>
+     * The checkpoint only moves if it still stands at {@code expectedRecordsDone}. If
+     * another run of the same import has moved it, or a failed {@link #find} made the
+     * caller start from the beginning again, nothing is written and the chunk is not
+     * imported twice.
+     * </p>
+     *
+     * @param expectedRecordsDone the records done according to the checkpoint the caller started from
+     * @param next                the checkpoint after this chunk
+     * @param items               the validated items of the chunk; may be empty
+     * @return true if the chunk and the checkpoint were committed, false otherwise
+     */
+    public boolean importChunk(long expectedRecordsDone, ImportCheckpoint next, List<Items> items) {
+        String checkpointSql = """
+                INSERT INTO item_import (id, records_done, imported, rejected)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (id) DO UPDATE
+                SET records_done = EXCLUDED.records_done,
+                    imported = EXCLUDED.imported,
+                    rejected = EXCLUDED.rejected,
+                    updated_on = CURRENT_TIMESTAMP
+                WHERE item_import.records_done = ?
+                """;
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!items.isEmpty()) {
+                    if (conn.isWrapperFor(PGConnection.class)) {
+                        copy(conn, items);
+                    } else {
+                        insertBatch(conn, items);
+                    }
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(checkpointSql)) {
+                    stmt.setString(1, next.importId());
+                    stmt.setLong(2, next.recordsDone());
+                    stmt.setLong(3, next.imported());
+                    stmt.setLong(4, next.rejected());
+                    stmt.setLong(5, expectedRecordsDone);
+                    if (stmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        System.out.println("Error importing items: import " + next.importId()
+                                + " was moved on by another run.");
+                        return false;
+                    }
+                }
+
+                conn.commit();
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error importing items: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void copy(Connection conn, List<Items> items) throws Exception {
+        StringBuilder csv = new StringBuilder(items.size() * 64);
+        for (Items item : items) {
+            appendField(csv, item.getAuthor()).append(',');
+            appendField(csv, item.getName()).append(',');
+            appendField(csv, item.getType().name()).append(',');
+            csv.append(item.getQuantity()).append('\n');
+        }
+        conn.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv.toString()));
+    }
+
+    private static StringBuilder appendField(StringBuilder csv, String value) {
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void insertBatch(Connection conn, List<Items> items) throws Exception {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Items item : items) {
+                stmt.setString(1, item.getAuthor());
+                stmt.setString(2, item.getName());
+                stmt.setString(3, item.getType().name());
+                stmt.setInt(4, item.getQuantity());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+}
@@ -2,12 +2,18 @@ package repository;
 
 import domain.Items;
 import domain.libraryType;
-import infrastructure.DatabaseConnection;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Repository class responsible for performing CRUD operations on items stored
@@ -19,16 +25,39 @@ import java.util.Optional;
  */
 public class ItemsRepository {
 
+    /** Marks a search without a row limit. */
+    private static final int NO_LIMIT = -1;
+
+    /** Rows fetched per round trip by {@link #forEachItem(Consumer)}. */
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+
+    private final List<Consumer<Items>> addListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs a {@link ItemsRepository} that borrows connections from the given data source.
+     *
+     * @param dataSource the pooled data source used for all queries
+     */
+    public ItemsRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
     /**
      * Inserts a new item into the database.
+     * <p>
+     * On success the ISBN generated by the database is written back to the item,
+     * and every listener registered with {@link #onItemAdded(Consumer)} is notified.
+     * </p>
      *
      * @param item the {@link Items} object to save
      * @return true if the insert succeeded, false otherwise
      */
     public boolean addItem(Items item) {
-        String sql = "INSERT INTO items (author, name, type, quantity) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO items (author, name, type, quantity) VALUES (?, ?, ?, ?) RETURNING isbn";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, item.getAuthor());
@@ -36,67 +65,238 @@ public class ItemsRepository {
             stmt.setString(3, item.getType().name());
             stmt.setInt(4, item.getQuantity());
 
-            stmt.executeUpdate();
-            return true;
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) return false;
+            item.setISBN(String.valueOf(rs.getInt("isbn")));
 
         } catch (Exception e) {
             System.out.println("Error saving item: " + e.getMessage());
             return false;
         }
+
+        for (Consumer<Items> listener : addListeners) {
+            listener.accept(item);
+        }
+        return true;
     }
 
     /**
-     * Searches for items with names matching the provided string (partial match allowed).
+     * Registers a callback that receives every item saved through {@link #addItem(Items)},
+     * with its generated ISBN already set.
      *
-     * @param name the search keyword for item name
-     * @return list of items whose names match the pattern
+     * @param listener the callback to invoke after each successful insert
      */
-    public List<Items> findByName(String name) {
-        String sql = "SELECT * FROM items WHERE name LIKE ?";
-        List<Items> list = new ArrayList<>();
+    public void onItemAdded(Consumer<Items> listener) {
+        addListeners.add(listener);
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Streams every item, in ISBN order, to the given consumer.
+     * <p>
+     * Rows are read through a server-side cursor a batch at a time, so the whole
+     * catalogue is never held in memory at once.
+     * </p>
+     *
+     * @param consumer receives each item
+     * @return the number of items read, or -1 if the scan failed
+     */
+    public int forEachItem(Consumer<Items> consumer) {
+        return scanItems("SELECT * FROM items ORDER BY isbn", null, consumer);
+    }
 
-            stmt.setString(1, "%" + name + "%");
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * Streams every item whose ISBN is at least the given one, in ISBN order, to
+     * the given consumer, the same way as {@link #forEachItem(Consumer)}.
+     *
+     * @param firstIsbn the lowest ISBN to read
+     * @param consumer  receives each item
+     * @return the number of items read, or -1 if the scan failed
+     */
+    public int forEachItemFrom(int firstIsbn, Consumer<Items> consumer) {
+        return scanItems("SELECT * FROM items WHERE isbn >= ? ORDER BY isbn", firstIsbn, consumer);
+    }
 
-            while (rs.next()) {
-                list.add(mapItem(rs));
+    private int scanItems(String sql, Integer firstIsbn, Consumer<Items> consumer) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                if (firstIsbn != null) stmt.setInt(1, firstIsbn);
+                stmt.setFetchSize(SCAN_FETCH_SIZE);
+                ResultSet rs = stmt.executeQuery();
+
+                int count = 0;
+                while (rs.next()) {
+                    consumer.accept(mapItem(rs));
+                    count++;
+                }
+                conn.commit();
+                return count;
+            } finally {
+                conn.setAutoCommit(true);
             }
 
         } catch (Exception e) {
-            System.out.println("Error searching by name: " + e.getMessage());
+            System.out.println("Error scanning items: " + e.getMessage());
+            return -1;
         }
-        return list;
+    }
+
+    /**
+     * Searches for items with names matching the provided string (partial match allowed).
+     *
+     * @param name the search keyword for item name
+     * @return list of items whose names match the pattern, best matches first
+     */
+    public List<Items> findByName(String name) {
+        return search("name", name, null, NO_LIMIT, 0);
+    }
+
+    /**
+     * Searches one page of items whose names contain the given text.
+     * <p>
+     * The match uses the trigram index on {@code items.name}, the type filter is
+     * applied in SQL, and results are ranked by trigram similarity to the search text.
+     * </p>
+     *
+     * @param name   the search keyword for item name
+     * @param type   only return items of this type, or null for all types
+     * @param limit  maximum number of rows to return
+     * @param offset number of ranked rows to skip
+     * @return the requested page of matching items, best matches first
+     * @throws IllegalArgumentException if limit is not positive or offset is negative
+     */
+    public List<Items> findByName(String name, libraryType type, int limit, int offset) {
+        checkPage(limit, offset);
+        return search("name", name, type, limit, offset);
     }
 
     /**
      * Searches for items by author name (partial match allowed).
      *
      * @param author the author keyword to search for
-     * @return list of items written by the matching author(s)
+     * @return list of items written by the matching author(s), best matches first
      */
     public List<Items> findByAuthor(String author) {
-        String sql = "SELECT * FROM items WHERE author LIKE ?";
+        return search("author", author, null, NO_LIMIT, 0);
+    }
+
+    /**
+     * Searches one page of items whose author contains the given text.
+     * <p>
+     * Works like {@link #findByName(String, libraryType, int, int)} but on {@code items.author}.
+     * </p>
+     *
+     * @param author the author keyword to search for
+     * @param type   only return items of this type, or null for all types
+     * @param limit  maximum number of rows to return
+     * @param offset number of ranked rows to skip
+     * @return the requested page of matching items, best matches first
+     * @throws IllegalArgumentException if limit is not positive or offset is negative
+     */
+    public List<Items> findByAuthor(String author, libraryType type, int limit, int offset) {
+        checkPage(limit, offset);
+        return search("author", author, type, limit, offset);
+    }
+
+    /**
+     * Streams every item whose name contains the given text through a database cursor,
+     * best matches first. The stream holds a connection until closed and should be used
+     * with try-with-resources.
+     *
+     * @param name the search keyword for item name
+     * @param type only return items of this type, or null for all types
+     * @return a lazily fetched stream of matching items
+     */
+    public Stream<Items> streamByName(String name, libraryType type) {
+        return JdbcCursor.stream(dataSource, searchSql("name", type, NO_LIMIT, 0),
+                stmt -> bindSearch(stmt, name, type, NO_LIMIT, 0), this::mapItem,
+                JdbcCursor.DEFAULT_FETCH_SIZE, "items by name");
+    }
+
+    /**
+     * Streams every item whose author contains the given text through a database cursor,
+     * best matches first. The stream holds a connection until closed.
+     *
+     * @param author the author keyword to search for
+     * @param type   only return items of this type, or null for all types
+     * @return a lazily fetched stream of matching items
+     */
+    public Stream<Items> streamByAuthor(String author, libraryType type) {
+        return JdbcCursor.stream(dataSource, searchSql("author", type, NO_LIMIT, 0),
+                stmt -> bindSearch(stmt, author, type, NO_LIMIT, 0), this::mapItem,
+                JdbcCursor.DEFAULT_FETCH_SIZE, "items by author");
+    }
+
+    /**
+     * Runs a ranked substring search on one text column.
+     *
+     * @param column {@code name} or {@code author}; never user input
+     * @param term   the text to look for
+     * @param type   optional type filter
+     * @param limit  maximum rows, or {@link #NO_LIMIT}
+     * @param offset rows to skip
+     * @return the matching items
+     */
+    private List<Items> search(String column, String term, libraryType type, int limit, int offset) {
         List<Items> list = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(searchSql(column, type, limit, offset))) {
 
-            stmt.setString(1, "%" + author + "%");
-            ResultSet rs = stmt.executeQuery();
+            bindSearch(stmt, term, type, limit, offset);
 
+            ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
                 list.add(mapItem(rs));
             }
 
         } catch (Exception e) {
-            System.out.println("Error searching by author: " + e.getMessage());
+            System.out.println("Error searching by " + column + ": " + e.getMessage());
         }
         return list;
     }
 
+    private static String searchSql(String column, libraryType type, int limit, int offset) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM items WHERE ")
+                .append(column).append(" LIKE ?");
+        if (type != null) sql.append(" AND type = ?");
+        sql.append(" ORDER BY similarity(").append(column).append(", ?) DESC, isbn");
+        if (limit != NO_LIMIT) sql.append(" LIMIT ?");
+        if (offset > 0) sql.append(" OFFSET ?");
+        return sql.toString();
+    }
+
+    private static void bindSearch(PreparedStatement stmt, String term, libraryType type,
+                                   int limit, int offset) throws SQLException {
+        int i = 1;
+        stmt.setString(i++, "%" + escapeLike(term) + "%");
+        if (type != null) stmt.setString(i++, type.name());
+        stmt.setString(i++, term);
+        if (limit != NO_LIMIT) stmt.setInt(i++, limit);
+        if (offset > 0) stmt.setInt(i, offset);
+    }
+
+    /**
+     * Escapes {@code %}, {@code _} and {@code \} so user text is matched literally by LIKE.
+     *
+     * @param term the raw search text
+     * @return the escaped text
+     */
+    static String escapeLike(String term) {
+        StringBuilder sb = new StringBuilder(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') sb.append('\\');
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static void checkPage(int limit, int offset) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be greater than 0.");
+        if (offset < 0) throw new IllegalArgumentException("Offset cannot be negative.");
+    }
+
     /**
      * Finds a specific item by its ISBN.
      *
@@ -106,7 +306,7 @@ public class ItemsRepository {
     public Optional<Items> findByISBN(int isbn) {
         String sql = "SELECT * FROM items WHERE isbn = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, isbn);
@@ -122,6 +322,72 @@ public class ItemsRepository {
         return Optional.empty();
     }
 
+    /**
+     * Reads only the current stock of an item.
+     *
+     * @param isbn the ISBN of the item
+     * @return the quantity, or empty if the item does not exist or an error occurred
+     */
+    public OptionalInt findQuantity(int isbn) {
+        String sql = "SELECT quantity FROM items WHERE isbn = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, isbn);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return OptionalInt.of(rs.getInt("quantity"));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error reading quantity: " + e.getMessage());
+        }
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Reads the current stock of several items in one query.
+     *
+     * @param isbns the ISBNs of the items
+     * @return the quantity of every item found, keyed by ISBN; empty if an error occurred
+     */
+    public Map<Integer, Integer> findQuantities(int[] isbns) {
+        Map<Integer, Integer> quantities = new HashMap<>();
+        if (isbns.length == 0) return quantities;
+
+        String sql = "SELECT isbn, quantity FROM items WHERE isbn = ANY(?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            Integer[] boxed = new Integer[isbns.length];
+            for (int i = 0; i < isbns.length; i++) boxed[i] = isbns[i];
+            stmt.setArray(1, conn.createArrayOf("integer", boxed));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                quantities.put(rs.getInt("isbn"), rs.getInt("quantity"));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error reading quantities: " + e.getMessage());
+            quantities.clear();
+        }
+        return quantities;
+    }
+
+    /**
+     * Checks whether an item with the given ISBN exists.
+     *
+     * @param isbn the ISBN of the item
+     * @return true if the item exists
+     */
+    public boolean existsByISBN(int isbn) {
+        return findQuantity(isbn).isPresent();
+    }
+
     /**
      * Increases the quantity of a given item by 1.
      *
@@ -131,7 +397,7 @@ public class ItemsRepository {
     public boolean increaseQuantity(int isbn) {
         String sql = "UPDATE items SET quantity = quantity + 1 WHERE isbn = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, isbn);
@@ -0,0 +1,146 @@
+package repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns a query into a lazily evaluated {@link Stream} backed by a server-side cursor.
+ * <p>
+ * PostgreSQL only honours the fetch size when autocommit is off, so the connection
+ * is switched to a read transaction for as long as the stream is open. Rows are
+ * mapped one at a time, which keeps memory flat however large the result is.
+ * </p>
+ * <p>
+ * The stream holds a pooled connection until it is exhausted or closed, so callers
+ * should use it in a try-with-resources block. Errors follow the repositories'
+ * convention: they are printed and end the stream.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+final class JdbcCursor {
+
+    /** Rows fetched per round trip when a caller does not choose a size. */
+    static final int DEFAULT_FETCH_SIZE = 500;
+
+    /** Sets the parameters of a prepared statement. */
+    @FunctionalInterface
+    interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    /** Maps the current row of a result set. */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private JdbcCursor() {
+    }
+
+    /**
+     * Opens a cursor over the query.
+     *
+     * @param dataSource where to borrow the connection from
+     * @param sql        the query
+     * @param binder     sets the query parameters
+     * @param mapper     maps each row
+     * @param fetchSize  rows per round trip
+     * @param what       names the query in error messages
+     * @param <T>        the row type
+     * @return a stream of mapped rows; empty if the query could not be started
+     */
+    static <T> Stream<T> stream(DataSource dataSource, String sql, Binder binder,
+                                RowMapper<T> mapper, int fetchSize, String what) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = dataSource.getConnection();
+            conn.setAutoCommit(false);
+            stmt = conn.prepareStatement(sql);
+            stmt.setFetchSize(fetchSize);
+            binder.bind(stmt);
+            ResultSet rs = stmt.executeQuery();
+
+            Cursor<T> cursor = new Cursor<>(conn, stmt, rs, mapper, what);
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+
+        } catch (Exception e) {
+            System.out.println("Error fetching " + what + ": " + e.getMessage());
+            release(conn, stmt);
+            return Stream.empty();
+        }
+    }
+
+    private static void release(Connection conn, PreparedStatement stmt) {
+        try {
+            if (stmt != null) stmt.close();
+        } catch (SQLException ignored) {
+        }
+        if (conn == null) return;
+        try {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        } catch (SQLException ignored) {
+        }
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private final String what;
+        private boolean closed;
+
+        Cursor(Connection conn, PreparedStatement stmt, ResultSet rs, RowMapper<T> mapper, String what) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.mapper = mapper;
+            this.what = what;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) return false;
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+                action.accept(mapper.map(rs));
+                return true;
+            } catch (SQLException e) {
+                System.out.println("Error fetching " + what + ": " + e.getMessage());
+                close();
+                return false;
+            }
+        }
+
+        /** Releases the connection early once the last row is read, and again harmlessly on stream close. */
+        void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                rs.close();
+            } catch (SQLException ignored) {
+            }
+            release(conn, stmt);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package repository;
+
+import domain.ActiveBorrow;
+import domain.OverdueBorrow;
+import domain.strategyPattern.FineStrategyFactory;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-memory set of active borrows, ordered by overdue date, that answers the
+ * overdue report without touching the database.
+ * <p>
+ * Borrows that are not overdue yet wait in a map keyed by their overdue date.
+ * Overdue borrows are kept in a second map with their overdue days and projected
+ * fine (see {@link OverdueBorrow#projectedFine()}) already computed, so listing them costs only the size of the result. On the
+ * first call of a new day the index rolls over: borrows whose overdue date has
+ * passed move across, and the days and fines of the overdue rows are recomputed.
+ * </p>
+ *
+ * <p>The index is filled once from a scan of the active borrows, see
+ * {@link #build(BorrowRepository)}, and then kept current through
+ * {@link BorrowRepository#onBorrowed} and {@link BorrowRepository#onReturned}.
+ * Those listeners only see this instance's borrows and returns, so at most once per
+ * reconcile interval the report first rescans the active borrows and replaces the
+ * index contents, see {@link #reconcile()}. Borrows and returns made on another
+ * instance therefore show up within that interval.</p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class OverdueIndex {
+
+    /** How often, by default, the report first rescans the active borrows. */
+    public static final long DEFAULT_RECONCILE_MILLIS = 5 * 60_000;
+
+    /** Borrows not overdue yet, by overdue date, then by ID. */
+    private final NavigableMap<LocalDate, Map<Integer, ActiveBorrow>> pending = new TreeMap<>();
+
+    /** Overdue borrows with their precomputed rows, by overdue date, then by ID. */
+    private final NavigableMap<LocalDate, Map<Integer, OverdueBorrow>> overdue = new TreeMap<>();
+
+    /** Overdue date of every indexed borrow, to find it again on return. */
+    private final Map<Integer, LocalDate> overdueDates = new HashMap<>();
+
+    /** IDs returned while a scan was running; the scan must not add them back. */
+    private final Set<Integer> returnedWhileLoading = new HashSet<>();
+
+    /** Borrows made while a reconcile scan was running, which the scan may have missed. */
+    private final Map<Integer, ActiveBorrow> borrowedWhileLoading = new HashMap<>();
+
+    private final Supplier<LocalDate> today;
+
+    /** Source of reconcile scans, or null for an index fed only through its listeners. */
+    private final BorrowRepository repository;
+    private final long reconcileNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicLong nextReconcile;
+    private LocalDate day;
+    private int overdueCount;
+    private boolean loading;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param today supplies the current date
+     */
+    OverdueIndex(Supplier<LocalDate> today) {
+        this(today, null, 0, System::nanoTime);
+    }
+
+    private OverdueIndex(Supplier<LocalDate> today, BorrowRepository repository, long reconcileMillis,
+                         LongSupplier nanoTime) {
+        this.today = today;
+        this.day = today.get();
+        this.repository = repository;
+        this.reconcileNanos = TimeUnit.MILLISECONDS.toNanos(reconcileMillis);
+        this.nanoTime = nanoTime;
+        this.nextReconcile = new AtomicLong(nanoTime.getAsLong() + reconcileNanos);
+    }
+
+    /**
+     * Builds an index from one streaming scan of the active borrows and subscribes
+     * it to borrows and returns made afterwards.
+     *
+     * @param repository the repository to scan and listen to
+     * @return the populated index
+     */
+    public static OverdueIndex build(BorrowRepository repository) {
+        return build(repository, LocalDate::now, DEFAULT_RECONCILE_MILLIS, System::nanoTime);
+    }
+
+    /**
+     * Builds an index that reconciles with the repository at the given interval.
+     *
+     * @param repository      the repository to scan and listen to
+     * @param today           supplies the current date
+     * @param reconcileMillis minimum time between two reconcile scans
+     * @param nanoTime        clock used to time reconcile scans
+     * @return the populated index
+     */
+    static OverdueIndex build(BorrowRepository repository, Supplier<LocalDate> today, long reconcileMillis,
+                              LongSupplier nanoTime) {
+        OverdueIndex index = new OverdueIndex(today, repository, reconcileMillis, nanoTime);
+        index.setLoading(true);
+        repository.onBorrowed(index::borrowed);
+        repository.onReturned(index::returned);
+        int read = -1;
+        try {
+            read = repository.forEachActiveBorrow(index::loaded);
+        } finally {
+            index.setLoading(false);
+        }
+        // An incomplete first scan is replaced by a full one on the next report.
+        if (read < 0) index.nextReconcile.set(nanoTime.getAsLong());
+        return index;
+    }
+
+    /**
+     * Rescans the active borrows and replaces the contents of the index with them.
+     * Borrows and returns seen by the listeners during the scan are applied on top.
+     * If the scan fails, the index is left as it was. Does nothing for an index that
+     * was not built from a repository.
+     *
+     * @return true if the index was replaced
+     */
+    public boolean reconcile() {
+        if (repository == null) return false;
+
+        setLoading(true);
+        List<ActiveBorrow> scanned = new ArrayList<>();
+        int read = -1;
+        try {
+            read = repository.forEachActiveBorrow(scanned::add);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (read >= 0) {
+                    pending.clear();
+                    overdue.clear();
+                    overdueDates.clear();
+                    overdueCount = 0;
+                    for (ActiveBorrow borrow : scanned) {
+                        if (!returnedWhileLoading.contains(borrow.id())) insert(borrow);
+                    }
+                    for (ActiveBorrow borrow : borrowedWhileLoading.values()) insert(borrow);
+                }
+                stopLoading();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return read >= 0;
+    }
+
+    private void reconcileIfDue() {
+        if (repository == null) return;
+        long now = nanoTime.getAsLong();
+        long due = nextReconcile.get();
+        if (now - due < 0 || !nextReconcile.compareAndSet(due, now + reconcileNanos)) return;
+        reconcile();
+    }
+
+    /**
+     * Adds a new borrow to the index. Adding a borrow that is already indexed does nothing.
+     *
+     * @param borrow the borrow
+     */
+    public void borrowed(ActiveBorrow borrow) {
+        lock.writeLock().lock();
+        try {
+            insert(borrow);
+            if (loading) borrowedWhileLoading.put(borrow.id(), borrow);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a returned borrow from the index. Unknown IDs are ignored.
+     *
+     * @param id the borrow record ID
+     */
+    public void returned(int id) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                returnedWhileLoading.add(id);
+                borrowedWhileLoading.remove(id);
+            }
+            LocalDate date = overdueDates.remove(id);
+            if (date == null) return;
+            if (removeFrom(overdue, date, id)) {
+                overdueCount--;
+            } else {
+                removeFrom(pending, date, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lists the overdue borrows, oldest overdue date first. If the reconcile
+     * interval has passed, the index is reconciled first.
+     *
+     * @return the overdue borrows with their overdue days and projected fines as of today
+     */
+    public List<OverdueBorrow> getOverdue() {
+        reconcileIfDue();
+        rollOver();
+        lock.readLock().lock();
+        try {
+            List<OverdueBorrow> result = new ArrayList<>(overdueCount);
+            for (Map<Integer, OverdueBorrow> rows : overdue.values()) {
+                result.addAll(rows.values());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of overdue borrows as of today
+     */
+    public int overdueCount() {
+        reconcileIfDue();
+        rollOver();
+        lock.readLock().lock();
+        try {
+            return overdueCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of active borrows in the index, overdue or not
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return overdueDates.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void loaded(ActiveBorrow borrow) {
+        lock.writeLock().lock();
+        try {
+            if (!returnedWhileLoading.contains(borrow.id())) insert(borrow);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setLoading(boolean loading) {
+        lock.writeLock().lock();
+        try {
+            if (loading) this.loading = true;
+            else stopLoading();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Must be called with the write lock held. */
+    private void stopLoading() {
+        loading = false;
+        returnedWhileLoading.clear();
+        borrowedWhileLoading.clear();
+    }
+
+    /** Must be called with the write lock held. */
+    private void insert(ActiveBorrow borrow) {
+        if (overdueDates.putIfAbsent(borrow.id(), borrow.overdueDate()) != null) return;
+        if (borrow.overdueDate().isBefore(day)) {
+            overdue.computeIfAbsent(borrow.overdueDate(), d -> new LinkedHashMap<>())
+                    .put(borrow.id(), row(borrow, day));
+            overdueCount++;
+        } else {
+            pending.computeIfAbsent(borrow.overdueDate(), d -> new LinkedHashMap<>())
+                    .put(borrow.id(), borrow);
+        }
+    }
+
+    /**
+     * Brings the index up to today: moves borrows that became overdue and
+     * recomputes the overdue rows. Does nothing if the day has not changed.
+     */
+    private void rollOver() {
+        LocalDate now = today.get();
+        lock.readLock().lock();
+        try {
+            if (!now.isAfter(day)) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!now.isAfter(day)) return;
+
+            for (Map<Integer, OverdueBorrow> rows : overdue.values()) {
+                rows.replaceAll((id, row) -> row(row.borrow(), now));
+            }
+
+            Iterator<Map<Integer, ActiveBorrow>> due = pending.headMap(now, false).values().iterator();
+            while (due.hasNext()) {
+                for (ActiveBorrow borrow : due.next().values()) {
+                    overdue.computeIfAbsent(borrow.overdueDate(), d -> new LinkedHashMap<>())
+                            .put(borrow.id(), row(borrow, now));
+                    overdueCount++;
+                }
+                due.remove();
+            }
+
+            day = now;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static OverdueBorrow row(ActiveBorrow borrow, LocalDate now) {
+        int days = (int) ChronoUnit.DAYS.between(borrow.overdueDate(), now);
+        int fine = FineStrategyFactory.getStrategy(borrow.type().name()).calculateFine(days);
+        return new OverdueBorrow(borrow, days, fine);
+    }
+
+    private static boolean removeFrom(NavigableMap<LocalDate, ? extends Map<Integer, ?>> map, LocalDate date, int id) {
+        Map<Integer, ?> bucket = map.get(date);
+        if (bucket == null || bucket.remove(id) == null) return false;
+        if (bucket.isEmpty()) map.remove(date);
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+package repository;
+
+import domain.CampaignCheckpoint;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Optional;
+
+/**
+ * Repository for the {@code reminder_campaign} table, which stores how far each
+ * fine reminder campaign has got.
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class ReminderCampaignRepository {
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructs a {@link ReminderCampaignRepository} that borrows connections from the given data source.
+     *
+     * @param dataSource the pooled data source used for all queries
+     */
+    public ReminderCampaignRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Loads the saved progress of a campaign.
+     *
+     * @param campaignId the campaign's id
+     * @return the checkpoint, or empty if the campaign has not started or the lookup failed
+     */
+    public Optional<CampaignCheckpoint> find(String campaignId) {
+        String sql = "SELECT id, last_email, sent, failed FROM reminder_campaign WHERE id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, campaignId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(new CampaignCheckpoint(
+                        rs.getString("id"),
+                        rs.getString("last_email"),
+                        rs.getInt("sent"),
+                        rs.getInt("failed")
+                ));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error loading reminder campaign: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Saves the progress of a campaign, creating its row on the first call.
+     *
+     * @param checkpoint the progress to store
+     * @return true if the checkpoint was written
+     */
+    public boolean save(CampaignCheckpoint checkpoint) {
+        String sql = """
+                INSERT INTO reminder_campaign (id, last_email, sent, failed)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (id) DO UPDATE
+                SET last_email = EXCLUDED.last_email,
+                    sent = EXCLUDED.sent,
+                    failed = EXCLUDED.failed,
+                    updated_on = CURRENT_TIMESTAMP
+                """;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, checkpoint.campaignId());
+            stmt.setString(2, checkpoint.lastEmail());
+            stmt.setInt(3, checkpoint.sent());
+            stmt.setInt(4, checkpoint.failed());
+            return stmt.executeUpdate() > 0;
+
+        } catch (Exception e) {
+            System.out.println("Error saving reminder campaign: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package repository;
+
+import domain.Role;
+import domain.user;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Repository for the {@code api_session} table, which holds the login sessions of
+ * the HTTP API so that every instance of the API accepts every session.
+ * <p>
+ * Sessions are keyed by the hash of their token; the token itself is never stored.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class SessionRepository {
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructs a {@link SessionRepository} that borrows connections from the given data source.
+     *
+     * @param dataSource the pooled data source used for all queries
+     */
+    public SessionRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Stores a new session and, in the same statement, deletes the sessions that
+     * have expired.
+     *
+     * @param tokenHash hash of the session token
+     * @param email     the email of the logged-in user
+     * @param expiresOn when the session ends
+     * @return true if the session was stored
+     */
+    public boolean create(String tokenHash, String email, Instant expiresOn) {
+        String sql = """
+                WITH expired AS (
+                    DELETE FROM api_session WHERE expires_on <= CURRENT_TIMESTAMP
+                )
+                INSERT INTO api_session (token_hash, email, expires_on) VALUES (?, ?, ?)
+                """;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, tokenHash);
+            stmt.setString(2, email);
+            stmt.setTimestamp(3, Timestamp.from(expiresOn));
+            return stmt.executeUpdate() > 0;
+
+        } catch (Exception e) {
+            System.out.println("Error saving session: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Looks up the user of a session that has not expired. The role is read from
+     * the {@code users} row, so a role change applies to the next request, and a
+     * removed user has no session.
+     *
+     * @param tokenHash hash of the session token
+     * @return the user, without password hash, or empty if there is no such session or the lookup failed
+     */
+    public Optional<user> findUser(String tokenHash) {
+        String sql = """
+                SELECT u.email, u.role
+                FROM api_session s
+                JOIN users u ON u.email = s.email
+                WHERE s.token_hash = ?
+                  AND s.expires_on > CURRENT_TIMESTAMP
+                  AND u.deletedOn IS NULL
+                """;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, tokenHash);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(new user(rs.getString("email"), Role.fromLevel(rs.getInt("role")), null));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error loading session: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Ends one session.
+     *
+     * @param tokenHash hash of the session token
+     * @return true if a session was deleted
+     */
+    public boolean delete(String tokenHash) {
+        return update("DELETE FROM api_session WHERE token_hash = ?", tokenHash) > 0;
+    }
+
+    /**
+     * Ends every session of a user.
+     *
+     * @param email the user's email
+     * @return the number of sessions deleted, or -1 on error
+     */
+    public int deleteByEmail(String email) {
+        return update("DELETE FROM api_session WHERE email = ?", email);
+    }
+
+    private int update(String sql, String value) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, value);
+            return stmt.executeUpdate();
+
+        } catch (Exception e) {
+            System.out.println("Error deleting session: " + e.getMessage());
+            return -1;
+        }
+    }
+}
@@ -1,20 +1,22 @@
 package repository;
 
+import domain.OutboxEmail;
 import domain.Role;
 import domain.user;
-import infrastructure.DatabaseConnection;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository responsible for managing {@link user} entities in the database.
  * <p>
  * Provides CRUD operations, role updates, and management of inactive users.
- * All database interactions are handled via JDBC using {@link DatabaseConnection}.
+ * All database interactions are handled via JDBC using a pooled {@link DataSource}.
  * </p>
  *
  * @author  Sara
@@ -22,6 +24,27 @@ import java.util.Optional;
  */
 public class userRepository {
 
+    /** Users that are not deleted and have not borrowed, or been created, since the given date. */
+    private static final String INACTIVE_USERS_SQL = """
+            SELECT * FROM users
+            WHERE deletedOn IS NULL
+              AND (
+                   (lastdateborrowed IS NULL AND createdOn < ?)
+                   OR (lastdateborrowed IS NOT NULL AND lastdateborrowed < ?)
+              )
+            """;
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructs a {@link userRepository} that borrows connections from the given data source.
+     *
+     * @param dataSource the pooled data source used for all queries
+     */
+    public userRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
     /**
      * Persists a new user record into the database.
      *
@@ -31,7 +54,7 @@ public class userRepository {
      */
     public boolean save(user user) {
         String sql = "INSERT INTO users (email, role, password_hash) VALUES (?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, user.getEmail());
@@ -48,6 +71,47 @@ public class userRepository {
         }
     }
 
+    /**
+     * Persists a new user and queues an email to them in the same statement.
+     * <p>
+     * The outbox row is only written if the user row is, and both are committed
+     * together, so the email can neither be lost nor sent for a user that was
+     * never saved.
+     * </p>
+     *
+     * @param user  the {@link user} object to save
+     * @param email the email to place in {@code email_outbox}
+     * @return {@code true} if the user and the email were stored; {@code false} otherwise
+     * @throws RuntimeException if a non-SQL exception occurs during database operation
+     */
+    public boolean save(user user, OutboxEmail email) {
+        String sql = """
+                WITH saved AS (
+                    INSERT INTO users (email, role, password_hash) VALUES (?, ?, ?)
+                    RETURNING email
+                )
+                INSERT INTO email_outbox (recipient, subject, body)
+                SELECT ?, ?, ? FROM saved
+                """;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, user.getEmail());
+            stmt.setInt(2, user.getRole().getLevel());
+            stmt.setString(3, user.getPasswordHash());
+            stmt.setString(4, email.recipient());
+            stmt.setString(5, email.subject());
+            stmt.setString(6, email.body());
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.out.println("Error inserting user: " + e.getMessage());
+            return false;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Retrieves a user by their email address.
      *
@@ -55,8 +119,25 @@ public class userRepository {
      * @return an {@link Optional} containing the {@link user} if found, or empty if no user exists with the given email
      */
     public Optional<user> findByEmail(String email) {
-        String sql = "SELECT * FROM users WHERE email = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try {
+            return loadByEmail(email);
+        } catch (Exception e) {
+            System.out.println("Error finding user: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reads a user by email, letting database errors through so callers can tell
+     * a failed lookup from an unknown email.
+     *
+     * @param email the email of the user to retrieve
+     * @return an {@link Optional} containing the {@link user} if found, or empty if no user exists with the given email
+     * @throws SQLException if the query fails
+     */
+    Optional<user> loadByEmail(String email) throws SQLException {
+        String sql = "SELECT email, role, password_hash FROM users WHERE email = ?";
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, email);
@@ -70,8 +151,6 @@ public class userRepository {
                 );
                 return Optional.of(foundUser);
             }
-        } catch (Exception e) {
-            System.out.println("Error finding user: " + e.getMessage());
         }
         return Optional.empty();
     }
@@ -95,16 +174,9 @@ public class userRepository {
     public List<user> findInactiveUsersSince(LocalDate oneYearAgo) {
         List<user> users = new ArrayList<>();
 
-        String sql = """
-                SELECT * FROM users
-                WHERE deletedOn IS NULL
-                  AND (
-                       (lastdateborrowed IS NULL AND createdOn < ?)
-                       OR (lastdateborrowed IS NOT NULL AND lastdateborrowed < ?)
-                  )
-                """;
+        String sql = INACTIVE_USERS_SQL;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setDate(1, Date.valueOf(oneYearAgo));
@@ -112,14 +184,7 @@ public class userRepository {
 
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                users.add(new user(
-                        rs.getString("email"),
-                        Role.fromLevel(rs.getInt("role")),
-                        rs.getString("password_hash"),
-                        rs.getDate("lastdateborrowed") != null ? rs.getDate("lastdateborrowed").toLocalDate() : null,
-                        rs.getDate("createdOn").toLocalDate().atStartOfDay(),
-                        rs.getDate("deletedOn") != null ? rs.getDate("deletedOn").toLocalDate().atStartOfDay() : null
-                ));
+                users.add(mapUser(rs));
             }
 
         } catch (Exception e) {
@@ -128,6 +193,57 @@ public class userRepository {
         return users;
     }
 
+    /**
+     * Finds one page of inactive users using keyset pagination on the email key.
+     * <p>
+     * Inactivity is defined as in {@link #findInactiveUsersSince(LocalDate)}. Pass the
+     * email of the last user of the previous page as {@code afterEmail}.
+     * </p>
+     *
+     * @param oneYearAgo the date threshold to determine inactivity
+     * @param afterEmail return only emails sorting after this one; empty string for the first page
+     * @param limit      maximum number of users to return
+     * @return the inactive users ordered by email
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public List<user> findInactiveUsersSince(LocalDate oneYearAgo, String afterEmail, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be greater than 0.");
+        List<user> users = new ArrayList<>();
+        String sql = INACTIVE_USERS_SQL + " AND email > ? ORDER BY email LIMIT ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(oneYearAgo));
+            stmt.setDate(2, Date.valueOf(oneYearAgo));
+            stmt.setString(3, afterEmail == null ? "" : afterEmail);
+            stmt.setInt(4, limit);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                users.add(mapUser(rs));
+            }
+
+        } catch (Exception e) {
+            System.out.println("Error fetching inactive users: " + e.getMessage());
+        }
+        return users;
+    }
+
+    /**
+     * Streams all inactive users, ordered by email, through a database cursor.
+     * The stream holds a connection until closed and should be used with try-with-resources.
+     *
+     * @param oneYearAgo the date threshold to determine inactivity
+     * @return a lazily fetched stream of inactive users
+     */
+    public Stream<user> streamInactiveUsersSince(LocalDate oneYearAgo) {
+        return JdbcCursor.stream(dataSource, INACTIVE_USERS_SQL + " ORDER BY email", stmt -> {
+            stmt.setDate(1, Date.valueOf(oneYearAgo));
+            stmt.setDate(2, Date.valueOf(oneYearAgo));
+        }, userRepository::mapUser, JdbcCursor.DEFAULT_FETCH_SIZE, "inactive users");
+    }
+
     /**
      * Soft deletes a user by setting their {@code deletedOn} timestamp.
      * <p>
@@ -150,7 +266,7 @@ public class userRepository {
                   )
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setDate(1, Date.valueOf(LocalDate.now()));
@@ -167,6 +283,32 @@ public class userRepository {
         return false;
     }
 
+    /**
+     * Replaces a user's password hash, but only if it is still the one the caller read,
+     * so a password changed in the meantime is never overwritten.
+     *
+     * @param email        the email of the user
+     * @param expectedHash the hash the caller verified the password against
+     * @param newHash      the hash to store
+     * @return {@code true} if the hash was replaced; {@code false} otherwise
+     */
+    public boolean updatePasswordHash(String email, String expectedHash, String newHash) {
+        String sql = "UPDATE users SET password_hash = ? WHERE email = ? AND password_hash = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, newHash);
+            stmt.setString(2, email);
+            stmt.setString(3, expectedHash);
+            return stmt.executeUpdate() > 0;
+
+        } catch (Exception e) {
+            System.out.println("Error updating password hash: " + e.getMessage());
+        }
+        return false;
+    }
+
     /**
      * Updates the role of an existing user.
      *
@@ -177,7 +319,7 @@ public class userRepository {
     public boolean updateRole(String email, Role newRole) {
         String sql = "UPDATE users SET role = ? WHERE email = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, String.valueOf(newRole.getLevel()));
@@ -191,4 +333,22 @@ public class userRepository {
         }
         return false;
     }
+
+    /**
+     * Maps a full {@code users} row, including the activity dates, into a {@link user}.
+     *
+     * @param rs the result set positioned at a row
+     * @return the mapped {@link user}
+     * @throws SQLException if reading the columns fails
+     */
+    private static user mapUser(ResultSet rs) throws SQLException {
+        return new user(
+                rs.getString("email"),
+                Role.fromLevel(rs.getInt("role")),
+                rs.getString("password_hash"),
+                rs.getDate("lastdateborrowed") != null ? rs.getDate("lastdateborrowed").toLocalDate() : null,
+                rs.getDate("createdOn").toLocalDate().atStartOfDay(),
+                rs.getDate("deletedOn") != null ? rs.getDate("deletedOn").toLocalDate().atStartOfDay() : null
+        );
+    }
 }
@@ -0,0 +1,323 @@
+package service;
+
+import domain.user;
+import util.CsvReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs the administrative jobs of the menus without a console, for cron jobs
+ * and scripts.
+ * <p>
+ * Commands:
+ * </p>
+ * <ul>
+ *     <li>{@code --run send-fine-reminders}: emails every student with unpaid fines,
+ *         sharing today's campaign with the admin menu so nobody is emailed twice</li>
+ *     <li>{@code --run list-inactive}: prints the users inactive for more than a year</li>
+ *     <li>{@code --run purge-inactive}: soft deletes the users inactive for more than a year</li>
+ *     <li>{@code --import <file>}: bulk imports the items of a CSV or TSV file with
+ *         the columns {@code name,author,quantity,type}, see {@link ItemImporter}</li>
+ * </ul>
+ *
+ * <p>Work is streamed: users are read through a database cursor and files record by
+ * record, and progress is reported as it is made. Every command ends with a
+ * summary line with its throughput. {@link #run(String[])} returns
+ * {@link #EXIT_OK} when everything succeeded, {@link #EXIT_FAILED} when some items
+ * failed and {@link #EXIT_USAGE} for a bad command line.</p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class BatchRunner {
+
+    /** Exit code when every item succeeded. */
+    public static final int EXIT_OK = 0;
+
+    /** Exit code when at least one item failed or the command could not run. */
+    public static final int EXIT_FAILED = 1;
+
+    /** Exit code for an unknown command or missing argument. */
+    public static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = """
+            Usage:
+              app --run send-fine-reminders
+              app --run list-inactive
+              app --run purge-inactive
+              app --import <items.csv | items.tsv>""";
+
+    private final userService userService;
+    private final ItemImporter itemImporter;
+    private final FineReminderCampaign reminderCampaign;
+    private final PrintStream out;
+    private final Supplier<LocalDate> today;
+    private final LongSupplier nanoTime;
+
+    /**
+     * Constructs a runner that reports to standard output.
+     *
+     * @param userService      service for user accounts
+     * @param itemImporter     bulk importer for the catalogue
+     * @param reminderCampaign campaign that sends fine reminders
+     */
+    public BatchRunner(userService userService, ItemImporter itemImporter, FineReminderCampaign reminderCampaign) {
+        this(userService, itemImporter, reminderCampaign, System.out, LocalDate::now, System::nanoTime);
+    }
+
+    BatchRunner(userService userService, ItemImporter itemImporter, FineReminderCampaign reminderCampaign,
+                PrintStream out, Supplier<LocalDate> today, LongSupplier nanoTime) {
+        this.userService = userService;
+        this.itemImporter = itemImporter;
+        this.reminderCampaign = reminderCampaign;
+        this.out = out;
+        this.today = today;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Tells whether the command line asks for a batch command rather than the menu.
+     *
+     * @param args the command line arguments
+     * @return true if the first argument is {@code --run} or {@code --import}
+     */
+    public static boolean isBatchCommand(String[] args) {
+        return args.length > 0 && (args[0].equals("--run") || args[0].equals("--import"));
+    }
+
+    /**
+     * Runs the command given on the command line and prints its summary.
+     *
+     * @param args the command line arguments
+     * @return the process exit code
+     */
+    public int run(String[] args) {
+        if (args.length != 2) return usage();
+
+        Result result;
+        try {
+            result = switch (args[0] + " " + args[1]) {
+                case "--run send-fine-reminders" -> sendFineReminders();
+                case "--run list-inactive" -> listInactiveUsers();
+                case "--run purge-inactive" -> purgeInactiveUsers();
+                default -> args[0].equals("--import") ? importItems(Path.of(args[1])) : null;
+            };
+        } catch (IOException | RuntimeException e) {
+            out.println("❌ " + args[0] + " " + args[1] + " failed: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+        if (result == null) return usage();
+
+        out.println("⏱ " + result);
+        return result.failed() == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private int usage() {
+        out.println(USAGE);
+        return EXIT_USAGE;
+    }
+
+    /**
+     * Sends today's fine reminders.
+     *
+     * @return the number of reminders sent and failed
+     */
+    public Result sendFineReminders() {
+        long started = nanoTime.getAsLong();
+        FineReminderCampaign.Result sent = reminderCampaign.run("fine-reminders-" + today.get());
+        if (sent.previouslySent() > 0)
+            out.println("✔ " + sent.previouslySent() + " students were already reminded today.");
+        return finish("send-fine-reminders", sent.sent(), sent.failed(), started);
+    }
+
+    /**
+     * Prints every user inactive for more than a year.
+     *
+     * @return the number of users listed
+     */
+    public Result listInactiveUsers() {
+        long started = nanoTime.getAsLong();
+        long listed = 0;
+        try (Stream<user> users = userService.streamInactiveUsers()) {
+            Iterator<user> it = users.iterator();
+            while (it.hasNext()) {
+                user u = it.next();
+                out.println(u.getEmail() + "\t" + u.getRole());
+                listed++;
+            }
+        }
+        return finish("list-inactive", listed, 0, started);
+    }
+
+    /**
+     * Soft deletes every user inactive for more than a year.
+     *
+     * @return the number of users deleted and not deleted
+     */
+    public Result purgeInactiveUsers() {
+        long started = nanoTime.getAsLong();
+        long deleted = 0;
+        long failed = 0;
+        try (Stream<user> users = userService.streamInactiveUsers()) {
+            Iterator<user> it = users.iterator();
+            while (it.hasNext()) {
+                String email = it.next().getEmail();
+                if (userService.removeInactiveUser(email)) {
+                    out.println("🗑️ " + email);
+                    deleted++;
+                } else {
+                    out.println("❌ " + email + " could not be deleted.");
+                    failed++;
+                }
+            }
+        }
+        return finish("purge-inactive", deleted, failed, started);
+    }
+
+    /**
+     * Bulk imports the items of a CSV file, or a TSV file if its name ends in
+     * {@code .tsv}, through {@link ItemImporter}.
+     * <p>
+     * The import id is the file name together with a digest of its content, so
+     * running the command again on the same file resumes after the last committed
+     * chunk, while a new file with the same name is imported from the start.
+     * Rejected rows are written to {@code <file>.rejected.csv} with their line number
+     * and the reason.
+     * </p>
+     *
+     * @param file the CSV or TSV file
+     * @return the number of items imported and rows rejected
+     * @throws IOException if the file cannot be read, the report cannot be written,
+     *                     or the import stopped at a chunk that could not be saved
+     */
+    public Result importItems(Path file) throws IOException {
+        long started = nanoTime.getAsLong();
+        String importId = file.getFileName() + ":" + digest(file);
+        char delimiter = file.getFileName().toString().toLowerCase().endsWith(".tsv") ? '\t' : ',';
+        Path report = file.resolveSibling(file.getFileName() + ".rejected.csv");
+
+        ItemImporter.Result result;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             CsvReader csv = new CsvReader(reader, delimiter);
+             RejectReport rejects = new RejectReport(report)) {
+            result = itemImporter.run(importId, csv, rejects);
+        }
+
+        if (result.skipped() > 0)
+            out.println("↻ Resumed after " + result.skipped() + " records imported by an earlier run.");
+        if (result.rejected() > 0)
+            out.println("⚠️ " + result.rejected() + " rejected rows written to " + report);
+        if (!result.completed())
+            throw new IOException("a chunk could not be saved after " + result.imported()
+                    + " items. Run the command again to resume.");
+        return finish("import " + file.getFileName(), result.imported(), result.rejected(), started);
+    }
+
+    private static String digest(Path file) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), sha256)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(sha256.digest(), 0, 16);
+    }
+
+    /**
+     * Prints import progress and appends rejected rows to the report file, which is
+     * only created once a row is rejected.
+     */
+    private final class RejectReport implements ItemImporter.Listener, AutoCloseable {
+
+        private final Path path;
+        private Writer writer;
+        private IOException error;
+
+        RejectReport(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public void rejected(long line, List<String> row, String reason) {
+            if (error != null) return;
+            try {
+                if (writer == null) {
+                    boolean exists = Files.exists(path);
+                    writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    if (!exists) writer.write("line,reason,row\n");
+                }
+                writer.write(line + "," + quote(reason) + "," + quote(String.join(",", row)) + "\n");
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        @Override
+        public void progress(ItemImporter.Result progress) {
+            out.println("… " + progress);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) writer.close();
+            if (error != null) throw error;
+        }
+
+        private static String quote(String value) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    private Result finish(String command, long succeeded, long failed, long started) {
+        return new Result(command, succeeded, failed,
+                TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - started));
+    }
+
+    /**
+     * Outcome of a batch command.
+     *
+     * @param command       the command that ran
+     * @param succeeded     items handled successfully
+     * @param failed        items that failed
+     * @param elapsedMillis run time in milliseconds
+     */
+    public record Result(String command, long succeeded, long failed, long elapsedMillis) {
+
+        /**
+         * @return items handled per second of run time, successful or not
+         */
+        public double itemsPerSecond() {
+            return (succeeded + failed) * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d succeeded, %d failed in %d ms (%.0f items/s)",
+                    command, succeeded, failed, elapsedMillis, itemsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package service;
+
+import repository.BorrowRepository;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Background job that keeps {@code student_borrow} down to its working set.
+ * <p>
+ * Once a day it moves settled borrows (returned, no fine) older than the retention
+ * period into {@code student_borrow_history}, in small batches so no long-running
+ * transaction blocks borrows and returns. It also creates the yearly partitions for
+ * the current and the next year, so new borrows never land in the default partition,
+ * and for any year whose borrows did land there, which moves them out of it.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class BorrowArchiveJob extends DailyJob {
+
+    /** Settled borrows younger than this many days stay in {@code student_borrow}. */
+    public static final int DEFAULT_RETENTION_DAYS = 90;
+
+    /** Rows moved per statement. */
+    public static final int DEFAULT_BATCH_SIZE = 5_000;
+
+    private final BorrowRepository borrowRepository;
+    private final int retentionDays;
+    private final int batchSize;
+    private final Supplier<LocalDate> today;
+
+    /**
+     * Constructs a job with the default retention and batch size.
+     *
+     * @param borrowRepository the repository holding the borrows
+     */
+    public BorrowArchiveJob(BorrowRepository borrowRepository) {
+        this(borrowRepository, DEFAULT_RETENTION_DAYS, DEFAULT_BATCH_SIZE, LocalDate::now);
+    }
+
+    /**
+     * Constructs a job.
+     *
+     * @param borrowRepository the repository holding the borrows
+     * @param retentionDays    settled borrows younger than this stay in the working table
+     * @param batchSize        rows moved per statement
+     * @param today            supplies the current date
+     */
+    BorrowArchiveJob(BorrowRepository borrowRepository, int retentionDays, int batchSize, Supplier<LocalDate> today) {
+        super("borrow-archive", "Error archiving borrows");
+        if (retentionDays < 0) throw new IllegalArgumentException("Retention must not be negative.");
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be greater than 0.");
+
+        this.borrowRepository = borrowRepository;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.today = today;
+    }
+
+    @Override
+    protected void runScheduled() {
+        runOnce();
+    }
+
+    /**
+     * Creates the partitions for this year, next year and every year with borrows in
+     * the default partition, then archives settled borrows batch by batch until none
+     * are left or the job is closed.
+     *
+     * @return the number of borrows archived
+     */
+    public long runOnce() {
+        LocalDate now = today.get();
+        Set<Integer> years = new TreeSet<>(borrowRepository.findDefaultPartitionYears());
+        years.add(now.getYear());
+        years.add(now.getYear() + 1);
+        for (int year : years) {
+            if (!borrowRepository.createYearPartition(year))
+                System.out.println("⚠️ The borrow partition for " + year + " could not be created; "
+                        + "the job tries again on its next run.");
+        }
+
+        LocalDate cutoff = now.minusDays(retentionDays);
+        long archived = 0;
+        int moved;
+        do {
+            moved = borrowRepository.archiveSettledBorrows(cutoff, batchSize);
+            if (moved > 0) archived += moved;
+        } while (moved == batchSize && !isClosed());
+
+        return archived;
+    }
+}
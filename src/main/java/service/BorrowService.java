@@ -1,23 +1,23 @@
 package service;
 
 import domain.Borrow;
-import domain.Items;
-import domain.libraryType;
+import domain.BorrowResult;
+import domain.OverdueBorrow;
+import domain.ReturnResult;
 import repository.BorrowRepository;
-import repository.ItemsRepository;
-import domain.strategyPattern.FineStrategyFactory;
-import domain.strategyPattern.FineStrategy;
+import repository.OverdueIndex;
+import util.StringIntMap;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Service class responsible for handling borrowing and returning items,
  * managing fines, and providing borrowing-related queries.
  * <p>
- * Interacts with {@link BorrowRepository} and {@link ItemsRepository} to perform
- * all necessary operations related to borrowing workflow.
+ * Interacts with {@link BorrowRepository} to perform all necessary operations
+ * related to borrowing workflow.
  * </p>
  *
  * @author Shatha
@@ -26,17 +26,16 @@ import java.util.List;
 public class BorrowService {
 
     private final BorrowRepository borrowRepo;
-    private final ItemsRepository itemsRepo;
+    private OverdueIndex overdueIndex;
 
     /**
-     * Constructs a {@link BorrowService} with the required repositories.
+     * Constructs a {@link BorrowService} with the required repository. The overdue
+     * index is built on the first call of {@link #getOverdueBorrows()}.
      *
      * @param borrowRepo repository for borrow-related operations
-     * @param itemsRepo repository for item-related operations
      */
-    public BorrowService(BorrowRepository borrowRepo, ItemsRepository itemsRepo) {
+    public BorrowService(BorrowRepository borrowRepo) {
         this.borrowRepo = borrowRepo;
-        this.itemsRepo = itemsRepo;
     }
 
     /**
@@ -59,6 +58,16 @@ public class BorrowService {
         return borrowRepo.getTotalFine(email);
     }
 
+    /**
+     * Retrieves the total fine amounts of several students at once.
+     *
+     * @param emails the students' emails
+     * @return each student's total; students without fines read as 0
+     */
+    public StringIntMap getTotalFines(Collection<String> emails) {
+        return borrowRepo.getTotalFines(emails);
+    }
+
     /**
      * Pays a specified amount towards a student's fine.
      *
@@ -76,34 +85,34 @@ public class BorrowService {
      * <p>
      * A student cannot borrow if they have unpaid fines. The borrowing period depends
      * on the item type: 28 days for books, 7 days for other types.
+     * The fine check, stock update and borrow record are handled by
+     * {@link BorrowRepository#borrowItem(String, int, LocalDate)} in a single round trip.
      * </p>
      *
      * @param studentEmail the student's email
      * @param isbn the ISBN of the item to borrow
-     * @return {@code true} if the borrow was successfully registered, {@code false} otherwise
+     * @return {@code true} if the borrow was successfully registered, {@code false} if the item
+     *         is out of stock or the database call failed
      * @throws IllegalArgumentException if the student has unpaid fines or the item is not found
      */
     public boolean borrowItem(String studentEmail, int isbn) {
 
-        if (hasUnpaidFine(studentEmail)) {
-            throw new IllegalArgumentException("You have unpaid fines. Pay before borrowing.");
-        }
+        BorrowResult result = borrowRepo.borrowItem(studentEmail, isbn, LocalDate.now());
 
-        Items item = itemsRepo.findByISBN(isbn)
-                .orElseThrow(() -> new IllegalArgumentException("Item not found"));
-
-        LocalDate today = LocalDate.now();
-        LocalDate overdue = item.getType() == libraryType.Book ? today.plusDays(28) : today.plusDays(7);
-
-        Borrow borrow = new Borrow(studentEmail, isbn, today, overdue, false);
-        return borrowRepo.borrowItem(borrow);
+        return switch (result) {
+            case OK -> true;
+            case HAS_FINE -> throw new IllegalArgumentException("You have unpaid fines. Pay before borrowing.");
+            case NO_ITEM -> throw new IllegalArgumentException("Item not found");
+            case OUT_OF_STOCK, ERROR -> false;
+        };
     }
 
     /**
      * Returns a borrowed item for a student.
      * <p>
      * If the item is returned after the due date, a fine is calculated based on the item type.
-     * The borrow record is marked as returned and item quantity is updated.
+     * The borrow record is marked as returned and item quantity is updated atomically by
+     * {@link BorrowRepository#returnItem(String, int, LocalDate)}.
      * </p>
      *
      * @param studentEmail the student's email
@@ -113,34 +122,15 @@ public class BorrowService {
      */
     public boolean returnItem(String studentEmail, int isbn) {
 
-        if (hasUnpaidFine(studentEmail)) {
-            throw new IllegalArgumentException("You have unpaid fines. Pay before returning items.");
-        }
-
-        Borrow active = borrowRepo.findActiveBorrow(studentEmail, isbn);
-        if (active == null) {
-            throw new IllegalArgumentException("No active borrow found for this ISBN and student.");
-        }
-
-        LocalDate today = LocalDate.now();
-        long overdueDays = 0;
-        if (active.getOverdueDate() != null && active.getOverdueDate().isBefore(today)) {
-            overdueDays = ChronoUnit.DAYS.between(active.getOverdueDate(), today);
-        }
-
-        Items item = itemsRepo.findByISBN(isbn)
-                .orElseThrow(() -> new IllegalArgumentException("Item not found when returning"));
+        ReturnResult result = borrowRepo.returnItem(studentEmail, isbn, LocalDate.now());
 
-        FineStrategy strategy = FineStrategyFactory.getStrategy(item.getType().name());
-        int fine = strategy.calculateFine((int) overdueDays);
-
-        boolean updated = borrowRepo.markReturnedByStudentAndIsbn(studentEmail, isbn, fine);
-
-        if (updated) {
-            itemsRepo.increaseQuantity(isbn);
-        }
-
-        return updated;
+        return switch (result.status()) {
+            case OK -> true;
+            case HAS_FINE -> throw new IllegalArgumentException("You have unpaid fines. Pay before returning items.");
+            case NO_ACTIVE_BORROW -> throw new IllegalArgumentException("No active borrow found for this ISBN and student.");
+            case NO_ITEM -> throw new IllegalArgumentException("Item not found when returning");
+            case ERROR -> false;
+        };
     }
 
     /**
@@ -152,6 +142,23 @@ public class BorrowService {
         return borrowRepo.getOverdueUsers();
     }
 
+    /**
+     * Retrieves the overdue borrows from the in-memory overdue index, oldest overdue
+     * date first. The first call builds the index from one scan of the active
+     * borrows; later calls query the database only when the index is due to be
+     * reconciled, see {@link OverdueIndex#reconcile()}.
+     *
+     * @return the overdue borrows with their overdue days and projected fines
+     */
+    public List<OverdueBorrow> getOverdueBorrows() {
+        return overdueIndex().getOverdue();
+    }
+
+    private synchronized OverdueIndex overdueIndex() {
+        if (overdueIndex == null) overdueIndex = OverdueIndex.build(borrowRepo);
+        return overdueIndex;
+    }
+
     /**
      * Retrieves a list of student emails who currently have unpaid fines.
      *
@@ -0,0 +1,80 @@
+package service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class of the background jobs that run once a day.
+ * <p>
+ * It owns the single daemon thread that runs the job, and tells a run in progress,
+ * through {@link #isClosed()}, that the job has been closed so it can stop after its
+ * current batch.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public abstract class DailyJob implements AutoCloseable {
+
+    private static final long RUN_INTERVAL_HOURS = 24;
+
+    private final String errorMessage;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a job that is not started yet.
+     *
+     * @param threadName   name of the job's thread
+     * @param errorMessage printed, followed by the error, when a scheduled run fails
+     */
+    protected DailyJob(String threadName, String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Runs the job now and then once a day in the background.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runScheduled();
+            } catch (RuntimeException e) {
+                System.out.println(errorMessage + ": " + e.getMessage());
+            }
+        }, 0, RUN_INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * One scheduled run of the job.
+     */
+    protected abstract void runScheduled();
+
+    /**
+     * @return true once {@link #close()} has been called
+     */
+    protected boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops the job. A run in progress finishes its current batch first.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(1, TimeUnit.MINUTES)) scheduler.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+    }
+}
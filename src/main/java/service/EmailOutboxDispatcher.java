@@ -0,0 +1,212 @@
+package service;
+
+import domain.OutboxEmail;
+import repository.EmailOutboxRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background job that sends the emails stored in {@code email_outbox}.
+ * <p>
+ * Every poll it claims a batch of due rows, hands them to {@link EmailService},
+ * waits for the results and records them. A failed email is retried with
+ * exponential backoff; after {@link #DEFAULT_MAX_ATTEMPTS} attempts it is moved to
+ * the dead-letter state. Because rows are claimed with {@code SKIP LOCKED} and a
+ * lease, any number of application instances can run a dispatcher at once.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class EmailOutboxDispatcher implements AutoCloseable {
+
+    /** Emails claimed per poll. */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /** Attempts before an email is given up on. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 8;
+
+    /** Pause between polls when the outbox is empty. */
+    private static final long POLL_INTERVAL_MILLIS = 5_000;
+
+    /** How long a claimed batch is hidden from other dispatchers. */
+    private static final long LEASE_MILLIS = 120_000;
+
+    /** Delay before the first retry; doubled for every further attempt. */
+    private static final long BASE_BACKOFF_MILLIS = 30_000;
+
+    /** Upper bound for the retry delay. */
+    private static final long MAX_BACKOFF_MILLIS = 3_600_000;
+
+    private final EmailOutboxRepository outbox;
+    private final EmailService emailService;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+
+    /**
+     * Constructs a dispatcher with the default batch size and attempt limit.
+     *
+     * @param outbox       where the emails are stored
+     * @param emailService used to send them
+     */
+    public EmailOutboxDispatcher(EmailOutboxRepository outbox, EmailService emailService) {
+        this(outbox, emailService, DEFAULT_BATCH_SIZE, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Constructs a dispatcher.
+     *
+     * @param outbox       where the emails are stored
+     * @param emailService used to send them
+     * @param batchSize    emails claimed per poll
+     * @param maxAttempts  attempts before an email is moved to the dead-letter state
+     */
+    public EmailOutboxDispatcher(EmailOutboxRepository outbox, EmailService emailService,
+                                 int batchSize, int maxAttempts) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be greater than 0.");
+        if (maxAttempts <= 0) throw new IllegalArgumentException("Max attempts must be greater than 0.");
+
+        this.outbox = outbox;
+        this.emailService = emailService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "email-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts polling the outbox in the background.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::drain, 0, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Keeps dispatching while full batches come back, so a backlog is worked off
+     * without waiting for the next poll.
+     */
+    private void drain() {
+        try {
+            while (!closed && dispatchOnce() == batchSize) {
+                // more work is likely waiting
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Error dispatching outbox emails: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Claims one batch of due emails, sends it and records the outcome of every email.
+     *
+     * @return the number of emails claimed
+     */
+    public int dispatchOnce() {
+        List<OutboxEmail> batch = outbox.claimDue(batchSize, LEASE_MILLIS);
+        if (batch.isEmpty()) return 0;
+
+        List<CompletableFuture<Void>> results = new ArrayList<>(batch.size());
+        for (OutboxEmail email : batch) {
+            results.add(emailService.sendEmail(email.recipient(), email.subject(), email.body()));
+        }
+
+        // Stop waiting well before the lease runs out so the outcome is recorded first.
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LEASE_MILLIS / 2);
+        List<Long> delivered = new ArrayList<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEmail email = batch.get(i);
+            try {
+                results.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                delivered.add(email.id());
+            } catch (ExecutionException e) {
+                recordFailure(email, e.getCause());
+            } catch (TimeoutException e) {
+                // Leave the row alone: the lease expires and another attempt picks it up.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        outbox.markSent(delivered);
+        sent.add(delivered.size());
+        return batch.size();
+    }
+
+    private void recordFailure(OutboxEmail email, Throwable cause) {
+        String error = cause == null ? "unknown error" : cause.getMessage();
+        if (email.attempts() >= maxAttempts) {
+            outbox.markDead(email.id(), error);
+            dead.increment();
+            System.out.println("❌ Giving up on email to " + email.recipient() + " after "
+                    + email.attempts() + " attempts.");
+        } else {
+            outbox.reschedule(email.id(), backoffMillis(email.attempts()), error);
+            retried.increment();
+        }
+    }
+
+    /**
+     * Delay before the next attempt: 30 s after the first failure, doubling each
+     * time, at most one hour.
+     *
+     * @param attempts attempts made so far
+     * @return the delay in milliseconds
+     */
+    static long backoffMillis(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(BASE_BACKOFF_MILLIS << doublings, MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Returns the dispatch counters since start.
+     *
+     * @return the current statistics
+     */
+    public Stats getStats() {
+        return new Stats(sent.sum(), retried.sum(), dead.sum());
+    }
+
+    /**
+     * Outbox dispatch statistics.
+     *
+     * @param sent    emails delivered
+     * @param retried failed attempts that were rescheduled
+     * @param dead    emails moved to the dead-letter state
+     */
+    public record Stats(long sent, long retried, long dead) {
+    }
+
+    /**
+     * Stops polling. A batch in progress is finished first.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(LEASE_MILLIS, TimeUnit.MILLISECONDS)) scheduler.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+    }
+}
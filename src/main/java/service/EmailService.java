@@ -4,37 +4,177 @@ import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Service class responsible for sending emails via SMTP using Gmail.
  * <p>
  * Configures a mail {@link Session} with authentication and TLS security.
- * Provides a method to send plain text emails to a specified recipient.
+ * Messages are placed on a bounded queue and sent by a small pool of daemon
+ * worker threads, so callers never wait on the SMTP server. When the queue is
+ * full, callers wait up to the enqueue timeout before the message is rejected.
+ * The workers run once {@link #start()} is called; messages queued before that
+ * wait for them.
+ * </p>
+ * <p>
+ * Each worker keeps its own authenticated SMTP connection open across messages,
+ * recycles it after a fixed number of messages or when it has been idle, and
+ * reconnects if the server drops it.
  * </p>
  *
  * @author Sara
  * @version 1.0
  */
-public class EmailService {
+public class EmailService implements AutoCloseable {
+
+    /** Messages that may wait to be sent before callers are slowed down. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1_000;
+
+    /** Number of messages sent in parallel. */
+    public static final int DEFAULT_WORKERS = 4;
+
+    /** How long a caller waits for room in a full queue. */
+    public static final long DEFAULT_ENQUEUE_TIMEOUT_MILLIS = 5_000;
+
+    /** Messages sent over one SMTP connection before it is recycled. */
+    public static final int DEFAULT_MAX_MESSAGES_PER_CONNECTION = 100;
+
+    /** How long {@link #close()} waits for queued messages to be sent. */
+    private static final long DRAIN_TIMEOUT_MILLIS = 30_000;
+
+    /** Idle time after which a worker closes its SMTP connection. */
+    private static final long IDLE_DISCONNECT_MILLIS = 30_000;
+
+    /** Sends prepared messages for one worker; an {@link SmtpSender} in production. */
+    @FunctionalInterface
+    interface Sender {
+        void send(Message message) throws MessagingException;
+
+        /** Releases any open connection. */
+        default void close() {
+        }
+    }
+
+    /** A queued message and the future its caller holds. */
+    private record Job(Message message, String to, CompletableFuture<Void> result) {
+    }
+
+    /** Tells a worker to stop. */
+    private static final Job STOP = new Job(null, null, null);
 
     private final String username;
-    private final String password;
     private final Session session;
+    private final Supplier<Sender> senders;
+
+    private final BlockingQueue<Job> queue;
+    private final long enqueueTimeoutMillis;
+    private final int workerCount;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean closed;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+    private final LongAdder connections = new LongAdder();
 
     /**
      * Constructs an {@link EmailService} with the given Gmail credentials.
      * <p>
-     * Sets up the SMTP session with authentication and TLS.
+     * Sets up the SMTP session with authentication and TLS, with
+     * {@link #DEFAULT_WORKERS} sender threads once started.
      * </p>
      *
      * @param username the Gmail email address used as sender
      * @param password the app-specific password or Gmail password
      */
     public EmailService(String username, String password) {
+        this(username, password, DEFAULT_QUEUE_CAPACITY, DEFAULT_WORKERS);
+    }
+
+    /**
+     * Constructs an {@link EmailService} with an explicit queue size and worker count.
+     *
+     * @param username      the Gmail email address used as sender
+     * @param password      the app-specific password or Gmail password
+     * @param queueCapacity maximum number of messages waiting to be sent
+     * @param workers       number of messages sent in parallel
+     */
+    public EmailService(String username, String password, int queueCapacity, int workers) {
+        this(gmailProperties(), username, password, queueCapacity, workers, DEFAULT_MAX_MESSAGES_PER_CONNECTION);
+    }
+
+    /**
+     * Constructs an {@link EmailService} for any SMTP server, e.g. a local test server.
+     *
+     * @param smtpProperties           JavaMail {@code mail.smtp.*} settings such as host, port and TLS
+     * @param username                 the sender address, also used to log in
+     * @param password                 the SMTP password, or null if the server needs no login
+     * @param queueCapacity            maximum number of messages waiting to be sent
+     * @param workers                  number of messages sent in parallel, each over its own connection
+     * @param maxMessagesPerConnection messages sent over one connection before it is recycled
+     */
+    public EmailService(Properties smtpProperties, String username, String password,
+                        int queueCapacity, int workers, int maxMessagesPerConnection) {
+        this(createSession(smtpProperties, username, password), username,
+                null, queueCapacity, workers, DEFAULT_ENQUEUE_TIMEOUT_MILLIS, maxMessagesPerConnection);
+    }
+
+    EmailService(Session session, String username, Supplier<Sender> senders,
+                 int queueCapacity, int workers, long enqueueTimeoutMillis) {
+        this(session, username, senders, queueCapacity, workers, enqueueTimeoutMillis,
+                DEFAULT_MAX_MESSAGES_PER_CONNECTION);
+    }
+
+    private EmailService(Session session, String username, Supplier<Sender> senders,
+                         int queueCapacity, int workers, long enqueueTimeoutMillis, int maxMessagesPerConnection) {
+        if (queueCapacity <= 0) throw new IllegalArgumentException("Queue capacity must be greater than 0.");
+        if (workers <= 0) throw new IllegalArgumentException("Workers must be greater than 0.");
+        if (maxMessagesPerConnection <= 0)
+            throw new IllegalArgumentException("Messages per connection must be greater than 0.");
+
         this.username = username;
-        this.password = password;
+        this.session = session;
+        this.senders = senders != null
+                ? senders
+                : () -> new SmtpSender(session, maxMessagesPerConnection, connections::increment);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.workerCount = workers;
+    }
 
+    /**
+     * Starts the sender threads. Calling it again, or after {@link #close()}, does nothing.
+     *
+     * @return this service
+     */
+    public synchronized EmailService start() {
+        if (closed || !workers.isEmpty()) return this;
+
+        // Platform threads: the SMTP client blocks on sockets inside synchronized
+        // methods, which would pin the carrier of a virtual thread for the whole send.
+        Thread.Builder builder = Thread.ofPlatform().daemon(true).name("email-sender-", 0);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(builder.start(this::work));
+        }
+        return this;
+    }
+
+    private static Properties gmailProperties() {
         Properties props = new Properties();
         props.put("mail.smtp.auth", "true");
         props.put("mail.smtp.starttls.enable", "true");
@@ -42,8 +182,16 @@ public class EmailService {
         props.put("mail.smtp.port", "587");
         props.put("mail.smtp.ssl.trust", "smtp.gmail.com");
         props.put("mail.smtp.ssl.protocols", "TLSv1.2");
+        return props;
+    }
+
+    private static Session createSession(Properties smtpProperties, String username, String password) {
+        Properties props = new Properties();
+        props.putAll(smtpProperties);
+        if (password == null) return Session.getInstance(props);
 
-        this.session = Session.getInstance(props, new Authenticator() {
+        props.putIfAbsent("mail.smtp.user", username);
+        return Session.getInstance(props, new Authenticator() {
             @Override
             protected PasswordAuthentication getPasswordAuthentication() {
                 return new PasswordAuthentication(username, password);
@@ -52,25 +200,189 @@ public class EmailService {
     }
 
     /**
-     * Sends a plain text email to a specified recipient.
+     * Queues a plain text email to a specified recipient and returns immediately.
+     * <p>
+     * If the queue is full the call waits up to the enqueue timeout for room. The
+     * returned future completes when the message has been handed to the SMTP server,
+     * or exceptionally if it could not be built, queued or sent.
+     * </p>
      *
      * @param to the recipient's email address
      * @param subject the subject line of the email
      * @param text the body text of the email
+     * @return a future that completes once the email is sent
      */
-    public void sendEmail(String to, String subject, String text) {
+    public CompletableFuture<Void> sendEmail(String to, String subject, String text) {
         try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(username));
-            message.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
-            message.setSubject(subject);
-            message.setText(text);
-
-            Transport.send(message);
-            //System.out.println("✅ Email sent to " + to);
+            return enqueue(createMessage(to, subject, text), to);
         } catch (MessagingException e) {
-            e.printStackTrace();
+            failed.increment();
             System.out.println("❌ Failed to send email to " + to);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Builds a plain text message from the configured sender, for use with {@link #sendAll(Collection)}.
+     *
+     * @param to the recipient's email address
+     * @param subject the subject line of the email
+     * @param text the body text of the email
+     * @return the message
+     * @throws MessagingException if an address is invalid
+     */
+    public Message createMessage(String to, String subject, String text) throws MessagingException {
+        Message message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(username));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        message.setSubject(subject);
+        message.setText(text);
+        return message;
+    }
+
+    /**
+     * Queues many prepared messages at once.
+     * <p>
+     * The messages are spread over the workers, and each worker sends its share over
+     * its open SMTP connection, so a large batch pays only a handful of handshakes.
+     * </p>
+     *
+     * @param messages the messages to send
+     * @return one future per message, in the same order
+     */
+    public List<CompletableFuture<Void>> sendAll(Collection<? extends Message> messages) {
+        List<CompletableFuture<Void>> results = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            results.add(enqueue(message, recipientsOf(message)));
+        }
+        return results;
+    }
+
+    private CompletableFuture<Void> enqueue(Message message, String to) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            if (closed || !queue.offer(new Job(message, to, result), enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                System.out.println("❌ Email queue is full, not sending to " + to);
+                result.completeExceptionally(new RejectedExecutionException("Email queue is full."));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static String recipientsOf(Message message) {
+        try {
+            return Arrays.toString(message.getAllRecipients());
+        } catch (MessagingException e) {
+            return "(unknown recipient)";
+        }
+    }
+
+    private void work() {
+        Sender sender = senders.get();
+        try {
+            while (true) {
+                Job job = queue.poll(IDLE_DISCONNECT_MILLIS, TimeUnit.MILLISECONDS);
+                if (job == null) {
+                    sender.close();
+                    job = queue.take();
+                }
+                if (job == STOP) return;
+
+                long start = System.nanoTime();
+                try {
+                    sender.send(job.message());
+                    recordSend(System.nanoTime() - start);
+                    sent.increment();
+                    job.result().complete(null);
+                } catch (Exception e) {
+                    recordSend(System.nanoTime() - start);
+                    failed.increment();
+                    System.out.println("❌ Failed to send email to " + job.to());
+                    job.result().completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sender.close();
+        }
+    }
+
+    private void recordSend(long nanos) {
+        sendNanos.add(nanos);
+        maxSendNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Returns the queue depth and send counters.
+     *
+     * @return the current statistics
+     */
+    public Stats getStats() {
+        long sentCount = sent.sum();
+        long failedCount = failed.sum();
+        long attempts = sentCount + failedCount;
+        double avgMillis = attempts == 0 ? 0 : sendNanos.sum() / 1_000_000.0 / attempts;
+        return new Stats(queue.size(), queue.size() + queue.remainingCapacity(),
+                sentCount, failedCount, rejected.sum(), connections.sum(),
+                avgMillis, maxSendNanos.get() / 1_000_000.0);
+    }
+
+    /**
+     * Email delivery statistics.
+     *
+     * @param queueDepth    messages waiting to be sent
+     * @param queueCapacity maximum number of waiting messages
+     * @param sent          messages accepted by the SMTP server
+     * @param failed        messages that could not be built or sent
+     * @param rejected      messages refused because the queue stayed full or the service was closed
+     * @param connections   SMTP connections opened
+     * @param avgSendMillis average time spent sending one message
+     * @param maxSendMillis longest time spent sending one message
+     */
+    public record Stats(int queueDepth, int queueCapacity, long sent, long failed, long rejected,
+                        long connections, double avgSendMillis, double maxSendMillis) {
+    }
+
+    /**
+     * Stops accepting new messages, sends what is already queued and stops the workers.
+     * Waits at most 30 seconds for the queue to drain; messages still queued after
+     * that are failed with a {@link RejectedExecutionException}.
+     */
+    @Override
+    public void close() {
+        List<Thread> workers;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            workers = List.copyOf(this.workers);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MILLIS);
+        try {
+            for (int i = 0; i < workers.size(); i++) {
+                long left = deadline - System.nanoTime();
+                if (!queue.offer(STOP, Math.max(left, 0), TimeUnit.NANOSECONDS)) break;
+            }
+            for (Thread worker : workers) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0 || !worker.join(Duration.ofNanos(left))) worker.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.forEach(Thread::interrupt);
+        }
+
+        Job left;
+        while ((left = queue.poll()) != null) {
+            if (left == STOP) continue;
+            rejected.increment();
+            left.result().completeExceptionally(new RejectedExecutionException("Email service closed."));
         }
     }
 }
@@ -0,0 +1,106 @@
+package service;
+
+import repository.BorrowRepository;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Background job that charges fines on overdue borrows before they are returned.
+ * <p>
+ * Once a day it adds the fine for the days since the last accrual to every overdue,
+ * unreturned borrow, in large set-based batches, so {@code getTotalFine} and the
+ * borrow check see fines that are still growing. Each row remembers the last day it
+ * was charged for, so running the job again on the same day changes nothing, and a
+ * missed day is caught up on the next run.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class FineAccrualJob extends DailyJob {
+
+    /** Rows updated per statement. */
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    private final BorrowRepository borrowRepository;
+    private final int batchSize;
+    private final Supplier<LocalDate> today;
+    private final LongSupplier nanoTime;
+
+    /**
+     * Constructs a job with the default batch size.
+     *
+     * @param borrowRepository the repository holding the borrows
+     */
+    public FineAccrualJob(BorrowRepository borrowRepository) {
+        this(borrowRepository, DEFAULT_BATCH_SIZE, LocalDate::now, System::nanoTime);
+    }
+
+    /**
+     * Constructs a job.
+     *
+     * @param borrowRepository the repository holding the borrows
+     * @param batchSize        rows updated per statement
+     * @param today            supplies the current date
+     * @param nanoTime         clock used to time a run
+     */
+    FineAccrualJob(BorrowRepository borrowRepository, int batchSize, Supplier<LocalDate> today, LongSupplier nanoTime) {
+        super("fine-accrual", "Error accruing fines");
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be greater than 0.");
+
+        this.borrowRepository = borrowRepository;
+        this.batchSize = batchSize;
+        this.today = today;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    protected void runScheduled() {
+        Result result = runOnce();
+        if (result.rows() > 0) System.out.println("⏱ " + result);
+    }
+
+    /**
+     * Accrues fines through today, batch by batch, until no overdue row is left
+     * to charge or the job is closed.
+     *
+     * @return the number of rows charged and how long it took
+     */
+    public Result runOnce() {
+        LocalDate now = today.get();
+        long started = nanoTime.getAsLong();
+        long rows = 0;
+        int updated;
+        do {
+            updated = borrowRepository.accrueOverdueFines(now, batchSize);
+            if (updated > 0) rows += updated;
+        } while (updated == batchSize && !isClosed());
+
+        return new Result(rows, TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - started));
+    }
+
+    /**
+     * Outcome of one run.
+     *
+     * @param rows          overdue borrows charged
+     * @param elapsedMillis run time in milliseconds
+     */
+    public record Result(long rows, long elapsedMillis) {
+
+        /**
+         * @return rows charged per second of run time
+         */
+        public double rowsPerSecond() {
+            return rows * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Accrued fines on %d overdue borrows in %d ms (%.0f rows/s)",
+                    rows, elapsedMillis, rowsPerSecond());
+        }
+    }
+}
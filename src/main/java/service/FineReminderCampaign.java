@@ -0,0 +1,181 @@
+package service;
+
+import domain.CampaignCheckpoint;
+import domain.FineTotal;
+import repository.BorrowRepository;
+import repository.ReminderCampaignRepository;
+import util.RateLimiter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+/**
+ * Sends fine reminder emails to every student with unpaid fines.
+ * <p>
+ * Recipients and their fine totals are streamed from one aggregate query in email
+ * order, so memory use does not grow with the number of students and no per-student
+ * fine lookups are made. Up to {@code parallelism} emails are in flight at once, and
+ * new sends are started no faster than the configured rate, to stay under the SMTP
+ * provider's limits.
+ * </p>
+ * <p>
+ * Progress is saved every {@link #CHECKPOINT_INTERVAL} recipients under the
+ * campaign's id. Running a campaign again with the same id continues after the last
+ * saved recipient instead of starting over, so an interrupted run can simply be
+ * repeated. A reminder whose send failed is counted and not retried by the campaign.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class FineReminderCampaign {
+
+    /** Emails in flight at once by default. */
+    public static final int DEFAULT_PARALLELISM = EmailService.DEFAULT_WORKERS;
+
+    /** Default send rate, within Gmail's limits for a single account. */
+    public static final double DEFAULT_MESSAGES_PER_SECOND = 5;
+
+    /** Recipients handled between two saved checkpoints. */
+    static final int CHECKPOINT_INTERVAL = 100;
+
+    static final String SUBJECT = "Library Fine Reminder";
+
+    private final BorrowRepository borrowRepository;
+    private final ReminderCampaignRepository campaignRepository;
+    private final EmailService emailService;
+    private final int parallelism;
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Constructs a campaign engine with the default parallelism and send rate.
+     *
+     * @param borrowRepository   source of the fine totals
+     * @param campaignRepository where progress is saved
+     * @param emailService       used to send the reminders
+     */
+    public FineReminderCampaign(BorrowRepository borrowRepository, ReminderCampaignRepository campaignRepository,
+                                EmailService emailService) {
+        this(borrowRepository, campaignRepository, emailService, DEFAULT_PARALLELISM, DEFAULT_MESSAGES_PER_SECOND);
+    }
+
+    /**
+     * Constructs a campaign engine.
+     *
+     * @param borrowRepository   source of the fine totals
+     * @param campaignRepository where progress is saved
+     * @param emailService       used to send the reminders
+     * @param parallelism        maximum number of emails in flight at once
+     * @param messagesPerSecond  maximum rate at which sends are started
+     * @throws IllegalArgumentException if parallelism or the rate is not positive
+     */
+    public FineReminderCampaign(BorrowRepository borrowRepository, ReminderCampaignRepository campaignRepository,
+                                EmailService emailService, int parallelism, double messagesPerSecond) {
+        if (parallelism <= 0) throw new IllegalArgumentException("Parallelism must be greater than 0.");
+
+        this.borrowRepository = borrowRepository;
+        this.campaignRepository = campaignRepository;
+        this.emailService = emailService;
+        this.parallelism = parallelism;
+        this.rateLimiter = new RateLimiter(messagesPerSecond);
+    }
+
+    /**
+     * Runs a campaign, resuming it if it was started before.
+     *
+     * @param campaignId identifies the campaign; runs with the same id share progress
+     * @return the outcome of this run
+     */
+    public Result run(String campaignId) {
+        CampaignCheckpoint start = campaignRepository.find(campaignId)
+                .orElse(new CampaignCheckpoint(campaignId, "", 0, 0));
+        Progress progress = new Progress(start);
+        Deque<Pending> inFlight = new ArrayDeque<>(parallelism);
+
+        try (Stream<FineTotal> totals = borrowRepository.streamUnpaidFineTotals(start.lastEmail())) {
+            Iterator<FineTotal> it = totals.iterator();
+            while (it.hasNext()) {
+                FineTotal total = it.next();
+
+                // Finish the oldest send first, so the checkpoint only ever moves past completed recipients.
+                if (inFlight.size() >= parallelism) settle(inFlight.poll(), progress);
+
+                rateLimiter.acquire();
+                inFlight.add(new Pending(total.email(),
+                        emailService.sendEmail(total.email(), SUBJECT, body(total.total()))));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            while (!inFlight.isEmpty()) settle(inFlight.poll(), progress);
+            progress.save();
+        }
+
+        return new Result(progress.sent - start.sent(), progress.failed - start.failed(), start.sent());
+    }
+
+    private void settle(Pending pending, Progress progress) {
+        try {
+            pending.result.join();
+            progress.sent++;
+        } catch (CompletionException e) {
+            progress.failed++;
+            System.out.println("❌ Could not send fine reminder to " + pending.email + ": "
+                    + (e.getCause() == null ? e.getMessage() : e.getCause().getMessage()));
+        }
+        progress.lastEmail = pending.email;
+        if (++progress.sinceSave >= CHECKPOINT_INTERVAL) progress.save();
+    }
+
+    /**
+     * Builds the reminder text for a student.
+     *
+     * @param total the student's total unpaid fine
+     * @return the email body
+     */
+    static String body(int total) {
+        return "Dear Student,\n\n" +
+                "You have unpaid library fines of " + total + " in your account. " +
+                "Please settle them as soon as possible to avoid borrowing restrictions.\n\n" +
+                "Best regards,\nLibrary Admin";
+    }
+
+    /**
+     * Outcome of one run of a campaign.
+     *
+     * @param sent           reminders sent by this run
+     * @param failed         reminders this run could not send
+     * @param previouslySent reminders sent by earlier runs of the same campaign
+     */
+    public record Result(int sent, int failed, int previouslySent) {
+    }
+
+    private record Pending(String email, CompletableFuture<Void> result) {
+    }
+
+    /** Running totals of a campaign, saved as a {@link CampaignCheckpoint}. */
+    private final class Progress {
+        private final String campaignId;
+        private String lastEmail;
+        private int sent;
+        private int failed;
+        private int sinceSave;
+
+        Progress(CampaignCheckpoint start) {
+            this.campaignId = start.campaignId();
+            this.lastEmail = start.lastEmail();
+            this.sent = start.sent();
+            this.failed = start.failed();
+        }
+
+        void save() {
+            if (sinceSave == 0) return;
+            campaignRepository.save(new CampaignCheckpoint(campaignId, lastEmail, sent, failed));
+            sinceSave = 0;
+        }
+    }
+}
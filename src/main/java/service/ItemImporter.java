@@ -0,0 +1,244 @@
+package service;
+
+import domain.ImportCheckpoint;
+import domain.Items;
+import domain.libraryType;
+import repository.ItemImportRepository;
+import util.CsvReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Bulk import of catalogue items from a CSV or TSV stream.
+ * <p>
+ * Each record has the columns {@code name, author, quantity, type}; a first record
+ * whose quantity column reads {@code quantity} is taken as a header. Rows are
+ * validated with the same rules as {@link ItemsService#addNewItem}, and the valid
+ * ones are loaded a chunk at a time through
+ * {@link ItemImportRepository#importChunk}, which uses {@code COPY} instead of one
+ * INSERT and one round trip per item.
+ * </p>
+ *
+ * <p>The import is resumable. Every chunk commits a checkpoint with the number of
+ * source records consumed, and a rerun with the same import id skips that many
+ * records before loading anything, so no item is imported twice. Rejected rows are
+ * reported to the {@link Listener} only once their chunk has committed, so each is
+ * reported once as well.</p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class ItemImporter {
+
+    /** Source records per chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    /** Longest name or author the {@code items} table accepts. */
+    static final int MAX_TEXT_LENGTH = 255;
+
+    private final ItemImportRepository repository;
+    private final int chunkSize;
+    private final LongSupplier nanoTime;
+
+    /**
+     * Receives the rows that were rejected and the progress of an import.
+     */
+    public interface Listener {
+
+        /**
+         * Called for each rejected row, after the chunk it belongs to has committed.
+         *
+         * @param line   line of the source on which the row starts
+         * @param row    the row's fields
+         * @param reason why the row was rejected
+         */
+        default void rejected(long line, List<String> row, String reason) {
+        }
+
+        /**
+         * Called after each committed chunk.
+         *
+         * @param progress the counts of this run so far
+         */
+        default void progress(Result progress) {
+        }
+    }
+
+    /**
+     * Constructs an importer with the default chunk size.
+     *
+     * @param repository the repository that loads the chunks and keeps the checkpoints
+     */
+    public ItemImporter(ItemImportRepository repository) {
+        this(repository, DEFAULT_CHUNK_SIZE, System::nanoTime);
+    }
+
+    /**
+     * Constructs an importer.
+     *
+     * @param repository the repository that loads the chunks and keeps the checkpoints
+     * @param chunkSize  source records per chunk
+     * @param nanoTime   clock used to time the import
+     */
+    ItemImporter(ItemImportRepository repository, int chunkSize, LongSupplier nanoTime) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be greater than 0.");
+
+        this.repository = repository;
+        this.chunkSize = chunkSize;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Imports the records of a source, continuing after the records a previous run
+     * with the same id has already committed.
+     *
+     * @param importId identifies the source across runs
+     * @param source   the records to import
+     * @param listener receives rejected rows and progress
+     * @return the counts of this run; {@link Result#completed()} is false if a chunk
+     *         could not be committed, in which case a rerun continues after the last committed chunk
+     * @throws IOException if the source cannot be read
+     */
+    public Result run(String importId, CsvReader source, Listener listener) throws IOException {
+        return new Run(importId, listener).importFrom(source);
+    }
+
+    /** State of one run. */
+    private final class Run {
+
+        private record Rejection(long line, List<String> row, String reason) {
+        }
+
+        private final String importId;
+        private final Listener listener;
+        private final long started = nanoTime.getAsLong();
+
+        private ImportCheckpoint committed;
+        private List<Items> items = new ArrayList<>();
+        private List<Rejection> rejections = new ArrayList<>();
+        private long records;
+        private long skipped;
+        private long imported;
+        private long rejected;
+
+        Run(String importId, Listener listener) {
+            this.importId = importId;
+            this.listener = listener;
+        }
+
+        Result importFrom(CsvReader source) throws IOException {
+            committed = repository.find(importId).orElse(new ImportCheckpoint(importId, 0, 0, 0));
+
+            List<String> row;
+            while (records < committed.recordsDone() && source.next() != null) {
+                records++;
+            }
+            skipped = records;
+            // The source is shorter than what was already imported from it: nothing is left to do.
+            if (records < committed.recordsDone()) return result(true);
+
+            while ((row = source.next()) != null) {
+                records++;
+                if (records == 1 && isHeader(row)) continue;
+                try {
+                    items.add(parse(row));
+                } catch (IllegalArgumentException e) {
+                    rejections.add(new Rejection(source.getRecordLine(), row, e.getMessage()));
+                }
+                if (records - committed.recordsDone() >= chunkSize && !commit()) return result(false);
+            }
+            return result(records == committed.recordsDone() || commit());
+        }
+
+        private boolean commit() {
+            ImportCheckpoint next = new ImportCheckpoint(importId, records,
+                    committed.imported() + items.size(), committed.rejected() + rejections.size());
+            if (!repository.importChunk(committed.recordsDone(), next, items)) return false;
+
+            for (Rejection r : rejections) {
+                listener.rejected(r.line(), r.row(), r.reason());
+            }
+            imported += items.size();
+            rejected += rejections.size();
+            items = new ArrayList<>();
+            rejections = new ArrayList<>();
+            committed = next;
+            listener.progress(result(false));
+            return true;
+        }
+
+        private Result result(boolean completed) {
+            return new Result(importId, imported, rejected, skipped,
+                    TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - started), completed);
+        }
+    }
+
+    private static boolean isHeader(List<String> row) {
+        return row.size() > 2 && row.get(2).trim().equalsIgnoreCase("quantity");
+    }
+
+    /**
+     * Turns a record into an item.
+     *
+     * @throws IllegalArgumentException if the record is not a valid new item
+     */
+    static Items parse(List<String> row) {
+        if (row.size() != 4)
+            throw new IllegalArgumentException("Expected 4 columns (name, author, quantity, type), found " + row.size() + ".");
+
+        String name = row.get(0).trim();
+        String author = row.get(1).trim();
+        int quantity;
+        try {
+            quantity = Integer.parseInt(row.get(2).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Quantity must be a number.");
+        }
+        libraryType type = null;
+        for (libraryType t : libraryType.values()) {
+            if (t.name().equalsIgnoreCase(row.get(3).trim())) type = t;
+        }
+        if (type == null && !row.get(3).isBlank())
+            throw new IllegalArgumentException("Type must be BOOK or CD.");
+
+        ItemsService.validateNewItem(name, author, quantity, type);
+        if (name.length() > MAX_TEXT_LENGTH)
+            throw new IllegalArgumentException("Item name is longer than " + MAX_TEXT_LENGTH + " characters.");
+        if (author.length() > MAX_TEXT_LENGTH)
+            throw new IllegalArgumentException("Author is longer than " + MAX_TEXT_LENGTH + " characters.");
+
+        return new Items(author, name, type, quantity, "");
+    }
+
+    /**
+     * Outcome of one run of an import.
+     *
+     * @param importId      the import's id
+     * @param imported      items inserted by this run
+     * @param rejected      rows rejected by this run
+     * @param skipped       records skipped because an earlier run had committed them
+     * @param elapsedMillis run time in milliseconds
+     * @param completed     true if the whole source has been imported
+     */
+    public record Result(String importId, long imported, long rejected, long skipped, long elapsedMillis,
+                         boolean completed) {
+
+        /**
+         * @return rows imported or rejected per second of run time
+         */
+        public double rowsPerSecond() {
+            return (imported + rejected) * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d items imported, %d rows rejected%s in %d ms (%.0f rows/s)",
+                    imported, rejected, skipped > 0 ? ", " + skipped + " already imported" : "",
+                    elapsedMillis, rowsPerSecond());
+        }
+    }
+}
@@ -2,10 +2,12 @@ package service;
 
 import domain.Items;
 import domain.libraryType;
+import repository.CatalogIndex;
 import repository.ItemsRepository;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Service class responsible for managing library items such as books and CDs.
@@ -19,7 +21,11 @@ import java.util.stream.Collectors;
  */
 public class ItemsService {
 
+    /** Number of results returned by searches that do not ask for a page size. */
+    public static final int DEFAULT_SEARCH_LIMIT = 100;
+
     private final ItemsRepository itemsRepository;
+    private final CatalogIndex catalogIndex;
 
     /**
      * Constructs an {@link ItemsService} with the specified repository.
@@ -27,7 +33,26 @@ public class ItemsService {
      * @param itemsRepository the repository used for item operations
      */
     public ItemsService(ItemsRepository itemsRepository) {
+        this(itemsRepository, null);
+    }
+
+    /**
+     * Constructs an {@link ItemsService} that answers name and author searches
+     * from an in-memory {@link CatalogIndex}.
+     * <p>
+     * The index matches every query that contains a letter or digit, and the stock
+     * of each result page is read live from the repository in one query. Queries
+     * without any, such as {@code "-"}, are passed to the repository. Items added
+     * by a bulk import or another instance are found once the index has refreshed,
+     * see {@link CatalogIndex#refresh()}.
+     * </p>
+     *
+     * @param itemsRepository the repository used for item operations
+     * @param catalogIndex    the index used for searches, or null to always query the repository
+     */
+    public ItemsService(ItemsRepository itemsRepository, CatalogIndex catalogIndex) {
         this.itemsRepository = itemsRepository;
+        this.catalogIndex = catalogIndex;
     }
 
     /**
@@ -42,6 +67,23 @@ public class ItemsService {
      */
     public boolean addNewItem(String name, String author, int quantity, libraryType type) {
 
+        validateNewItem(name, author, quantity, type);
+
+        Items item = new Items(author, name, type, quantity, "");
+        return itemsRepository.addItem(item);
+    }
+
+    /**
+     * Checks the fields of a new item. Shared by {@link #addNewItem} and the bulk
+     * {@link ItemImporter}, so both accept exactly the same items.
+     *
+     * @param name the name of the item
+     * @param author the author of the item
+     * @param quantity the quantity of the item
+     * @param type the type of the item
+     * @throws IllegalArgumentException if name or author is empty, quantity is non-positive, or type is null
+     */
+    static void validateNewItem(String name, String author, int quantity, libraryType type) {
         if (name == null || name.isBlank())
             throw new IllegalArgumentException("Item name cannot be empty.");
         if (author == null || author.isBlank())
@@ -50,9 +92,6 @@ public class ItemsService {
             throw new IllegalArgumentException("Quantity must be greater than 0.");
         if (type == null)
             throw new IllegalArgumentException("Type (BOOK / CD) is required.");
-
-        Items item = new Items(author, name, type, quantity, "");
-        return itemsRepository.addItem(item);
     }
 
     /**
@@ -73,8 +112,7 @@ public class ItemsService {
             throw new IllegalArgumentException("ISBN must be a number.");
         }
 
-        var existing = itemsRepository.findByISBN(isbn);
-        if (existing.isEmpty()) {
+        if (!itemsRepository.existsByISBN(isbn)) {
             throw new IllegalArgumentException("No item found with this ISBN.");
         }
 
@@ -83,32 +121,88 @@ public class ItemsService {
 
     /**
      * Searches items by name and optionally filters by type.
+     * Returns at most {@link #DEFAULT_SEARCH_LIMIT} of the best matches.
      *
      * @param name the name to search
      * @param type the optional type filter ({@link libraryType}), null to include all types
      * @return a list of matching {@link Items}
      */
     public List<Items> searchByName(String name, libraryType type) {
-        List<Items> result = itemsRepository.findByName(name);
-        if (type == null) return result;
-        return result.stream()
-                .filter(i -> i.getType() == type)
-                .collect(Collectors.toList());
+        return searchByName(name, type, DEFAULT_SEARCH_LIMIT, 0);
+    }
+
+    /**
+     * Searches one page of items by name, optionally filtered by type.
+     *
+     * @param name the name to search
+     * @param type the optional type filter ({@link libraryType}), null to include all types
+     * @param limit the maximum number of items to return
+     * @param offset the number of best matches to skip
+     * @return a list of matching {@link Items}, best matches first
+     * @throws IllegalArgumentException if limit is not positive or offset is negative
+     */
+    public List<Items> searchByName(String name, libraryType type, int limit, int offset) {
+        if (usesIndex(name)) {
+            return withLiveStock(catalogIndex.search(CatalogIndex.Field.NAME, name, type, limit, offset));
+        }
+        return itemsRepository.findByName(name, type, limit, offset);
     }
 
     /**
      * Searches items by author and optionally filters by type.
+     * Returns at most {@link #DEFAULT_SEARCH_LIMIT} of the best matches.
      *
      * @param author the author to search
      * @param type the optional type filter ({@link libraryType}), null to include all types
      * @return a list of matching {@link Items}
      */
     public List<Items> searchByAuthor(String author, libraryType type) {
-        List<Items> result = itemsRepository.findByAuthor(author);
-        if (type == null) return result;
-        return result.stream()
-                .filter(i -> i.getType() == type)
-                .collect(Collectors.toList());
+        return searchByAuthor(author, type, DEFAULT_SEARCH_LIMIT, 0);
+    }
+
+    /**
+     * Searches one page of items by author, optionally filtered by type.
+     *
+     * @param author the author to search
+     * @param type the optional type filter ({@link libraryType}), null to include all types
+     * @param limit the maximum number of items to return
+     * @param offset the number of best matches to skip
+     * @return a list of matching {@link Items}, best matches first
+     * @throws IllegalArgumentException if limit is not positive or offset is negative
+     */
+    public List<Items> searchByAuthor(String author, libraryType type, int limit, int offset) {
+        if (usesIndex(author)) {
+            return withLiveStock(catalogIndex.search(CatalogIndex.Field.AUTHOR, author, type, limit, offset));
+        }
+        return itemsRepository.findByAuthor(author, type, limit, offset);
+    }
+
+    /**
+     * Decides from the query alone whether the index answers it, so every page of
+     * a search follows the same matching rules and order.
+     */
+    private boolean usesIndex(String query) {
+        return catalogIndex != null && query != null && query.chars().anyMatch(Character::isLetterOrDigit);
+    }
+
+    /**
+     * Replaces the quantities of index results with the current stock, dropping
+     * items that no longer exist.
+     */
+    private List<Items> withLiveStock(List<Items> page) {
+        int[] isbns = new int[page.size()];
+        for (int i = 0; i < isbns.length; i++) isbns[i] = Integer.parseInt(page.get(i).getISBN());
+
+        Map<Integer, Integer> quantities = itemsRepository.findQuantities(isbns);
+        List<Items> result = new ArrayList<>(page.size());
+        for (int i = 0; i < isbns.length; i++) {
+            Integer quantity = quantities.get(isbns[i]);
+            if (quantity == null) continue;
+            Items item = page.get(i);
+            item.setQuantity(quantity);
+            result.add(item);
+        }
+        return result;
     }
 
     /**
@@ -0,0 +1,126 @@
+package service;
+
+import domain.user;
+import repository.SessionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Issues and checks the bearer tokens of the HTTP API.
+ * <p>
+ * Sessions are stored through {@link SessionRepository}, so a token issued by one
+ * instance of the API is accepted by every other. A token is 32 random bytes; only
+ * its SHA-256 hash is stored. Looking up a session also reads the user's current
+ * role, and a removed user has no session.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class SessionService {
+
+    /** How long a session stays valid by default. */
+    public static final int DEFAULT_TTL_MINUTES = 30;
+
+    private final SessionRepository repository;
+    private final long ttlSeconds;
+    private final Supplier<Instant> now;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructs a service whose sessions last {@link #DEFAULT_TTL_MINUTES} minutes.
+     *
+     * @param repository where sessions are stored
+     */
+    public SessionService(SessionRepository repository) {
+        this(repository, DEFAULT_TTL_MINUTES * 60L, Instant::now);
+    }
+
+    /**
+     * Constructs a service.
+     *
+     * @param repository where sessions are stored
+     * @param ttlSeconds how long a session stays valid
+     * @param now        supplies the current time
+     */
+    SessionService(SessionRepository repository, long ttlSeconds, Supplier<Instant> now) {
+        if (ttlSeconds <= 0) throw new IllegalArgumentException("Session lifetime must be greater than 0.");
+
+        this.repository = repository;
+        this.ttlSeconds = ttlSeconds;
+        this.now = now;
+    }
+
+    /**
+     * Starts a session for a user.
+     *
+     * @param email the logged-in user's email
+     * @return the new session's token
+     * @throws IllegalStateException if the session could not be stored
+     */
+    public String start(String email) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        if (!repository.create(hash(token), email, now.get().plusSeconds(ttlSeconds)))
+            throw new IllegalStateException("Could not start a session. Please try again.");
+        return token;
+    }
+
+    /**
+     * Looks up the user of a session.
+     *
+     * @param token the session token
+     * @return the user with their current role, or empty if the session does not
+     *         exist, has expired or belongs to a removed user
+     */
+    public Optional<user> findUser(String token) {
+        return repository.findUser(hash(token));
+    }
+
+    /**
+     * Ends a session. Unknown tokens are ignored.
+     *
+     * @param token the session token
+     */
+    public void end(String token) {
+        repository.delete(hash(token));
+    }
+
+    /**
+     * Ends every session of a user.
+     *
+     * @param email the user's email
+     */
+    public void endAll(String email) {
+        repository.deleteByEmail(email);
+    }
+
+    /**
+     * @return how long a session stays valid, in seconds
+     */
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * @return the SHA-256 of a token as 64 lowercase hex characters
+     */
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
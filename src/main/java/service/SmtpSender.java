@@ -0,0 +1,98 @@
+package service;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+
+/**
+ * Sends messages over one long-lived, authenticated SMTP connection.
+ * <p>
+ * The connection is opened on the first message and reused for the following
+ * ones, so the TCP, STARTTLS and AUTH handshakes are paid once per connection
+ * instead of once per message. After {@code maxMessagesPerConnection} messages
+ * the connection is closed and the next message opens a new one. If a send fails
+ * because the server dropped the connection, the sender reconnects and tries that
+ * message once more.
+ * </p>
+ * <p>
+ * Not thread-safe: {@link EmailService} gives every worker its own sender.
+ * </p>
+ *
+ * @author Sara
+ * @version 1.0
+ */
+class SmtpSender implements EmailService.Sender {
+
+    private final Session session;
+    private final int maxMessagesPerConnection;
+    private final Runnable onConnect;
+
+    private Transport transport;
+    private int sentOnConnection;
+
+    /**
+     * @param session                  the mail session holding host, port and credentials
+     * @param maxMessagesPerConnection messages sent before the connection is recycled
+     * @param onConnect                told about every new connection, for statistics
+     */
+    SmtpSender(Session session, int maxMessagesPerConnection, Runnable onConnect) {
+        this.session = session;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.onConnect = onConnect;
+    }
+
+    @Override
+    public void send(Message message) throws MessagingException {
+        message.saveChanges();
+
+        for (int attempt = 1; ; attempt++) {
+            boolean fresh = transport == null;
+            try {
+                if (fresh) connect();
+                transport.sendMessage(message, message.getAllRecipients());
+                break;
+            } catch (MessagingException e) {
+                // The server refused the recipients; the connection itself is fine.
+                if (e instanceof SendFailedException failed && refusedRecipients(failed)) throw e;
+                close();
+                // A reused connection may simply have timed out; a fresh one that fails is a real error.
+                if (fresh || attempt > 1) throw e;
+            }
+        }
+
+        if (++sentOnConnection >= maxMessagesPerConnection) close();
+    }
+
+    /**
+     * JavaMail also reports a connection dropped mid-send as a {@link SendFailedException},
+     * with no addresses; only one that names refused addresses is a real rejection.
+     */
+    private static boolean refusedRecipients(SendFailedException e) {
+        Address[] invalid = e.getInvalidAddresses();
+        return invalid != null && invalid.length > 0;
+    }
+
+    private void connect() throws MessagingException {
+        transport = session.getTransport("smtp");
+        transport.connect();
+        sentOnConnection = 0;
+        onConnect.run();
+    }
+
+    /**
+     * Closes the connection, if open. The next message opens a new one.
+     */
+    @Override
+    public void close() {
+        if (transport == null) return;
+        try {
+            transport.close();
+        } catch (MessagingException ignored) {
+        } finally {
+            transport = null;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package service;
 import domain.*;
 
 import java.io.Console;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Scanner;
 
@@ -16,7 +17,7 @@ import java.util.Scanner;
  * </p>
  *
  * <p>This class interacts with {@link userService}, {@link ItemsService},
- * {@link BorrowService}, and {@link EmailService} for business logic and
+ * {@link BorrowService}, and {@link FineReminderCampaign} for business logic and
  * database operations.</p>
  *
  * @author Shatha , Sara
@@ -28,7 +29,7 @@ public class menuService {
     private final userService userService;
     private final ItemsService itemsService;
     private final BorrowService borrowService;
-    private final EmailService emailService;
+    private final FineReminderCampaign reminderCampaign;
 
     /**
      * Constructs a {@link menuService} with the specified scanner and services.
@@ -37,15 +38,15 @@ public class menuService {
      * @param userService  the service for user management
      * @param itemsService the service for item management
      * @param borrowService the service for borrowing/returning items
-     * @param emailService the service for sending emails
+     * @param reminderCampaign the engine that sends fine reminder emails
      */
     public menuService(Scanner scanner, userService userService, ItemsService itemsService,
-                       BorrowService borrowService, EmailService emailService) {
+                       BorrowService borrowService, FineReminderCampaign reminderCampaign) {
         this.scanner = scanner;
         this.userService = userService;
         this.itemsService = itemsService;
         this.borrowService = borrowService;
-        this.emailService = emailService;
+        this.reminderCampaign = reminderCampaign;
     }
 
     /**
@@ -90,7 +91,7 @@ public class menuService {
         try {
             boolean success = userService.registerUser(email, password, confirm);
             if (success) System.out.println("✅ User registered successfully!");
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | IllegalStateException e) {
             System.out.println("❌ " + e.getMessage());
         }
     }
@@ -110,7 +111,7 @@ public class menuService {
             user user = userService.authenticate(email, password);
             System.out.println("\n✅ Login successful! Welcome ");
             showRoleBasedMenu(user);
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | IllegalStateException e) {
             System.out.println("❌ " + e.getMessage());
         }
     }
@@ -231,30 +232,28 @@ public class menuService {
     }
 
     /**
-     * Sends fine reminder emails to users with unpaid fines via {@link BorrowService} and {@link EmailService}.
+     * Sends fine reminder emails to users with unpaid fines via {@link FineReminderCampaign}.
+     * <p>
+     * There is one campaign per day: choosing this option again on the same day
+     * continues an interrupted run instead of emailing everyone a second time.
+     * </p>
      */
     void sendFineReminders() {
         System.out.println("📧 Sending fine reminder emails...");
 
-        List<String> unpaidEmails = borrowService.getStudentsWithUnpaidFines();
+        FineReminderCampaign.Result result = reminderCampaign.run("fine-reminders-" + LocalDate.now());
 
-        if (unpaidEmails.isEmpty()) {
-            System.out.println("✔ No users with unpaid fines.");
+        if (result.sent() + result.failed() == 0) {
+            if (result.previouslySent() > 0)
+                System.out.println("✔ Fine reminders were already sent to " + result.previouslySent() + " students today.");
+            else
+                System.out.println("✔ No users with unpaid fines.");
             return;
         }
 
-        for (String email : unpaidEmails) {
-            String subject = "Library Fine Reminder";
-            String body =
-                    "Dear Student,\n\n" +
-                            "You have unpaid library fines in your account. " +
-                            "Please settle them as soon as possible to avoid borrowing restrictions.\n\n" +
-                            "Best regards,\nLibrary Admin";
-
-            emailService.sendEmail(email, subject, body);
-        }
-
-        System.out.println("✔ Fine reminder emails sent to " + unpaidEmails.size() + " students.");
+        System.out.println("✔ Fine reminder emails sent to " + result.sent() + " students.");
+        if (result.failed() > 0)
+            System.out.println("❌ " + result.failed() + " fine reminder emails could not be sent.");
     }
 
     /**
@@ -272,12 +271,12 @@ public class menuService {
         switch (choice) {
             case "1" -> {
                 System.out.println("📨 [Librarian] Overdue Users:");
-                List<Borrow> overdueList = borrowService.getOverdueStudents();
+                List<OverdueBorrow> overdueList = borrowService.getOverdueBorrows();
 
                 if (overdueList.isEmpty()) {
                     System.out.println("No overdue users found.");
                 } else {
-                    System.out.println("student_email      ISBN  borrow_date  overdue_date fine");
+                    System.out.println("student_email      ISBN  borrow_date  overdue_date days projected_fine");
                     overdueList.forEach(System.out::println);
                 }
             }
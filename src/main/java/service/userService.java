@@ -1,5 +1,6 @@
 package service;
 
+import domain.OutboxEmail;
 import domain.Role;
 import domain.user;
 import repository.userRepository;
@@ -7,13 +8,18 @@ import util.PasswordHasher;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for managing user registration, authentication,
  * role updates, and inactive user handling.
  * <p>
- * Interacts with {@link userRepository} for persistence and {@link EmailService}
- * for sending email notifications.
+ * Interacts with {@link userRepository} for persistence; email notifications are
+ * written to the outbox together with the change that causes them. Passwords are hashed and checked by a
+ * {@link PasswordHasher}; a legacy or weaker stored hash is replaced with a new one
+ * the next time the user logs in successfully.
  * </p>
  *
  * @author Sara
@@ -22,24 +28,35 @@ import java.util.List;
 public class userService {
 
     private final userRepository userRepository;
-    private final EmailService emailService;
+    private final PasswordHasher passwordHasher;
 
     /**
-     * Constructs a {@link userService} with the specified repositories and services.
+     * Constructs a {@link userService} with the specified repositories and services,
+     * using the shared {@link PasswordHasher#getDefault()}.
      *
      * @param userRepository the repository used for user-related operations
-     * @param emailService the service used for sending emails
      */
-    public userService(userRepository userRepository, EmailService emailService) {
+    public userService(userRepository userRepository) {
+        this(userRepository, PasswordHasher.getDefault());
+    }
+
+    /**
+     * Constructs a {@link userService} with its own password hasher.
+     *
+     * @param userRepository the repository used for user-related operations
+     * @param passwordHasher hashes and checks passwords
+     */
+    public userService(userRepository userRepository, PasswordHasher passwordHasher) {
         this.userRepository = userRepository;
-        this.emailService = emailService;
+        this.passwordHasher = passwordHasher;
     }
 
     /**
      * Registers a new user in the system.
      * <p>
      * Validates that the email is available and the password is valid.
-     * Sends a welcome email upon successful registration.
+     * A welcome email is written to the outbox together with the user and sent
+     * in the background by {@link EmailOutboxDispatcher}.
      * </p>
      *
      * @param email the email address of the new user
@@ -47,8 +64,33 @@ public class userService {
      * @param confirmPassword confirmation of the password
      * @return {@code true} if the user was successfully registered; {@code false} otherwise
      * @throws IllegalArgumentException if the email is already used or the password is invalid
+     * @throws IllegalStateException if too many passwords are being hashed at once
      */
     public boolean registerUser(String email, String password, String confirmPassword) {
+        checkRegistration(email, password, confirmPassword);
+        return saveNewUser(email, passwordHasher.hash(password));
+    }
+
+    /**
+     * Registers a user like {@link #registerUser}, but hashes the password on the
+     * {@link PasswordHasher} pool so the calling thread is not held during a burst of sign-ups.
+     *
+     * @param email the email address of the new user
+     * @param password the password for the account
+     * @param confirmPassword confirmation of the password
+     * @return a future completed with {@code true} if the user was saved, or failed with an
+     *         {@link IllegalArgumentException} if the email is already used or the password is invalid
+     */
+    public CompletableFuture<Boolean> registerUserAsync(String email, String password, String confirmPassword) {
+        try {
+            checkRegistration(email, password, confirmPassword);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return passwordHasher.hashAsync(password).thenApply(hash -> saveNewUser(email, hash));
+    }
+
+    private void checkRegistration(String email, String password, String confirmPassword) {
         if (!isEmailAvailable(email)) {
             throw new IllegalArgumentException("This email is already used.");
         }
@@ -56,46 +98,78 @@ public class userService {
         if (!isValidPassword(password, confirmPassword)) {
             throw new IllegalArgumentException("Password must be at least 8 characters and match the confirmation.");
         }
+    }
 
-        String hashedPassword = PasswordHasher.hashPassword(password);
+    private boolean saveNewUser(String email, String hashedPassword) {
         user user = new user(email, Role.STUDENT, hashedPassword);
 
-        boolean saved = userRepository.save(user);
-
-        if (saved) {
-            String subject = "Welcome to the Library System";
-            String text = """
-                    Hello %s,
-                    
-                    Your account has been created successfully in the Library System.
-                    
-                    Enjoy your journey! 📚
-                    """.formatted(email);
+        String subject = "Welcome to the Library System";
+        String text = """
+                Hello %s,
+                
+                Your account has been created successfully in the Library System.
+                
+                Enjoy your journey! 📚
+                """.formatted(email);
 
-            emailService.sendEmail(email, subject, text);
-        }
-
-        return saved;
+        return userRepository.save(user, OutboxEmail.of(email, subject, text));
     }
 
     /**
-     * Authenticates a user by checking email and password.
+     * Authenticates a user by checking email and password. If the stored hash is a
+     * legacy or weaker hash, it is replaced after the password has been verified.
      *
      * @param email the user's email address
      * @param password the password to verify
      * @return the {@link user} object if authentication is successful
      * @throws IllegalArgumentException if no user exists with the email or the password is incorrect
+     * @throws IllegalStateException if too many logins are being checked at once
      */
     public user authenticate(String email, String password) {
         user user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("No user found with this email."));
 
-        String hashedPassword = PasswordHasher.hashPassword(password);
-        if (hashedPassword.equals(user.getPasswordHash())) {
-            return user;
-        } else {
+        return checkPassword(user, password, passwordHasher.verify(password, user.getPasswordHash()));
+    }
+
+    /**
+     * Authenticates a user like {@link #authenticate}, but checks the password on the
+     * {@link PasswordHasher} pool so the calling thread is not held during a burst of logins.
+     *
+     * @param email the user's email address
+     * @param password the password to verify
+     * @return a future completed with the {@link user}, or failed with an {@link IllegalArgumentException}
+     *         if no user exists with the email or the password is incorrect
+     */
+    public CompletableFuture<user> authenticateAsync(String email, String password) {
+        Optional<user> found = userRepository.findByEmail(email);
+        if (found.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("No user found with this email."));
+        }
+
+        return passwordHasher.verifyAsync(password, found.get().getPasswordHash())
+                .thenApply(matches -> checkPassword(found.get(), password, matches));
+    }
+
+    private user checkPassword(user user, String password, boolean matches) {
+        if (!matches) {
             throw new IllegalArgumentException("Incorrect password.");
         }
+        upgradeHash(user, password);
+        return user;
+    }
+
+    /**
+     * Replaces a legacy or weaker stored hash. The login has already succeeded, so a
+     * failed upgrade is left for the next login.
+     */
+    private void upgradeHash(user user, String password) {
+        if (!passwordHasher.needsRehash(user.getPasswordHash())) return;
+        try {
+            userRepository.updatePasswordHash(user.getEmail(), user.getPasswordHash(), passwordHasher.hash(password));
+        } catch (IllegalStateException e) {
+            // Busy hashing other logins; try again next time.
+        }
     }
 
     /**
@@ -108,6 +182,18 @@ public class userService {
         return userRepository.findInactiveUsersSince(oneYearAgo);
     }
 
+    /**
+     * Streams the users who have been inactive for more than a year, ordered by email,
+     * without loading them all into memory. The stream holds a database connection
+     * until closed and should be used with try-with-resources.
+     *
+     * @return a lazily fetched stream of inactive {@link user} objects
+     */
+    public Stream<user> streamInactiveUsers() {
+        LocalDate oneYearAgo = LocalDate.now().minusYears(1);
+        return userRepository.streamInactiveUsersSince(oneYearAgo);
+    }
+
     /**
      * Soft deletes an inactive user.
      *
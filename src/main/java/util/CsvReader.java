@@ -0,0 +1,106 @@
+package util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads delimited text (CSV, TSV) one record at a time, so files of any size can
+ * be processed without loading them into memory.
+ * <p>
+ * Fields may be wrapped in double quotes to contain the delimiter, line breaks or
+ * quotes, which are doubled inside a quoted field ({@code "say ""hi"""}). Blank
+ * lines are skipped.
+ * </p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class CsvReader implements AutoCloseable {
+
+    private final BufferedReader in;
+    private final char delimiter;
+    private long line;
+    private long recordLine;
+
+    /**
+     * Creates a reader.
+     *
+     * @param in        the text to read
+     * @param delimiter the field separator, e.g. {@code ','} or {@code '\t'}
+     * @throws IllegalArgumentException if the delimiter is a quote or line break
+     */
+    public CsvReader(Reader in, char delimiter) {
+        if (delimiter == '"' || delimiter == '\n' || delimiter == '\r')
+            throw new IllegalArgumentException("Invalid delimiter.");
+        this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or null at the end of the input
+     * @throws IOException if reading fails or the input ends inside a quoted field
+     */
+    public List<String> next() throws IOException {
+        String text;
+        do {
+            text = in.readLine();
+            if (text == null) return null;
+            line++;
+        } while (text.isBlank());
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) break;
+                // A quoted field continues on the next line.
+                text = in.readLine();
+                if (text == null) throw new IOException("Unclosed quote in record starting at line " + recordLine + ".");
+                line++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = text.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return the line number, starting at 1, on which the last record returned by {@link #next()} began
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
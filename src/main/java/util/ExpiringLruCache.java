@@ -0,0 +1,162 @@
+package util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded least-recently-used cache whose entries expire a fixed time after
+ * they were stored.
+ * <p>
+ * Entries live in an access-ordered {@link LinkedHashMap}. When the cache is full,
+ * storing a new key evicts the least recently used entry. An expired entry is
+ * treated as absent and removed when it is next looked up.
+ * </p>
+ *
+ * <p>All operations are synchronized, so a single instance can be shared between threads.</p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of cached values
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class ExpiringLruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity  maximum number of entries
+     * @param ttlMillis how long an entry stays valid after it is stored, in milliseconds
+     * @throws IllegalArgumentException if capacity or ttlMillis is not positive
+     */
+    public ExpiringLruCache(int capacity, long ttlMillis) {
+        this(capacity, ttlMillis, System::nanoTime);
+    }
+
+    /**
+     * Creates an empty cache with its own clock.
+     *
+     * @param capacity  maximum number of entries
+     * @param ttlMillis how long an entry stays valid after it is stored, in milliseconds
+     * @param nanoTime  clock used for expiry, in nanoseconds
+     * @throws IllegalArgumentException if capacity or ttlMillis is not positive
+     */
+    public ExpiringLruCache(int capacity, long ttlMillis, LongSupplier nanoTime) {
+        if (capacity <= 0) throw new IllegalArgumentException("Cache capacity must be positive.");
+        if (ttlMillis <= 0) throw new IllegalArgumentException("Cache TTL must be positive.");
+        this.capacity = capacity;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the value cached for a key and marks it as most recently used.
+     *
+     * @param key the key
+     * @return the cached value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (nanoTime.getAsLong() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Stores a value, replacing any previous value for the key. Evicts the least
+     * recently used entry if the cache is full.
+     *
+     * @param key   the key
+     * @param value the value (must not be null)
+     * @throws NullPointerException if value is null
+     */
+    public synchronized void put(K key, V value) {
+        if (value == null) throw new NullPointerException("Cached values must not be null.");
+        if (!entries.containsKey(key) && entries.size() >= capacity) {
+            Iterator<K> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+        entries.put(key, new Entry<>(value, nanoTime.getAsLong() + ttlNanos));
+    }
+
+    /**
+     * Removes a key from the cache.
+     *
+     * @param key the key to forget
+     * @return true if the key was cached
+     */
+    public synchronized boolean invalidate(K key) {
+        return entries.remove(key) != null;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of entries, including expired ones not looked up since
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss, eviction and expiry counters.
+     *
+     * @return the current statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), capacity, hits, misses, evictions, expirations);
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param size        current number of entries
+     * @param capacity    maximum number of entries
+     * @param hits        lookups answered from the cache
+     * @param misses      lookups that found no valid entry
+     * @param evictions   entries removed to make room
+     * @param expirations entries found expired on lookup
+     */
+    public record Stats(int size, int capacity, long hits, long misses, long evictions, long expirations) {
+
+        /**
+         * @return the fraction of lookups answered from the cache, or 0 if there were none
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A size-bounded least-recently-used cache keyed by primitive {@code int}.
+ * <p>
+ * Keys are never boxed: entries live in parallel arrays linked into an LRU list
+ * by slot index, and an open-addressing table with linear probing maps a key to
+ * its slot. When the cache is full, inserting a new key evicts the least
+ * recently used entry.
+ * </p>
+ *
+ * <p>All operations are synchronized, so a single instance can be shared between threads.</p>
+ *
+ * @param <V> the type of cached values
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class IntLruCache<V> {
+
+    private static final int NONE = -1;
+
+    private final int capacity;
+
+    /** Per-slot storage. */
+    private final int[] keys;
+    private final Object[] values;
+    private final int[] prev;
+    private final int[] next;
+
+    /** Open-addressing index: holds {@code slot + 1}, or 0 for an empty bucket. */
+    private final int[] table;
+    private final int mask;
+
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+    private int freeHead;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity maximum number of entries
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public IntLruCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Cache capacity must be positive.");
+        this.capacity = capacity;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.table = new int[Math.max(2, tableSize)];
+        this.mask = table.length - 1;
+
+        resetFreeList();
+    }
+
+    /**
+     * Looks up a key and marks it as most recently used.
+     *
+     * @param key the key
+     * @return the cached value, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(int key) {
+        int slot = slotOf(key);
+        if (slot == NONE) {
+            misses++;
+            return null;
+        }
+        hits++;
+        moveToHead(slot);
+        return (V) values[slot];
+    }
+
+    /**
+     * Inserts or replaces a value, evicting the least recently used entry if the cache is full.
+     *
+     * @param key   the key
+     * @param value the value (must not be null)
+     * @throws NullPointerException if value is null
+     */
+    public synchronized void put(int key, V value) {
+        if (value == null) throw new NullPointerException("Cached values must not be null.");
+
+        int slot = slotOf(key);
+        if (slot != NONE) {
+            values[slot] = value;
+            moveToHead(slot);
+            return;
+        }
+
+        if (size == capacity) {
+            int victim = tail;
+            unlinkFromIndex(keys[victim]);
+            unlinkFromList(victim);
+            releaseSlot(victim);
+            evictions++;
+        }
+
+        slot = freeHead;
+        freeHead = next[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        linkAtHead(slot);
+        insertIntoIndex(key, slot);
+        size++;
+    }
+
+    /**
+     * Removes a key from the cache if present.
+     *
+     * @param key the key
+     * @return true if an entry was removed
+     */
+    public synchronized boolean invalidate(int key) {
+        int slot = slotOf(key);
+        if (slot == NONE) return false;
+        unlinkFromIndex(key);
+        unlinkFromList(slot);
+        releaseSlot(slot);
+        return true;
+    }
+
+    /**
+     * Removes every entry. Counters are kept.
+     */
+    public synchronized void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(values, null);
+        head = NONE;
+        tail = NONE;
+        size = 0;
+        resetFreeList();
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return the maximum number of cached entries
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return the current statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(size, capacity, hits, misses, evictions);
+    }
+
+    /**
+     * Point-in-time view of the cache counters.
+     *
+     * @param size      entries currently cached
+     * @param capacity  maximum number of entries
+     * @param hits      lookups that found an entry
+     * @param misses    lookups that found nothing
+     * @param evictions entries dropped to make room for new ones
+     */
+    public record Stats(int size, int capacity, long hits, long misses, long evictions) {
+
+        /**
+         * @return hits divided by all lookups, or 0 if there were none
+         */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private int bucketOf(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int slotOf(int key) {
+        int i = bucketOf(key);
+        while (table[i] != 0) {
+            int slot = table[i] - 1;
+            if (keys[slot] == key) return slot;
+            i = (i + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private void insertIntoIndex(int key, int slot) {
+        int i = bucketOf(key);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /**
+     * Removes a key from the index using backward-shift deletion, so no tombstones are needed.
+     */
+    private void unlinkFromIndex(int key) {
+        int i = bucketOf(key);
+        while (keys[table[i] - 1] != key) {
+            i = (i + 1) & mask;
+        }
+
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (table[j] == 0) break;
+            int home = bucketOf(keys[table[j] - 1]);
+            boolean movable = gap <= j ? (home <= gap || home > j) : (home <= gap && home > j);
+            if (movable) {
+                table[gap] = table[j];
+                gap = j;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private void moveToHead(int slot) {
+        if (slot == head) return;
+        unlinkFromList(slot);
+        linkAtHead(slot);
+    }
+
+    private void linkAtHead(int slot) {
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) prev[head] = slot;
+        head = slot;
+        if (tail == NONE) tail = slot;
+    }
+
+    private void unlinkFromList(int slot) {
+        int p = prev[slot];
+        int n = next[slot];
+        if (p != NONE) next[p] = n; else head = n;
+        if (n != NONE) prev[n] = p; else tail = p;
+    }
+
+    private void releaseSlot(int slot) {
+        values[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    private void resetFreeList() {
+        for (int i = 0; i < capacity - 1; i++) {
+            next[i] = i + 1;
+        }
+        next[capacity - 1] = NONE;
+        freeHead = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package util;
+
+/**
+ * A salted, tunable key-derivation function that {@link PasswordHasher} can store
+ * password hashes with.
+ * <p>
+ * The work done by {@link #derive} must grow linearly with the cost, so that
+ * {@link PasswordHasher#calibrate} can scale a measured cost to a target latency.
+ * </p>
+ *
+ * @author Sara
+ * @version 1.0
+ */
+public interface PasswordHashAlgorithm {
+
+    /**
+     * Returns the name stored in the hash format. A scheme that derives keys differently
+     * must use a new name, so stored hashes always say how they were made.
+     *
+     * @return the algorithm name, without {@code $}
+     */
+    String id();
+
+    /**
+     * @return the lowest cost calibration may choose
+     */
+    int minimumCost();
+
+    /**
+     * @return the highest cost calibration may choose
+     */
+    int maximumCost();
+
+    /**
+     * Derives the hash of a password.
+     *
+     * @param password the plain-text password
+     * @param salt     the random salt stored with the hash
+     * @param cost     the work factor stored with the hash
+     * @return the derived key
+     */
+    byte[] derive(String password, byte[] salt, int cost);
+}
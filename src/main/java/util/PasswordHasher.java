@@ -1,39 +1,341 @@
 package util;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Utility class for hashing passwords using the SHA-256 algorithm.
+ * Hashes and verifies passwords for storage in {@code users.password_hash}.
  * <p>
- * Provides a static method to securely hash a plain-text password into a hexadecimal string.
+ * New hashes are salted and derived with a {@link PasswordHashAlgorithm} at a tunable
+ * cost, and stored in a self-describing format:
+ * {@code $<algorithm>$<cost>$<base64 salt>$<base64 hash>}. Hashes without the leading
+ * {@code $} are legacy unsalted SHA-256 hex digests from {@link #hashPassword(String)};
+ * they still verify, and {@link #needsRehash(String)} reports them so they can be
+ * replaced on the next successful login.
  * </p>
  *
- * <p>This class is designed for password storage and comparison in authentication workflows.</p>
+ * <p>The default cost is calibrated once, at construction, so one hash takes about the
+ * target latency on one core. Stored hashes within a margin of that cost are not
+ * rehashed, so calibration noise between restarts does not rewrite them. At most {@code maxConcurrentHashes} derivations run at
+ * once; further callers wait briefly for a permit and are then turned away, so a login
+ * storm slows down instead of taking every CPU.</p>
+ *
+ * <p>An instance also owns a bounded pool of hashing threads. {@link #hashAsync} and
+ * {@link #verifyAsync} run on that pool, so request threads are not held while hashing.</p>
  *
  * @author Sara
  * @version 1.0
  */
-public class PasswordHasher {
+public class PasswordHasher implements AutoCloseable {
+
+    /** Time one hash should take on one core after calibration, in milliseconds. */
+    public static final long DEFAULT_TARGET_MILLIS = 50;
+
+    /** Hashes waiting for a thread before new ones are rejected. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** How long a caller waits for a hashing permit before giving up, in milliseconds. */
+    public static final long DEFAULT_PERMIT_TIMEOUT_MILLIS = 2_000;
+
+    /**
+     * Stored hashes with at least this percentage of the current cost are kept. Every
+     * start calibrates a slightly different cost, and instances behind a load balancer
+     * calibrate on different machines; without the margin each restart or instance
+     * would rehash users that are already at about the right cost.
+     */
+    static final int REHASH_BELOW_PERCENT = 80;
+
+    private static final int SALT_BYTES = 16;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** Length of a SHA-256 digest in hex characters. */
+    private static final int HEX_LENGTH = 64;
+
+    /** Per-thread digest and output buffer for legacy hashes. */
+    private static final ThreadLocal<Sha256> LOCAL = ThreadLocal.withInitial(Sha256::new);
+
+    private static final Base64.Encoder BASE64 = Base64.getEncoder().withoutPadding();
+
+    private final PasswordHashAlgorithm algorithm;
+    private final int cost;
+    private final Semaphore permits;
+    private final long permitTimeoutMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates a PBKDF2 hasher calibrated to {@link #DEFAULT_TARGET_MILLIS}, with one hashing
+     * permit per processor and a pool that uses half of the processors.
+     */
+    public PasswordHasher() {
+        this(new Pbkdf2Sha256(), calibrate(new Pbkdf2Sha256(), DEFAULT_TARGET_MILLIS),
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_QUEUE_CAPACITY,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a hasher.
+     *
+     * @param algorithm           algorithm for new hashes
+     * @param cost                cost for new hashes; stored hashes with a lower cost need a rehash
+     * @param threads             number of threads in the hashing pool
+     * @param queueCapacity       hashes that may wait for a pool thread
+     * @param maxConcurrentHashes derivations allowed to run at once, on any thread
+     * @throws IllegalArgumentException if any number is not positive
+     */
+    public PasswordHasher(PasswordHashAlgorithm algorithm, int cost, int threads, int queueCapacity,
+                          int maxConcurrentHashes) {
+        this(algorithm, cost, threads, queueCapacity, maxConcurrentHashes, DEFAULT_PERMIT_TIMEOUT_MILLIS);
+    }
+
+    PasswordHasher(PasswordHashAlgorithm algorithm, int cost, int threads, int queueCapacity,
+                   int maxConcurrentHashes, long permitTimeoutMillis) {
+        if (cost <= 0) throw new IllegalArgumentException("Cost must be greater than 0.");
+        if (threads <= 0) throw new IllegalArgumentException("Threads must be greater than 0.");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("Queue capacity must be greater than 0.");
+        if (maxConcurrentHashes <= 0) throw new IllegalArgumentException("Concurrent hashes must be greater than 0.");
+
+        this.algorithm = algorithm;
+        this.cost = cost;
+        this.permits = new Semaphore(maxConcurrentHashes);
+        this.permitTimeoutMillis = permitTimeoutMillis;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
 
     /**
-     * Hashes the given plain-text password using SHA-256.
+     * Returns a hasher shared by services that were not given one. It is created and
+     * calibrated on first use.
+     *
+     * @return the shared hasher
+     */
+    public static PasswordHasher getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Finds the cost at which one hash takes about the target time on the calling thread.
+     * The result is kept within the algorithm's minimum and maximum cost.
+     *
+     * @param algorithm    the algorithm to measure
+     * @param targetMillis the time one hash should take
+     * @return the calibrated cost
+     */
+    public static int calibrate(PasswordHashAlgorithm algorithm, long targetMillis) {
+        int probe = Math.max(1, algorithm.minimumCost() / 10);
+        byte[] salt = new byte[SALT_BYTES];
+        algorithm.derive("calibration", salt, probe);
+
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long started = System.nanoTime();
+            algorithm.derive("calibration", salt, probe);
+            fastest = Math.min(fastest, System.nanoTime() - started);
+        }
+
+        long scaled = probe * TimeUnit.MILLISECONDS.toNanos(targetMillis) / Math.max(1, fastest);
+        return Math.clamp(scaled, algorithm.minimumCost(), algorithm.maximumCost());
+    }
+
+    /**
+     * Hashes the given plain-text password using unsalted SHA-256. This is the legacy
+     * format; use {@link #hash(String)} for new hashes.
      *
      * @param password the plain-text password to hash
      * @return the SHA-256 hashed password as a hexadecimal string
-     * @throws RuntimeException if the SHA-256 algorithm is not available
      */
     public static String hashPassword(String password) {
+        return LOCAL.get().hash(password);
+    }
+
+    /**
+     * Hashes a password with a new random salt at the configured cost.
+     *
+     * @param password the plain-text password
+     * @return the hash in the versioned format
+     * @throws IllegalStateException if no hashing permit became free in time
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] derived = derive(password, salt, cost);
+        return "$" + algorithm.id() + "$" + cost + "$" + BASE64.encodeToString(salt) + "$"
+                + BASE64.encodeToString(derived);
+    }
+
+    /**
+     * Checks a password against a stored hash in either the versioned or the legacy format.
+     *
+     * @param password the plain-text password
+     * @param stored   the stored hash
+     * @return true if the password matches; false if it does not or the hash cannot be read
+     * @throws IllegalStateException if no hashing permit became free in time
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) return false;
+        if (!stored.startsWith("$")) {
+            return MessageDigest.isEqual(hashPassword(password).getBytes(StandardCharsets.US_ASCII),
+                    stored.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        StoredHash parsed = StoredHash.parse(stored);
+        if (parsed == null || !parsed.algorithm.equals(algorithm.id())) return false;
+        return MessageDigest.isEqual(derive(password, parsed.salt, parsed.cost), parsed.hash);
+    }
+
+    /**
+     * Tells whether a stored hash should be replaced by {@link #hash(String)}: it is a
+     * legacy hash, uses another algorithm, or has a cost below
+     * {@value #REHASH_BELOW_PERCENT}% of this hasher's.
+     *
+     * @param stored the stored hash
+     * @return true if the hash should be upgraded after the next successful login
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith("$")) return true;
+        StoredHash parsed = StoredHash.parse(stored);
+        return parsed == null || !parsed.algorithm.equals(algorithm.id())
+                || parsed.cost * 100L < (long) cost * REHASH_BELOW_PERCENT;
+    }
+
+    /**
+     * @return the cost of new hashes
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Runs {@link #hash(String)} on the hashing pool.
+     *
+     * @param password the plain-text password
+     * @return a future completed with the hash; it fails with {@link RejectedExecutionException}
+     *         if the queue is full or the hasher is closed
+     */
+    public CompletableFuture<String> hashAsync(String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> hash(password), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs {@link #verify(String, String)} on the hashing pool.
+     *
+     * @param password the plain-text password
+     * @param stored   the stored hash
+     * @return a future completed with the result; it fails with {@link RejectedExecutionException}
+     *         if the queue is full or the hasher is closed
+     */
+    public CompletableFuture<Boolean> verifyAsync(String password, String stored) {
+        try {
+            return CompletableFuture.supplyAsync(() -> verify(password, stored), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stops accepting hashes and waits for queued ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hash) {
-                sb.append(String.format("%02x", b));
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) executor.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private byte[] derive(String password, byte[] salt, int cost) {
+        try {
+            if (!permits.tryAcquire(permitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Too many logins in progress. Please try again.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to check the password.");
+        }
+        try {
+            return algorithm.derive(password, salt, cost);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Writes bytes as lower-case hex into a buffer and returns them as a string.
+     *
+     * @param bytes the bytes to encode
+     * @param out   buffer of at least twice the length of bytes
+     * @return the hex string
+     */
+    static String toHex(byte[] bytes, char[] out) {
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xff;
+            out[2 * i] = HEX_DIGITS[b >>> 4];
+            out[2 * i + 1] = HEX_DIGITS[b & 0x0f];
+        }
+        return new String(out, 0, bytes.length * 2);
+    }
+
+    /** The parts of a hash in the versioned format. */
+    private record StoredHash(String algorithm, int cost, byte[] salt, byte[] hash) {
+
+        /** @return the parts, or null if the hash is malformed */
+        static StoredHash parse(String stored) {
+            String[] parts = stored.split("\\$", -1);
+            if (parts.length != 5 || !parts[0].isEmpty()) return null;
+            try {
+                int cost = Integer.parseInt(parts[2]);
+                if (cost <= 0) return null;
+                return new StoredHash(parts[1], cost,
+                        Base64.getDecoder().decode(parts[3]), Base64.getDecoder().decode(parts[4]));
+            } catch (IllegalArgumentException e) {
+                return null;
             }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error hashing password", e);
         }
     }
+
+    /** A SHA-256 digest and hex buffer owned by one thread. */
+    private static final class Sha256 {
+        private final MessageDigest digest;
+        private final char[] hex = new char[HEX_LENGTH];
+
+        Sha256() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("Error hashing password", e);
+            }
+        }
+
+        String hash(String password) {
+            return toHex(digest.digest(password.getBytes(StandardCharsets.UTF_8)), hex);
+        }
+    }
+
+    private static final class DefaultHolder {
+        static final PasswordHasher INSTANCE = new PasswordHasher();
+    }
 }
@@ -0,0 +1,47 @@
+package util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * PBKDF2 with HMAC-SHA256, as shipped with the JDK. The cost is the iteration count.
+ *
+ * @author Sara
+ * @version 1.0
+ */
+public class Pbkdf2Sha256 implements PasswordHashAlgorithm {
+
+    /** Length of the derived key in bits. */
+    private static final int KEY_BITS = 256;
+
+    @Override
+    public String id() {
+        return "pbkdf2-sha256";
+    }
+
+    /**
+     * @return 100,000 iterations, so a fast machine never stores weak hashes
+     */
+    @Override
+    public int minimumCost() {
+        return 100_000;
+    }
+
+    @Override
+    public int maximumCost() {
+        return 10_000_000;
+    }
+
+    @Override
+    public byte[] derive(String password, byte[] salt, int cost) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, cost, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error hashing password", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
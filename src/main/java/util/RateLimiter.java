@@ -0,0 +1,50 @@
+package util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out calls so that no more than a fixed number happen per second.
+ * <p>
+ * Each {@link #acquire()} reserves the next free time slot and sleeps until it
+ * arrives. Unused slots are not saved up, so a limiter that has been idle does not
+ * allow a burst afterwards.
+ * </p>
+ *
+ * <p>Thread-safe; callers are served in the order they reserve a slot.</p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextFreeNanos;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param permitsPerSecond the maximum call rate
+     * @throws IllegalArgumentException if the rate is not positive
+     */
+    public RateLimiter(double permitsPerSecond) {
+        if (!(permitsPerSecond > 0)) throw new IllegalArgumentException("Rate must be greater than 0.");
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until the caller may proceed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long slot;
+        synchronized (this) {
+            long now = System.nanoTime();
+            slot = Math.max(nextFreeNanos, now);
+            nextFreeNanos = slot + intervalNanos;
+        }
+        long wait = slot - System.nanoTime();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+}
@@ -0,0 +1,131 @@
+package util;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A map from {@code String} keys to primitive {@code int} values.
+ * <p>
+ * Values are never boxed: keys and values live in parallel arrays indexed by an
+ * open-addressing table with linear probing, which doubles when it is half full.
+ * Looking up an absent key returns 0, which suits sums and counts.
+ * </p>
+ *
+ * <p>Not thread-safe; build it on one thread and share it read-only.</p>
+ *
+ * @author Shatha , Sara
+ * @version 1.0
+ */
+public class StringIntMap {
+
+    private String[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param expectedSize number of keys the map should hold without resizing
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public StringIntMap(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Expected size must not be negative.");
+        int tableSize = Math.max(4, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+        this.keys = new String[tableSize];
+        this.values = new int[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    /**
+     * Returns the value stored for a key.
+     *
+     * @param key the key
+     * @return the value, or 0 if the key is absent
+     */
+    public int get(String key) {
+        int i = indexOf(key);
+        return keys[i] == null ? 0 : values[i];
+    }
+
+    /**
+     * @param key the key
+     * @return true if a value is stored for the key
+     */
+    public boolean containsKey(String key) {
+        return keys[indexOf(key)] != null;
+    }
+
+    /**
+     * Stores a value, replacing any previous value for the key.
+     *
+     * @param key   the key (must not be null)
+     * @param value the value
+     * @throws NullPointerException if key is null
+     */
+    public void put(String key, int value) {
+        if (key == null) throw new NullPointerException("Keys must not be null.");
+        int i = indexOf(key);
+        if (keys[i] == null) {
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                values[i] = value;
+                grow();
+                return;
+            }
+        }
+        values[i] = value;
+    }
+
+    /**
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the sum of all values
+     */
+    public long sum() {
+        long total = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) total += values[i];
+        }
+        return total;
+    }
+
+    /**
+     * Calls the action for every entry, in no particular order.
+     *
+     * @param action receives each key and its value
+     */
+    public void forEach(ObjIntConsumer<String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) action.accept(keys[i], values[i]);
+        }
+    }
+
+    private int indexOf(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        while (keys[i] != null && !keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null) continue;
+            int i = indexOf(oldKeys[j]);
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
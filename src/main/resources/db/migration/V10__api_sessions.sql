@@ -0,0 +1,13 @@
+-- Login sessions of the HTTP API, shared by every instance behind the load balancer.
+-- Only the SHA-256 of a token is stored, so a copy of the table cannot be used to log in.
+-- A session ends when it expires, on logout, or when its user is removed.
+
+CREATE TABLE IF NOT EXISTS api_session (
+    token_hash VARCHAR(64)  PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL,
+    created_on TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_on TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_api_session_email ON api_session (email);
+CREATE INDEX IF NOT EXISTS idx_api_session_expires_on ON api_session (expires_on);
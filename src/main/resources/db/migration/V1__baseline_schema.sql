@@ -0,0 +1,29 @@
+-- Baseline schema used by userRepository, ItemsRepository and BorrowRepository.
+-- Written with IF NOT EXISTS so it can be applied to databases created before migrations existed.
+
+CREATE TABLE IF NOT EXISTS users (
+    email            VARCHAR(255) PRIMARY KEY,
+    role             VARCHAR(10)  NOT NULL,
+    password_hash    VARCHAR(255) NOT NULL,
+    lastdateborrowed DATE,
+    createdon        TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    deletedon        TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    isbn     SERIAL       PRIMARY KEY,
+    author   VARCHAR(255) NOT NULL,
+    name     VARCHAR(255) NOT NULL,
+    type     VARCHAR(10)  NOT NULL,
+    quantity INTEGER      NOT NULL DEFAULT 0 CHECK (quantity >= 0)
+);
+
+CREATE TABLE IF NOT EXISTS student_borrow (
+    id            SERIAL       PRIMARY KEY,
+    student_email VARCHAR(255) NOT NULL REFERENCES users (email),
+    item_isbn     INTEGER      NOT NULL REFERENCES items (isbn),
+    borrow_date   DATE         NOT NULL,
+    overdue_date  DATE,
+    returned      BOOLEAN      NOT NULL DEFAULT false,
+    fine          INTEGER      NOT NULL DEFAULT 0
+);
@@ -0,0 +1,10 @@
+-- Trigram indexes so that substring searches on item name and author
+-- (LIKE '%term%') use an index instead of scanning the whole items table.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm
+    ON items USING gin (name gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_items_author_trgm
+    ON items USING gin (author gin_trgm_ops);
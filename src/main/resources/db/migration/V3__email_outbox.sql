@@ -0,0 +1,21 @@
+-- Transactional outbox for outgoing email.
+-- Rows are written in the same statement or transaction as the change that causes the email,
+-- and sent later by EmailOutboxDispatcher.
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              BIGSERIAL    PRIMARY KEY,
+    recipient       VARCHAR(255) NOT NULL,
+    subject         VARCHAR(255) NOT NULL,
+    body            TEXT         NOT NULL,
+    status          VARCHAR(10)  NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENT', 'DEAD')),
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error      TEXT,
+    created_on      TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_on         TIMESTAMP
+);
+
+-- Only pending rows are ever polled, so the index stays small however much history accumulates.
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due
+    ON email_outbox (next_attempt_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,12 @@
+-- Progress of fine reminder campaigns, so an interrupted run resumes where it stopped.
+-- Recipients are sent to in email order; last_email is the last one whose send has finished,
+-- together with every recipient before it.
+
+CREATE TABLE IF NOT EXISTS reminder_campaign (
+    id         VARCHAR(100) PRIMARY KEY,
+    last_email VARCHAR(255) NOT NULL DEFAULT '',
+    sent       INTEGER      NOT NULL DEFAULT 0,
+    failed     INTEGER      NOT NULL DEFAULT 0,
+    started_on TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_on TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,42 @@
+-- Per-user balance of unpaid fines, so the check made before every borrow and return
+-- is a primary-key lookup instead of a SUM over the student's borrow history.
+-- A trigger on student_borrow keeps the balance in step with every change to a fine,
+-- inside the same transaction as that change.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS outstanding_fine INTEGER NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET outstanding_fine = t.total
+FROM (
+    SELECT student_email, SUM(fine) AS total
+    FROM student_borrow
+    WHERE fine > 0
+    GROUP BY student_email
+) t
+WHERE u.email = t.student_email;
+
+CREATE OR REPLACE FUNCTION student_borrow_outstanding_fine() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+       AND NEW.student_email = OLD.student_email
+       AND GREATEST(NEW.fine, 0) = GREATEST(OLD.fine, 0) THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.fine > 0 THEN
+        UPDATE users SET outstanding_fine = outstanding_fine - OLD.fine WHERE email = OLD.student_email;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.fine > 0 THEN
+        UPDATE users SET outstanding_fine = outstanding_fine + NEW.fine WHERE email = NEW.student_email;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_student_borrow_outstanding_fine ON student_borrow;
+
+CREATE TRIGGER trg_student_borrow_outstanding_fine
+    AFTER INSERT OR UPDATE OF fine, student_email OR DELETE ON student_borrow
+    FOR EACH ROW EXECUTE FUNCTION student_borrow_outstanding_fine();
@@ -0,0 +1,23 @@
+-- Indexes for the predicates the repositories use on every borrow, return and report.
+-- They are partial: active borrows and unpaid fines are a small, bounded share of
+-- student_borrow, so the indexes stay small however much returned history accumulates.
+-- users.email and items.isbn are already covered by their primary keys.
+
+-- Returning an item: the newest active borrow for a student and ISBN
+-- (BorrowRepository.returnItem, markReturnedByStudentAndIsbn).
+CREATE INDEX IF NOT EXISTS idx_student_borrow_active
+    ON student_borrow (student_email, item_isbn, borrow_date DESC)
+    WHERE returned = false;
+
+-- Overdue reports: active borrows past their overdue date (getOverdueUsers, streamOverdueUsers).
+CREATE INDEX IF NOT EXISTS idx_student_borrow_overdue
+    ON student_borrow (overdue_date)
+    WHERE returned = false;
+
+-- Unpaid fines per student: totals, payments and the reminder recipients.
+-- Including fine lets the totals be computed from the index alone.
+CREATE INDEX IF NOT EXISTS idx_student_borrow_fined
+    ON student_borrow (student_email) INCLUDE (fine)
+    WHERE fine > 0;
+
+ANALYZE student_borrow;
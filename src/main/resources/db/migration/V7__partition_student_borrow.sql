@@ -0,0 +1,75 @@
+-- Range-partitions student_borrow by borrow_date, one partition per year, and adds
+-- student_borrow_history for settled borrows moved out by the archival job.
+-- Rows are copied into the new table, so existing ids, fines and balances are kept.
+
+ALTER SEQUENCE student_borrow_id_seq OWNED BY NONE;
+ALTER TABLE student_borrow RENAME TO student_borrow_unpartitioned;
+ALTER INDEX IF EXISTS student_borrow_pkey RENAME TO student_borrow_unpartitioned_pkey;
+
+CREATE TABLE student_borrow (
+    id            INTEGER      NOT NULL DEFAULT nextval('student_borrow_id_seq'),
+    student_email VARCHAR(255) NOT NULL REFERENCES users (email),
+    item_isbn     INTEGER      NOT NULL REFERENCES items (isbn),
+    borrow_date   DATE         NOT NULL,
+    overdue_date  DATE,
+    returned      BOOLEAN      NOT NULL DEFAULT false,
+    fine          INTEGER      NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, borrow_date)
+) PARTITION BY RANGE (borrow_date);
+
+-- Catches dates without a yearly partition; BorrowArchiveJob creates upcoming years ahead of time.
+CREATE TABLE student_borrow_default PARTITION OF student_borrow DEFAULT;
+
+-- Yearly partitions from the oldest borrow (at most 20 years back) to next year.
+DO $$
+DECLARE
+    last_year  INTEGER := EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + 1;
+    first_year INTEGER := GREATEST(
+            COALESCE((SELECT EXTRACT(YEAR FROM MIN(borrow_date))::INTEGER FROM student_borrow_unpartitioned),
+                     last_year - 1),
+            last_year - 21);
+BEGIN
+    FOR y IN first_year..last_year LOOP
+        EXECUTE format('CREATE TABLE student_borrow_y%s PARTITION OF student_borrow FOR VALUES FROM (%L) TO (%L)',
+                       y, make_date(y, 1, 1), make_date(y + 1, 1, 1));
+    END LOOP;
+END;
+$$;
+
+INSERT INTO student_borrow (id, student_email, item_isbn, borrow_date, overdue_date, returned, fine)
+SELECT id, student_email, item_isbn, borrow_date, overdue_date, returned, fine
+FROM student_borrow_unpartitioned;
+
+DROP TABLE student_borrow_unpartitioned;
+ALTER SEQUENCE student_borrow_id_seq OWNED BY student_borrow.id;
+
+-- The indexes from V6, now created on every partition.
+CREATE INDEX idx_student_borrow_active
+    ON student_borrow (student_email, item_isbn, borrow_date DESC)
+    WHERE returned = false;
+
+CREATE INDEX idx_student_borrow_overdue
+    ON student_borrow (overdue_date)
+    WHERE returned = false;
+
+CREATE INDEX idx_student_borrow_fined
+    ON student_borrow (student_email) INCLUDE (fine)
+    WHERE fine > 0;
+
+-- The balance trigger from V5. Created after the copy, which must not count the fines again.
+CREATE TRIGGER trg_student_borrow_outstanding_fine
+    AFTER INSERT OR UPDATE OF fine, student_email OR DELETE ON student_borrow
+    FOR EACH ROW EXECUTE FUNCTION student_borrow_outstanding_fine();
+
+-- Returned borrows without a fine, moved here by BorrowArchiveJob. Only the columns
+-- that still carry information are kept: returned is always true and fine always 0.
+CREATE TABLE IF NOT EXISTS student_borrow_history (
+    id            INTEGER      PRIMARY KEY,
+    student_email VARCHAR(255) NOT NULL,
+    item_isbn     INTEGER      NOT NULL,
+    borrow_date   DATE         NOT NULL,
+    overdue_date  DATE,
+    archived_on   DATE         NOT NULL DEFAULT CURRENT_DATE
+);
+
+ANALYZE student_borrow;
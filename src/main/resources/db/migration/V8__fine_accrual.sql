@@ -0,0 +1,6 @@
+-- Daily fine accrual on borrows that are overdue and not returned yet.
+-- accrued_through is the last day whose fine has been added to the row. The accrual
+-- job and a return only add the days after it, so a rerun on the same day adds
+-- nothing and a payment made against an accrued fine is not charged again.
+
+ALTER TABLE student_borrow ADD COLUMN IF NOT EXISTS accrued_through DATE;
@@ -0,0 +1,13 @@
+-- Progress of bulk catalogue imports, so an interrupted import resumes where it stopped.
+-- records_done counts the source records consumed, including the header and rejected rows.
+-- It is updated in the same transaction as the rows it covers, so every source record
+-- is imported exactly once however often the import is restarted.
+
+CREATE TABLE IF NOT EXISTS item_import (
+    id           VARCHAR(255) PRIMARY KEY,
+    records_done BIGINT       NOT NULL DEFAULT 0,
+    imported     BIGINT       NOT NULL DEFAULT 0,
+    rejected     BIGINT       NOT NULL DEFAULT 0,
+    started_on   TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_on   TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
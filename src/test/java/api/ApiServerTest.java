@@ -0,0 +1,355 @@
+package api;
+
+import domain.ActiveBorrow;
+import domain.Items;
+import domain.OverdueBorrow;
+import domain.Role;
+import domain.libraryType;
+import domain.user;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.SessionRepository;
+import service.BorrowService;
+import service.ItemsService;
+import service.SessionService;
+import service.userService;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ApiServerTest {
+
+    private userService userService;
+    private ItemsService itemsService;
+    private BorrowService borrowService;
+    private SessionRepository sessionRepository;
+    private SessionService sessions;
+    private ApiServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /** Stands in for the api_session table: email per token hash. */
+    private final Map<String, String> storedSessions = new ConcurrentHashMap<>();
+    /** Stands in for the users table: role per email. */
+    private final Map<String, Role> storedRoles = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        userService = mock(userService.class);
+        itemsService = mock(ItemsService.class);
+        borrowService = mock(BorrowService.class);
+        sessionRepository = mock(SessionRepository.class);
+        when(sessionRepository.create(anyString(), anyString(), any())).thenAnswer(inv ->
+                storedSessions.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null);
+        when(sessionRepository.findUser(anyString())).thenAnswer(inv ->
+                Optional.ofNullable(storedSessions.get(inv.<String>getArgument(0)))
+                        .filter(storedRoles::containsKey)
+                        .map(email -> new user(email, storedRoles.get(email), null)));
+        when(sessionRepository.delete(anyString())).thenAnswer(inv ->
+                storedSessions.remove(inv.<String>getArgument(0)) != null);
+        when(sessionRepository.deleteByEmail(anyString())).thenAnswer(inv -> {
+            int before = storedSessions.size();
+            storedSessions.values().removeIf(inv.getArgument(0)::equals);
+            return before - storedSessions.size();
+        });
+        sessions = new SessionService(sessionRepository);
+        server = startServer();
+    }
+
+    private ApiServer startServer() throws IOException {
+        ApiServer started = new ApiServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                userService, itemsService, borrowService, sessions, 1);
+        started.start();
+        return started;
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private String login(String email, Role role) throws Exception {
+        when(userService.authenticateAsync(email, "secret123"))
+                .thenReturn(CompletableFuture.completedFuture(new user(email, role, "hash")));
+        storedRoles.put(email, role);
+        HttpResponse<String> response = post("/api/login", null,
+                "{\"email\":\"" + email + "\",\"password\":\"secret123\"}");
+        assertEquals(200, response.statusCode());
+        return (String) Json.readObject(response.body()).get("token");
+    }
+
+    @Test
+    void loginReturnsTokenThatAuthorizesStudentRoutes() throws Exception {
+        String token = login("s@mail.com", Role.STUDENT);
+        when(borrowService.borrowItem("s@mail.com", 7)).thenReturn(true);
+        when(borrowService.getTotalFine("s@mail.com")).thenReturn(30);
+
+        HttpResponse<String> borrowed = post("/api/borrow", token, "{\"isbn\":7}");
+        HttpResponse<String> fines = get("/api/fines", token);
+
+        assertEquals(200, borrowed.statusCode());
+        assertEquals("{\"borrowed\":true}", borrowed.body());
+        assertEquals(30L, Json.readObject(fines.body()).get("totalFine"));
+        assertTrue(fines.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+    }
+
+    @Test
+    void wrongPasswordIsBadRequest() throws Exception {
+        when(userService.authenticateAsync("s@mail.com", "nope"))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("Incorrect password.")));
+
+        HttpResponse<String> response = post("/api/login", null, "{\"email\":\"s@mail.com\",\"password\":\"nope\"}");
+
+        assertEquals(400, response.statusCode());
+        assertEquals("{\"error\":\"Incorrect password.\"}", response.body());
+    }
+
+    @Test
+    void busyPasswordHasherIsServiceUnavailable() throws Exception {
+        when(userService.authenticateAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Too many logins in progress. Please try again.")));
+
+        assertEquals(503, post("/api/login", null, "{\"email\":\"a\",\"password\":\"b\"}").statusCode());
+    }
+
+    @Test
+    void fullHashingQueueIsServiceUnavailable() throws Exception {
+        when(userService.registerUserAsync(any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("queue full")));
+
+        HttpResponse<String> response = post("/api/register", null,
+                "{\"email\":\"a@mail.com\",\"password\":\"password1\",\"confirmPassword\":\"password1\"}");
+
+        assertEquals(503, response.statusCode());
+        assertEquals("{\"error\":\"Too many logins in progress. Please try again.\"}", response.body());
+    }
+
+    @Test
+    void registrationHashesOnThePool() throws Exception {
+        when(userService.registerUserAsync("a@mail.com", "password1", "password1"))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        HttpResponse<String> response = post("/api/register", null,
+                "{\"email\":\"a@mail.com\",\"password\":\"password1\",\"confirmPassword\":\"password1\"}");
+
+        assertEquals("{\"registered\":true}", response.body());
+        verify(userService, never()).registerUser(any(), any(), any());
+    }
+
+    @Test
+    void protectedRoutesNeedAValidSessionAndRole() throws Exception {
+        String student = login("s@mail.com", Role.STUDENT);
+
+        assertEquals(401, get("/api/fines", null).statusCode());
+        assertEquals(401, get("/api/fines", "made-up").statusCode());
+        assertEquals(403, get("/api/overdue", student).statusCode());
+        assertEquals(403, get("/api/admin/inactive-users", student).statusCode());
+        verifyNoInteractions(borrowService);
+    }
+
+    @Test
+    void logoutEndsTheSession() throws Exception {
+        String token = login("s@mail.com", Role.STUDENT);
+
+        assertEquals(200, post("/api/logout", token, "").statusCode());
+        assertEquals(401, get("/api/fines", token).statusCode());
+    }
+
+    @Test
+    void roleIsLookedUpOnEveryRequest() throws Exception {
+        String token = login("admin@mail.com", Role.ADMIN);
+        assertEquals(200, get("/api/admin/inactive-users", token).statusCode());
+
+        storedRoles.put("admin@mail.com", Role.STUDENT);
+
+        assertEquals(403, get("/api/admin/inactive-users", token).statusCode());
+    }
+
+    @Test
+    void removingAUserEndsTheirSessions() throws Exception {
+        String admin = login("admin@mail.com", Role.ADMIN);
+        String student = login("s@mail.com", Role.STUDENT);
+        when(userService.removeInactiveUser("s@mail.com")).thenReturn(true);
+
+        assertEquals("{\"removed\":true}",
+                post("/api/admin/remove-user", admin, "{\"email\":\"s@mail.com\"}").body());
+
+        assertEquals(401, get("/api/fines", student).statusCode());
+        assertEquals(200, get("/api/admin/inactive-users", admin).statusCode());
+        verify(sessionRepository).deleteByEmail("s@mail.com");
+    }
+
+    @Test
+    void tokenIssuedByOneInstanceIsAcceptedByAnother() throws Exception {
+        String token = login("s@mail.com", Role.STUDENT);
+        when(borrowService.getTotalFine("s@mail.com")).thenReturn(0);
+
+        try (ApiServer other = startServer()) {
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + other.getPort() + "/api/fines"))
+                    .header("Authorization", "Bearer " + token).GET().build();
+
+            assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        assertFalse(storedSessions.containsKey(token));
+    }
+
+    @Test
+    void sessionOfAnUnknownAccountIsRejected() throws Exception {
+        String token = login("s@mail.com", Role.STUDENT);
+        storedRoles.remove("s@mail.com");
+
+        assertEquals(401, get("/api/fines", token).statusCode());
+        verifyNoInteractions(borrowService);
+    }
+
+    @Test
+    void searchPassesFiltersAndPaging() throws Exception {
+        when(itemsService.searchByAuthor("Tolkien", libraryType.Book, 5, 10))
+                .thenReturn(List.of(new Items("Tolkien", "The Hobbit", libraryType.Book, 3, "12")));
+
+        HttpResponse<String> response = get("/api/items?author=Tolkien&type=book&limit=5&offset=10", null);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("[{\"isbn\":\"12\",\"name\":\"The Hobbit\",\"author\":\"Tolkien\",\"type\":\"Book\",\"quantity\":3}]",
+                response.body());
+    }
+
+    @Test
+    void searchRejectsBadParameters() throws Exception {
+        assertEquals(400, get("/api/items?name=x&type=vinyl", null).statusCode());
+        assertEquals(400, get("/api/items?name=x&limit=ten", null).statusCode());
+        assertEquals(400, get("/api/items", null).statusCode());
+    }
+
+    @Test
+    void librarianSeesOverdueReport() throws Exception {
+        String token = login("lib@mail.com", Role.LIBRARIAN);
+        ActiveBorrow borrow = new ActiveBorrow(1, "s@mail.com", 12, LocalDate.of(2026, 1, 1),
+                LocalDate.of(2026, 1, 8), libraryType.CD);
+        when(borrowService.getOverdueBorrows()).thenReturn(List.of(new OverdueBorrow(borrow, 3, 60)));
+
+        HttpResponse<String> response = get("/api/overdue", token);
+
+        assertEquals("[{\"studentEmail\":\"s@mail.com\",\"isbn\":12,\"borrowDate\":\"2026-01-01\","
+                + "\"overdueDate\":\"2026-01-08\",\"overdueDays\":3,\"projectedFine\":60}]", response.body());
+    }
+
+    @Test
+    void adminChangesRolesAndAddsItems() throws Exception {
+        String token = login("admin@mail.com", Role.ADMIN);
+        when(userService.updateUserRole("s@mail.com", Role.LIBRARIAN)).thenReturn(true);
+        when(itemsService.addNewItem("Dune", "Herbert", 2, libraryType.Book)).thenReturn(true);
+
+        assertEquals("{\"updated\":true}",
+                post("/api/admin/role", token, "{\"email\":\"s@mail.com\",\"role\":\"librarian\"}").body());
+        assertEquals(400, post("/api/admin/role", token, "{\"email\":\"s@mail.com\",\"role\":\"king\"}").statusCode());
+        assertEquals("{\"added\":true}", post("/api/admin/items", token,
+                "{\"name\":\"Dune\",\"author\":\"Herbert\",\"quantity\":2,\"type\":\"BOOK\"}").body());
+    }
+
+    @Test
+    void malformedOrMissingFieldsAreBadRequest() throws Exception {
+        String token = login("s@mail.com", Role.STUDENT);
+
+        assertEquals(400, post("/api/borrow", token, "{isbn:7}").statusCode());
+        assertEquals(400, post("/api/borrow", token, "{}").statusCode());
+        assertEquals(400, post("/api/fines/pay", token, "{\"amount\":1.5}").statusCode());
+    }
+
+    @Test
+    void unknownPathIsNotFoundAndWrongMethodIsNotAllowed() throws Exception {
+        assertEquals(404, get("/api/nothing", null).statusCode());
+        assertEquals(405, get("/api/login", null).statusCode());
+    }
+
+    @Test
+    void unexpectedErrorIsInternalServerError() throws Exception {
+        when(itemsService.searchByName(any(), any(), anyInt(), anyInt())).thenThrow(new RuntimeException("boom"));
+
+        HttpResponse<String> response = get("/api/items?name=x", null);
+
+        assertEquals(500, response.statusCode());
+        assertFalse(response.body().contains("boom"));
+    }
+
+    @Test
+    void recordsLatencyPerRoute() throws Exception {
+        get("/api/items?name=x", null);
+        get("/api/items?name=y", null);
+        get("/api/nothing", null);
+
+        Map<String, LatencyHistogram.Snapshot> latencies = server.getLatencies();
+
+        assertEquals(2, latencies.get("GET /api/items").count());
+        assertEquals(1, latencies.get("unmatched").count());
+        assertFalse(latencies.containsKey("POST /api/login"));
+    }
+
+    @Test
+    void metricsAreOnlyForStaff() throws Exception {
+        get("/api/items?name=x", null);
+        String librarian = login("lib@mail.com", Role.LIBRARIAN);
+        String student = login("s@mail.com", Role.STUDENT);
+
+        assertEquals(401, get("/metrics", null).statusCode());
+        assertEquals(403, get("/metrics", student).statusCode());
+        assertTrue(get("/metrics", librarian).body().contains("\"GET /api/items\":{\"count\":1,"));
+    }
+
+    @Test
+    void closeWaitsForRequestsInFlight() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(itemsService.searchByName(any(), any(), anyInt(), anyInt())).thenAnswer(inv -> {
+            entered.countDown();
+            release.await();
+            return List.of();
+        });
+
+        CompletableFuture<HttpResponse<String>> inFlight = client.sendAsync(
+                HttpRequest.newBuilder(uri("/api/items?name=x")).build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> closed = CompletableFuture.runAsync(server::close);
+        Thread.sleep(200);
+        assertFalse(closed.isDone());
+
+        release.countDown();
+        closed.get(5, TimeUnit.SECONDS);
+        assertEquals(200, inFlight.get(5, TimeUnit.SECONDS).statusCode());
+    }
+}
@@ -0,0 +1,68 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+
+    private record Point(int x, String label) {
+    }
+
+    @Test
+    void writesNestedValuesAndEscapesStrings() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "Say \"hi\"\n\\");
+        value.put("count", 3);
+        value.put("ok", true);
+        value.put("none", null);
+        value.put("list", List.of(1, "two"));
+        value.put("point", new Point(2, "p"));
+
+        assertEquals("{\"name\":\"Say \\\"hi\\\"\\n\\\\\",\"count\":3,\"ok\":true,\"none\":null,"
+                + "\"list\":[1,\"two\"],\"point\":{\"x\":2,\"label\":\"p\"}}", Json.write(value));
+    }
+
+    @Test
+    void writesEnumsByName() {
+        assertEquals("[\"CD\"]", Json.write(List.of(domain.libraryType.CD)));
+    }
+
+    @Test
+    void refusesUnknownTypes() {
+        assertThrows(IllegalArgumentException.class, () -> Json.write(new Object()));
+    }
+
+    @Test
+    void readsFlatObject() {
+        Map<String, Object> fields = Json.readObject(
+                " { \"email\" : \"a@b.com\", \"isbn\": 42, \"amount\": -1.5, \"flag\": false, \"x\": null, "
+                        + "\"esc\": \"\\u0041\\\"\\n\" } ");
+
+        assertEquals("a@b.com", fields.get("email"));
+        assertEquals(42L, fields.get("isbn"));
+        assertEquals(-1.5, fields.get("amount"));
+        assertEquals(false, fields.get("flag"));
+        assertTrue(fields.containsKey("x"));
+        assertNull(fields.get("x"));
+        assertEquals("A\"\n", fields.get("esc"));
+    }
+
+    @Test
+    void readsEmptyObject() {
+        assertTrue(Json.readObject("{}").isEmpty());
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        for (String text : Arrays.asList("", "[]", "{\"a\":1", "{\"a\" 1}", "{\"a\":{}}", "{\"a\":1} x",
+                "{\"a\":\"open}", "{\"a\":1e}")) {
+            assertThrows(IllegalArgumentException.class, () -> Json.readObject(text), text);
+        }
+    }
+}
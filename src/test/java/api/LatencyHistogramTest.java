@@ -0,0 +1,54 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZeros() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.meanMillis());
+        assertEquals(0, snapshot.p99Millis());
+    }
+
+    @Test
+    void percentilesFallInThePowerOfTwoBucketOfTheirValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        for (int i = 0; i < 9; i++) histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.count());
+        assertEquals(2.8, snapshot.meanMillis(), 1e-9);
+        // 1 ms falls in [512, 1024) microseconds, 10 ms in [8192, 16384).
+        assertEquals(1.024, snapshot.p50Millis(), 1e-9);
+        assertEquals(1.024, snapshot.p90Millis(), 1e-9);
+        assertEquals(16.384, snapshot.p99Millis(), 1e-9);
+        assertEquals(100, snapshot.maxMillis(), 1e-9);
+    }
+
+    @Test
+    void percentileNeverExceedsTheLargestLatency() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(600));
+
+        assertEquals(0.6, histogram.snapshot().p50Millis(), 1e-9);
+    }
+
+    @Test
+    void negativeLatencyCountsAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().maxMillis());
+    }
+}
@@ -0,0 +1,77 @@
+package config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseConfigTest {
+
+    private Properties baseProps() {
+        Properties props = new Properties();
+        props.setProperty("db.url", "jdbc:postgresql://localhost:5432/lib");
+        props.setProperty("db.username", "postgres");
+        props.setProperty("db.password", "secret");
+        return props;
+    }
+
+    @Test
+    void defaultsAreAppliedWhenKeysAreMissing() {
+        DatabaseConfig cfg = DatabaseConfig.fromProperties(baseProps());
+
+        assertEquals(2, cfg.poolMinSize());
+        assertEquals(10, cfg.poolMaxSize());
+        assertEquals("5", cfg.driverProperties().get("prepareThreshold"));
+        assertEquals("true", cfg.driverProperties().get("reWriteBatchedInserts"));
+        assertEquals("0", cfg.driverProperties().get("socketTimeout"));
+    }
+
+    @Test
+    void driverKeysOverrideDefaultsAndPassThrough() {
+        Properties props = baseProps();
+        props.setProperty("db.driver.defaultRowFetchSize", "1000");
+        props.setProperty("db.driver.ApplicationName", "library");
+        props.setProperty("db.pool.maxSize", "20");
+
+        DatabaseConfig cfg = DatabaseConfig.fromProperties(props);
+        Properties driver = cfg.toDriverProperties();
+
+        assertEquals(20, cfg.poolMaxSize());
+        assertEquals("1000", driver.getProperty("defaultRowFetchSize"));
+        assertEquals("library", driver.getProperty("ApplicationName"));
+        assertEquals("postgres", driver.getProperty("user"));
+        assertEquals("secret", driver.getProperty("password"));
+    }
+
+    @Test
+    void driverPropertiesAreImmutable() {
+        DatabaseConfig cfg = DatabaseConfig.fromProperties(baseProps());
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> cfg.driverProperties().put("socketTimeout", "0"));
+    }
+
+    @Test
+    void missingUrlIsRejected() {
+        Properties props = baseProps();
+        props.remove("db.url");
+
+        assertThrows(IllegalArgumentException.class, () -> DatabaseConfig.fromProperties(props));
+    }
+
+    @Test
+    void toStringDoesNotLeakPassword() {
+        DatabaseConfig cfg = DatabaseConfig.fromProperties(baseProps());
+
+        assertFalse(cfg.toString().contains("secret"));
+    }
+
+    @Test
+    void loadReadsClasspathFile() throws Exception {
+        DatabaseConfig cfg = DatabaseConfig.load();
+
+        assertNotNull(cfg.url());
+        assertTrue(cfg.poolMaxSize() >= cfg.poolMinSize());
+    }
+}
@@ -0,0 +1,133 @@
+package infrastructure;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionPoolTest {
+
+    private List<Connection> opened;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        opened = new ArrayList<>();
+        pool = new ConnectionPool(this::newPhysical, 0, 2, 60_000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private Connection newPhysical() throws SQLException {
+        Connection c = mock(Connection.class);
+        when(c.isValid(anyInt())).thenReturn(true);
+        when(c.getAutoCommit()).thenReturn(true);
+        opened.add(c);
+        return c;
+    }
+
+    @Test
+    void closingBorrowedConnectionReturnsItToPool() throws Exception {
+        try (Connection c = pool.getConnection()) {
+            assertFalse(c.isClosed());
+        }
+        try (Connection c = pool.getConnection()) {
+            assertNotNull(c);
+        }
+
+        assertEquals(1, opened.size());
+        verify(opened.get(0), never()).close();
+        assertEquals(2, pool.getStats().acquired());
+        assertEquals(1, pool.getStats().idle());
+    }
+
+    @Test
+    void returnedProxyRejectsFurtherUse() throws Exception {
+        Connection c = pool.getConnection();
+        c.close();
+
+        assertTrue(c.isClosed());
+        assertThrows(SQLException.class, () -> c.prepareStatement("SELECT 1"));
+    }
+
+    @Test
+    void acquireTimesOutWhenPoolIsExhausted() throws Exception {
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+
+        assertThrows(SQLTimeoutException.class, pool::getConnection);
+        assertEquals(1, pool.getStats().acquireTimeouts());
+        assertEquals(2, pool.getStats().active());
+
+        a.close();
+        b.close();
+    }
+
+    @Test
+    void invalidIdleConnectionIsReplacedOnBorrow() throws Exception {
+        pool.getConnection().close();
+        when(opened.get(0).isValid(anyInt())).thenReturn(false);
+
+        try (Connection c = pool.getConnection()) {
+            assertNotNull(c);
+        }
+
+        assertEquals(2, opened.size());
+        verify(opened.get(0)).close();
+        assertEquals(1, pool.getStats().validationFailures());
+    }
+
+    @Test
+    void uncommittedTransactionIsRolledBackOnReturn() throws Exception {
+        Connection c = pool.getConnection();
+        when(opened.get(0).getAutoCommit()).thenReturn(false);
+        c.close();
+
+        verify(opened.get(0)).rollback();
+        verify(opened.get(0)).setAutoCommit(true);
+    }
+
+    @Test
+    void idleConnectionsPastTimeoutAreEvicted() throws Exception {
+        ConnectionPool shortLived = new ConnectionPool(this::newPhysical, 0, 2, 1, 100);
+        shortLived.getConnection().close();
+        Thread.sleep(5);
+
+        shortLived.evictIdle();
+
+        assertEquals(0, shortLived.getStats().open());
+        verify(opened.get(0)).close();
+        shortLived.close();
+    }
+
+    @Test
+    void minimumIsOpenedOnlyOnceStarted() throws Exception {
+        ConnectionPool warm = new ConnectionPool(this::newPhysical, 1, 2, 60_000, 100);
+        Thread.sleep(50);
+        assertEquals(0, warm.getStats().open());
+
+        warm.start();
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (warm.getStats().open() < 1 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+        assertEquals(1, warm.getStats().open());
+        warm.close();
+    }
+
+    @Test
+    void invalidSizesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConnectionPool(this::newPhysical, 3, 2, 1000, 1000));
+    }
+}
@@ -0,0 +1,162 @@
+package infrastructure;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SchemaMigratorTest {
+
+    private Connection conn;
+    private Statement ddl;
+    private PreparedStatement stmt;
+    private ResultSet rs;
+    private SchemaMigrator migrator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = mock(Connection.class);
+        ddl = mock(Statement.class);
+        stmt = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        when(conn.createStatement()).thenReturn(ddl);
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+        when(stmt.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+
+        migrator = new SchemaMigrator(dataSource);
+    }
+
+    @Test
+    void appliesOnlyScriptsNewerThanCurrentVersion() throws Exception {
+        when(rs.getInt("version")).thenReturn(1);
+
+        int applied = migrator.migrate();
+
+        assertEquals(SchemaMigrator.MIGRATIONS.size() - 1, applied);
+        verify(ddl, never()).execute(SchemaMigrator.readScript("V1__baseline_schema.sql"));
+        verify(ddl).execute(SchemaMigrator.readScript("V2__items_trigram_search.sql"));
+        verify(stmt).setInt(1, 2);
+    }
+
+    @Test
+    void upToDateDatabaseAppliesNothing() throws Exception {
+        when(rs.getInt("version")).thenReturn(Integer.MAX_VALUE);
+        String first = recordedChecksums()[0];
+        String[] rest = Arrays.copyOfRange(recordedChecksums(), 1, SchemaMigrator.MIGRATIONS.size());
+        when(rs.getString("checksum")).thenReturn(first, rest);
+
+        assertEquals(0, migrator.migrate());
+        verify(stmt, never()).executeUpdate();
+    }
+
+    @Test
+    void editedAppliedScriptStopsMigration() throws Exception {
+        when(rs.getInt("version")).thenReturn(Integer.MAX_VALUE);
+        when(rs.getString("checksum")).thenReturn("0".repeat(64));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, migrator::migrate);
+
+        assertTrue(ex.getMessage().contains("V1__baseline_schema.sql"));
+        verify(conn).rollback();
+        verify(stmt, never()).executeUpdate();
+    }
+
+    @Test
+    void missingChecksumIsFilledIn() throws Exception {
+        when(rs.getInt("version")).thenReturn(Integer.MAX_VALUE);
+        when(rs.getString("checksum")).thenReturn(null);
+
+        assertEquals(0, migrator.migrate());
+
+        verify(stmt).setString(1, recordedChecksums()[0]);
+        verify(stmt, times(SchemaMigrator.MIGRATIONS.size())).executeUpdate();
+    }
+
+    @Test
+    void appliedScriptIsRecordedWithItsChecksum() throws Exception {
+        when(rs.getInt("version")).thenReturn(0);
+
+        migrator.migrate();
+
+        verify(stmt).setString(3, recordedChecksums()[0]);
+        verify(ddl).execute("ALTER TABLE schema_version ADD COLUMN IF NOT EXISTS checksum VARCHAR(64)");
+    }
+
+    @Test
+    void checksumIgnoresLineEndings() {
+        String unix = "CREATE TABLE t (id INT);\nCREATE INDEX i ON t (id);\n";
+
+        assertEquals(SchemaMigrator.checksumOf(unix), SchemaMigrator.checksumOf(unix.replace("\n", "\r\n")));
+        assertNotEquals(SchemaMigrator.checksumOf(unix), SchemaMigrator.checksumOf(unix + "-- edit\n"));
+        assertEquals(64, SchemaMigrator.checksumOf(unix).length());
+    }
+
+    private static String[] recordedChecksums() throws Exception {
+        String[] checksums = new String[SchemaMigrator.MIGRATIONS.size()];
+        for (int i = 0; i < checksums.length; i++) {
+            checksums[i] = SchemaMigrator.checksumOf(SchemaMigrator.readScript(SchemaMigrator.MIGRATIONS.get(i)));
+        }
+        return checksums;
+    }
+
+    @Test
+    void failingScriptIsRolledBack() throws Exception {
+        when(rs.getInt("version")).thenReturn(0);
+        when(ddl.execute(contains("CREATE TABLE IF NOT EXISTS users"))).thenThrow(new SQLException("boom"));
+
+        assertThrows(SQLException.class, migrator::migrate);
+        verify(conn).rollback();
+    }
+
+    @Test
+    void everyListedScriptExistsAndVersionsIncrease() throws Exception {
+        int previous = 0;
+        for (String script : SchemaMigrator.MIGRATIONS) {
+            assertFalse(SchemaMigrator.readScript(script).isBlank());
+            int version = SchemaMigrator.versionOf(script);
+            assertTrue(version > previous, script);
+            previous = version;
+        }
+    }
+
+    @Test
+    void everyScriptOnTheClasspathIsListedInVersionOrder() throws Exception {
+        URL location = SchemaMigrator.class.getClassLoader().getResource("db/migration");
+        assertNotNull(location);
+        List<String> scripts;
+        try (Stream<Path> files = Files.list(Path.of(location.toURI()))) {
+            scripts = files.map(f -> f.getFileName().toString())
+                    .filter(name -> name.startsWith("V") && name.endsWith(".sql"))
+                    .sorted(Comparator.comparingInt(SchemaMigrator::versionOf))
+                    .toList();
+        }
+
+        assertEquals(scripts, SchemaMigrator.MIGRATIONS);
+    }
+
+    @Test
+    void parsesNamesAndRejectsBadOnes() {
+        assertEquals(2, SchemaMigrator.versionOf("V2__items_trigram_search.sql"));
+        assertEquals("items trigram search", SchemaMigrator.descriptionOf("V2__items_trigram_search.sql"));
+        assertThrows(IllegalArgumentException.class, () -> SchemaMigrator.versionOf("items.sql"));
+    }
+}
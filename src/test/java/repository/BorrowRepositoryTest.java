@@ -1,13 +1,22 @@
 package repository;
 
+import domain.ActiveBorrow;
 import domain.Borrow;
-import infrastructure.DatabaseConnection;
+import domain.BorrowResult;
+import domain.FineTotal;
+import domain.ReturnResult;
+import domain.libraryType;
+import domain.strategyPattern.FineStrategyFactory;
+import util.StringIntMap;
 import org.junit.jupiter.api.*;
-import org.mockito.MockedStatic;
+import org.mockito.InOrder;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,29 +30,23 @@ public class BorrowRepositoryTest {
     private PreparedStatement stmt;
     private ResultSet rs;
 
-    private MockedStatic<DatabaseConnection> dbMock;
+    private DataSource dataSource;
 
     @BeforeEach
     void setup() throws Exception {
-        repo = new BorrowRepository();
-
         conn = mock(Connection.class);
         stmt = mock(PreparedStatement.class);
         rs = mock(ResultSet.class);
 
-        dbMock = mockStatic(DatabaseConnection.class);
-        dbMock.when(DatabaseConnection::getConnection).thenReturn(conn);
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new BorrowRepository(dataSource);
 
         when(conn.prepareStatement(anyString())).thenReturn(stmt);
         when(stmt.executeQuery()).thenReturn(rs);
         when(stmt.executeUpdate()).thenReturn(1);
     }
 
-    @AfterEach
-    void cleanup() {
-        dbMock.close();
-    }
-
 
     @Test
     void borrowItem_success() throws Exception {
@@ -97,6 +100,137 @@ public class BorrowRepositoryTest {
     }
 
 
+    @Test
+    void borrowItemFused_returnsStatusFromDatabase() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("OUT_OF_STOCK");
+
+        BorrowResult result = repo.borrowItem("x@mail.com", 55, LocalDate.of(2024, 1, 1));
+
+        assertEquals(BorrowResult.OUT_OF_STOCK, result);
+        verify(conn, times(1)).prepareStatement(anyString());
+        verify(stmt).setInt(2, 55);
+        verify(stmt).setDate(5, Date.valueOf("2024-01-01"));
+    }
+
+    @Test
+    void borrowItemFused_exceptionReturnsError() throws Exception {
+        when(stmt.executeQuery()).thenThrow(new SQLException("fail"));
+
+        BorrowResult result = repo.borrowItem("x@mail.com", 55, LocalDate.now());
+
+        assertEquals(BorrowResult.ERROR, result);
+    }
+
+    @Test
+    void returnItemFused_returnsStatusAndFine() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("OK");
+        when(rs.getInt("fine")).thenReturn(30);
+
+        ReturnResult result = repo.returnItem("a@mail.com", 12, LocalDate.of(2024, 2, 1));
+
+        assertEquals(ReturnResult.Status.OK, result.status());
+        assertEquals(30, result.fine());
+        verify(conn, times(1)).prepareStatement(anyString());
+        verify(stmt).setDate(6, Date.valueOf("2024-02-01"));
+    }
+
+    @Test
+    void borrowItemFused_notifiesListenersOfNewBorrow() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("OK");
+        when(rs.getInt("id")).thenReturn(9);
+        when(rs.getDate("overdue_date")).thenReturn(Date.valueOf("2024-01-08"));
+        when(rs.getString("type")).thenReturn("CD");
+        List<ActiveBorrow> borrowed = new ArrayList<>();
+        repo.onBorrowed(borrowed::add);
+
+        assertEquals(BorrowResult.OK, repo.borrowItem("x@mail.com", 55, LocalDate.of(2024, 1, 1)));
+
+        assertEquals(List.of(new ActiveBorrow(9, "x@mail.com", 55, LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 1, 8), libraryType.CD)), borrowed);
+    }
+
+    @Test
+    void borrowItemFused_failedBorrowDoesNotNotify() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("HAS_FINE");
+        List<ActiveBorrow> borrowed = new ArrayList<>();
+        repo.onBorrowed(borrowed::add);
+
+        repo.borrowItem("x@mail.com", 55, LocalDate.of(2024, 1, 1));
+
+        assertTrue(borrowed.isEmpty());
+    }
+
+    @Test
+    void returnItemFused_notifiesListenersWithBorrowId() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("OK");
+        when(rs.getInt("id")).thenReturn(41);
+        List<Integer> returned = new ArrayList<>();
+        repo.onReturned(returned::add);
+
+        repo.returnItem("a@mail.com", 12, LocalDate.of(2024, 2, 1));
+
+        assertEquals(List.of(41), returned);
+    }
+
+    @Test
+    void returnItemFused_refusedReturnDoesNotNotify() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("NO_ACTIVE_BORROW");
+        List<Integer> returned = new ArrayList<>();
+        repo.onReturned(returned::add);
+
+        repo.returnItem("a@mail.com", 12, LocalDate.of(2024, 2, 1));
+
+        assertTrue(returned.isEmpty());
+    }
+
+    @Test
+    void returnItemFused_borrowReturnedConcurrentlyIsNoActiveBorrow() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("NO_ACTIVE_BORROW");
+
+        repo.returnItem("a@mail.com", 12, LocalDate.of(2024, 2, 1));
+
+        verify(conn).prepareStatement(argThat(sql ->
+                sql.contains("WHEN NOT open_borrow.item_found THEN 'NO_ITEM'")
+                        && sql.contains("WHEN NOT EXISTS (SELECT 1 FROM marked) THEN 'NO_ACTIVE_BORROW'")));
+    }
+
+    @Test
+    void returnItemFused_exceptionReturnsError() throws Exception {
+        when(conn.prepareStatement(anyString())).thenThrow(new SQLException());
+
+        ReturnResult result = repo.returnItem("a@mail.com", 12, LocalDate.now());
+
+        assertEquals(ReturnResult.Status.ERROR, result.status());
+        assertEquals(0, result.fine());
+    }
+
+    @Test
+    void dailyFineCase_matchesFineStrategyFactory() {
+        String sql = BorrowRepository.dailyFineCase("t.type");
+
+        for (libraryType type : libraryType.values()) {
+            int perDay = FineStrategyFactory.getStrategy(type.name()).calculateFine(1);
+            assertTrue(sql.contains("WHEN '" + type.name() + "' THEN " + perDay));
+            assertEquals(FineStrategyFactory.getStrategy(type.name()).calculateFine(9), perDay * 9);
+        }
+    }
+
+    @Test
+    void loanDaysCase_usesLibraryTypePeriods() {
+        String sql = BorrowRepository.loanDaysCase("t.type");
+
+        assertTrue(sql.contains("WHEN 'Book' THEN 28"));
+        assertTrue(sql.contains("WHEN 'CD' THEN 7"));
+    }
+
+
     @Test
     void getOverdueUsers_returnsList() throws Exception {
         when(rs.next()).thenReturn(true, false);
@@ -121,6 +255,97 @@ public class BorrowRepositoryTest {
         assertTrue(list.isEmpty());
     }
 
+    private void mockBorrowRow() throws Exception {
+        when(rs.getInt("id")).thenReturn(1);
+        when(rs.getString("student_email")).thenReturn("a@mail.com");
+        when(rs.getInt("item_isbn")).thenReturn(66);
+        when(rs.getDate("borrow_date")).thenReturn(Date.valueOf("2024-01-01"));
+        when(rs.getDate("overdue_date")).thenReturn(Date.valueOf("2024-01-05"));
+    }
+
+    @Test
+    void getOverdueUsersPage_usesKeyset() throws Exception {
+        when(rs.next()).thenReturn(true, false);
+        mockBorrowRow();
+
+        List<Borrow> page = repo.getOverdueUsers(40, 25);
+
+        assertEquals(1, page.size());
+        verify(conn).prepareStatement(contains("AND id > ? ORDER BY id LIMIT ?"));
+        verify(stmt).setInt(1, 40);
+        verify(stmt).setInt(2, 25);
+        assertThrows(IllegalArgumentException.class, () -> repo.getOverdueUsers(0, 0));
+    }
+
+    @Test
+    void forEachActiveBorrow_mapsRowsWithItemType() throws Exception {
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getInt("id")).thenReturn(3);
+        when(rs.getString("student_email")).thenReturn("s@mail.com");
+        when(rs.getInt("item_isbn")).thenReturn(77);
+        when(rs.getDate("borrow_date")).thenReturn(Date.valueOf("2024-03-01"));
+        when(rs.getDate("overdue_date")).thenReturn(Date.valueOf("2024-03-29"));
+        when(rs.getString("type")).thenReturn("Book");
+
+        List<ActiveBorrow> seen = new ArrayList<>();
+
+        assertEquals(1, repo.forEachActiveBorrow(seen::add));
+        assertEquals(List.of(new ActiveBorrow(3, "s@mail.com", 77, LocalDate.of(2024, 3, 1),
+                LocalDate.of(2024, 3, 29), libraryType.Book)), seen);
+        verify(stmt).setFetchSize(JdbcCursor.DEFAULT_FETCH_SIZE);
+        verify(conn).close();
+    }
+
+    @Test
+    void forEachActiveBorrow_failureMidScanReturnsMinusOne() throws Exception {
+        when(rs.next()).thenReturn(true).thenThrow(new SQLException("connection lost"));
+        when(rs.getDate(anyString())).thenReturn(Date.valueOf("2024-03-01"));
+        when(rs.getString("type")).thenReturn("CD");
+        List<ActiveBorrow> seen = new ArrayList<>();
+
+        assertEquals(-1, repo.forEachActiveBorrow(seen::add));
+        assertEquals(1, seen.size());
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test
+    void streamOverdueUsers_readsLazilyThroughCursor() throws Exception {
+        when(rs.next()).thenReturn(true, true, false);
+        mockBorrowRow();
+
+        try (Stream<Borrow> stream = repo.streamOverdueUsers()) {
+            assertEquals(2, stream.count());
+        }
+
+        verify(conn).setAutoCommit(false);
+        verify(stmt).setFetchSize(JdbcCursor.DEFAULT_FETCH_SIZE);
+        verify(conn).setAutoCommit(true);
+        verify(conn).close();
+    }
+
+    @Test
+    void streamOverdueUsers_closingEarlyReleasesConnection() throws Exception {
+        when(rs.next()).thenReturn(true);
+        mockBorrowRow();
+
+        try (Stream<Borrow> stream = repo.streamOverdueUsers()) {
+            assertEquals(1, stream.limit(1).count());
+        }
+
+        verify(rs).close();
+        verify(conn).close();
+    }
+
+    @Test
+    void streamOverdueUsers_errorGivesEmptyStreamAndReleasesConnection() throws Exception {
+        when(stmt.executeQuery()).thenThrow(new SQLException("x"));
+
+        try (Stream<Borrow> stream = repo.streamOverdueUsers()) {
+            assertEquals(0, stream.count());
+        }
+        verify(conn).close();
+    }
+
 
     @Test
     void returnItem_success() throws Exception {
@@ -154,24 +379,25 @@ public class BorrowRepositoryTest {
 
     @Test
     void updateFineAfterPayment_fullPayment_coversMultipleRows() throws Exception {
-        PreparedStatement select = mock(PreparedStatement.class);
-        PreparedStatement update = mock(PreparedStatement.class);
-        ResultSet r2 = mock(ResultSet.class);
-
-        when(conn.prepareStatement("SELECT id, fine FROM student_borrow WHERE student_email = ? AND fine > 0 ORDER BY id ASC"))
-                .thenReturn(select);
-        when(conn.prepareStatement("UPDATE student_borrow SET fine = ? WHERE id = ?"))
-                .thenReturn(update);
+        when(stmt.executeUpdate()).thenReturn(2);
 
-        when(select.executeQuery()).thenReturn(r2);
+        repo.updateFineAfterPayment("mail", 50);
 
-        when(r2.next()).thenReturn(true, true, false);
-        when(r2.getInt("id")).thenReturn(1, 2);
-        when(r2.getInt("fine")).thenReturn(30, 20);
+        verify(stmt).setString(1, "mail");
+        verify(stmt).setInt(2, 50);
+        verify(stmt).setInt(3, 50);
+        verify(stmt, times(1)).executeUpdate();
+        verify(conn, times(1)).prepareStatement(anyString());
+    }
 
-        repo.updateFineAfterPayment("mail", 50);
+    @Test
+    void updateFineAfterPayment_locksRowsAndAllocatesOldestFirst() throws Exception {
+        repo.updateFineAfterPayment("mail", 30);
 
-        verify(update, times(2)).executeUpdate();
+        verify(conn).prepareStatement(argThat(sql ->
+                sql.contains("FOR UPDATE")
+                        && sql.contains("SUM(fine) OVER (ORDER BY id)")
+                        && sql.contains("GREATEST(a.running - ?, 0)")));
     }
 
     @Test
@@ -192,6 +418,57 @@ public class BorrowRepositoryTest {
         assertEquals(99, total);
     }
 
+    @Test
+    void getTotalFine_readsMaintainedBalance() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getInt("total")).thenReturn(30);
+
+        assertEquals(30, repo.getTotalFine("mail"));
+        verify(conn).prepareStatement(argThat(sql -> sql.contains("outstanding_fine") && !sql.contains("SUM(")));
+        verify(stmt).setString(1, "mail");
+    }
+
+    @Test
+    void getTotalFines_groupsSelectedStudentsInOneQuery() throws Exception {
+        Array array = mock(Array.class);
+        when(conn.createArrayOf(eq("varchar"), any())).thenReturn(array);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getString("student_email")).thenReturn("a@mail.com", "b@mail.com");
+        when(rs.getInt("total")).thenReturn(10, 20);
+
+        StringIntMap totals = repo.getTotalFines(List.of("a@mail.com", "b@mail.com", "c@mail.com"));
+
+        assertEquals(10, totals.get("a@mail.com"));
+        assertEquals(20, totals.get("b@mail.com"));
+        assertEquals(0, totals.get("c@mail.com"));
+        verify(stmt).setArray(1, array);
+        verify(conn, times(1)).prepareStatement(argThat(sql -> sql.contains("GROUP BY student_email")));
+    }
+
+    @Test
+    void getTotalFines_emptyInputSkipsDatabase() throws Exception {
+        assertEquals(0, repo.getTotalFines(List.of()).size());
+        verify(conn, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void getTotalFines_errorReturnsEmpty() throws Exception {
+        when(conn.createArrayOf(anyString(), any())).thenThrow(new SQLException("fail"));
+        assertEquals(0, repo.getTotalFines(List.of("a@mail.com")).size());
+    }
+
+    @Test
+    void getAllTotalFines_returnsEveryStudent() throws Exception {
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getString("student_email")).thenReturn("a@mail.com", "b@mail.com");
+        when(rs.getInt("total")).thenReturn(10, 20);
+
+        StringIntMap totals = repo.getAllTotalFines();
+
+        assertEquals(2, totals.size());
+        assertEquals(30, totals.sum());
+    }
+
     @Test
     void getTotalFine_noValue() throws Exception {
         when(rs.next()).thenReturn(false);
@@ -227,6 +504,20 @@ public class BorrowRepositoryTest {
         verify(updateStmt).executeUpdate();
     }
 
+    @Test
+    void markReturned_notifiesListenersWithBorrowId() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getInt("id")).thenReturn(55);
+        when(conn.prepareStatement("UPDATE student_borrow SET returned = true, fine = ? WHERE id = ?"))
+                .thenReturn(mock(PreparedStatement.class));
+        List<Integer> returned = new ArrayList<>();
+        repo.onReturned(returned::add);
+
+        repo.markReturnedByStudentAndIsbn("mail", 10, 5);
+
+        assertEquals(List.of(55), returned);
+    }
+
     @Test
     void markReturned_notFound() throws Exception {
         when(rs.next()).thenReturn(false);
@@ -300,4 +591,184 @@ public class BorrowRepositoryTest {
 
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    void getStudentsWithUnpaidFinesPage_usesKeyset() throws Exception {
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getString("student_email")).thenReturn("b@mail.com");
+
+        assertEquals(List.of("b@mail.com"), repo.getStudentsWithUnpaidFines("a@mail.com", 10));
+        verify(stmt).setString(1, "a@mail.com");
+        verify(stmt).setInt(2, 10);
+    }
+
+    @Test
+    void streamStudentsWithUnpaidFines_streamsEmails() throws Exception {
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getString("student_email")).thenReturn("a@mail.com", "b@mail.com");
+
+        try (Stream<String> stream = repo.streamStudentsWithUnpaidFines()) {
+            assertEquals(List.of("a@mail.com", "b@mail.com"), stream.toList());
+        }
+    }
+
+    @Test
+    void streamUnpaidFineTotals_aggregatesInOneQueryAfterCheckpoint() throws Exception {
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getString("student_email")).thenReturn("b@mail.com", "c@mail.com");
+        when(rs.getInt("total")).thenReturn(15, 40);
+
+        try (Stream<FineTotal> stream = repo.streamUnpaidFineTotals("a@mail.com")) {
+            assertEquals(List.of(new FineTotal("b@mail.com", 15), new FineTotal("c@mail.com", 40)), stream.toList());
+        }
+        verify(conn).prepareStatement(argThat(sql -> sql.contains("GROUP BY student_email")));
+        verify(stmt).setString(1, "a@mail.com");
+    }
+
+    @Test
+    void archiveSettledBorrows_movesOneBatchInOneStatement() throws Exception {
+        when(stmt.executeUpdate()).thenReturn(120);
+
+        int moved = repo.archiveSettledBorrows(LocalDate.of(2024, 1, 1), 500);
+
+        assertEquals(120, moved);
+        verify(conn).prepareStatement(argThat(sql ->
+                sql.contains("DELETE FROM student_borrow")
+                        && sql.contains("INSERT INTO student_borrow_history")
+                        && sql.contains("returned = true AND fine = 0")
+                        && sql.contains("SKIP LOCKED")));
+        verify(stmt).setDate(1, Date.valueOf(LocalDate.of(2024, 1, 1)));
+        verify(stmt).setInt(2, 500);
+    }
+
+    @Test
+    void archiveSettledBorrows_errorReturnsMinusOne() throws Exception {
+        when(stmt.executeUpdate()).thenThrow(new SQLException("fail"));
+        assertEquals(-1, repo.archiveSettledBorrows(LocalDate.now(), 500));
+    }
+
+    @Test
+    void archiveSettledBorrows_rejectsInvalidBatch() {
+        assertThrows(IllegalArgumentException.class, () -> repo.archiveSettledBorrows(LocalDate.now(), 0));
+    }
+
+    @Test
+    void accrueOverdueFines_chargesOneBatchSinceLastAccrual() throws Exception {
+        when(stmt.executeUpdate()).thenReturn(75);
+
+        int updated = repo.accrueOverdueFines(LocalDate.of(2024, 5, 2), 1000);
+
+        assertEquals(75, updated);
+        verify(conn).prepareStatement(argThat(sql ->
+                sql.contains("accrued_through IS NULL OR accrued_through < ?")
+                        && sql.contains("GREATEST(sb.overdue_date, sb.accrued_through)")
+                        && sql.contains(BorrowRepository.dailyFineCase("i.type"))
+                        && sql.contains("SKIP LOCKED")));
+        Date day = Date.valueOf(LocalDate.of(2024, 5, 2));
+        verify(stmt).setDate(1, day);
+        verify(stmt).setDate(2, day);
+        verify(stmt).setInt(3, 1000);
+        verify(stmt).setDate(4, day);
+        verify(stmt).setDate(5, day);
+    }
+
+    @Test
+    void accrueOverdueFines_errorReturnsMinusOne() throws Exception {
+        when(stmt.executeUpdate()).thenThrow(new SQLException("fail"));
+        assertEquals(-1, repo.accrueOverdueFines(LocalDate.now(), 1000));
+    }
+
+    @Test
+    void accrueOverdueFines_rejectsInvalidBatch() {
+        assertThrows(IllegalArgumentException.class, () -> repo.accrueOverdueFines(LocalDate.now(), 0));
+    }
+
+    @Test
+    void returnItemFused_chargesOnlyDaysNotYetAccrued() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("OK");
+
+        repo.returnItem("a@mail.com", 12, LocalDate.of(2024, 2, 1));
+
+        verify(conn).prepareStatement(argThat(sql ->
+                sql.contains("fine = sb.fine + GREATEST(?::date - GREATEST(active.overdue_date, active.accrued_through), 0)")));
+    }
+
+    @Test
+    void returnItemFused_accruedFineOfReturnedBorrowDoesNotBlockReturn() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("status")).thenReturn("OK");
+        when(rs.getInt("fine")).thenReturn(40);
+
+        ReturnResult result = repo.returnItem("a@mail.com", 12, LocalDate.of(2024, 2, 1));
+
+        assertEquals(ReturnResult.Status.OK, result.status());
+        assertEquals(40, result.fine());
+        verify(conn).prepareStatement(argThat(sql ->
+                sql.contains("SELECT fine.total - open_borrow.own_fine AS total FROM fine, open_borrow")
+                        && sql.contains("AND (SELECT total FROM other_fines) <= 0")
+                        && sql.contains("WHEN other_fines.total > 0 THEN 'HAS_FINE'")));
+    }
+
+    @Test
+    void createYearPartition_coversTheCalendarYear() throws Exception {
+        Statement ddl = mock(Statement.class);
+        when(conn.createStatement()).thenReturn(ddl);
+
+        assertTrue(repo.createYearPartition(2027));
+
+        verify(ddl).execute("CREATE TABLE IF NOT EXISTS student_borrow_y2027 PARTITION OF student_borrow "
+                + "FOR VALUES FROM ('2027-01-01') TO ('2028-01-01')");
+    }
+
+    @Test
+    void createYearPartition_movesRowsOutOfTheDefaultPartition() throws Exception {
+        Statement ddl = mock(Statement.class);
+        when(conn.createStatement()).thenReturn(ddl);
+        when(rs.next()).thenReturn(true);
+        when(rs.getBoolean(1)).thenReturn(true);
+
+        assertTrue(repo.createYearPartition(2027));
+
+        InOrder order = inOrder(conn, ddl);
+        order.verify(conn).setAutoCommit(false);
+        order.verify(ddl).execute("ALTER TABLE student_borrow DETACH PARTITION student_borrow_default");
+        order.verify(ddl).execute("CREATE TABLE student_borrow_y2027 PARTITION OF student_borrow "
+                + "FOR VALUES FROM ('2027-01-01') TO ('2028-01-01')");
+        order.verify(ddl).executeUpdate(argThat((String sql) -> sql.startsWith(
+                "WITH moved AS (DELETE FROM student_borrow_default WHERE borrow_date >= '2027-01-01' "
+                        + "AND borrow_date < '2028-01-01'")));
+        order.verify(ddl).execute("ALTER TABLE student_borrow ATTACH PARTITION student_borrow_default DEFAULT");
+        order.verify(conn).commit();
+        verify(ddl).execute("ALTER TABLE student_borrow_y2027 DISABLE TRIGGER USER");
+        verify(ddl).execute("ALTER TABLE student_borrow_default ENABLE TRIGGER USER");
+    }
+
+    @Test
+    void createYearPartition_failedMoveRollsBack() throws Exception {
+        Statement ddl = mock(Statement.class);
+        when(conn.createStatement()).thenReturn(ddl);
+        when(rs.next()).thenReturn(true);
+        when(rs.getBoolean(1)).thenReturn(true);
+        when(ddl.executeUpdate(anyString())).thenThrow(new SQLException("fail"));
+
+        assertFalse(repo.createYearPartition(2027));
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+    }
+
+    @Test
+    void findDefaultPartitionYears_listsYears() throws Exception {
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt("year")).thenReturn(2025, 2026);
+
+        assertEquals(List.of(2025, 2026), repo.findDefaultPartitionYears());
+    }
+
+    @Test
+    void createYearPartition_error() throws Exception {
+        when(conn.createStatement()).thenThrow(new SQLException("fail"));
+        assertFalse(repo.createYearPartition(2027));
+    }
 }
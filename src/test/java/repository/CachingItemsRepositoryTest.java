@@ -0,0 +1,118 @@
+package repository;
+
+import domain.Items;
+import domain.libraryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingItemsRepositoryTest {
+
+    private CachingItemsRepository repo;
+
+    private Connection conn;
+    private PreparedStatement fullStmt;
+    private PreparedStatement quantityStmt;
+    private ResultSet fullRs;
+    private ResultSet quantityRs;
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = mock(Connection.class);
+        fullStmt = mock(PreparedStatement.class);
+        quantityStmt = mock(PreparedStatement.class);
+        fullRs = mock(ResultSet.class);
+        quantityRs = mock(ResultSet.class);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new CachingItemsRepository(dataSource, 16);
+
+        when(conn.prepareStatement("SELECT * FROM items WHERE isbn = ?")).thenReturn(fullStmt);
+        when(conn.prepareStatement("SELECT quantity FROM items WHERE isbn = ?")).thenReturn(quantityStmt);
+        when(fullStmt.executeQuery()).thenReturn(fullRs);
+        when(quantityStmt.executeQuery()).thenReturn(quantityRs);
+
+        when(fullRs.next()).thenReturn(true);
+        when(fullRs.getString("author")).thenReturn("AuthorX");
+        when(fullRs.getString("name")).thenReturn("NameX");
+        when(fullRs.getString("type")).thenReturn("Book");
+        when(fullRs.getInt("quantity")).thenReturn(5);
+        when(fullRs.getInt("isbn")).thenReturn(500);
+    }
+
+    @Test
+    void secondLookupServesCatalogueFromCacheAndReadsFreshQuantity() throws Exception {
+        when(quantityRs.next()).thenReturn(true);
+        when(quantityRs.getInt("quantity")).thenReturn(2);
+
+        Optional<Items> first = repo.findByISBN(500);
+        Optional<Items> second = repo.findByISBN(500);
+
+        assertEquals(5, first.get().getQuantity());
+        assertEquals("NameX", second.get().getName());
+        assertEquals(libraryType.Book, second.get().getType());
+        assertEquals(2, second.get().getQuantity());
+        verify(fullStmt, times(1)).executeQuery();
+        verify(quantityStmt, times(1)).executeQuery();
+        assertEquals(1, repo.getCacheStats().hits());
+        assertEquals(1, repo.getCacheStats().misses());
+    }
+
+    @Test
+    void deletedItemIsDroppedFromCache() throws Exception {
+        repo.findByISBN(500);
+        when(quantityRs.next()).thenReturn(false);
+
+        assertTrue(repo.findByISBN(500).isEmpty());
+        assertEquals(0, repo.getCacheStats().size());
+    }
+
+    @Test
+    void existsByIsbnUsesCacheWithoutQuery() throws Exception {
+        assertTrue(repo.existsByISBN(500));
+        assertTrue(repo.existsByISBN(500));
+
+        verify(fullStmt, times(1)).executeQuery();
+        verifyNoInteractions(quantityStmt);
+    }
+
+    @Test
+    void addItemInvalidatesItsIsbn() throws Exception {
+        PreparedStatement insert = mock(PreparedStatement.class);
+        ResultSet generated = mock(ResultSet.class);
+        when(conn.prepareStatement(
+                "INSERT INTO items (author, name, type, quantity) VALUES (?, ?, ?, ?) RETURNING isbn"))
+                .thenReturn(insert);
+        when(insert.executeQuery()).thenReturn(generated);
+        when(generated.next()).thenReturn(true);
+        when(generated.getInt("isbn")).thenReturn(500);
+        repo.findByISBN(500);
+
+        assertTrue(repo.addItem(new Items("A", "B", libraryType.CD, 1, "")));
+
+        assertEquals(0, repo.getCacheStats().size());
+    }
+
+    @Test
+    void failedIncreaseQuantityInvalidates() throws Exception {
+        PreparedStatement update = mock(PreparedStatement.class);
+        when(conn.prepareStatement("UPDATE items SET quantity = quantity + 1 WHERE isbn = ?")).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(1, 0);
+        repo.findByISBN(500);
+
+        assertTrue(repo.increaseQuantity(500));
+        assertEquals(1, repo.getCacheStats().size());
+
+        assertFalse(repo.increaseQuantity(500));
+        assertEquals(0, repo.getCacheStats().size());
+    }
+}
@@ -0,0 +1,144 @@
+package repository;
+
+import domain.OutboxEmail;
+import domain.Role;
+import domain.user;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingUserRepositoryTest {
+
+    private static final String FIND_SQL = "SELECT email, role, password_hash FROM users WHERE email = ?";
+
+    private final AtomicLong clock = new AtomicLong();
+    private CachingUserRepository repo;
+
+    private Connection conn;
+    private PreparedStatement findStmt;
+    private PreparedStatement writeStmt;
+    private ResultSet rs;
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = mock(Connection.class);
+        findStmt = mock(PreparedStatement.class);
+        writeStmt = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new CachingUserRepository(dataSource, 16, 1000, 100, clock::get);
+
+        when(conn.prepareStatement(anyString())).thenReturn(writeStmt);
+        when(conn.prepareStatement(FIND_SQL)).thenReturn(findStmt);
+        when(findStmt.executeQuery()).thenReturn(rs);
+        when(writeStmt.executeUpdate()).thenReturn(1);
+
+        when(rs.getString("email")).thenReturn("sara@mail.com");
+        when(rs.getInt("role")).thenReturn(Role.STUDENT.getLevel());
+        when(rs.getString("password_hash")).thenReturn("hash");
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void repeatedLoginIsServedFromCache() throws Exception {
+        when(rs.next()).thenReturn(true);
+
+        Optional<user> first = repo.findByEmail("sara@mail.com");
+        Optional<user> second = repo.findByEmail("sara@mail.com");
+
+        assertEquals("hash", second.get().getPasswordHash());
+        assertEquals(Role.STUDENT, second.get().getRole());
+        assertEquals(first.get().getEmail(), second.get().getEmail());
+        verify(findStmt, times(1)).executeQuery();
+        assertEquals(1, repo.getCacheStats().hits());
+    }
+
+    @Test
+    void unknownEmailIsCachedUntilItsShorterTimeToLive() throws Exception {
+        when(rs.next()).thenReturn(false);
+
+        assertTrue(repo.findByEmail("nobody@mail.com").isEmpty());
+        assertTrue(repo.findByEmail("nobody@mail.com").isEmpty());
+        verify(findStmt, times(1)).executeQuery();
+
+        advanceMillis(100);
+        repo.findByEmail("nobody@mail.com");
+        verify(findStmt, times(2)).executeQuery();
+    }
+
+    @Test
+    void foundUserExpiresAfterTimeToLive() throws Exception {
+        when(rs.next()).thenReturn(true);
+
+        repo.findByEmail("sara@mail.com");
+        advanceMillis(1000);
+        repo.findByEmail("sara@mail.com");
+
+        verify(findStmt, times(2)).executeQuery();
+    }
+
+    @Test
+    void failedLookupIsNotCachedAsUnknown() throws Exception {
+        when(findStmt.executeQuery()).thenThrow(new SQLException("down")).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+
+        assertTrue(repo.findByEmail("sara@mail.com").isEmpty());
+        assertTrue(repo.findByEmail("sara@mail.com").isPresent());
+    }
+
+    @Test
+    void saveDropsNegativeEntry() throws Exception {
+        when(rs.next()).thenReturn(false, true);
+        repo.findByEmail("sara@mail.com");
+
+        repo.save(new user("sara@mail.com", Role.STUDENT, "hash"),
+                OutboxEmail.of("sara@mail.com", "Welcome", "Hello"));
+
+        assertTrue(repo.findByEmail("sara@mail.com").isPresent());
+        verify(findStmt, times(2)).executeQuery();
+    }
+
+    @Test
+    void updateRoleDropsCachedEntry() throws Exception {
+        when(rs.next()).thenReturn(true);
+        repo.findByEmail("sara@mail.com");
+
+        repo.updateRole("sara@mail.com", Role.LIBRARIAN);
+        when(rs.getInt("role")).thenReturn(Role.LIBRARIAN.getLevel());
+
+        assertEquals(Role.LIBRARIAN, repo.findByEmail("sara@mail.com").get().getRole());
+        verify(findStmt, times(2)).executeQuery();
+    }
+
+    @Test
+    void softDeletePlainSaveAndRehashDropCachedEntry() throws Exception {
+        when(rs.next()).thenReturn(true);
+        repo.findByEmail("sara@mail.com");
+
+        repo.softDeleteInactiveUser("sara@mail.com", LocalDate.now().minusYears(1));
+        repo.findByEmail("sara@mail.com");
+        repo.save(new user("sara@mail.com", Role.STUDENT, "hash"));
+        repo.findByEmail("sara@mail.com");
+        repo.updatePasswordHash("sara@mail.com", "hash", "$new");
+        repo.findByEmail("sara@mail.com");
+
+        verify(findStmt, times(4)).executeQuery();
+    }
+}
@@ -0,0 +1,173 @@
+package repository;
+
+import domain.Items;
+import domain.libraryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CatalogIndexTest {
+
+    private CatalogIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogIndex();
+        index.add(new Items("Sara Ahmad", "Java Basics", libraryType.Book, 3, "1"));
+        index.add(new Items("Shatha Omar", "Advanced Java", libraryType.Book, 1, "2"));
+        index.add(new Items("Sara Ahmad", "Jazz Hits", libraryType.CD, 5, "3"));
+    }
+
+    private static List<String> isbns(List<Items> items) {
+        return items.stream().map(Items::getISBN).toList();
+    }
+
+    @Test
+    void prefixMatchesAnyTokenCaseInsensitively() {
+        assertEquals(List.of("1", "2", "3"),
+                isbns(index.search(CatalogIndex.Field.NAME, "JA", null, 10, 0)));
+        assertEquals(List.of("1", "2"),
+                isbns(index.search(CatalogIndex.Field.NAME, "java", null, 10, 0)));
+    }
+
+    @Test
+    void termsMatchInsideWords() {
+        assertEquals(List.of("2"),
+                isbns(index.search(CatalogIndex.Field.NAME, "vanced", null, 10, 0)));
+        assertEquals(List.of("1", "3"),
+                isbns(index.search(CatalogIndex.Field.AUTHOR, "ar hma", null, 10, 0)));
+    }
+
+    @Test
+    void longTermsAreCheckedAgainstTokensOfTheirGrams() {
+        index.add(new Items("Lana Saleh", "JavaScript Guide", libraryType.Book, 2, "4"));
+
+        assertEquals(List.of("4"), isbns(index.search(CatalogIndex.Field.NAME, "ascrip", null, 10, 0)));
+        assertTrue(index.search(CatalogIndex.Field.NAME, "avax", null, 10, 0).isEmpty());
+    }
+
+    @Test
+    void gramsOfListsEverySubstringUpToGramLength() {
+        assertEquals(Set.of("j", "a", "v", "ja", "av", "va", "jav", "ava"), CatalogIndex.gramsOf("java"));
+    }
+
+    @Test
+    void replacedTokensNoLongerMatchTheirGrams() {
+        index.add(new Items("Sara Ahmad", "Blues Hits", libraryType.CD, 5, "3"));
+
+        assertTrue(index.search(CatalogIndex.Field.NAME, "zz", null, 10, 0).isEmpty());
+        assertEquals(List.of("3"), isbns(index.search(CatalogIndex.Field.NAME, "lue", null, 10, 0)));
+    }
+
+    @Test
+    void resultsDoNotCarryIndexedStock() {
+        assertEquals(0, index.search(CatalogIndex.Field.NAME, "jazz", null, 10, 0).get(0).getQuantity());
+    }
+
+    @Test
+    void multipleTermsMustAllMatch() {
+        assertEquals(List.of("2"),
+                isbns(index.search(CatalogIndex.Field.NAME, "adv jav", null, 10, 0)));
+        assertTrue(index.search(CatalogIndex.Field.NAME, "jazz basics", null, 10, 0).isEmpty());
+    }
+
+    @Test
+    void typeFilterLimitAndOffsetApply() {
+        assertEquals(List.of("3"),
+                isbns(index.search(CatalogIndex.Field.AUTHOR, "sara", libraryType.CD, 10, 0)));
+        assertEquals(List.of("2"),
+                isbns(index.search(CatalogIndex.Field.NAME, "ja", null, 1, 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> index.search(CatalogIndex.Field.NAME, "ja", null, 0, 0));
+    }
+
+    @Test
+    void reAddingAnIsbnReplacesItsTokens() {
+        index.add(new Items("Sara Ahmad", "Python Basics", libraryType.Book, 3, "1"));
+
+        assertEquals(List.of("2"), isbns(index.search(CatalogIndex.Field.NAME, "java", null, 10, 0)));
+        assertEquals(List.of("1"), isbns(index.search(CatalogIndex.Field.NAME, "python", null, 10, 0)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void rejectsItemsWithoutNumericIsbn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> index.add(new Items("A", "B", libraryType.Book, 1, "")));
+    }
+
+    @Test
+    void memoryStatsCountTokensAndPostings() {
+        CatalogIndex.MemoryStats stats = index.getMemoryStats();
+
+        assertEquals(3, stats.documents());
+        // name tokens: java, basics, advanced, jazz, hits; author tokens: sara, ahmad, shatha, omar
+        assertEquals(9, stats.tokens());
+        assertEquals(12, stats.postings());
+        assertTrue(stats.estimatedBytes() > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void buildScansRepositoryAndFollowsNewItems() {
+        ItemsRepository repository = mock(ItemsRepository.class);
+        doAnswer(inv -> {
+            inv.<Consumer<Items>>getArgument(0).accept(new Items("A", "Old Title", libraryType.Book, 1, "7"));
+            return 1;
+        }).when(repository).forEachItem(any());
+
+        CatalogIndex built = CatalogIndex.build(repository);
+
+        ArgumentCaptor<Consumer<Items>> listener = ArgumentCaptor.captor();
+        verify(repository).onItemAdded(listener.capture());
+        listener.getValue().accept(new Items("B", "New Title", libraryType.CD, 2, "8"));
+
+        assertEquals(List.of("7", "8"), isbns(built.search(CatalogIndex.Field.NAME, "title", null, 10, 0)));
+    }
+
+    @Test
+    void searchPicksUpItemsAddedElsewhereOnceTheRefreshIntervalHasPassed() {
+        ItemsRepository repository = mock(ItemsRepository.class);
+        doAnswer(inv -> {
+            inv.<Consumer<Items>>getArgument(0).accept(new Items("A", "Old Title", libraryType.Book, 1, "20007"));
+            return 1;
+        }).when(repository).forEachItem(any());
+        doAnswer(inv -> {
+            Consumer<Items> consumer = inv.getArgument(1);
+            consumer.accept(new Items("A", "Old Title", libraryType.Book, 1, "20007"));
+            consumer.accept(new Items("C", "Imported Title", libraryType.Book, 1, "20003"));
+            return 2;
+        }).when(repository).forEachItemFrom(anyInt(), any());
+        long[] now = {0};
+
+        CatalogIndex built = CatalogIndex.build(repository, 1_000, () -> now[0]);
+
+        assertEquals(List.of("20007"), isbns(built.search(CatalogIndex.Field.NAME, "title", null, 10, 0)));
+        verify(repository, never()).forEachItemFrom(anyInt(), any());
+
+        now[0] = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(List.of("20003", "20007"),
+                isbns(built.search(CatalogIndex.Field.NAME, "title", null, 10, 0)));
+        verify(repository).forEachItemFrom(eq(20007 - CatalogIndex.REFRESH_OVERLAP), any());
+
+        built.search(CatalogIndex.Field.NAME, "title", null, 10, 0);
+        verify(repository, times(1)).forEachItemFrom(anyInt(), any());
+    }
+
+    @Test
+    void refreshOfAnIndexWithoutRepositoryDoesNothing() {
+        assertEquals(0, index.refresh());
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,119 @@
+package repository;
+
+import domain.OutboxEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxRepositoryTest {
+
+    private EmailOutboxRepository repo;
+
+    private Connection conn;
+    private PreparedStatement stmt;
+    private ResultSet rs;
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = mock(Connection.class);
+        stmt = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new EmailOutboxRepository(dataSource);
+
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+        when(stmt.executeQuery()).thenReturn(rs);
+        when(stmt.executeUpdate()).thenReturn(1);
+    }
+
+    @Test
+    void enqueue_success() throws Exception {
+        assertTrue(repo.enqueue(OutboxEmail.of("a@test.com", "Hi", "Body")));
+        verify(stmt).setString(1, "a@test.com");
+        verify(stmt).setString(2, "Hi");
+        verify(stmt).setString(3, "Body");
+    }
+
+    @Test
+    void enqueue_error() throws Exception {
+        when(stmt.executeUpdate()).thenThrow(new SQLException("fail"));
+        assertFalse(repo.enqueue(OutboxEmail.of("a@test.com", "Hi", "Body")));
+    }
+
+    @Test
+    void claimDue_skipsLockedRowsAndMapsResult() throws Exception {
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getLong("id")).thenReturn(7L);
+        when(rs.getString("recipient")).thenReturn("a@test.com");
+        when(rs.getString("subject")).thenReturn("Hi");
+        when(rs.getString("body")).thenReturn("Body");
+        when(rs.getInt("attempts")).thenReturn(2);
+
+        List<OutboxEmail> claimed = repo.claimDue(10, 60_000);
+
+        assertEquals(List.of(new OutboxEmail(7L, "a@test.com", "Hi", "Body", 2)), claimed);
+        verify(conn).prepareStatement(argThat(sql -> sql.contains("FOR UPDATE SKIP LOCKED")));
+        verify(stmt).setLong(1, 60_000);
+        verify(stmt).setInt(2, 10);
+    }
+
+    @Test
+    void claimDue_errorReturnsEmpty() throws Exception {
+        when(stmt.executeQuery()).thenThrow(new SQLException("fail"));
+        assertTrue(repo.claimDue(10, 60_000).isEmpty());
+    }
+
+    @Test
+    void markSent_updatesAllIdsInOneStatement() throws Exception {
+        Array array = mock(Array.class);
+        when(conn.createArrayOf(eq("bigint"), any())).thenReturn(array);
+        when(stmt.executeUpdate()).thenReturn(3);
+
+        assertEquals(3, repo.markSent(List.of(1L, 2L, 3L)));
+        verify(stmt).setArray(1, array);
+        verify(stmt, times(1)).executeUpdate();
+    }
+
+    @Test
+    void markSent_emptyListSkipsDatabase() throws Exception {
+        assertEquals(0, repo.markSent(List.of()));
+        verify(conn, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void reschedule_setsDelayAndError() throws Exception {
+        assertTrue(repo.reschedule(5L, 30_000, "timeout"));
+        verify(stmt).setLong(1, 30_000);
+        verify(stmt).setString(2, "timeout");
+        verify(stmt).setLong(3, 5L);
+    }
+
+    @Test
+    void markDead_success() throws Exception {
+        assertTrue(repo.markDead(5L, "rejected"));
+        verify(conn).prepareStatement(argThat(sql -> sql.contains("'DEAD'")));
+    }
+
+    @Test
+    void markDead_error() throws Exception {
+        when(stmt.executeUpdate()).thenThrow(new SQLException("fail"));
+        assertFalse(repo.markDead(5L, "rejected"));
+    }
+
+    @Test
+    void countByStatus_returnsTotal() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong("total")).thenReturn(4L);
+
+        assertEquals(4L, repo.countByStatus("DEAD"));
+        verify(stmt).setString(1, "DEAD");
+    }
+}
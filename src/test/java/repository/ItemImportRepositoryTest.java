@@ -0,0 +1,141 @@
+package repository;
+
+import domain.ImportCheckpoint;
+import domain.Items;
+import domain.libraryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import javax.sql.DataSource;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ItemImportRepositoryTest {
+
+    private ItemImportRepository repo;
+
+    private Connection conn;
+    private PreparedStatement stmt;
+    private ResultSet rs;
+
+    private final ImportCheckpoint next = new ImportCheckpoint("feed", 12, 10, 2);
+    private final List<Items> items = List.of(
+            new Items("Herbert", "Dune, \"the\" novel", libraryType.Book, 3, ""),
+            new Items("Jackson", "Thriller", libraryType.CD, 1, ""));
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = mock(Connection.class);
+        stmt = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new ItemImportRepository(dataSource);
+
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+        when(stmt.executeQuery()).thenReturn(rs);
+        when(stmt.executeUpdate()).thenReturn(1);
+    }
+
+    @Test
+    void find_existingImport() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("id")).thenReturn("feed");
+        when(rs.getLong("records_done")).thenReturn(12L);
+        when(rs.getLong("imported")).thenReturn(10L);
+        when(rs.getLong("rejected")).thenReturn(2L);
+
+        assertEquals(Optional.of(next), repo.find("feed"));
+        verify(stmt).setString(1, "feed");
+    }
+
+    @Test
+    void find_unknownOrFailedIsEmpty() throws Exception {
+        when(rs.next()).thenReturn(false);
+        assertTrue(repo.find("feed").isEmpty());
+
+        when(conn.prepareStatement(anyString())).thenThrow(new SQLException("down"));
+        assertTrue(repo.find("feed").isEmpty());
+    }
+
+    @Test
+    void importChunk_copiesRowsAsCsvAndCommitsWithTheCheckpoint() throws Exception {
+        PGConnection pg = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        when(conn.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(conn.unwrap(PGConnection.class)).thenReturn(pg);
+        when(pg.getCopyAPI()).thenReturn(copyManager);
+        StringWriter copied = new StringWriter();
+        when(copyManager.copyIn(eq(ItemImportRepository.COPY_SQL), any(Reader.class))).thenAnswer(inv -> {
+            inv.<Reader>getArgument(1).transferTo(copied);
+            return 2L;
+        });
+
+        assertTrue(repo.importChunk(5, next, items));
+
+        assertEquals("\"Herbert\",\"Dune, \"\"the\"\" novel\",\"Book\",3\n\"Jackson\",\"Thriller\",\"CD\",1\n",
+                copied.toString());
+        InOrder order = inOrder(conn, copyManager, stmt);
+        order.verify(conn).setAutoCommit(false);
+        order.verify(copyManager).copyIn(eq(ItemImportRepository.COPY_SQL), any(Reader.class));
+        order.verify(stmt).executeUpdate();
+        order.verify(conn).commit();
+        order.verify(conn).setAutoCommit(true);
+        verify(stmt).setLong(2, 12);
+        verify(stmt).setLong(5, 5);
+    }
+
+    @Test
+    void importChunk_fallsBackToBatchedInsertWithoutPostgres() throws Exception {
+        assertTrue(repo.importChunk(0, next, items));
+
+        verify(stmt, times(2)).addBatch();
+        verify(stmt).executeBatch();
+        verify(stmt).setString(1, "Herbert");
+        verify(stmt).setInt(4, 1);
+        verify(conn).commit();
+    }
+
+    @Test
+    void importChunk_withOnlyRejectedRowsJustMovesTheCheckpoint() throws Exception {
+        assertTrue(repo.importChunk(0, next, List.of()));
+
+        verify(stmt, never()).addBatch();
+        verify(stmt).executeUpdate();
+        verify(conn).commit();
+    }
+
+    @Test
+    void importChunk_checkpointMovedByAnotherRunRollsBack() throws Exception {
+        when(stmt.executeUpdate()).thenReturn(0);
+
+        assertFalse(repo.importChunk(0, next, items));
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+    }
+
+    @Test
+    void importChunk_failedInsertRollsBack() throws Exception {
+        when(stmt.executeBatch()).thenThrow(new SQLException("value too long"));
+
+        assertFalse(repo.importChunk(0, next, items));
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+        verify(conn).setAutoCommit(true);
+    }
+}
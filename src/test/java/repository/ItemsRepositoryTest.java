@@ -2,13 +2,16 @@ package repository;
 
 import domain.Items;
 import domain.libraryType;
-import infrastructure.DatabaseConnection;
 import org.junit.jupiter.api.*;
-import org.mockito.MockedStatic;
 
+import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,50 +24,102 @@ public class ItemsRepositoryTest {
     private PreparedStatement stmt;
     private ResultSet rs;
 
-    private MockedStatic<DatabaseConnection> dbMock;
+    private DataSource dataSource;
 
     @BeforeEach
     void setup() throws Exception {
-        repo = new ItemsRepository();
-
         conn = mock(Connection.class);
         stmt = mock(PreparedStatement.class);
         rs = mock(ResultSet.class);
 
-        dbMock = mockStatic(DatabaseConnection.class);
-        dbMock.when(DatabaseConnection::getConnection).thenReturn(conn);
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new ItemsRepository(dataSource);
 
         when(conn.prepareStatement(anyString())).thenReturn(stmt);
         when(stmt.executeQuery()).thenReturn(rs);
         when(stmt.executeUpdate()).thenReturn(1); // default success
     }
 
-    @AfterEach
-    void cleanup() {
-        dbMock.close();
-    }
-
 
     @Test
     void addItem_success() throws Exception {
-        Items item = new Items("Author", "Name", libraryType.Book, 10, "123");
+        Items item = new Items("Author", "Name", libraryType.Book, 10, "");
+        List<Items> added = new ArrayList<>();
+        repo.onItemAdded(added::add);
 
-        when(stmt.executeUpdate()).thenReturn(1);
+        when(rs.next()).thenReturn(true);
+        when(rs.getInt("isbn")).thenReturn(123);
 
         boolean result = repo.addItem(item);
 
         assertTrue(result);
+        assertEquals("123", item.getISBN());
+        assertEquals(List.of(item), added);
     }
 
     @Test
     void addItem_exception() throws Exception {
         Items item = new Items("A", "B", libraryType.Book, 5, "10");
+        List<Items> added = new ArrayList<>();
+        repo.onItemAdded(added::add);
 
-        when(stmt.executeUpdate()).thenThrow(new SQLException("x"));
+        when(stmt.executeQuery()).thenThrow(new SQLException("x"));
 
         boolean result = repo.addItem(item);
 
         assertFalse(result);
+        assertTrue(added.isEmpty());
+    }
+
+    @Test
+    void forEachItem_streamsWithCursor() throws Exception {
+        when(rs.next()).thenReturn(true, true, false);
+        mockFullItemRow();
+        List<Items> seen = new ArrayList<>();
+
+        int count = repo.forEachItem(seen::add);
+
+        assertEquals(2, count);
+        assertEquals(2, seen.size());
+        verify(conn).setAutoCommit(false);
+        verify(stmt).setFetchSize(anyInt());
+        verify(conn).commit();
+    }
+
+    @Test
+    void forEachItemFrom_bindsFirstIsbn() throws Exception {
+        when(rs.next()).thenReturn(true, false);
+        mockFullItemRow();
+        List<Items> seen = new ArrayList<>();
+
+        assertEquals(1, repo.forEachItemFrom(42, seen::add));
+
+        verify(conn).prepareStatement("SELECT * FROM items WHERE isbn >= ? ORDER BY isbn");
+        verify(stmt).setInt(1, 42);
+        verify(stmt).setFetchSize(anyInt());
+    }
+
+    @Test
+    void streamByName_bindsSearchAndStreams() throws Exception {
+        when(rs.next()).thenReturn(true, false);
+        mockFullItemRow();
+
+        try (Stream<Items> stream = repo.streamByName("java", libraryType.Book)) {
+            assertEquals(1, stream.count());
+        }
+        verify(stmt).setString(1, "%java%");
+        verify(stmt).setString(2, "Book");
+        verify(stmt).setFetchSize(JdbcCursor.DEFAULT_FETCH_SIZE);
+        verify(conn).close();
+    }
+
+    @Test
+    void forEachItem_exception() throws Exception {
+        when(stmt.executeQuery()).thenThrow(new SQLException("x"));
+
+        assertEquals(-1, repo.forEachItem(item -> { }));
+        verify(conn).setAutoCommit(true);
     }
 
 
@@ -99,6 +154,40 @@ public class ItemsRepositoryTest {
     }
 
 
+    @Test
+    void findByNamePaged_pushesTypeAndPageIntoSql() throws Exception {
+        when(rs.next()).thenReturn(false);
+
+        repo.findByName("50%_off", libraryType.CD, 10, 20);
+
+        verify(conn).prepareStatement(
+                "SELECT * FROM items WHERE name LIKE ? AND type = ? ORDER BY similarity(name, ?) DESC, isbn LIMIT ? OFFSET ?");
+        verify(stmt).setString(1, "%50\\%\\_off%");
+        verify(stmt).setString(2, "CD");
+        verify(stmt).setString(3, "50%_off");
+        verify(stmt).setInt(4, 10);
+        verify(stmt).setInt(5, 20);
+    }
+
+    @Test
+    void findByAuthorPaged_withoutTypeOrOffset() throws Exception {
+        when(rs.next()).thenReturn(true, false);
+        mockFullItemRow();
+
+        List<Items> list = repo.findByAuthor("X", null, 5, 0);
+
+        assertEquals(1, list.size());
+        verify(conn).prepareStatement(
+                "SELECT * FROM items WHERE author LIKE ? ORDER BY similarity(author, ?) DESC, isbn LIMIT ?");
+    }
+
+    @Test
+    void findByNamePaged_rejectsInvalidPage() {
+        assertThrows(IllegalArgumentException.class, () -> repo.findByName("x", null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> repo.findByName("x", null, 10, -1));
+    }
+
+
     @Test
     void findByAuthor_foundRows() throws Exception {
         when(rs.next()).thenReturn(true, false);
@@ -187,6 +276,48 @@ public class ItemsRepositoryTest {
     }
 
 
+    @Test
+    void findQuantity_found() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getInt("quantity")).thenReturn(4);
+
+        OptionalInt quantity = repo.findQuantity(10);
+
+        assertEquals(4, quantity.getAsInt());
+        assertTrue(repo.existsByISBN(10));
+    }
+
+    @Test
+    void findQuantity_notFound() throws Exception {
+        when(rs.next()).thenReturn(false);
+
+        assertTrue(repo.findQuantity(10).isEmpty());
+        assertFalse(repo.existsByISBN(10));
+    }
+
+    @Test
+    void findQuantities_readsAllIsbnsInOneQuery() throws Exception {
+        Array array = mock(Array.class);
+        when(conn.createArrayOf("integer", new Integer[]{3, 5})).thenReturn(array);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt("isbn")).thenReturn(3, 5);
+        when(rs.getInt("quantity")).thenReturn(0, 7);
+
+        assertEquals(Map.of(3, 0, 5, 7), repo.findQuantities(new int[]{3, 5}));
+        verify(conn).prepareStatement("SELECT isbn, quantity FROM items WHERE isbn = ANY(?)");
+        verify(stmt).setArray(1, array);
+    }
+
+    @Test
+    void findQuantities_emptyWithoutQueryAndOnError() throws Exception {
+        assertTrue(repo.findQuantities(new int[0]).isEmpty());
+        verify(dataSource, never()).getConnection();
+
+        when(stmt.executeQuery()).thenThrow(new SQLException("fail"));
+        assertTrue(repo.findQuantities(new int[]{3}).isEmpty());
+    }
+
+
     private void mockFullItemRow() throws Exception {
         when(rs.getString("author")).thenReturn("AuthorX");
         when(rs.getString("name")).thenReturn("NameX");
@@ -0,0 +1,214 @@
+package repository;
+
+import domain.ActiveBorrow;
+import domain.OverdueBorrow;
+import domain.libraryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OverdueIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    private final AtomicReference<LocalDate> today = new AtomicReference<>(DAY);
+    private OverdueIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new OverdueIndex(today::get);
+    }
+
+    private static ActiveBorrow borrow(int id, LocalDate overdueDate, libraryType type) {
+        return new ActiveBorrow(id, "s" + id + "@mail.com", 100 + id, overdueDate.minusDays(type.getOverdue()),
+                overdueDate, type);
+    }
+
+    private static List<Integer> ids(List<OverdueBorrow> rows) {
+        return rows.stream().map(r -> r.borrow().id()).toList();
+    }
+
+    @Test
+    void listsOnlyBorrowsPastTheirOverdueDateInDateOrder() {
+        index.borrowed(borrow(1, DAY.minusDays(1), libraryType.Book));
+        index.borrowed(borrow(2, DAY.minusDays(5), libraryType.CD));
+        index.borrowed(borrow(3, DAY, libraryType.Book));
+        index.borrowed(borrow(4, DAY.plusDays(3), libraryType.CD));
+
+        assertEquals(List.of(2, 1), ids(index.getOverdue()));
+        assertEquals(2, index.overdueCount());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void precomputesOverdueDaysAndProjectedFine() {
+        index.borrowed(borrow(1, DAY.minusDays(3), libraryType.CD));
+        index.borrowed(borrow(2, DAY.minusDays(4), libraryType.Book));
+
+        List<OverdueBorrow> rows = index.getOverdue();
+
+        assertEquals(4, rows.get(0).overdueDays());
+        assertEquals(40, rows.get(0).projectedFine());
+        assertEquals(3, rows.get(1).overdueDays());
+        assertEquals(60, rows.get(1).projectedFine());
+    }
+
+    @Test
+    void returnRemovesBorrowWhetherOverdueOrNot() {
+        index.borrowed(borrow(1, DAY.minusDays(2), libraryType.CD));
+        index.borrowed(borrow(2, DAY.plusDays(2), libraryType.CD));
+
+        index.returned(1);
+        index.returned(2);
+        index.returned(99);
+
+        assertTrue(index.getOverdue().isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void rolloverMovesNewlyOverdueBorrowsAndAgesExistingRows() {
+        index.borrowed(borrow(1, DAY.minusDays(1), libraryType.CD));
+        index.borrowed(borrow(2, DAY.plusDays(1), libraryType.Book));
+        index.borrowed(borrow(3, DAY.plusDays(5), libraryType.Book));
+        assertEquals(List.of(1), ids(index.getOverdue()));
+
+        today.set(DAY.plusDays(2));
+        List<OverdueBorrow> rows = index.getOverdue();
+
+        assertEquals(List.of(1, 2), ids(rows));
+        assertEquals(3, rows.get(0).overdueDays());
+        assertEquals(60, rows.get(0).projectedFine());
+        assertEquals(1, rows.get(1).overdueDays());
+        assertEquals(10, rows.get(1).projectedFine());
+        assertEquals(2, index.overdueCount());
+    }
+
+    @Test
+    void borrowingTheSameIdTwiceKeepsOneRow() {
+        index.borrowed(borrow(1, DAY.minusDays(1), libraryType.CD));
+        index.borrowed(borrow(1, DAY.minusDays(1), libraryType.CD));
+
+        assertEquals(1, index.getOverdue().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void buildLoadsActiveBorrowsAndFollowsRepositoryEvents() {
+        BorrowRepository repo = mock(BorrowRepository.class);
+        scans(repo, List.of(
+                borrow(1, DAY.minusDays(2), libraryType.CD),
+                borrow(2, DAY.plusDays(2), libraryType.Book)));
+
+        OverdueIndex built = OverdueIndex.build(repo, today::get, 1_000, () -> 0);
+
+        ArgumentCaptor<Consumer<ActiveBorrow>> borrowed = ArgumentCaptor.forClass(Consumer.class);
+        ArgumentCaptor<IntConsumer> returned = ArgumentCaptor.forClass(IntConsumer.class);
+        verify(repo).onBorrowed(borrowed.capture());
+        verify(repo).onReturned(returned.capture());
+
+        borrowed.getValue().accept(borrow(3, DAY.minusDays(1), libraryType.Book));
+        returned.getValue().accept(1);
+
+        assertEquals(List.of(3), ids(built.getOverdue()));
+        assertEquals(2, built.size());
+    }
+
+    @Test
+    void returnDuringInitialScanIsNotUndoneByTheScan() {
+        BorrowRepository repo = mock(BorrowRepository.class);
+        AtomicReference<IntConsumer> returned = new AtomicReference<>();
+        doAnswer(inv -> {
+            returned.set(inv.getArgument(0));
+            return null;
+        }).when(repo).onReturned(any());
+        // The borrow is returned after the scan started but before the scan reached its row.
+        doAnswer(inv -> {
+            Consumer<ActiveBorrow> consumer = inv.getArgument(0);
+            consumer.accept(borrow(1, DAY.minusDays(1), libraryType.CD));
+            returned.get().accept(2);
+            consumer.accept(borrow(2, DAY.minusDays(2), libraryType.CD));
+            return 2;
+        }).when(repo).forEachActiveBorrow(any());
+
+        OverdueIndex built = OverdueIndex.build(repo, today::get, 1_000, () -> 0);
+
+        assertEquals(List.of(1), ids(built.getOverdue()));
+    }
+
+    @Test
+    void reportReconcilesWithTheDatabaseOnceTheIntervalHasPassed() {
+        BorrowRepository repo = mock(BorrowRepository.class);
+        scans(repo, List.of(borrow(1, DAY.minusDays(2), libraryType.CD)));
+        long[] now = {0};
+        OverdueIndex built = OverdueIndex.build(repo, today::get, 1_000, () -> now[0]);
+
+        // Another instance returned borrow 1 and lent borrow 2.
+        scans(repo, List.of(borrow(2, DAY.minusDays(1), libraryType.Book)));
+        assertEquals(List.of(1), ids(built.getOverdue()));
+
+        now[0] = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(List.of(2), ids(built.getOverdue()));
+        assertEquals(1, built.size());
+        verify(repo, times(2)).forEachActiveBorrow(any());
+    }
+
+    @Test
+    void borrowsAndReturnsDuringReconcileAreKept() {
+        BorrowRepository repo = mock(BorrowRepository.class);
+        AtomicReference<Consumer<ActiveBorrow>> borrowed = new AtomicReference<>();
+        AtomicReference<IntConsumer> returned = new AtomicReference<>();
+        doAnswer(inv -> {
+            borrowed.set(inv.getArgument(0));
+            return null;
+        }).when(repo).onBorrowed(any());
+        doAnswer(inv -> {
+            returned.set(inv.getArgument(0));
+            return null;
+        }).when(repo).onReturned(any());
+        scans(repo, List.of(borrow(1, DAY.minusDays(1), libraryType.CD)));
+        OverdueIndex built = OverdueIndex.build(repo, today::get, 1_000, () -> 0);
+
+        doAnswer(inv -> {
+            Consumer<ActiveBorrow> consumer = inv.getArgument(0);
+            consumer.accept(borrow(1, DAY.minusDays(1), libraryType.CD));
+            // Borrow 3 commits after the scan passed it; borrow 1 is returned before the scan ends.
+            borrowed.get().accept(borrow(3, DAY.minusDays(3), libraryType.Book));
+            returned.get().accept(1);
+            return 1;
+        }).when(repo).forEachActiveBorrow(any());
+
+        assertTrue(built.reconcile());
+        assertEquals(List.of(3), ids(built.getOverdue()));
+    }
+
+    @Test
+    void failedReconcileKeepsTheIndex() {
+        BorrowRepository repo = mock(BorrowRepository.class);
+        scans(repo, List.of(borrow(1, DAY.minusDays(1), libraryType.CD)));
+        OverdueIndex built = OverdueIndex.build(repo, today::get, 1_000, () -> 0);
+
+        doReturn(-1).when(repo).forEachActiveBorrow(any());
+
+        assertFalse(built.reconcile());
+        assertEquals(List.of(1), ids(built.getOverdue()));
+    }
+
+    private static void scans(BorrowRepository repo, List<ActiveBorrow> active) {
+        doAnswer(inv -> {
+            active.forEach(inv.<Consumer<ActiveBorrow>>getArgument(0));
+            return active.size();
+        }).when(repo).forEachActiveBorrow(any());
+    }
+}
@@ -0,0 +1,81 @@
+package repository;
+
+import domain.CampaignCheckpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReminderCampaignRepositoryTest {
+
+    private ReminderCampaignRepository repo;
+
+    private Connection conn;
+    private PreparedStatement stmt;
+    private ResultSet rs;
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = mock(Connection.class);
+        stmt = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new ReminderCampaignRepository(dataSource);
+
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+        when(stmt.executeQuery()).thenReturn(rs);
+        when(stmt.executeUpdate()).thenReturn(1);
+    }
+
+    @Test
+    void find_existingCampaign() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("id")).thenReturn("c1");
+        when(rs.getString("last_email")).thenReturn("m@test.com");
+        when(rs.getInt("sent")).thenReturn(12);
+        when(rs.getInt("failed")).thenReturn(1);
+
+        Optional<CampaignCheckpoint> result = repo.find("c1");
+
+        assertEquals(Optional.of(new CampaignCheckpoint("c1", "m@test.com", 12, 1)), result);
+    }
+
+    @Test
+    void find_unknownCampaign() throws Exception {
+        when(rs.next()).thenReturn(false);
+        assertTrue(repo.find("c1").isEmpty());
+    }
+
+    @Test
+    void find_error() throws Exception {
+        when(stmt.executeQuery()).thenThrow(new SQLException("fail"));
+        assertTrue(repo.find("c1").isEmpty());
+    }
+
+    @Test
+    void save_upsertsCheckpoint() throws Exception {
+        assertTrue(repo.save(new CampaignCheckpoint("c1", "m@test.com", 12, 1)));
+
+        verify(conn).prepareStatement(argThat(sql -> sql.contains("ON CONFLICT (id) DO UPDATE")));
+        verify(stmt).setString(1, "c1");
+        verify(stmt).setString(2, "m@test.com");
+        verify(stmt).setInt(3, 12);
+        verify(stmt).setInt(4, 1);
+    }
+
+    @Test
+    void save_error() throws Exception {
+        when(stmt.executeUpdate()).thenThrow(new SQLException("fail"));
+        assertFalse(repo.save(new CampaignCheckpoint("c1", "m@test.com", 12, 1)));
+    }
+}
@@ -0,0 +1,104 @@
+package repository;
+
+import domain.Role;
+import domain.user;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionRepositoryTest {
+
+    private SessionRepository repo;
+
+    private Connection conn;
+    private PreparedStatement stmt;
+    private ResultSet rs;
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = mock(Connection.class);
+        stmt = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new SessionRepository(dataSource);
+
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+        when(stmt.executeQuery()).thenReturn(rs);
+        when(stmt.executeUpdate()).thenReturn(1);
+    }
+
+    @Test
+    void create_insertsSessionAndPurgesExpiredOnes() throws Exception {
+        Instant expires = Instant.parse("2025-03-10T12:30:00Z");
+
+        assertTrue(repo.create("hash", "s@mail.com", expires));
+
+        verify(conn).prepareStatement(contains("DELETE FROM api_session WHERE expires_on <= CURRENT_TIMESTAMP"));
+        verify(stmt).setString(1, "hash");
+        verify(stmt).setString(2, "s@mail.com");
+        verify(stmt).setTimestamp(3, Timestamp.from(expires));
+    }
+
+    @Test
+    void create_error() throws Exception {
+        when(stmt.executeUpdate()).thenThrow(new SQLException("x"));
+
+        assertFalse(repo.create("hash", "s@mail.com", Instant.now()));
+    }
+
+    @Test
+    void findUser_readsCurrentRoleOfLiveSession() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getString("email")).thenReturn("s@mail.com");
+        when(rs.getInt("role")).thenReturn(Role.LIBRARIAN.getLevel());
+
+        Optional<user> found = repo.findUser("hash");
+
+        assertEquals("s@mail.com", found.orElseThrow().getEmail());
+        assertEquals(Role.LIBRARIAN, found.orElseThrow().getRole());
+        verify(conn).prepareStatement(argThat((String sql) -> sql.contains("JOIN users u ON u.email = s.email")
+                && sql.contains("s.expires_on > CURRENT_TIMESTAMP") && sql.contains("u.deletedOn IS NULL")));
+        verify(stmt).setString(1, "hash");
+    }
+
+    @Test
+    void findUser_unknownOrFailed() throws Exception {
+        when(rs.next()).thenReturn(false);
+        assertTrue(repo.findUser("hash").isEmpty());
+
+        when(stmt.executeQuery()).thenThrow(new SQLException("x"));
+        assertTrue(repo.findUser("hash").isEmpty());
+    }
+
+    @Test
+    void delete_byTokenHashAndByEmail() throws Exception {
+        when(stmt.executeUpdate()).thenReturn(1, 3);
+
+        assertTrue(repo.delete("hash"));
+        assertEquals(3, repo.deleteByEmail("s@mail.com"));
+
+        verify(conn).prepareStatement("DELETE FROM api_session WHERE token_hash = ?");
+        verify(conn).prepareStatement("DELETE FROM api_session WHERE email = ?");
+    }
+
+    @Test
+    void delete_error() throws Exception {
+        when(conn.prepareStatement(anyString())).thenThrow(new SQLException("x"));
+
+        assertFalse(repo.delete("hash"));
+        assertEquals(-1, repo.deleteByEmail("s@mail.com"));
+    }
+}
@@ -1,16 +1,17 @@
 package repository;
 
+import domain.OutboxEmail;
 import domain.Role;
 import domain.user;
-import infrastructure.DatabaseConnection;
 import org.junit.jupiter.api.*;
-import org.mockito.MockedStatic;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,29 +24,23 @@ public class userRepositoryTest {
     private PreparedStatement stmt;
     private ResultSet rs;
 
-    private MockedStatic<DatabaseConnection> dbMock;
+    private DataSource dataSource;
 
     @BeforeEach
     void setup() throws Exception {
-        repo = new userRepository();
-
         conn = mock(Connection.class);
         stmt = mock(PreparedStatement.class);
         rs = mock(ResultSet.class);
 
-        dbMock = mockStatic(DatabaseConnection.class);
-        dbMock.when(DatabaseConnection::getConnection).thenReturn(conn);
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        repo = new userRepository(dataSource);
 
         when(conn.prepareStatement(anyString())).thenReturn(stmt);
         when(stmt.executeQuery()).thenReturn(rs);
         when(stmt.executeUpdate()).thenReturn(1);
     }
 
-    @AfterEach
-    void cleanup() {
-        dbMock.close();
-    }
-
 
     @Test
     void save_success() throws Exception {
@@ -78,6 +73,30 @@ public class userRepositoryTest {
         assertThrows(RuntimeException.class, () -> repo.save(u));
     }
 
+    @Test
+    void saveWithOutbox_writesUserAndEmailInOneStatement() throws Exception {
+        user u = new user("c@test.com", Role.STUDENT, "hash");
+
+        boolean result = repo.save(u, OutboxEmail.of("c@test.com", "Welcome", "Hello"));
+
+        assertTrue(result);
+        verify(conn, times(1)).prepareStatement(argThat(sql ->
+                sql.contains("INSERT INTO users") && sql.contains("INSERT INTO email_outbox")));
+        verify(stmt).setString(1, "c@test.com");
+        verify(stmt).setString(4, "c@test.com");
+        verify(stmt).setString(5, "Welcome");
+        verify(stmt).setString(6, "Hello");
+        verify(stmt, times(1)).executeUpdate();
+    }
+
+    @Test
+    void saveWithOutbox_sqlException() throws Exception {
+        user u = new user("d@test.com", Role.STUDENT, "hash");
+        when(stmt.executeUpdate()).thenThrow(new SQLException("duplicate key"));
+
+        assertFalse(repo.save(u, OutboxEmail.of("d@test.com", "Welcome", "Hello")));
+    }
+
 
     @Test
     void findByEmail_found() throws Exception {
@@ -149,6 +168,41 @@ public class userRepositoryTest {
         assertTrue(result.isEmpty());
     }
 
+    private void mockInactiveRow(LocalDate oneYearAgo) throws Exception {
+        when(rs.getString("email")).thenReturn("inactive@test.com");
+        when(rs.getInt("role")).thenReturn(Role.STUDENT.getLevel());
+        when(rs.getString("password_hash")).thenReturn("hashA");
+        when(rs.getDate("createdOn")).thenReturn(Date.valueOf(oneYearAgo.minusDays(10)));
+    }
+
+    @Test
+    void findInactiveUsersPage_usesKeysetOnEmail() throws Exception {
+        LocalDate oneYearAgo = LocalDate.now().minusYears(1);
+        when(rs.next()).thenReturn(true, false);
+        mockInactiveRow(oneYearAgo);
+
+        List<user> result = repo.findInactiveUsersSince(oneYearAgo, "a@test.com", 50);
+
+        assertEquals(1, result.size());
+        verify(conn).prepareStatement(contains("AND email > ? ORDER BY email LIMIT ?"));
+        verify(stmt).setString(3, "a@test.com");
+        verify(stmt).setInt(4, 50);
+    }
+
+    @Test
+    void streamInactiveUsers_usesCursor() throws Exception {
+        LocalDate oneYearAgo = LocalDate.now().minusYears(1);
+        when(rs.next()).thenReturn(true, false);
+        mockInactiveRow(oneYearAgo);
+
+        try (Stream<user> stream = repo.streamInactiveUsersSince(oneYearAgo)) {
+            assertEquals("inactive@test.com", stream.findFirst().orElseThrow().getEmail());
+        }
+        verify(conn).setAutoCommit(false);
+        verify(stmt).setFetchSize(JdbcCursor.DEFAULT_FETCH_SIZE);
+        verify(conn).close();
+    }
+
 
     @Test
     void softDeleteInactiveUser_success() throws Exception {
@@ -204,4 +258,23 @@ public class userRepositoryTest {
 
         assertFalse(result);
     }
+
+    @Test
+    void updatePasswordHash_onlyReplacesTheExpectedHash() throws Exception {
+        when(stmt.executeUpdate()).thenReturn(1);
+
+        assertTrue(repo.updatePasswordHash("user@test.com", "old", "new"));
+
+        verify(conn).prepareStatement("UPDATE users SET password_hash = ? WHERE email = ? AND password_hash = ?");
+        verify(stmt).setString(1, "new");
+        verify(stmt).setString(2, "user@test.com");
+        verify(stmt).setString(3, "old");
+    }
+
+    @Test
+    void updatePasswordHash_exception() throws Exception {
+        when(stmt.executeUpdate()).thenThrow(new SQLException());
+
+        assertFalse(repo.updatePasswordHash("user@test.com", "old", "new"));
+    }
 }
@@ -0,0 +1,178 @@
+package service;
+
+import domain.ImportCheckpoint;
+import domain.Role;
+import domain.user;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import repository.ItemImportRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BatchRunnerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 5, 4);
+
+    @TempDir
+    Path dir;
+
+    private userService userService;
+    private ItemImportRepository importRepository;
+    private FineReminderCampaign reminderCampaign;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final AtomicLong clock = new AtomicLong();
+    private BatchRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(userService.class);
+        importRepository = mock(ItemImportRepository.class);
+        when(importRepository.find(anyString())).thenReturn(Optional.empty());
+        when(importRepository.importChunk(anyLong(), any(), any())).thenReturn(true);
+        reminderCampaign = mock(FineReminderCampaign.class);
+        runner = new BatchRunner(userService, new ItemImporter(importRepository, 2, clock::get), reminderCampaign,
+                new PrintStream(output, true), () -> TODAY, clock::get);
+    }
+
+    private String output() {
+        return output.toString();
+    }
+
+    @Test
+    void sendFineRemindersUsesTodaysCampaign() {
+        when(reminderCampaign.run("fine-reminders-2026-05-04")).thenAnswer(inv -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+            return new FineReminderCampaign.Result(10, 0, 2);
+        });
+
+        assertEquals(BatchRunner.EXIT_OK, runner.run(new String[]{"--run", "send-fine-reminders"}));
+        assertTrue(output().contains("2 students were already reminded today."));
+        assertTrue(output().contains("send-fine-reminders: 10 succeeded, 0 failed in 500 ms (20 items/s)"));
+    }
+
+    @Test
+    void failedRemindersGiveFailureExitCode() {
+        when(reminderCampaign.run(anyString())).thenReturn(new FineReminderCampaign.Result(3, 1, 0));
+
+        assertEquals(BatchRunner.EXIT_FAILED, runner.run(new String[]{"--run", "send-fine-reminders"}));
+    }
+
+    @Test
+    void listInactiveStreamsUsers() {
+        when(userService.streamInactiveUsers()).thenReturn(Stream.of(
+                new user("a@mail.com", Role.STUDENT, null), new user("b@mail.com", Role.LIBRARIAN, null)));
+
+        assertEquals(BatchRunner.EXIT_OK, runner.run(new String[]{"--run", "list-inactive"}));
+        assertTrue(output().contains("a@mail.com\tSTUDENT"));
+        assertTrue(output().contains("b@mail.com\tLIBRARIAN"));
+        assertTrue(output().contains("list-inactive: 2 succeeded, 0 failed"));
+    }
+
+    @Test
+    void purgeDeletesEachInactiveUserAndCountsFailures() {
+        when(userService.streamInactiveUsers()).thenReturn(Stream.of(
+                new user("a@mail.com", Role.STUDENT, null), new user("b@mail.com", Role.STUDENT, null)));
+        when(userService.removeInactiveUser("a@mail.com")).thenReturn(true);
+        when(userService.removeInactiveUser("b@mail.com")).thenReturn(false);
+
+        assertEquals(BatchRunner.EXIT_FAILED, runner.run(new String[]{"--run", "purge-inactive"}));
+        assertTrue(output().contains("purge-inactive: 1 succeeded, 1 failed"));
+    }
+
+    @Test
+    void importLoadsValidRowsAndWritesRejectedOnesToAReport() throws IOException {
+        Path file = dir.resolve("items.csv");
+        Files.writeString(file, """
+                name,author,quantity,type
+                "Dune, Part 1",Herbert,3,book
+                Thriller,Jackson,x,CD
+                Abbey Road,Beatles,2,vinyl
+                """);
+
+        assertEquals(BatchRunner.EXIT_FAILED, runner.run(new String[]{"--import", file.toString()}));
+
+        verify(importRepository).importChunk(eq(0L), any(), argThat(items ->
+                items.size() == 1 && items.get(0).getName().equals("Dune, Part 1")));
+        assertEquals("""
+                line,reason,row
+                3,"Quantity must be a number.","Thriller,Jackson,x,CD"
+                4,"Type must be BOOK or CD.","Abbey Road,Beatles,2,vinyl"
+                """, Files.readString(dir.resolve("items.csv.rejected.csv")));
+        assertTrue(output().contains("import items.csv: 1 succeeded, 2 failed"));
+        assertTrue(output().contains("2 rejected rows written to"));
+    }
+
+    @Test
+    void importIdFollowsTheFileContent() throws IOException {
+        Path file = dir.resolve("items.tsv");
+        Files.writeString(file, "Dune\tHerbert\t3\tBook\n");
+        runner.importItems(file);
+        Files.writeString(file, "Emma\tAusten\t2\tBook\n");
+        runner.importItems(file);
+
+        ArgumentCaptor<String> ids = ArgumentCaptor.forClass(String.class);
+        verify(importRepository, times(2)).find(ids.capture());
+        assertTrue(ids.getAllValues().get(0).startsWith("items.tsv:"));
+        assertNotEquals(ids.getAllValues().get(0), ids.getAllValues().get(1));
+        verify(importRepository).importChunk(anyLong(), any(), argThat(items ->
+                items.size() == 1 && items.get(0).getName().equals("Emma")));
+        assertFalse(Files.exists(dir.resolve("items.tsv.rejected.csv")));
+    }
+
+    @Test
+    void importResumingFromACheckpointSaysSo() throws IOException {
+        Path file = dir.resolve("items.csv");
+        Files.writeString(file, "Dune,Herbert,3,Book\nEmma,Austen,2,Book\n");
+        when(importRepository.find(anyString()))
+                .thenReturn(Optional.of(new ImportCheckpoint("x", 1, 1, 0)));
+
+        assertEquals(1, runner.importItems(file).succeeded());
+        assertTrue(output().contains("Resumed after 1 records"));
+    }
+
+    @Test
+    void importThatCannotSaveAChunkFails() throws IOException {
+        Path file = dir.resolve("items.csv");
+        Files.writeString(file, "Dune,Herbert,3,Book\n");
+        when(importRepository.importChunk(anyLong(), any(), any())).thenReturn(false);
+
+        assertEquals(BatchRunner.EXIT_FAILED, runner.run(new String[]{"--import", file.toString()}));
+        assertTrue(output().contains("Run the command again to resume."));
+    }
+
+    @Test
+    void missingImportFileFails() {
+        assertEquals(BatchRunner.EXIT_FAILED,
+                runner.run(new String[]{"--import", dir.resolve("missing.csv").toString()}));
+        verifyNoInteractions(importRepository);
+    }
+
+    @Test
+    void unknownCommandPrintsUsage() {
+        assertEquals(BatchRunner.EXIT_USAGE, runner.run(new String[]{"--run", "everything"}));
+        assertEquals(BatchRunner.EXIT_USAGE, runner.run(new String[]{"--import"}));
+        assertTrue(output().contains("Usage:"));
+    }
+
+    @Test
+    void recognisesBatchCommandLines() {
+        assertTrue(BatchRunner.isBatchCommand(new String[]{"--run", "purge-inactive"}));
+        assertTrue(BatchRunner.isBatchCommand(new String[]{"--import", "items.csv"}));
+        assertFalse(BatchRunner.isBatchCommand(new String[]{"--http"}));
+        assertFalse(BatchRunner.isBatchCommand(new String[0]));
+    }
+}
@@ -0,0 +1,75 @@
+package service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.BorrowRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BorrowArchiveJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 15);
+
+    private BorrowRepository borrowRepository;
+    private BorrowArchiveJob job;
+
+    @BeforeEach
+    void setUp() {
+        borrowRepository = mock(BorrowRepository.class);
+        job = new BorrowArchiveJob(borrowRepository, 90, 100, () -> TODAY);
+    }
+
+    @Test
+    void createsPartitionsForThisAndNextYear() {
+        job.runOnce();
+
+        verify(borrowRepository).createYearPartition(2026);
+        verify(borrowRepository).createYearPartition(2027);
+    }
+
+    @Test
+    void createsPartitionsForYearsStuckInTheDefaultPartition() {
+        when(borrowRepository.findDefaultPartitionYears()).thenReturn(List.of(2025, 2026));
+
+        job.runOnce();
+
+        verify(borrowRepository).createYearPartition(2025);
+        verify(borrowRepository, times(1)).createYearPartition(2026);
+        verify(borrowRepository).createYearPartition(2027);
+    }
+
+    @Test
+    void archivesInBatchesUntilAPartialBatch() {
+        when(borrowRepository.archiveSettledBorrows(TODAY.minusDays(90), 100)).thenReturn(100, 100, 40);
+
+        assertEquals(240, job.runOnce());
+        verify(borrowRepository, times(3)).archiveSettledBorrows(TODAY.minusDays(90), 100);
+    }
+
+    @Test
+    void stopsOnError() {
+        when(borrowRepository.archiveSettledBorrows(any(), anyInt())).thenReturn(-1);
+
+        assertEquals(0, job.runOnce());
+        verify(borrowRepository, times(1)).archiveSettledBorrows(any(), anyInt());
+    }
+
+    @Test
+    void closedJobStopsAfterCurrentBatch() {
+        when(borrowRepository.archiveSettledBorrows(any(), anyInt())).thenReturn(100);
+        job.close();
+
+        assertEquals(100, job.runOnce());
+        verify(borrowRepository, times(1)).archiveSettledBorrows(any(), anyInt());
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BorrowArchiveJob(borrowRepository, -1, 100, () -> TODAY));
+        assertThrows(IllegalArgumentException.class, () -> new BorrowArchiveJob(borrowRepository, 90, 0, () -> TODAY));
+    }
+}
@@ -1,34 +1,32 @@
 package service;
 
+import domain.ActiveBorrow;
 import domain.Borrow;
-import domain.Items;
+import domain.BorrowResult;
+import domain.OverdueBorrow;
+import domain.ReturnResult;
 import domain.libraryType;
-import domain.strategyPattern.FineStrategy;
-import domain.strategyPattern.FineStrategyFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
 import repository.BorrowRepository;
-import repository.ItemsRepository;
+import util.StringIntMap;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class BorrowServiceTest {
     private BorrowRepository borrowRepo;
-    private ItemsRepository itemsRepo;
     private BorrowService borrowService;
 
     @BeforeEach
     void setUp() {
         borrowRepo = mock(BorrowRepository.class);
-        itemsRepo = mock(ItemsRepository.class);
-        borrowService = new BorrowService(borrowRepo, itemsRepo);
+        borrowService = new BorrowService(borrowRepo);
     }
 
     @AfterEach
@@ -53,6 +51,19 @@ class BorrowServiceTest {
         verify(borrowRepo, times(1)).getTotalFine(email);
     }
 
+    @Test
+    void getTotalFinesDelegatesBulkLookup() {
+        StringIntMap totals = new StringIntMap(2);
+        totals.put("a@gmail.com", 15);
+        when(borrowRepo.getTotalFines(List.of("a@gmail.com", "b@gmail.com"))).thenReturn(totals);
+
+        StringIntMap result = borrowService.getTotalFines(List.of("a@gmail.com", "b@gmail.com"));
+
+        assertEquals(15, result.get("a@gmail.com"));
+        assertEquals(0, result.get("b@gmail.com"));
+        verify(borrowRepo, never()).getTotalFine(anyString());
+    }
+
     @Test
     void getTotalFine() {
         String email = "sara@gmail.com";
@@ -84,85 +95,73 @@ class BorrowServiceTest {
     void borrowItemWithUnPaidFineException() {
         String email = "sara@gmail.com";
         int isbn = 100;
-        when(borrowRepo.getTotalFine(email)).thenReturn(20);
+        when(borrowRepo.borrowItem(eq(email), eq(isbn), any(LocalDate.class))).thenReturn(BorrowResult.HAS_FINE);
         Exception ex = assertThrows(
                 IllegalArgumentException.class,
                 () -> borrowService.borrowItem(email, isbn)
         );
         assertEquals("You have unpaid fines. Pay before borrowing.", ex.getMessage());
-        verify(borrowRepo, times(1)).getTotalFine(email);
-        verifyNoInteractions(itemsRepo);
-        verify(borrowRepo, never()).borrowItem(any());
+        verify(borrowRepo, never()).getTotalFine(anyString());
     }
 
     @Test
     void borrowItemWithNonFoundItemException() {
         String email = "sara@gmail.com";
         int isbn = 1000;
-        when(borrowRepo.getTotalFine(email)).thenReturn(0);
-        when(itemsRepo.findByISBN(isbn)).thenReturn(Optional.empty());
+        when(borrowRepo.borrowItem(eq(email), eq(isbn), any(LocalDate.class))).thenReturn(BorrowResult.NO_ITEM);
         Exception ex = assertThrows(
                 IllegalArgumentException.class,
                 () -> borrowService.borrowItem(email, isbn)
         );
 
         assertEquals("Item not found", ex.getMessage());
-        verify(borrowRepo, times(1)).getTotalFine(email);
-        verify(itemsRepo, times(1)).findByISBN(isbn);
-        verify(borrowRepo, never()).borrowItem(any());
+    }
+
+    @Test
+    void borrowItemOutOfStock() {
+        String email = "sara@gmail.com";
+        int isbn = 100;
+        when(borrowRepo.borrowItem(eq(email), eq(isbn), any(LocalDate.class))).thenReturn(BorrowResult.OUT_OF_STOCK);
+        assertFalse(borrowService.borrowItem(email, isbn));
     }
 
     @Test
     void borroItemSuccess() {
         String email = "sara@gmail.com";
         int isbn = 100;
-        Items book = new Items(
-                "Author",
-                "Nice Book",
-                libraryType.Book,
-                5,
-                String.valueOf(isbn)
-        );
-        when(borrowRepo.getTotalFine(email)).thenReturn(0);
-        when(itemsRepo.findByISBN(isbn)).thenReturn(Optional.of(book));
-        when(borrowRepo.borrowItem(any(Borrow.class))).thenReturn(true);
+        when(borrowRepo.borrowItem(eq(email), eq(isbn), any(LocalDate.class))).thenReturn(BorrowResult.OK);
         boolean result = borrowService.borrowItem(email, isbn);
         assertTrue(result);
-        verify(borrowRepo, times(1)).getTotalFine(email);
-        verify(itemsRepo, times(1)).findByISBN(isbn);
-        verify(borrowRepo, times(1)).borrowItem(any(Borrow.class));
+        verify(borrowRepo, times(1)).borrowItem(eq(email), eq(isbn), any(LocalDate.class));
+        verify(borrowRepo, never()).getTotalFine(anyString());
     }
 
     @Test
     void returnItemWithUnPaidFineException() {
         String email = "sara@gmail.com";
         int isbn = 1;
-        when(borrowRepo.getTotalFine(email)).thenReturn(20);
+        when(borrowRepo.returnItem(eq(email), eq(isbn), any(LocalDate.class)))
+                .thenReturn(ReturnResult.of(ReturnResult.Status.HAS_FINE));
         Exception ex = assertThrows(
                 IllegalArgumentException.class,
                 () -> borrowService.returnItem(email, isbn)
         );
 
         assertEquals("You have unpaid fines. Pay before returning items.", ex.getMessage());
-        verify(borrowRepo, times(1)).getTotalFine(email);
         verify(borrowRepo, never()).findActiveBorrow(anyString(), anyInt());
-        verifyNoInteractions(itemsRepo);
     }
 
     @Test
     void returnItemWithNonFoundIsbnException() {
         String email = "sara@gmail.com";
         int isbn = 1000;
-        when(borrowRepo.getTotalFine(email)).thenReturn(0);
-        when(itemsRepo.findByISBN(isbn)).thenReturn(null);
+        when(borrowRepo.returnItem(eq(email), eq(isbn), any(LocalDate.class)))
+                .thenReturn(ReturnResult.of(ReturnResult.Status.NO_ACTIVE_BORROW));
         Exception ex = assertThrows(
                 IllegalArgumentException.class,
                 () -> borrowService.returnItem(email, isbn)
         );
         assertEquals("No active borrow found for this ISBN and student.", ex.getMessage());
-        verify(borrowRepo, times(1)).getTotalFine(email);
-        verify(borrowRepo, times(1)).findActiveBorrow(email, isbn);
-        verifyNoInteractions(itemsRepo);
         verify(borrowRepo, never()).markReturnedByStudentAndIsbn(anyString(), anyInt(), anyInt());
     }
 
@@ -170,52 +169,36 @@ class BorrowServiceTest {
     void returnItemSuccess() {
         String email = "sara@gmail.com";
         int isbn = 100;
-        when(borrowRepo.getTotalFine(email)).thenReturn(0);
-        LocalDate today = LocalDate.now();
-        LocalDate borrowDate = today.minusDays(10);
-        LocalDate overdueDate = today.minusDays(3);
-        Borrow active = new Borrow(email, isbn, borrowDate, overdueDate, false);
-        when(borrowRepo.findActiveBorrow(email, isbn)).thenReturn(active);
-        Items book = new Items("Sara", "Sara's test", libraryType.Book, 5, String.valueOf(isbn));
-        when(itemsRepo.findByISBN(isbn)).thenReturn(Optional.of(book));
-        when(borrowRepo.markReturnedByStudentAndIsbn(eq(email), eq(isbn), anyInt()))
-                .thenReturn(true);
+        when(borrowRepo.returnItem(eq(email), eq(isbn), any(LocalDate.class)))
+                .thenReturn(new ReturnResult(ReturnResult.Status.OK, 30));
         boolean result = borrowService.returnItem(email, isbn);
         assertTrue(result);
-        verify(borrowRepo, times(1)).getTotalFine(email);
-        verify(borrowRepo, times(1)).findActiveBorrow(email, isbn);
-        verify(itemsRepo, times(1)).findByISBN(isbn);
-        verify(borrowRepo, times(1))
-                .markReturnedByStudentAndIsbn(eq(email), eq(isbn), anyInt());
-        verify(itemsRepo, times(1)).increaseQuantity(isbn);
-
+        verify(borrowRepo, times(1)).returnItem(eq(email), eq(isbn), any(LocalDate.class));
+        verify(borrowRepo, never()).getTotalFine(anyString());
+        verify(borrowRepo, never()).findActiveBorrow(anyString(), anyInt());
+        verify(borrowRepo, never()).markReturnedByStudentAndIsbn(anyString(), anyInt(), anyInt());
     }
 
     @Test
     void returnItemWithNonExistingException(){
         String email = "sara@gmail.com";
         int isbn = 1000;
-        when(borrowRepo.getTotalFine(email)).thenReturn(0);
-        LocalDate today = LocalDate.now();
-        Borrow active = new Borrow(
-                email,
-                isbn,
-                today.minusDays(10),
-                today.minusDays(3),
-                false
-        );
-        when(borrowRepo.findActiveBorrow(email, isbn)).thenReturn(active);
-        when(itemsRepo.findByISBN(isbn)).thenReturn(Optional.empty());
+        when(borrowRepo.returnItem(eq(email), eq(isbn), any(LocalDate.class)))
+                .thenReturn(ReturnResult.of(ReturnResult.Status.NO_ITEM));
         Exception ex = assertThrows(
                 IllegalArgumentException.class,
                 () -> borrowService.returnItem(email, isbn)
         );
         assertEquals("Item not found when returning", ex.getMessage());
-        verify(borrowRepo, times(1)).getTotalFine(email);
-        verify(borrowRepo, times(1)).findActiveBorrow(email, isbn);
-        verify(itemsRepo, times(1)).findByISBN(isbn);
-        verify(borrowRepo, never()).markReturnedByStudentAndIsbn(anyString(), anyInt(), anyInt());
-        verify(itemsRepo, never()).increaseQuantity(anyInt());
+    }
+
+    @Test
+    void returnItemDatabaseError() {
+        String email = "sara@gmail.com";
+        int isbn = 5;
+        when(borrowRepo.returnItem(eq(email), eq(isbn), any(LocalDate.class)))
+                .thenReturn(ReturnResult.of(ReturnResult.Status.ERROR));
+        assertFalse(borrowService.returnItem(email, isbn));
     }
 
     @Test
@@ -238,6 +221,32 @@ class BorrowServiceTest {
         verifyNoMoreInteractions(borrowRepo);
     }
 
+    @Test
+    void getOverdueBorrowsIsServedFromIndexWithoutQueries() {
+        ActiveBorrow late = new ActiveBorrow(4, "sara@gmail.com", 11, LocalDate.now().minusDays(10),
+                LocalDate.now().minusDays(3), libraryType.CD);
+        doAnswer(inv -> {
+            inv.<Consumer<ActiveBorrow>>getArgument(0).accept(late);
+            return 1;
+        }).when(borrowRepo).forEachActiveBorrow(any());
+        List<OverdueBorrow> first = borrowService.getOverdueBorrows();
+        clearInvocations(borrowRepo);
+
+        List<OverdueBorrow> second = borrowService.getOverdueBorrows();
+
+        assertEquals(List.of(new OverdueBorrow(late, 3, 60)), first);
+        assertEquals(first, second);
+        verifyNoInteractions(borrowRepo);
+    }
+
+    @Test
+    void getOverdueBorrowsBuildsIndexOnFirstUse() {
+        assertTrue(borrowService.getOverdueBorrows().isEmpty());
+        assertTrue(borrowService.getOverdueBorrows().isEmpty());
+
+        verify(borrowRepo, times(1)).forEachActiveBorrow(any());
+    }
+
     @Test
     void getStudentsWithUnpaidFines() {
         List<String> mockEmails = List.of(
@@ -0,0 +1,95 @@
+package service;
+
+import domain.OutboxEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.EmailOutboxRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+
+    private EmailOutboxRepository outbox;
+    private EmailService emailService;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outbox = mock(EmailOutboxRepository.class);
+        emailService = mock(EmailService.class);
+        dispatcher = new EmailOutboxDispatcher(outbox, emailService, 10, 3);
+    }
+
+    @Test
+    void dispatchOnceWithEmptyOutboxSendsNothing() {
+        when(outbox.claimDue(eq(10), anyLong())).thenReturn(List.of());
+
+        assertEquals(0, dispatcher.dispatchOnce());
+        verifyNoInteractions(emailService);
+        verify(outbox, never()).markSent(anyList());
+    }
+
+    @Test
+    void dispatchOnceMarksDeliveredEmailsSentInOneCall() {
+        when(outbox.claimDue(eq(10), anyLong())).thenReturn(List.of(
+                new OutboxEmail(1, "a@test.com", "S", "B", 1),
+                new OutboxEmail(2, "b@test.com", "S", "B", 1)));
+        when(emailService.sendEmail(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(2, dispatcher.dispatchOnce());
+
+        verify(outbox).markSent(List.of(1L, 2L));
+        assertEquals(2, dispatcher.getStats().sent());
+    }
+
+    @Test
+    void failedEmailIsRescheduledWithBackoff() {
+        when(outbox.claimDue(eq(10), anyLong())).thenReturn(List.of(
+                new OutboxEmail(1, "a@test.com", "S", "B", 2)));
+        when(emailService.sendEmail(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("smtp down")));
+
+        dispatcher.dispatchOnce();
+
+        verify(outbox).reschedule(1L, EmailOutboxDispatcher.backoffMillis(2), "smtp down");
+        verify(outbox, never()).markDead(anyLong(), anyString());
+        verify(outbox).markSent(List.of());
+        assertEquals(1, dispatcher.getStats().retried());
+    }
+
+    @Test
+    void emailIsDeadLetteredAfterMaxAttempts() {
+        when(outbox.claimDue(eq(10), anyLong())).thenReturn(List.of(
+                new OutboxEmail(1, "a@test.com", "S", "B", 3)));
+        when(emailService.sendEmail(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("rejected")));
+
+        dispatcher.dispatchOnce();
+
+        verify(outbox).markDead(1L, "rejected");
+        verify(outbox, never()).reschedule(anyLong(), anyLong(), anyString());
+        assertEquals(1, dispatcher.getStats().dead());
+    }
+
+    @Test
+    void backoffDoublesAndIsCapped() {
+        assertEquals(30_000, EmailOutboxDispatcher.backoffMillis(1));
+        assertEquals(60_000, EmailOutboxDispatcher.backoffMillis(2));
+        assertEquals(120_000, EmailOutboxDispatcher.backoffMillis(3));
+        assertEquals(3_600_000, EmailOutboxDispatcher.backoffMillis(20));
+        assertEquals(3_600_000, EmailOutboxDispatcher.backoffMillis(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new EmailOutboxDispatcher(outbox, emailService, 0, 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EmailOutboxDispatcher(outbox, emailService, 10, 0));
+    }
+}
@@ -0,0 +1,138 @@
+package service;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailServiceTest {
+
+    private final Session session = Session.getInstance(new Properties());
+    private EmailService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.close();
+    }
+
+    @Test
+    void sendEmailReturnsBeforeMessageIsSentAndCompletesAfterwards() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CopyOnWriteArrayList<Message> delivered = new CopyOnWriteArrayList<>();
+        service = new EmailService(session, "lib@x.com", () -> message -> {
+            awaitQuietly(release);
+            delivered.add(message);
+        }, 10, 1, 100).start();
+
+        CompletableFuture<Void> result = service.sendEmail("a@x.com", "Hi", "Body");
+
+        assertFalse(result.isDone());
+        release.countDown();
+        result.get(5, TimeUnit.SECONDS);
+        assertEquals(1, delivered.size());
+        assertEquals("Hi", delivered.get(0).getSubject());
+        assertEquals(1, service.getStats().sent());
+    }
+
+    @Test
+    void failedSendCompletesExceptionallyAndIsCounted() {
+        service = new EmailService(session, "lib@x.com", () -> message -> {
+            throw new MessagingException("smtp down");
+        }, 10, 2, 100).start();
+
+        CompletableFuture<Void> result = service.sendEmail("a@x.com", "Hi", "Body");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(MessagingException.class, e.getCause());
+        assertEquals(1, service.getStats().failed());
+    }
+
+    @Test
+    void fullQueueRejectsAfterTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sending = new CountDownLatch(1);
+        service = new EmailService(session, "lib@x.com", () -> message -> {
+            sending.countDown();
+            awaitQuietly(release);
+        }, 1, 1, 50).start();
+
+        CompletableFuture<Void> first = service.sendEmail("a@x.com", "1", "x");
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> second = service.sendEmail("b@x.com", "2", "x");
+        CompletableFuture<Void> third = service.sendEmail("c@x.com", "3", "x");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> third.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(1, service.getStats().queueDepth());
+        assertEquals(1, service.getStats().rejected());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void closeSendsQueuedMessagesAndRejectsNewOnes() throws Exception {
+        CopyOnWriteArrayList<Message> delivered = new CopyOnWriteArrayList<>();
+        service = new EmailService(session, "lib@x.com", () -> delivered::add, 10, 2, 100).start();
+
+        CompletableFuture<Void> queued = service.sendEmail("a@x.com", "Hi", "Body");
+        service.close();
+
+        assertTrue(queued.isDone());
+        assertEquals(1, delivered.size());
+        assertTrue(service.sendEmail("b@x.com", "Hi", "Body").isCompletedExceptionally());
+    }
+
+    @Test
+    void messagesQueuedBeforeStartAreSentOnceStarted() throws Exception {
+        CopyOnWriteArrayList<Message> delivered = new CopyOnWriteArrayList<>();
+        service = new EmailService(session, "lib@x.com", () -> delivered::add, 10, 1, 100);
+
+        CompletableFuture<Void> queued = service.sendEmail("a@x.com", "Hi", "Body");
+        assertFalse(queued.isDone());
+        assertEquals(1, service.getStats().queueDepth());
+
+        service.start().start();
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(1, delivered.size());
+    }
+
+    @Test
+    void closeBeforeStartRejectsQueuedMessages() {
+        service = new EmailService(session, "lib@x.com", () -> message -> { }, 10, 1, 100);
+        CompletableFuture<Void> queued = service.sendEmail("a@x.com", "Hi", "Body");
+
+        service.close();
+        service.start();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    @Test
+    void invalidAddressFailsImmediately() {
+        service = new EmailService(session, "lib@x.com", () -> message -> { }, 10, 1, 100).start();
+
+        assertTrue(service.sendEmail("not an address", "Hi", "Body").isCompletedExceptionally());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal plain-text SMTP server for tests: accepts every message and records it.
+ * Can drop a connection after a given number of messages to simulate a server timeout.
+ */
+class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+
+    final AtomicInteger connections = new AtomicInteger();
+    final List<String> messages = new CopyOnWriteArrayList<>();
+
+    /** When positive, connections are closed right after this many messages. */
+    volatile int dropAfterMessages;
+
+    FakeSmtpServer() throws IOException {
+        server = new ServerSocket(0);
+        acceptor = Thread.ofPlatform().daemon(true).start(this::accept);
+    }
+
+    Properties smtpProperties() {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", "localhost");
+        props.put("mail.smtp.port", String.valueOf(server.getLocalPort()));
+        props.put("mail.smtp.auth", "false");
+        props.put("mail.smtp.connectiontimeout", "2000");
+        props.put("mail.smtp.timeout", "2000");
+        return props;
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.incrementAndGet();
+                Thread.ofPlatform().daemon(true).start(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+
+            reply(out, "220 localhost ESMTP");
+            int received = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            data.append(line).append('\n');
+                        }
+                        messages.add(data.toString());
+                        reply(out, "250 OK");
+                        if (dropAfterMessages > 0 && ++received >= dropAfterMessages) return;
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void reply(PrintWriter out, String text) {
+        out.print(text + "\r\n");
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        acceptor.interrupt();
+    }
+}
@@ -0,0 +1,80 @@
+package service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.BorrowRepository;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FineAccrualJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 15);
+
+    private BorrowRepository borrowRepository;
+    private final AtomicLong clock = new AtomicLong();
+    private FineAccrualJob job;
+
+    @BeforeEach
+    void setUp() {
+        borrowRepository = mock(BorrowRepository.class);
+        job = new FineAccrualJob(borrowRepository, 100, () -> TODAY, clock::get);
+    }
+
+    @Test
+    void accruesInBatchesUntilAPartialBatch() {
+        when(borrowRepository.accrueOverdueFines(TODAY, 100)).thenReturn(100, 100, 40);
+
+        assertEquals(240, job.runOnce().rows());
+        verify(borrowRepository, times(3)).accrueOverdueFines(TODAY, 100);
+    }
+
+    @Test
+    void secondRunOnTheSameDayFindsNothingToCharge() {
+        when(borrowRepository.accrueOverdueFines(TODAY, 100)).thenReturn(30, 0);
+
+        assertEquals(30, job.runOnce().rows());
+        assertEquals(0, job.runOnce().rows());
+    }
+
+    @Test
+    void reportsRunTimeAndThroughput() {
+        when(borrowRepository.accrueOverdueFines(TODAY, 100)).thenAnswer(inv -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+            return 50;
+        });
+
+        FineAccrualJob.Result result = job.runOnce();
+
+        assertEquals(250, result.elapsedMillis());
+        assertEquals(200.0, result.rowsPerSecond());
+        assertEquals("Accrued fines on 50 overdue borrows in 250 ms (200 rows/s)", result.toString());
+    }
+
+    @Test
+    void stopsOnError() {
+        when(borrowRepository.accrueOverdueFines(any(), anyInt())).thenReturn(-1);
+
+        assertEquals(0, job.runOnce().rows());
+        verify(borrowRepository, times(1)).accrueOverdueFines(any(), anyInt());
+    }
+
+    @Test
+    void closedJobStopsAfterCurrentBatch() {
+        when(borrowRepository.accrueOverdueFines(any(), anyInt())).thenReturn(100);
+        job.close();
+
+        assertEquals(100, job.runOnce().rows());
+        verify(borrowRepository, times(1)).accrueOverdueFines(any(), anyInt());
+    }
+
+    @Test
+    void invalidBatchSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FineAccrualJob(borrowRepository, 0, () -> TODAY, System::nanoTime));
+    }
+}
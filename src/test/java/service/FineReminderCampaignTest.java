@@ -0,0 +1,135 @@
+package service;
+
+import domain.CampaignCheckpoint;
+import domain.FineTotal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import repository.BorrowRepository;
+import repository.ReminderCampaignRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FineReminderCampaignTest {
+
+    private BorrowRepository borrowRepository;
+    private ReminderCampaignRepository campaignRepository;
+    private EmailService emailService;
+    private FineReminderCampaign campaign;
+
+    @BeforeEach
+    void setUp() {
+        borrowRepository = mock(BorrowRepository.class);
+        campaignRepository = mock(ReminderCampaignRepository.class);
+        emailService = mock(EmailService.class);
+        campaign = new FineReminderCampaign(borrowRepository, campaignRepository, emailService, 2, 10_000);
+
+        when(campaignRepository.find(anyString())).thenReturn(Optional.empty());
+        when(emailService.sendEmail(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void newCampaignSendsPersonalisedRemindersAndSavesProgress() {
+        when(borrowRepository.streamUnpaidFineTotals(""))
+                .thenReturn(Stream.of(new FineTotal("a@x.com", 10), new FineTotal("b@x.com", 25)));
+
+        FineReminderCampaign.Result result = campaign.run("c1");
+
+        assertEquals(new FineReminderCampaign.Result(2, 0, 0), result);
+        verify(emailService).sendEmail("a@x.com", FineReminderCampaign.SUBJECT, FineReminderCampaign.body(10));
+        verify(emailService).sendEmail("b@x.com", FineReminderCampaign.SUBJECT, FineReminderCampaign.body(25));
+        verify(borrowRepository, never()).getTotalFine(anyString());
+        verify(campaignRepository).save(new CampaignCheckpoint("c1", "b@x.com", 2, 0));
+    }
+
+    @Test
+    void bodyIncludesTheTotal() {
+        assertTrue(FineReminderCampaign.body(42).contains("42"));
+    }
+
+    @Test
+    void resumedCampaignContinuesAfterCheckpoint() {
+        when(campaignRepository.find("c1"))
+                .thenReturn(Optional.of(new CampaignCheckpoint("c1", "b@x.com", 2, 0)));
+        when(borrowRepository.streamUnpaidFineTotals("b@x.com"))
+                .thenReturn(Stream.of(new FineTotal("c@x.com", 5)));
+
+        FineReminderCampaign.Result result = campaign.run("c1");
+
+        assertEquals(new FineReminderCampaign.Result(1, 0, 2), result);
+        verify(emailService, times(1)).sendEmail(anyString(), anyString(), anyString());
+        verify(campaignRepository).save(new CampaignCheckpoint("c1", "c@x.com", 3, 0));
+    }
+
+    @Test
+    void finishedCampaignSendsNothingAgain() {
+        when(campaignRepository.find("c1"))
+                .thenReturn(Optional.of(new CampaignCheckpoint("c1", "c@x.com", 3, 0)));
+        when(borrowRepository.streamUnpaidFineTotals("c@x.com")).thenReturn(Stream.empty());
+
+        assertEquals(new FineReminderCampaign.Result(0, 0, 3), campaign.run("c1"));
+        verifyNoInteractions(emailService);
+        verify(campaignRepository, never()).save(any());
+    }
+
+    @Test
+    void failedSendsAreCountedAndPassed() {
+        when(borrowRepository.streamUnpaidFineTotals(""))
+                .thenReturn(Stream.of(new FineTotal("a@x.com", 10), new FineTotal("b@x.com", 25)));
+        when(emailService.sendEmail(eq("a@x.com"), anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("smtp down")));
+
+        assertEquals(new FineReminderCampaign.Result(1, 1, 0), campaign.run("c1"));
+        verify(campaignRepository).save(new CampaignCheckpoint("c1", "b@x.com", 1, 1));
+    }
+
+    @Test
+    void progressIsCheckpointedWhileRunning() {
+        int students = FineReminderCampaign.CHECKPOINT_INTERVAL * 2 + 5;
+        when(borrowRepository.streamUnpaidFineTotals(""))
+                .thenReturn(IntStream.range(0, students).mapToObj(i -> new FineTotal(String.format("s%04d@x.com", i), 1)));
+
+        campaign.run("c1");
+
+        ArgumentCaptor<CampaignCheckpoint> saved = ArgumentCaptor.forClass(CampaignCheckpoint.class);
+        verify(campaignRepository, times(3)).save(saved.capture());
+        List<CampaignCheckpoint> checkpoints = saved.getAllValues();
+        assertEquals(new CampaignCheckpoint("c1", "s0099@x.com", 100, 0), checkpoints.get(0));
+        assertEquals(new CampaignCheckpoint("c1", "s0199@x.com", 200, 0), checkpoints.get(1));
+        assertEquals(new CampaignCheckpoint("c1", "s0204@x.com", 205, 0), checkpoints.get(2));
+    }
+
+    @Test
+    void checkpointNeverPassesAnUnfinishedSend() {
+        CompletableFuture<Void> slow = new CompletableFuture<>();
+        when(borrowRepository.streamUnpaidFineTotals(""))
+                .thenReturn(Stream.of(new FineTotal("a@x.com", 1), new FineTotal("b@x.com", 1), new FineTotal("c@x.com", 1)));
+        when(emailService.sendEmail(eq("a@x.com"), anyString(), anyString())).thenReturn(slow);
+
+        // Finish the slow send from another thread once the campaign is waiting for it.
+        new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            slow.complete(null);
+        }).start();
+
+        assertEquals(new FineReminderCampaign.Result(3, 0, 0), campaign.run("c1"));
+        verify(campaignRepository).save(new CampaignCheckpoint("c1", "c@x.com", 3, 0));
+    }
+
+    @Test
+    void invalidParallelismIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FineReminderCampaign(borrowRepository, campaignRepository, emailService, 0, 5));
+    }
+}
@@ -0,0 +1,174 @@
+package service;
+
+import domain.ImportCheckpoint;
+import domain.Items;
+import domain.libraryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.ItemImportRepository;
+import util.CsvReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ItemImporterTest {
+
+    private ItemImportRepository repository;
+    private ItemImporter importer;
+
+    private final List<List<Items>> chunks = new ArrayList<>();
+    private final List<ImportCheckpoint> checkpoints = new ArrayList<>();
+    private final List<String> rejected = new ArrayList<>();
+
+    private final ItemImporter.Listener listener = new ItemImporter.Listener() {
+        @Override
+        public void rejected(long line, List<String> row, String reason) {
+            rejected.add(line + ": " + reason);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ItemImportRepository.class);
+        when(repository.find("feed")).thenReturn(Optional.empty());
+        when(repository.importChunk(anyLong(), any(), any())).thenAnswer(inv -> {
+            chunks.add(inv.getArgument(2));
+            checkpoints.add(inv.getArgument(1));
+            return true;
+        });
+        importer = new ItemImporter(repository, 2, () -> 0);
+    }
+
+    private static CsvReader csv(String text) {
+        return new CsvReader(new StringReader(text), ',');
+    }
+
+    @Test
+    void importsValidRowsInChunksWithACheckpointEach() throws IOException {
+        ItemImporter.Result result = importer.run("feed", csv("""
+                name,author,quantity,type
+                Dune,Herbert,3,Book
+                Thriller,Jackson,1,cd
+                Emma,Austen,2,BOOK
+                """), listener);
+
+        assertTrue(result.completed());
+        assertEquals(3, result.imported());
+        assertEquals(List.of(List.of("Dune"), List.of("Thriller", "Emma")),
+                chunks.stream().map(c -> c.stream().map(Items::getName).toList()).toList());
+        assertEquals(List.of(new ImportCheckpoint("feed", 2, 1, 0), new ImportCheckpoint("feed", 4, 3, 0)),
+                checkpoints);
+        verify(repository).importChunk(0, checkpoints.get(0), chunks.get(0));
+        Items emma = chunks.get(1).get(1);
+        assertEquals(libraryType.Book, emma.getType());
+        assertEquals(2, emma.getQuantity());
+        assertEquals("Austen", emma.getAuthor());
+    }
+
+    @Test
+    void rejectsRowsWithTheRulesOfAddNewItem() throws IOException {
+        ItemImporter.Result result = importer.run("feed", csv("""
+                Dune,Herbert,3,Book
+                ,Nobody,1,CD
+                Blank,,1,CD
+                Zero,Someone,0,CD
+                Typeless,Someone,1,
+                Vinyl,Someone,1,LP
+                Short,row
+                Many,Items,x,CD
+                """ + "x".repeat(256) + ",Someone,1,CD\n"), listener);
+
+        assertEquals(1, result.imported());
+        assertEquals(8, result.rejected());
+        assertEquals(List.of(
+                "2: Item name cannot be empty.",
+                "3: Author cannot be empty.",
+                "4: Quantity must be greater than 0.",
+                "5: Type (BOOK / CD) is required.",
+                "6: Type must be BOOK or CD.",
+                "7: Expected 4 columns (name, author, quantity, type), found 2.",
+                "8: Quantity must be a number.",
+                "9: Item name is longer than 255 characters."), rejected);
+        assertEquals(new ImportCheckpoint("feed", 9, 1, 8), checkpoints.get(checkpoints.size() - 1));
+    }
+
+    @Test
+    void resumesAfterTheCommittedRecords() throws IOException {
+        when(repository.find("feed")).thenReturn(Optional.of(new ImportCheckpoint("feed", 3, 2, 0)));
+
+        ItemImporter.Result result = importer.run("feed", csv("""
+                name,author,quantity,type
+                Dune,Herbert,3,Book
+                Emma,Austen,2,Book
+                Thriller,Jackson,1,CD
+                """), listener);
+
+        assertEquals(3, result.skipped());
+        assertEquals(1, result.imported());
+        assertEquals(List.of("Thriller"), chunks.get(0).stream().map(Items::getName).toList());
+        verify(repository).importChunk(3, new ImportCheckpoint("feed", 4, 3, 0), chunks.get(0));
+    }
+
+    @Test
+    void rerunOfAFinishedImportWritesNothing() throws IOException {
+        when(repository.find("feed")).thenReturn(Optional.of(new ImportCheckpoint("feed", 2, 2, 0)));
+
+        ItemImporter.Result result = importer.run("feed", csv("Dune,Herbert,3,Book\nEmma,Austen,2,Book\n"), listener);
+
+        assertTrue(result.completed());
+        assertEquals(0, result.imported());
+        verify(repository, never()).importChunk(anyLong(), any(), any());
+    }
+
+    @Test
+    void sourceShorterThanTheCheckpointDoesNotMoveItBack() throws IOException {
+        when(repository.find("feed")).thenReturn(Optional.of(new ImportCheckpoint("feed", 10, 10, 0)));
+
+        assertTrue(importer.run("feed", csv("Dune,Herbert,3,Book\n"), listener).completed());
+        verify(repository, never()).importChunk(anyLong(), any(), any());
+    }
+
+    @Test
+    void failedChunkStopsTheImportAndKeepsItsRejectsForTheRerun() throws IOException {
+        doReturn(true, false).when(repository).importChunk(anyLong(), any(), any());
+
+        ItemImporter.Result result = importer.run("feed", csv("""
+                Dune,Herbert,3,Book
+                Emma,Austen,2,Book
+                Bad,Row,x,CD
+                Thriller,Jackson,1,CD
+                Never,Read,1,CD
+                """), listener);
+
+        assertFalse(result.completed());
+        assertEquals(2, result.imported());
+        assertTrue(rejected.isEmpty());
+        verify(repository, times(2)).importChunk(anyLong(), any(), any());
+    }
+
+    @Test
+    void reportsProgressAfterEachChunk() throws IOException {
+        List<Long> progress = new ArrayList<>();
+        importer.run("feed", csv("a,b,1,CD\nc,d,1,CD\ne,f,1,CD\n"), new ItemImporter.Listener() {
+            @Override
+            public void progress(ItemImporter.Result soFar) {
+                progress.add(soFar.imported());
+            }
+        });
+
+        assertEquals(List.of(2L, 3L), progress);
+    }
+
+    @Test
+    void rejectsNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ItemImporter(repository, 0, () -> 0));
+    }
+}
@@ -2,6 +2,7 @@ package service;
 
 import domain.Items;
 import domain.libraryType;
+import repository.CatalogIndex;
 import repository.ItemsRepository;
 
 import org.junit.jupiter.api.AfterEach;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -124,15 +126,14 @@ class ItemsServiceTest {
     @Test
     void increaseQuantityByISBN_Success() {
         int isbn = 123;
-        Items existingItem = new Items("Author", "Title", libraryType.Book, 5, "");
 
-        when(itemsRepository.findByISBN(isbn)).thenReturn(Optional.of(existingItem));
+        when(itemsRepository.existsByISBN(isbn)).thenReturn(true);
         when(itemsRepository.increaseQuantity(isbn)).thenReturn(true);
 
         boolean result = itemsService.increaseQuantityByISBN("123");
 
         assertTrue(result);
-        verify(itemsRepository).findByISBN(isbn);
+        verify(itemsRepository).existsByISBN(isbn);
         verify(itemsRepository).increaseQuantity(isbn);
     }
 
@@ -168,7 +169,7 @@ class ItemsServiceTest {
 
     @Test
     void increaseQuantityByISBN_NotFound_ThrowsException() {
-        when(itemsRepository.findByISBN(5000)).thenReturn(Optional.empty());
+        when(itemsRepository.existsByISBN(5000)).thenReturn(false);
 
         Exception ex = assertThrows(
                 IllegalArgumentException.class,
@@ -176,7 +177,7 @@ class ItemsServiceTest {
         );
 
         assertEquals("No item found with this ISBN.", ex.getMessage());
-        verify(itemsRepository).findByISBN(5000);
+        verify(itemsRepository).existsByISBN(5000);
         verify(itemsRepository, never()).increaseQuantity(anyInt());
     }
 
@@ -250,32 +251,32 @@ class ItemsServiceTest {
                 new Items("A2", "Sara", libraryType.CD, 2, "2")
         );
 
-        when(itemsRepository.findByName(name)).thenReturn(mockList);
+        when(itemsRepository.findByName(name, null, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(mockList);
 
         List<Items> result = itemsService.searchByName(name, null);
 
         assertEquals(2, result.size());
-        verify(itemsRepository).findByName(name);
+        verify(itemsRepository).findByName(name, null, ItemsService.DEFAULT_SEARCH_LIMIT, 0);
     }
 
     @Test
-    void searchByName_FiltersWrongType() {
+    void searchByName_PushesTypeFilterToRepository() {
         List<Items> list = List.of(
-                new Items("A1", "Sara", libraryType.Book, 3, "1"),
-                new Items("A2", "Sara", libraryType.CD, 2, "2")
+                new Items("A1", "Sara", libraryType.Book, 3, "1")
         );
 
-        when(itemsRepository.findByName("Sara")).thenReturn(list);
+        when(itemsRepository.findByName("Sara", libraryType.Book, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(list);
 
         List<Items> result = itemsService.searchByName("Sara", libraryType.Book);
 
         assertEquals(1, result.size());
         assertEquals(libraryType.Book, result.get(0).getType());
+        verify(itemsRepository, never()).findByName("Sara");
     }
 
     @Test
     void searchByName_EmptyResults() {
-        when(itemsRepository.findByName("Nothing")).thenReturn(List.of());
+        when(itemsRepository.findByName("Nothing", null, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(List.of());
 
         List<Items> result = itemsService.searchByName("Nothing", null);
 
@@ -283,16 +284,16 @@ class ItemsServiceTest {
     }
 
     @Test
-    void searchByName_FilterReturnsEmpty() {
+    void searchByName_PassesPageToRepository() {
         List<Items> list = List.of(
                 new Items("A1", "Sara", libraryType.CD, 3, "1")
         );
 
-        when(itemsRepository.findByName("Sara")).thenReturn(list);
+        when(itemsRepository.findByName("Sara", libraryType.CD, 10, 20)).thenReturn(list);
 
-        List<Items> result = itemsService.searchByName("Sara", libraryType.Book);
+        List<Items> result = itemsService.searchByName("Sara", libraryType.CD, 10, 20);
 
-        assertTrue(result.isEmpty());
+        assertEquals(list, result);
     }
 
     // --------------------------------------------------------
@@ -307,7 +308,7 @@ class ItemsServiceTest {
                 new Items("Sara", "CD1", libraryType.CD, 5, "2")
         );
 
-        when(itemsRepository.findByAuthor(author)).thenReturn(list);
+        when(itemsRepository.findByAuthor(author, null, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(list);
 
         List<Items> result = itemsService.searchByAuthor(author, null);
 
@@ -315,14 +316,13 @@ class ItemsServiceTest {
     }
 
     @Test
-    void searchByAuthor_FilterCorrectly() {
+    void searchByAuthor_PushesTypeFilterToRepository() {
         String author = "Sara";
         List<Items> list = List.of(
-                new Items("Sara", "Book1", libraryType.Book, 3, "1"),
                 new Items("Sara", "CD1", libraryType.CD, 5, "2")
         );
 
-        when(itemsRepository.findByAuthor(author)).thenReturn(list);
+        when(itemsRepository.findByAuthor(author, libraryType.CD, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(list);
 
         List<Items> result = itemsService.searchByAuthor(author, libraryType.CD);
 
@@ -332,7 +332,7 @@ class ItemsServiceTest {
 
     @Test
     void searchByAuthor_NoResults() {
-        when(itemsRepository.findByAuthor("Nobody")).thenReturn(List.of());
+        when(itemsRepository.findByAuthor("Nobody", null, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(List.of());
 
         List<Items> result = itemsService.searchByAuthor("Nobody", null);
 
@@ -340,16 +340,13 @@ class ItemsServiceTest {
     }
 
     @Test
-    void searchByAuthor_FilterReturnsEmpty() {
-        List<Items> list = List.of(
-                new Items("Sara", "Title", libraryType.Book, 3, "1")
-        );
-
-        when(itemsRepository.findByAuthor("Sara")).thenReturn(list);
+    void searchByAuthor_PassesPageToRepository() {
+        when(itemsRepository.findByAuthor("Sara", libraryType.Book, 5, 0)).thenReturn(List.of());
 
-        List<Items> result = itemsService.searchByAuthor("Sara", libraryType.CD);
+        List<Items> result = itemsService.searchByAuthor("Sara", libraryType.Book, 5, 0);
 
         assertTrue(result.isEmpty());
+        verify(itemsRepository).findByAuthor("Sara", libraryType.Book, 5, 0);
     }
 
     // --------------------------------------------------------
@@ -361,7 +358,7 @@ class ItemsServiceTest {
         List<Items> list = List.of(
                 new Items("A1", "Sara", libraryType.Book, 3, "1")
         );
-        when(itemsRepository.findByName("Sara")).thenReturn(list);
+        when(itemsRepository.findByName("Sara", libraryType.Book, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(list);
 
         List<Items> result = itemsService.searchBooksByName("Sara");
 
@@ -371,7 +368,7 @@ class ItemsServiceTest {
 
     @Test
     void searchBooksByName_Empty() {
-        when(itemsRepository.findByName("Sara")).thenReturn(List.of());
+        when(itemsRepository.findByName("Sara", libraryType.Book, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(List.of());
 
         List<Items> result = itemsService.searchBooksByName("Sara");
 
@@ -383,7 +380,7 @@ class ItemsServiceTest {
         List<Items> list = List.of(
                 new Items("A1", "Sara", libraryType.CD, 3, "1")
         );
-        when(itemsRepository.findByName("Sara")).thenReturn(list);
+        when(itemsRepository.findByName("Sara", libraryType.CD, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(list);
 
         List<Items> result = itemsService.searchCDsByName("Sara");
 
@@ -393,7 +390,7 @@ class ItemsServiceTest {
 
     @Test
     void searchCDsByName_Empty() {
-        when(itemsRepository.findByName("Sara")).thenReturn(List.of());
+        when(itemsRepository.findByName("Sara", libraryType.CD, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(List.of());
 
         List<Items> result = itemsService.searchCDsByName("Sara");
 
@@ -409,7 +406,7 @@ class ItemsServiceTest {
         List<Items> list = List.of(
                 new Items("Sara", "Book1", libraryType.Book, 3, "1")
         );
-        when(itemsRepository.findByAuthor("Sara")).thenReturn(list);
+        when(itemsRepository.findByAuthor("Sara", libraryType.Book, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(list);
 
         List<Items> result = itemsService.searchBooksByAuthor("Sara");
 
@@ -419,7 +416,7 @@ class ItemsServiceTest {
 
     @Test
     void searchBooksByAuthor_Empty() {
-        when(itemsRepository.findByAuthor("Sara")).thenReturn(List.of());
+        when(itemsRepository.findByAuthor("Sara", libraryType.Book, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(List.of());
 
         List<Items> result = itemsService.searchBooksByAuthor("Sara");
 
@@ -431,7 +428,7 @@ class ItemsServiceTest {
         List<Items> list = List.of(
                 new Items("Sara", "CD1", libraryType.CD, 5, "2")
         );
-        when(itemsRepository.findByAuthor("Sara")).thenReturn(list);
+        when(itemsRepository.findByAuthor("Sara", libraryType.CD, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(list);
 
         List<Items> result = itemsService.searchCDsByAuthor("Sara");
 
@@ -441,10 +438,68 @@ class ItemsServiceTest {
 
     @Test
     void searchCDsByAuthor_Empty() {
-        when(itemsRepository.findByAuthor("Sara")).thenReturn(List.of());
+        when(itemsRepository.findByAuthor("Sara", libraryType.CD, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(List.of());
 
         List<Items> result = itemsService.searchCDsByAuthor("Sara");
 
         assertTrue(result.isEmpty());
     }
+
+    // --------------------------------------------------------
+    //  CatalogIndex-backed search Tests
+    // --------------------------------------------------------
+
+    @Test
+    void searchByName_UsesIndexWithLiveStock() {
+        CatalogIndex index = new CatalogIndex();
+        index.add(new Items("Sara", "Java Basics", libraryType.Book, 3, "1"));
+        ItemsService indexed = new ItemsService(itemsRepository, index);
+        when(itemsRepository.findQuantities(new int[]{1})).thenReturn(Map.of(1, 0));
+
+        List<Items> result = indexed.searchByName("jav", libraryType.Book);
+
+        assertEquals(1, result.size());
+        assertEquals("1", result.get(0).getISBN());
+        assertEquals(0, result.get(0).getQuantity());
+        verify(itemsRepository, never()).findByName(anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchByAuthor_IndexMatchesInsideWords() {
+        CatalogIndex index = new CatalogIndex();
+        index.add(new Items("Sara", "B1", libraryType.Book, 1, "1"));
+        ItemsService indexed = new ItemsService(itemsRepository, index);
+        when(itemsRepository.findQuantities(new int[]{1})).thenReturn(Map.of(1, 4));
+
+        List<Items> result = indexed.searchByAuthor("ar", null);
+
+        assertEquals(List.of("1"), result.stream().map(Items::getISBN).toList());
+        assertEquals(4, result.get(0).getQuantity());
+        verify(itemsRepository, never()).findByAuthor(anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchByName_IndexAnswersEveryPageAndOmitsRemovedItems() {
+        CatalogIndex index = new CatalogIndex();
+        index.add(new Items("Sara", "Java Basics", libraryType.Book, 3, "1"));
+        index.add(new Items("Sara", "Java Advanced", libraryType.Book, 3, "2"));
+        index.add(new Items("Sara", "Java Streams", libraryType.Book, 3, "3"));
+        ItemsService indexed = new ItemsService(itemsRepository, index);
+        when(itemsRepository.findQuantities(new int[]{2, 3})).thenReturn(Map.of(3, 2));
+
+        List<Items> page = indexed.searchByName("java", null, 2, 1);
+
+        assertEquals(List.of("3"), page.stream().map(Items::getISBN).toList());
+        assertTrue(indexed.searchByName("python", null, 10, 5).isEmpty());
+        verify(itemsRepository, never()).findByName(anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchByName_QueryWithoutWordsUsesRepository() {
+        ItemsService indexed = new ItemsService(itemsRepository, new CatalogIndex());
+        List<Items> list = List.of(new Items("Sara", "A-Z", libraryType.Book, 1, "1"));
+        when(itemsRepository.findByName("-", null, ItemsService.DEFAULT_SEARCH_LIMIT, 0)).thenReturn(list);
+
+        assertEquals(list, indexed.searchByName("-", null));
+    }
 }
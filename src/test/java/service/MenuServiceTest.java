@@ -5,6 +5,7 @@ import org.junit.jupiter.api.*;
 import org.mockito.Mockito;
 
 import java.io.*;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Scanner;
 
@@ -16,7 +17,7 @@ class MenuServiceTest {
     private userService mockUserService;
     private ItemsService mockItemsService;
     private BorrowService mockBorrowService;
-    private EmailService mockEmailService;
+    private FineReminderCampaign mockReminderCampaign;
 
     private ByteArrayOutputStream outContent;
     private PrintStream originalOut;
@@ -26,7 +27,7 @@ class MenuServiceTest {
         mockUserService = mock(userService.class);
         mockItemsService = mock(ItemsService.class);
         mockBorrowService = mock(BorrowService.class);
-        mockEmailService = mock(EmailService.class);
+        mockReminderCampaign = mock(FineReminderCampaign.class);
 
         outContent = new ByteArrayOutputStream();
         originalOut = System.out;
@@ -41,7 +42,7 @@ class MenuServiceTest {
     // Helper to create menuService with input
     private menuService createMenu(String input) {
         Scanner scanner = new Scanner(new ByteArrayInputStream(input.getBytes()));
-        return spy(new menuService(scanner, mockUserService, mockItemsService, mockBorrowService, mockEmailService));
+        return spy(new menuService(scanner, mockUserService, mockItemsService, mockBorrowService, mockReminderCampaign));
     }
 
     // ===================== showMainMenu =====================
@@ -277,7 +278,7 @@ class MenuServiceTest {
     @Test
     void testSendFineRemindersEmptyAndNonEmpty() {
         // empty
-        when(mockBorrowService.getStudentsWithUnpaidFines()).thenReturn(List.of());
+        when(mockReminderCampaign.run(anyString())).thenReturn(new FineReminderCampaign.Result(0, 0, 0));
         menuService menu = createMenu("");
         menu.sendFineReminders();
         assertTrue(outContent.toString().contains("No users with unpaid fines") || outContent.toString().contains("No users"));
@@ -285,16 +286,35 @@ class MenuServiceTest {
         outContent.reset();
 
         // non-empty
-        when(mockBorrowService.getStudentsWithUnpaidFines()).thenReturn(List.of("a@x.com", "b@x.com"));
+        when(mockReminderCampaign.run(anyString())).thenReturn(new FineReminderCampaign.Result(2, 0, 0));
         menu.sendFineReminders();
-        verify(mockEmailService, times(2)).sendEmail(anyString(), anyString(), anyString());
+        verify(mockReminderCampaign, times(2)).run(startsWith("fine-reminders-"));
         assertTrue(outContent.toString().contains("Fine reminder emails sent to 2 students") || outContent.toString().contains("sent to 2"));
     }
 
+    @Test
+    void testSendFineRemindersCountsFailedSends() {
+        when(mockReminderCampaign.run(anyString())).thenReturn(new FineReminderCampaign.Result(1, 1, 0));
+
+        createMenu("").sendFineReminders();
+
+        assertTrue(outContent.toString().contains("sent to 1 students"));
+        assertTrue(outContent.toString().contains("1 fine reminder emails could not be sent"));
+    }
+
+    @Test
+    void testSendFineRemindersAlreadyCompletedToday() {
+        when(mockReminderCampaign.run(anyString())).thenReturn(new FineReminderCampaign.Result(0, 0, 3));
+
+        createMenu("").sendFineReminders();
+
+        assertTrue(outContent.toString().contains("already sent to 3 students today"));
+    }
+
     // ===================== showLibrarianMenu =====================
     @Test
     void testShowLibrarianMenuEmptyOverdue() {
-        when(mockBorrowService.getOverdueStudents()).thenReturn(List.of());
+        when(mockBorrowService.getOverdueBorrows()).thenReturn(List.of());
         menuService menu = createMenu("1\n2\n");
         menu.showLibrarianMenu();
         assertTrue(outContent.toString().contains("Overdue Users") || outContent.toString().contains("Overdue"));
@@ -303,16 +323,13 @@ class MenuServiceTest {
 
     @Test
     void testShowLibrarianMenuNonEmptyOverduePrintsEntries() {
-        Borrow b = new Borrow() {
-            @Override
-            public String toString() {
-                return "student1 111 2025-01-01 2025-01-11 10";
-            }
-        };
-        when(mockBorrowService.getOverdueStudents()).thenReturn(List.of(b));
+        ActiveBorrow b = new ActiveBorrow(1, "student1", 111, LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 1, 8), libraryType.CD);
+        when(mockBorrowService.getOverdueBorrows()).thenReturn(List.of(new OverdueBorrow(b, 3, 60)));
         menuService menu = createMenu("1\n2\n");
         menu.showLibrarianMenu();
-        assertTrue(outContent.toString().contains("student1"));
+        assertTrue(outContent.toString().contains("student1 111   2025-01-01   2025-01-08    3    60"));
+        verify(mockBorrowService, never()).getOverdueStudents();
     }
 
     // ===================== showStudentMenu (current placeholder behaviour) =====================
@@ -0,0 +1,70 @@
+package service;
+
+import domain.Role;
+import domain.user;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import repository.SessionRepository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-10T12:00:00Z");
+
+    private SessionRepository repository;
+    private SessionService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SessionRepository.class);
+        when(repository.create(anyString(), anyString(), any())).thenReturn(true);
+        service = new SessionService(repository, 600, () -> NOW);
+    }
+
+    @Test
+    void startStoresOnlyTheHashOfANewToken() {
+        String token = service.start("s@mail.com");
+
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(repository).create(hash.capture(), eq("s@mail.com"), eq(NOW.plusSeconds(600)));
+        assertEquals(SessionService.hash(token), hash.getValue());
+        assertNotEquals(token, hash.getValue());
+        assertNotEquals(token, service.start("s@mail.com"));
+    }
+
+    @Test
+    void findUserLooksUpTheTokensHash() {
+        user stored = new user("s@mail.com", Role.STUDENT, null);
+        when(repository.findUser(SessionService.hash("abc"))).thenReturn(Optional.of(stored));
+
+        assertEquals(Optional.of(stored), service.findUser("abc"));
+        assertTrue(service.findUser("other").isEmpty());
+    }
+
+    @Test
+    void endDeletesByHashAndEndAllByEmail() {
+        service.end("abc");
+        service.endAll("s@mail.com");
+
+        verify(repository).delete(SessionService.hash("abc"));
+        verify(repository).deleteByEmail("s@mail.com");
+    }
+
+    @Test
+    void sessionThatCannotBeStoredIsAnError() {
+        when(repository.create(anyString(), anyString(), any())).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> service.start("s@mail.com"));
+    }
+
+    @Test
+    void hashIsHexSha256() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", SessionService.hash("abc"));
+    }
+}
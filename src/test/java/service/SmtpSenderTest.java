@@ -0,0 +1,102 @@
+package service;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpSenderTest {
+
+    private FakeSmtpServer smtp;
+    private EmailService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new FakeSmtpServer();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) service.close();
+        smtp.close();
+    }
+
+    private void awaitAll(List<CompletableFuture<Void>> results) throws Exception {
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void sendAllReusesOneConnectionPerWorker() throws Exception {
+        service = new EmailService(smtp.smtpProperties(), "lib@x.com", null, 100, 1, 1_000).start();
+        List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(service.createMessage("s" + i + "@x.com", "Reminder " + i, "Please pay."));
+        }
+
+        awaitAll(service.sendAll(batch));
+
+        assertEquals(20, smtp.messages.size());
+        assertEquals(1, smtp.connections.get());
+        assertEquals(1, service.getStats().connections());
+        assertTrue(smtp.messages.get(0).contains("Subject: Reminder 0"));
+    }
+
+    @Test
+    void connectionIsRecycledAfterMessageCap() throws Exception {
+        service = new EmailService(smtp.smtpProperties(), "lib@x.com", null, 100, 1, 5).start();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            results.add(service.sendEmail("s" + i + "@x.com", "Hi", "Body"));
+        }
+
+        awaitAll(results);
+
+        assertEquals(12, smtp.messages.size());
+        assertEquals(3, smtp.connections.get());
+    }
+
+    @Test
+    void droppedConnectionIsReopenedAndMessageRetried() throws Exception {
+        smtp.dropAfterMessages = 2;
+        service = new EmailService(smtp.smtpProperties(), "lib@x.com", null, 100, 1, 1_000).start();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(service.sendEmail("s" + i + "@x.com", "Hi", "Body"));
+        }
+
+        awaitAll(results);
+
+        assertEquals(5, smtp.messages.size());
+        assertEquals(3, smtp.connections.get());
+        assertEquals(0, service.getStats().failed());
+    }
+
+    @Test
+    void unreachableServerFailsWithoutRetry() throws Exception {
+        Properties props = smtp.smtpProperties();
+        smtp.close();
+        AtomicInteger connects = new AtomicInteger();
+        Session session = Session.getInstance(props);
+        SmtpSender sender = new SmtpSender(session, 10, connects::incrementAndGet);
+
+        MimeMessage message = new MimeMessage(session);
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress("a@x.com"));
+        message.setText("Body");
+
+        assertThrows(MessagingException.class, () -> sender.send(message));
+        assertEquals(0, connects.get());
+    }
+}
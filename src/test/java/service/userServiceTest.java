@@ -3,26 +3,28 @@ package service;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import repository.userRepository;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import domain.OutboxEmail;
 import domain.user;
 import domain.Role;
 import util.PasswordHasher;
+import util.Pbkdf2Sha256;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 
 class userServiceTest {
     private userRepository userRepository;
-    private EmailService emailService;
     private userService userService;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(userRepository.class);
-        emailService = mock(EmailService.class);
-        userService = new userService(userRepository, emailService);
+        userService = new userService(userRepository);
     }
 
     @AfterEach
@@ -35,13 +37,12 @@ class userServiceTest {
         String password = "sarasara";
         when(userRepository.findByEmail(email))
                 .thenReturn(Optional.empty());
-        when(userRepository.save(any(user.class)))
+        when(userRepository.save(any(user.class), any(OutboxEmail.class)))
                 .thenReturn(true);
         boolean result = userService.registerUser(email, password, password);
         assertTrue(result);
-        verify(userRepository, times(1)).save(any(user.class));
-        verify(emailService, times(1))
-                .sendEmail(eq(email), anyString(), anyString());
+        verify(userRepository, times(1))
+                .save(any(user.class), argThat((OutboxEmail e) -> e.recipient().equals(email)));
 
     }
 
@@ -61,10 +62,7 @@ class userServiceTest {
 
         assertEquals("This email is already used.", ex.getMessage());
 
-        verify(userRepository, never()).save(any(user.class));
-        verify(emailService, never())
-                .sendEmail(anyString(), anyString(), anyString());
-    }
+        verify(userRepository, never()).save(any(user.class), any(OutboxEmail.class));    }
 
     @Test
     void registerUserWithShortPasswordException() {
@@ -81,10 +79,7 @@ class userServiceTest {
 
         assertEquals("Password must be at least 8 characters and match the confirmation.", ex.getMessage());
 
-        verify(userRepository, never()).save(any(user.class));
-        verify(emailService, never())
-                .sendEmail(anyString(), anyString(), anyString());
-    }
+        verify(userRepository, never()).save(any(user.class), any(OutboxEmail.class));    }
 
     @Test
     void registerUserPasswordMismatchException() {
@@ -100,10 +95,7 @@ class userServiceTest {
 
         assertEquals("Password must be at least 8 characters and match the confirmation.", ex.getMessage());
 
-        verify(userRepository, never()).save(any(user.class));
-        verify(emailService, never())
-                .sendEmail(anyString(), anyString(), anyString());
-    }
+        verify(userRepository, never()).save(any(user.class), any(OutboxEmail.class));    }
 
     @Test
     void registerUserSaveFailsDoesNotSendEmail() {
@@ -112,13 +104,14 @@ class userServiceTest {
 
         when(userRepository.findByEmail(email))
                 .thenReturn(Optional.empty());
-        when(userRepository.save(any(user.class)))
+        when(userRepository.save(any(user.class), any(OutboxEmail.class)))
                 .thenReturn(false);
 
         boolean result = userService.registerUser(email, password, password);
 
         assertFalse(result);
-        verify(emailService, never()).sendEmail(anyString(), anyString(), anyString());
+        verify(userRepository, times(1)).save(any(user.class), any(OutboxEmail.class));
+        verify(userRepository, never()).save(any(user.class));
     }
 
     @Test
@@ -169,6 +162,98 @@ class userServiceTest {
         assertEquals("No user found with this email.", ex.getMessage());
     }
 
+    @Test
+    void authenticateAsyncHashesOnThePool() {
+        String email = "sara@gmail.com";
+        user u = new user(email, Role.STUDENT, PasswordHasher.hashPassword("sarasara"));
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(u));
+
+        try (PasswordHasher hasher = new PasswordHasher(new Pbkdf2Sha256(), 1_000, 2, 10, 2)) {
+            userService service = new userService(userRepository, hasher);
+
+            assertSame(u, service.authenticateAsync(email, "sarasara").join());
+            CompletionException ex = assertThrows(CompletionException.class,
+                    () -> service.authenticateAsync(email, "wrongPassword").join());
+            assertEquals("Incorrect password.", ex.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void authenticateUpgradesLegacyHashAfterSuccessfulLogin() {
+        String email = "sara@gmail.com";
+        String legacy = PasswordHasher.hashPassword("sarasara");
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(new user(email, Role.STUDENT, legacy)));
+
+        try (PasswordHasher hasher = new PasswordHasher(new Pbkdf2Sha256(), 1_000, 1, 10, 1)) {
+            new userService(userRepository, hasher).authenticate(email, "sarasara");
+
+            ArgumentCaptor<String> upgraded = ArgumentCaptor.forClass(String.class);
+            verify(userRepository).updatePasswordHash(eq(email), eq(legacy), upgraded.capture());
+            assertTrue(upgraded.getValue().startsWith("$pbkdf2-sha256$1000$"));
+            assertTrue(hasher.verify("sarasara", upgraded.getValue()));
+        }
+    }
+
+    @Test
+    void authenticateKeepsCurrentHashAndNeverUpgradesOnWrongPassword() {
+        String email = "sara@gmail.com";
+        try (PasswordHasher hasher = new PasswordHasher(new Pbkdf2Sha256(), 1_000, 1, 10, 1)) {
+            String current = hasher.hash("sarasara");
+            when(userRepository.findByEmail(email)).thenReturn(Optional.of(new user(email, Role.STUDENT, current)));
+            userService service = new userService(userRepository, hasher);
+
+            assertEquals(email, service.authenticate(email, "sarasara").getEmail());
+            assertThrows(IllegalArgumentException.class, () -> service.authenticate(email, "wrongPassword"));
+
+            verify(userRepository, never()).updatePasswordHash(anyString(), anyString(), anyString());
+        }
+    }
+
+    @Test
+    void registerUserStoresSaltedVersionedHash() {
+        when(userRepository.findByEmail("new@gmail.com")).thenReturn(Optional.empty());
+        when(userRepository.save(any(user.class), any(OutboxEmail.class))).thenReturn(true);
+
+        try (PasswordHasher hasher = new PasswordHasher(new Pbkdf2Sha256(), 1_000, 1, 10, 1)) {
+            new userService(userRepository, hasher).registerUser("new@gmail.com", "password1", "password1");
+
+            ArgumentCaptor<user> saved = ArgumentCaptor.forClass(user.class);
+            verify(userRepository).save(saved.capture(), any(OutboxEmail.class));
+            assertTrue(saved.getValue().getPasswordHash().startsWith("$pbkdf2-sha256$1000$"));
+            assertTrue(hasher.verify("password1", saved.getValue().getPasswordHash()));
+        }
+    }
+
+    @Test
+    void registerUserAsyncHashesOnThePoolAndRejectsBadInputUpFront() {
+        when(userRepository.findByEmail("new@gmail.com")).thenReturn(Optional.empty());
+        when(userRepository.save(any(user.class), any(OutboxEmail.class))).thenReturn(true);
+
+        try (PasswordHasher hasher = new PasswordHasher(new Pbkdf2Sha256(), 1_000, 1, 10, 1)) {
+            userService service = new userService(userRepository, hasher);
+
+            assertTrue(service.registerUserAsync("new@gmail.com", "password1", "password1").join());
+            CompletionException ex = assertThrows(CompletionException.class,
+                    () -> service.registerUserAsync("new@gmail.com", "short", "short").join());
+            assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+
+            ArgumentCaptor<user> saved = ArgumentCaptor.forClass(user.class);
+            verify(userRepository).save(saved.capture(), any(OutboxEmail.class));
+            assertTrue(hasher.verify("password1", saved.getValue().getPasswordHash()));
+        }
+    }
+
+    @Test
+    void authenticateAsyncUnknownEmailFailsWithoutHashing() {
+        when(userRepository.findByEmail("nobody@gmail.com")).thenReturn(Optional.empty());
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> userService.authenticateAsync("nobody@gmail.com", "anyPassword123").join());
+
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        assertEquals("No user found with this email.", ex.getCause().getMessage());
+    }
+
     @Test
     void getInactiveUsers() {
         user u1 = new user("sara@gmail.com", Role.STUDENT, null);
@@ -184,6 +269,17 @@ class userServiceTest {
 
     }
 
+    @Test
+    void streamInactiveUsersStreamsFromRepository() {
+        user u1 = new user("sara@gmail.com", Role.STUDENT, null);
+        when(userRepository.streamInactiveUsersSince(any()))
+                .thenReturn(java.util.stream.Stream.of(u1));
+        try (java.util.stream.Stream<user> result = userService.streamInactiveUsers()) {
+            assertEquals(java.util.List.of(u1), result.toList());
+        }
+        verify(userRepository, never()).findInactiveUsersSince(any());
+    }
+
     @Test
     void removeInactiveUser() {
         String email = "sara@gmail.com";
@@ -0,0 +1,51 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsRecordsAndTracksTheirLines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,b,c\n\n1,,3\n"), ',');
+
+        assertEquals(List.of("a", "b", "c"), csv.next());
+        assertEquals(1, csv.getRecordLine());
+        assertEquals(List.of("1", "", "3"), csv.next());
+        assertEquals(3, csv.getRecordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void quotedFieldsMayHoldDelimitersQuotesAndLineBreaks() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\"Smith, J\",\"say \"\"hi\"\"\",\"two\nlines\",\"\"\nnext,row"), ',');
+
+        assertEquals(List.of("Smith, J", "say \"hi\"", "two\nlines", ""), csv.next());
+        assertEquals(List.of("next", "row"), csv.next());
+        assertEquals(3, csv.getRecordLine());
+    }
+
+    @Test
+    void readsTabSeparatedValues() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,b\tc"), '\t');
+
+        assertEquals(List.of("a,b", "c"), csv.next());
+    }
+
+    @Test
+    void unclosedQuoteIsAnError() {
+        CsvReader csv = new CsvReader(new StringReader("\"open,1\n2"), ',');
+
+        assertThrows(IOException.class, csv::next);
+    }
+
+    @Test
+    void rejectsQuoteAsDelimiter() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvReader(new StringReader(""), '"'));
+    }
+}
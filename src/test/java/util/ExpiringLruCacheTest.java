@@ -0,0 +1,92 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringLruCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void getReturnsPutValueAndCountsHitsAndMisses() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(4, 1000, clock::get);
+        cache.put("a", "one");
+
+        assertEquals("one", cache.get("a"));
+        assertNull(cache.get("b"));
+
+        ExpiringLruCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void entryExpiresAfterItsTimeToLive() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(4, 1000, clock::get);
+        cache.put("a", "one");
+
+        advanceMillis(999);
+        assertEquals("one", cache.get("a"));
+        advanceMillis(1);
+        assertNull(cache.get("a"));
+
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getStats().expirations());
+    }
+
+    @Test
+    void putRestartsTheTimeToLive() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(4, 1000, clock::get);
+        cache.put("a", "one");
+        advanceMillis(800);
+        cache.put("a", "two");
+        advanceMillis(800);
+
+        assertEquals("two", cache.get("a"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, 1000, clock::get);
+        cache.put("a", "one");
+        cache.put("b", "two");
+        cache.get("a");
+        cache.put("c", "three");
+
+        assertEquals("one", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("three", cache.get("c"));
+        assertEquals(1, cache.getStats().evictions());
+    }
+
+    @Test
+    void invalidateAndClearRemoveEntries() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(3, 1000, clock::get);
+        cache.put("a", "one");
+        cache.put("b", "two");
+
+        assertTrue(cache.invalidate("a"));
+        assertFalse(cache.invalidate("a"));
+        cache.clear();
+
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringLruCache<String, String>(0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringLruCache<String, String>(1, 0));
+        assertThrows(NullPointerException.class, () -> new ExpiringLruCache<String, String>(1, 1000).put("a", null));
+    }
+}
@@ -0,0 +1,96 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLruCacheTest {
+
+    @Test
+    void getReturnsPutValueAndCountsHitsAndMisses() {
+        IntLruCache<String> cache = new IntLruCache<>(4);
+        cache.put(1, "one");
+
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+
+        IntLruCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        IntLruCache<String> cache = new IntLruCache<>(2);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.get(1);
+        cache.put(3, "three");
+
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("three", cache.get(3));
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void putReplacesExistingValueWithoutGrowing() {
+        IntLruCache<String> cache = new IntLruCache<>(2);
+        cache.put(7, "a");
+        cache.put(7, "b");
+
+        assertEquals("b", cache.get(7));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidateAndClearRemoveEntries() {
+        IntLruCache<String> cache = new IntLruCache<>(3);
+        cache.put(1, "one");
+        cache.put(2, "two");
+
+        assertTrue(cache.invalidate(1));
+        assertFalse(cache.invalidate(1));
+        assertNull(cache.get(1));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(2));
+
+        cache.put(5, "five");
+        assertEquals("five", cache.get(5));
+    }
+
+    @Test
+    void behavesLikeAMapUnderRandomOperations() {
+        IntLruCache<Integer> cache = new IntLruCache<>(64);
+        Map<Integer, Integer> model = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(128) - 64;
+            if (random.nextInt(4) == 0) {
+                cache.invalidate(key);
+                model.remove(key);
+            } else {
+                cache.put(key, i);
+                model.put(key, i);
+            }
+            Integer cached = cache.get(key);
+            if (cached != null) assertEquals(model.get(key), cached);
+            assertTrue(cache.size() <= 64);
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new IntLruCache<>(0));
+        assertThrows(NullPointerException.class, () -> new IntLruCache<String>(1).put(1, null));
+    }
+}
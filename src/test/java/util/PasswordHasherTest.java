@@ -4,6 +4,16 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class PasswordHasherTest {
@@ -26,4 +36,173 @@ class PasswordHasherTest {
         assertEquals(64, hash1.length());
         assertEquals(hash1, hash2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void hashMatchesFormatterBasedEncoding() throws Exception {
+        for (String password : List.of("", "sarataha", "pässwörd ✓", "x".repeat(500))) {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            StringBuilder expected = new StringBuilder();
+            for (byte b : digest) expected.append(String.format("%02x", b));
+
+            assertEquals(expected.toString(), PasswordHasher.hashPassword(password));
+        }
+    }
+
+    @Test
+    void toHexUsesLowerCaseDigitsForEveryByteValue() {
+        byte[] bytes = {0, 0x0f, 0x10, 0x7f, (byte) 0x80, (byte) 0xff};
+        assertEquals("000f107f80ff", PasswordHasher.toHex(bytes, new char[12]));
+    }
+
+    /** A cheap, deterministic algorithm that can be held inside a derivation. */
+    private static final class FakeAlgorithm implements PasswordHashAlgorithm {
+        volatile CountDownLatch entered = new CountDownLatch(0);
+        volatile CountDownLatch release = new CountDownLatch(0);
+
+        @Override
+        public String id() {
+            return "fake";
+        }
+
+        @Override
+        public int minimumCost() {
+            return 10;
+        }
+
+        @Override
+        public int maximumCost() {
+            return 1_000;
+        }
+
+        @Override
+        public byte[] derive(String password, byte[] salt, int cost) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] out = (password + cost).getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < out.length; i++) out[i] ^= salt[i % salt.length];
+            return out;
+        }
+    }
+
+    private static PasswordHasher pbkdf2(int cost) {
+        return new PasswordHasher(new Pbkdf2Sha256(), cost, 2, 100, 2);
+    }
+
+    @Test
+    void newHashesAreSaltedAndVersioned() {
+        try (PasswordHasher hasher = pbkdf2(1_000)) {
+            String first = hasher.hash("sarataha");
+            String second = hasher.hash("sarataha");
+
+            assertTrue(first.matches("\\$pbkdf2-sha256\\$1000\\$[A-Za-z0-9+/]{22}\\$[A-Za-z0-9+/]{43}"), first);
+            assertNotEquals(first, second);
+            assertTrue(hasher.verify("sarataha", first));
+            assertTrue(hasher.verify("sarataha", second));
+            assertFalse(hasher.verify("sarataha!", first));
+        }
+    }
+
+    @Test
+    void legacyHashesStillVerifyAndNeedRehash() {
+        try (PasswordHasher hasher = pbkdf2(1_000)) {
+            String legacy = PasswordHasher.hashPassword("sarataha");
+
+            assertTrue(hasher.verify("sarataha", legacy));
+            assertFalse(hasher.verify("other", legacy));
+            assertTrue(hasher.needsRehash(legacy));
+        }
+    }
+
+    @Test
+    void lowerCostOrOtherAlgorithmNeedsRehash() {
+        try (PasswordHasher weak = pbkdf2(1_000); PasswordHasher strong = pbkdf2(2_000);
+             PasswordHasher other = new PasswordHasher(new FakeAlgorithm(), 2_000, 1, 10, 1)) {
+            String weakHash = weak.hash("pw");
+
+            assertTrue(strong.needsRehash(weakHash));
+            assertTrue(strong.verify("pw", weakHash));
+            assertFalse(weak.needsRehash(strong.hash("pw")));
+            assertTrue(other.needsRehash(weakHash));
+            assertFalse(other.verify("pw", weakHash));
+        }
+    }
+
+    @Test
+    void slightlyLowerCostIsKept() {
+        try (PasswordHasher previous = pbkdf2(900); PasswordHasher current = pbkdf2(1_000);
+             PasswordHasher stronger = pbkdf2(1_200)) {
+            String hash = previous.hash("pw");
+
+            assertFalse(current.needsRehash(hash));
+            assertTrue(stronger.needsRehash(hash));
+        }
+    }
+
+    @Test
+    void malformedHashesDoNotVerify() {
+        try (PasswordHasher hasher = pbkdf2(1_000)) {
+            for (String stored : new String[]{null, "", "$", "$pbkdf2-sha256$x$AA$AA", "$pbkdf2-sha256$1000$!!$AA",
+                    "$pbkdf2-sha256$-5$AA$AA", "$pbkdf2-sha256$1000$AA"}) {
+                assertFalse(hasher.verify("pw", stored), String.valueOf(stored));
+            }
+        }
+    }
+
+    @Test
+    void calibrationStaysWithinAlgorithmBounds() {
+        Pbkdf2Sha256 algorithm = new Pbkdf2Sha256();
+        assertEquals(algorithm.minimumCost(), PasswordHasher.calibrate(algorithm, 1));
+        assertEquals(new FakeAlgorithm().maximumCost(), PasswordHasher.calibrate(new FakeAlgorithm(), 60_000));
+    }
+
+    @Test
+    void busyHasherTurnsCallersAwayAfterTimeout() throws Exception {
+        FakeAlgorithm algorithm = new FakeAlgorithm();
+        algorithm.entered = new CountDownLatch(1);
+        algorithm.release = new CountDownLatch(1);
+        try (PasswordHasher hasher = new PasswordHasher(algorithm, 10, 1, 10, 1, 50)) {
+            CompletableFuture<String> holding = hasher.hashAsync("first");
+            assertTrue(algorithm.entered.await(5, TimeUnit.SECONDS));
+
+            IllegalStateException ex = assertThrows(IllegalStateException.class, () -> hasher.hash("second"));
+            assertEquals("Too many logins in progress. Please try again.", ex.getMessage());
+
+            algorithm.release.countDown();
+            assertTrue(hasher.verify("first", holding.join()));
+        }
+    }
+
+    @Test
+    void hashesAndVerifiesInParallelOnThePool() {
+        try (PasswordHasher hasher = pbkdf2(1_000)) {
+            List<CompletableFuture<String>> hashes = new ArrayList<>();
+            for (int i = 0; i < 20; i++) hashes.add(hasher.hashAsync("password" + i));
+
+            for (int i = 0; i < 20; i++) {
+                assertTrue(hasher.verifyAsync("password" + i, hashes.get(i).join()).join());
+            }
+        }
+    }
+
+    @Test
+    void closedHasherRejects() {
+        PasswordHasher hasher = pbkdf2(1_000);
+        hasher.close();
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> hasher.hashAsync("x").join());
+        assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        Pbkdf2Sha256 algorithm = new Pbkdf2Sha256();
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(algorithm, 0, 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(algorithm, 1, 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(algorithm, 1, 1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(algorithm, 1, 1, 1, 0));
+    }
+}
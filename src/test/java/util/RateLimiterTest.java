@@ -0,0 +1,38 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Test
+    void firstPermitIsImmediate() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1);
+
+        long start = System.nanoTime();
+        limiter.acquire();
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+    }
+
+    @Test
+    void permitsAreSpacedByTheRate() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(50);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) limiter.acquire();
+
+        // Five intervals of 20 ms must have passed after the first permit.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 95);
+    }
+
+    @Test
+    void invalidRateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(-1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(Double.NaN));
+    }
+}
@@ -0,0 +1,78 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringIntMapTest {
+
+    @Test
+    void absentKeyReadsAsZero() {
+        StringIntMap map = new StringIntMap(4);
+
+        assertEquals(0, map.get("a@x.com"));
+        assertFalse(map.containsKey("a@x.com"));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void putReplacesValue() {
+        StringIntMap map = new StringIntMap(4);
+        map.put("a@x.com", 10);
+        map.put("a@x.com", 25);
+
+        assertEquals(25, map.get("a@x.com"));
+        assertTrue(map.containsKey("a@x.com"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void growsBeyondExpectedSize() {
+        StringIntMap map = new StringIntMap(0);
+        for (int i = 0; i < 1_000; i++) map.put("s" + i + "@x.com", i);
+
+        assertEquals(1_000, map.size());
+        for (int i = 0; i < 1_000; i++) assertEquals(i, map.get("s" + i + "@x.com"));
+        assertEquals(999L * 1_000 / 2, map.sum());
+    }
+
+    @Test
+    void forEachVisitsEveryEntry() {
+        StringIntMap map = new StringIntMap(2);
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+
+        Map<String, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+
+        assertEquals(Map.of("a", 1, "b", 2, "c", 3), seen);
+    }
+
+    @Test
+    void matchesHashMapUnderRandomPuts() {
+        Random random = new Random(7);
+        StringIntMap map = new StringIntMap(8);
+        Map<String, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            String key = "k" + random.nextInt(700);
+            int value = random.nextInt();
+            map.put(key, value);
+            expected.put(key, value);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((k, v) -> assertEquals(v, map.get(k)));
+    }
+
+    @Test
+    void nullKeyAndNegativeSizeAreRejected() {
+        assertThrows(NullPointerException.class, () -> new StringIntMap(1).put(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new StringIntMap(-1));
+    }
+}